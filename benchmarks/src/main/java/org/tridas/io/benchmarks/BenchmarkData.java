@@ -0,0 +1,152 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.tridas.io.AbstractDendroFileReader;
+import org.tridas.io.TridasIO;
+import org.tridas.io.exceptions.InvalidDendroFileException;
+import org.tridas.schema.TridasTridas;
+
+/**
+ * Locates the test corpus and makes synthetic files for the benchmarks.
+ *
+ * @author agent
+ */
+public class BenchmarkData {
+
+	/**
+	 * System property holding the path of the TestData folder
+	 */
+	public static final String TEST_DATA_PROPERTY = "dendrofileio.testdata";
+
+	private static final int FIRST_YEAR = 1700;
+
+	private BenchmarkData() {}
+
+	/**
+	 * The TestData folder, defaulting to the one next to this module
+	 *
+	 * @return
+	 */
+	public static File getTestDataFolder() {
+		return new File(System.getProperty(TEST_DATA_PROPERTY, "../TestData"));
+	}
+
+	/**
+	 * @param argRelativePath
+	 *            path of a file within the TestData folder
+	 * @return the file
+	 * @throws IOException
+	 *             if the file doesn't exist
+	 */
+	public static File getTestFile(String argRelativePath) throws IOException {
+		File file = new File(getTestDataFolder(), argRelativePath);
+		if (!file.isFile()) {
+			throw new IOException("Test file not found: " + file.getAbsolutePath() + " (set -D"
+					+ TEST_DATA_PROPERTY + " to the TestData folder)");
+		}
+		return file;
+	}
+
+	/**
+	 * Find the name a reading format is registered under. Some registered names
+	 * carry stray whitespace from the translation bundle, so they are compared
+	 * trimmed and ignoring case.
+	 *
+	 * @param argName
+	 *            name of the format, e.g. "Tucson"
+	 * @return the registered name to pass to {@link TridasIO#getFileReader(String)}
+	 * @throws IllegalArgumentException
+	 *             if there is no reader for the format
+	 */
+	public static String getReadingFormat(String argName) {
+		for (String name : TridasIO.getSupportedReadingFormats()) {
+			if (name.trim().equalsIgnoreCase(argName.trim())) {
+				return name;
+			}
+		}
+		throw new IllegalArgumentException("No reader for the format " + argName);
+	}
+
+	/**
+	 * Read a file with the reader for the given format. Formats are never
+	 * detected from content, as several plain text formats look alike.
+	 *
+	 * @param argFormat
+	 *            name of the format the file is in
+	 * @param argFile
+	 * @return
+	 * @throws IOException
+	 * @throws InvalidDendroFileException
+	 */
+	public static TridasTridas readContainer(String argFormat, File argFile) throws IOException,
+			InvalidDendroFileException {
+		AbstractDendroFileReader reader = TridasIO.getFileReader(getReadingFormat(argFormat));
+		reader.loadFile(argFile.getAbsolutePath());
+		return reader.getTridasContainer();
+	}
+
+	/**
+	 * Write a decadal Tucson file with the given number of series. The values
+	 * come from a fixed seed so every run reads the same file.
+	 *
+	 * @param argFile
+	 *            file to write
+	 * @param argSeriesCount
+	 *            number of series
+	 * @param argYears
+	 *            number of rings in each series
+	 * @throws IOException
+	 */
+	public static void writeSyntheticTucson(File argFile, int argSeriesCount, int argYears) throws IOException {
+		Random random = new Random(42);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(argFile),
+				StandardCharsets.US_ASCII));
+		try {
+			for (int s = 0; s < argSeriesCount; s++) {
+				String id = "S" + s;
+				int lastYear = FIRST_YEAR + argYears - 1;
+				int year = FIRST_YEAR;
+				while (year <= lastYear) {
+					int decadeEnd = Math.min((year / 10) * 10 + 9, lastYear);
+					writer.write(String.format("%-8s%4d", id, year));
+					for (; year <= decadeEnd; year++) {
+						writer.write(String.format("%6d", 50 + random.nextInt(351)));
+					}
+					if (year > lastYear && year % 10 != 0) {
+						writer.write(String.format("%6d", 999));
+					}
+					writer.write("\n");
+				}
+				if (year % 10 == 0) {
+					// last decade was full so the stop marker starts a new line
+					writer.write(String.format("%-8s%4d%6d\n", id, year, 999));
+				}
+			}
+		} finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.tridas.io.TridasIO;
+
+/**
+ * Runs the benchmarks with the GC profiler always on, so every result comes
+ * with its allocation rate and bytes allocated per operation. Takes the normal
+ * JMH command line, e.g. <code>java -jar benchmarks.jar ReaderBenchmark</code>
+ * <p>
+ * {@link WriterBenchmark} is run for every writer registered with
+ * {@link TridasIO}, so new writers are measured without editing the benchmark.
+ * Give <code>-p writer=...</code> to run only some of them.
+ *
+ * @author agent
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(commandLine).addProfiler(GCProfiler.class);
+		if (!commandLine.getParameter("writer").hasValue()) {
+			builder.param("writer", TridasIO.getSupportedWritingFormats());
+		}
+		Options options = builder.build();
+		new Runner(options).run();
+	}
+}
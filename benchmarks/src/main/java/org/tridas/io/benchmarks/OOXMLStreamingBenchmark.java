@@ -0,0 +1,132 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.benchmarks;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tridas.io.formats.ooxml.OOXMLFile;
+import org.tridas.io.formats.ooxml.OOXMLWriter;
+
+/**
+ * Time and peak heap to save a large synthetic matrix as an Excel 2007 file,
+ * with the in-memory workbook (a threshold of {@link Integer#MAX_VALUE}) and
+ * the streaming one (a threshold of 0). Each fork has the same -Xmx, so the
+ * peakHeapMB counter compares the two directly. Bytes allocated per save come
+ * from the GC profiler that {@link BenchmarkRunner} adds.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g" })
+public class OOXMLStreamingBenchmark {
+
+	@Param({ "0", "2147483647" })
+	public int streamingThreshold;
+
+	@Param({ "2000" })
+	public int seriesCount;
+
+	@Param({ "1000" })
+	public int years;
+
+	private File file;
+	private OOXMLFile workbook;
+	private long baseline;
+
+	/**
+	 * Highest heap use seen while saving, above the heap in use once the file
+	 * was ready to save
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class HeapCounters {
+		public long peakHeapMB;
+
+		@Setup(Level.Iteration)
+		public void resetCounters() {
+			peakHeapMB = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void writeFile() throws Exception {
+		file = File.createTempFile("synthetic", ".rwl");
+		BenchmarkData.writeSyntheticTucson(file, seriesCount, years);
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFile() {
+		file.delete();
+	}
+
+	/**
+	 * Writers change the container they are given, so read a fresh one and load
+	 * it each time. The heap is then collected so only the save is measured.
+	 */
+	@Setup(Level.Invocation)
+	public void loadWriter() throws Exception {
+		OOXMLWriter writer = new OOXMLWriter();
+		writer.setStreamingThreshold(streamingThreshold);
+		writer.load(BenchmarkData.readContainer("Tucson", file));
+		workbook = (OOXMLFile) writer.getFiles()[0];
+
+		System.gc();
+		baseline = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+				baseline += pool.getUsage().getUsed();
+			}
+		}
+	}
+
+	@Benchmark
+	public OOXMLFile save(HeapCounters argCounters) throws Exception {
+		workbook.saveToDisk(OutputStream.nullOutputStream());
+
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		argCounters.peakHeapMB = Math.max(argCounters.peakHeapMB, (peak - baseline) / (1024 * 1024));
+		return workbook;
+	}
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tridas.io.AbstractDendroFileReader;
+import org.tridas.io.TridasIO;
+import org.tridas.schema.TridasTridas;
+
+/**
+ * Time for each reader to load a file from the TestData corpus. Each file is
+ * given with the format it is in, as "format|path", because several plain text
+ * formats can't be told apart reliably from their content.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReaderBenchmark {
+
+	@Param({ "Belfast Apple|BelfastApple/A1805.txt", "BelfastArchive|BelfastArchive/bellframe1.arx",
+			"Besancon|Besancon/BesanconNew.txt", "CATRAS|CATRAS/AKK00010.CAT", "Corina|Corina/TRB1A.REC",
+			"Cracow|Cracow/WR1916.AVR", "DendroDB|DendroDB/0567_25272.dat",
+			"Microsoft Excel 97/2000/XP|ExcelMatrix/test.xls", "FHX|FHX2/usber001.fhx",
+			"Heidelberg|Heidelberg/SET01.FH", "Heikkenen Series|HeikkenenSingle/TUC01.RNG", "KINSYS|KINSYS/test.MIT",
+			"Nottingham|Nottingham/nottingham.txt", "ODF Spreadsheet|ODFMatrix/test.ods",
+			"Microsoft Excel 2007|OOXML/test.xlsx", "Oxford|Oxford/test.dan", "PAST4|PAST4/proj2.P4P",
+			"Sheffield|Sheffield/HunBoat.d", "TRIMS|TRIMS/GRC04B.txt", "TRiDaS|TRiDaS/1.2.3.xml",
+			"Topham|Topham/topham.txt", "Tucson|Tucson/Tucson7.rwl", "Tucson Compact|TucsonCompact/tucsoncompact.rwm",
+			"VFormat|VFormat/DE_V.!oj", "WinDENDRO|WinDendro/IRA1-5(Kelcey).TXT" })
+	public String file;
+
+	private String path;
+	private String format;
+
+	@Setup
+	public void setup() throws Exception {
+		int split = file.indexOf('|');
+		format = BenchmarkData.getReadingFormat(file.substring(0, split));
+		path = BenchmarkData.getTestFile(file.substring(split + 1)).getAbsolutePath();
+	}
+
+	@Benchmark
+	public TridasTridas loadFile() throws Exception {
+		AbstractDendroFileReader reader = TridasIO.getFileReader(format);
+		reader.loadFile(path);
+		return reader.getTridasContainer();
+	}
+}
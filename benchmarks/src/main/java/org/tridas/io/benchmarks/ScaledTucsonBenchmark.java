@@ -0,0 +1,76 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tridas.io.AbstractDendroFileReader;
+import org.tridas.io.TridasIO;
+import org.tridas.schema.TridasTridas;
+
+/**
+ * Time to read synthetic Tucson files of increasing size, to show how the
+ * reader scales with the number of series.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScaledTucsonBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int seriesCount;
+
+	@Param({ "300" })
+	public int years;
+
+	private File file;
+
+	@Setup
+	public void setup() throws Exception {
+		file = File.createTempFile("synthetic", ".rwl");
+		BenchmarkData.writeSyntheticTucson(file, seriesCount, years);
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public TridasTridas loadFile() throws Exception {
+		AbstractDendroFileReader reader = TridasIO.getFileReader("Tucson");
+		reader.loadFile(file.getAbsolutePath());
+		return reader.getTridasContainer();
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tridas.io.CommandLineUI;
+
+/**
+ * Time for the command line to convert a single file from a cold start. Each
+ * invocation starts a new JVM with this one's classpath, so it includes class
+ * loading, format registration and anything else done on startup, which is
+ * most of the time taken for a small file. The warmup run fills the disk
+ * cache.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+	/**
+	 * File within the TestData folder to convert
+	 */
+	@Param({ "Tucson/Tucson7.rwl" })
+	public String input;
+
+	/**
+	 * Format to convert to, or empty for the command line's default
+	 */
+	@Param({ "" })
+	public String outputFormat;
+
+	private ArrayList<String> command;
+	private File output;
+
+	@Setup
+	public void setup() throws Exception {
+		output = Files.createTempDirectory("startupbenchmark").toFile();
+
+		command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(CommandLineUI.class.getName());
+		if (outputFormat.length() > 0) {
+			command.add("-outputformat=" + outputFormat);
+		}
+		command.add(BenchmarkData.getTestFile(input).getAbsolutePath());
+		command.add(output.getAbsolutePath());
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (File file : output.listFiles()) {
+			file.delete();
+		}
+		output.delete();
+	}
+
+	@Benchmark
+	public int convert() throws Exception {
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectErrorStream(true);
+		builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+		int exit = builder.start().waitFor();
+		if (exit != 0) {
+			throw new IllegalStateException("Conversion failed with exit code " + exit);
+		}
+		return exit;
+	}
+}
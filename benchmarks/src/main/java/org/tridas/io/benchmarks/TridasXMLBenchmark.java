@@ -0,0 +1,74 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tridas.io.util.TridasJAXBCache;
+
+/**
+ * Time to unmarshal and marshal a TRiDaS document with the cached JAXB
+ * context.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TridasXMLBenchmark {
+
+	@Param({ "TRiDaS/1.2.3.xml" })
+	public String file;
+
+	private byte[] xml;
+	private Object document;
+
+	@Setup
+	public void setup() throws Exception {
+		xml = Files.readAllBytes(BenchmarkData.getTestFile(file).toPath());
+		document = unmarshal();
+		// make sure the document can be written back before timing it
+		TridasJAXBCache.getMarshaller(null).marshal(document, new ByteArrayOutputStream());
+	}
+
+	@Benchmark
+	public Object unmarshal() throws Exception {
+		return TridasJAXBCache.getUnmarshaller(null).unmarshal(new ByteArrayInputStream(xml));
+	}
+
+	@Benchmark
+	public void marshal() throws Exception {
+		TridasJAXBCache.getMarshaller(null).marshal(document, OutputStream.nullOutputStream());
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tridas.io.formats.tucson.TucsonLineScanner;
+
+/**
+ * Time to run every Tucson line check over every line in the Tucson test data,
+ * as a full classification of each line needs. Compares the regular
+ * expressions TucsonReader used to compile for every check, the same
+ * expressions compiled once, and {@link TucsonLineScanner}. That the scanner
+ * accepts the same lines is checked by TucsonLineScannerTest.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TucsonLineScannerBenchmark {
+
+	private static final String KEYCODE6 = "[\\w\\t -.]{6}";
+	private static final String KEYCODE8 = "[\\w\\t -.]{8}";
+	private static final String YEAR = "[\\t\\d -]{3}[\\d]{1}";
+	private static final String RWL_VAL = "[ -]{1}[\\t\\d -]{4}[\\d]{1}";
+	private static final String CRN_VAL = "[\\d ]{4}((\\d\\d\\d)|( \\d\\d)|(  \\d))";
+
+	// The expressions TucsonReader used, in the same order as scannerMatches()
+	private static final String[] REGEXES = new String[]{
+		"^" + KEYCODE6 + YEAR + "(" + RWL_VAL + "){10}",
+		"^" + KEYCODE6 + YEAR + RWL_VAL,
+		"^" + KEYCODE8 + YEAR + "(" + RWL_VAL + "){10}",
+		"^" + KEYCODE8 + YEAR + RWL_VAL,
+		"^" + KEYCODE6 + YEAR + "(" + CRN_VAL + "){10}",
+		"^" + KEYCODE8 + YEAR + "(" + CRN_VAL + "){10}",
+		"^[\\d\\w ]{7}[1 ][ ][^\\n]{52}[A-Z]{4}",
+		"^[\\d\\w ]{7}[2 ][ ][^\\n]{31}[ 0-9mMft.]{5}[ ]{2}[0-9\\t+\\- NWnw]{11}[ _]{9}[0-9 -]{4}[ ][0-9 -]{4}",
+		"^[\\d\\w ]{7}[3 ][ ][^\\n]{63}[\\d\\w /-]{8}"
+	};
+
+	private static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL;
+
+	private List<String> lines;
+	private Pattern[] patterns;
+
+	@Setup
+	public void setup() throws IOException {
+		File[] files = new File(BenchmarkData.getTestDataFolder(), "Tucson").listFiles();
+		if (files == null) {
+			throw new IOException("Tucson test data not found (set -D" + BenchmarkData.TEST_DATA_PROPERTY
+					+ " to the TestData folder)");
+		}
+		Arrays.sort(files);
+		lines = new ArrayList<String>();
+		for (File file : files) {
+			if (file.isFile() && !file.getName().startsWith(".")) {
+				lines.addAll(Files.readAllLines(file.toPath(), StandardCharsets.ISO_8859_1));
+			}
+		}
+
+		patterns = new Pattern[REGEXES.length];
+		for (int i = 0; i < REGEXES.length; i++) {
+			patterns[i] = Pattern.compile(REGEXES[i], FLAGS);
+		}
+	}
+
+	@Benchmark
+	public int compiledPerCheck() {
+		int matches = 0;
+		for (String line : lines) {
+			for (int type = 0; type < REGEXES.length; type++) {
+				if (Pattern.compile(REGEXES[type], FLAGS).matcher(line).find()) {
+					matches++;
+				}
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public int precompiled() {
+		int matches = 0;
+		for (String line : lines) {
+			for (int type = 0; type < patterns.length; type++) {
+				if (patterns[type].matcher(line).find()) {
+					matches++;
+				}
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public int scanner() {
+		int matches = 0;
+		for (String line : lines) {
+			for (int type = 0; type < REGEXES.length; type++) {
+				if (scannerMatches(type, line)) {
+					matches++;
+				}
+			}
+		}
+		return matches;
+	}
+
+	private static boolean scannerMatches(int argType, String argLine) {
+		switch (argType) {
+			case 0 :
+				return TucsonLineScanner.isRWLData(argLine, 6, true);
+			case 1 :
+				return TucsonLineScanner.isRWLData(argLine, 6, false);
+			case 2 :
+				return TucsonLineScanner.isRWLData(argLine, 8, true);
+			case 3 :
+				return TucsonLineScanner.isRWLData(argLine, 8, false);
+			case 4 :
+				return TucsonLineScanner.isCRNData(argLine, 6);
+			case 5 :
+				return TucsonLineScanner.isCRNData(argLine, 8);
+			case 6 :
+				return TucsonLineScanner.isHeaderLine1(argLine);
+			case 7 :
+				return TucsonLineScanner.isHeaderLine2(argLine);
+			default :
+				return TucsonLineScanner.isHeaderLine3(argLine);
+		}
+	}
+}
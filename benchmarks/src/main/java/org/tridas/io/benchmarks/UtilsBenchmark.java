@@ -0,0 +1,129 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tridas.io.util.DateUtils;
+import org.tridas.io.util.TridasUtils;
+import org.tridas.io.util.UnitUtils;
+import org.tridas.schema.DateTime;
+import org.tridas.schema.NormalTridasUnit;
+import org.tridas.schema.TridasElement;
+import org.tridas.schema.TridasObject;
+import org.tridas.schema.TridasUnit;
+import org.tridas.schema.TridasValue;
+import org.tridas.schema.TridasValues;
+
+/**
+ * Time for the utilities the readers and writers lean on. Consolidation and
+ * unit conversion change what they are given, so their input is rebuilt before
+ * every invocation in its own state class, which keeps that cost away from the
+ * date parsing benchmarks.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+
+	@State(Scope.Thread)
+	public static class ObjectList {
+
+		@Param({ "10000" })
+		public int objectCount;
+
+		private List<TridasObject> list;
+
+		@Setup(Level.Invocation)
+		public void setup() {
+			list = new ArrayList<TridasObject>(objectCount);
+			int titles = Math.max(1, objectCount / 4);
+			for (int i = 0; i < objectCount; i++) {
+				TridasObject o = new TridasObject();
+				o.setTitle("Object " + (i * 7919 % titles));
+				TridasElement e = new TridasElement();
+				e.setTitle("Element " + i);
+				o.getElements().add(e);
+				list.add(o);
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ValueList {
+
+		@Param({ "1000" })
+		public int valueCount;
+
+		private TridasValues values;
+
+		@Setup(Level.Invocation)
+		public void setup() {
+			values = new TridasValues();
+			TridasUnit unit = new TridasUnit();
+			unit.setNormalTridas(NormalTridasUnit.HUNDREDTH_MM);
+			values.setUnit(unit);
+			for (int i = 0; i < valueCount; i++) {
+				TridasValue v = new TridasValue();
+				v.setValue(String.valueOf(50 + (i * 37) % 350));
+				values.getValues().add(v);
+			}
+		}
+	}
+
+	@Benchmark
+	public List<TridasObject> consolidateObjects(ObjectList argObjects) {
+		return TridasUtils.consolidateObjects(argObjects.list);
+	}
+
+	@Benchmark
+	public TridasValues convertTridasValues(ValueList argValues) throws Exception {
+		return UnitUtils.convertTridasValues(NormalTridasUnit.MICROMETRES, argValues.values, true);
+	}
+
+	@Benchmark
+	public DateTime parseDayMonthYear() throws Exception {
+		return DateUtils.parseDateFromDayMonthYearString("12/03/2010");
+	}
+
+	@Benchmark
+	public DateTime parsePast4() throws Exception {
+		return DateUtils.parseDateFromPast4String("12/03/2010 10:15");
+	}
+
+	@Benchmark
+	public DateTime parseNatural() {
+		return DateUtils.parseDateTimeFromNaturalString("March 12, 2010");
+	}
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.benchmarks;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tridas.io.AbstractDendroCollectionWriter;
+import org.tridas.io.IDendroFile;
+import org.tridas.io.TridasIO;
+import org.tridas.schema.TridasTridas;
+
+/**
+ * Time for each writer to load a container and write out all of its files.
+ * The files are written to a null stream so disk speed isn't measured.
+ * <p>
+ * Writers change the container they are given, so a fresh copy is read before
+ * every invocation. Binary formats can't be saved to strings, so every file is
+ * written with {@link IDendroFile#writeTo(OutputStream)}, which does the same
+ * work as saveToString for the text formats.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+
+	/**
+	 * Writer to run. {@link BenchmarkRunner} replaces this with every writer
+	 * registered with {@link TridasIO} unless writers are given with
+	 * <code>-p writer=...</code>
+	 */
+	@Param({ "Tucson" })
+	public String writer;
+
+	/**
+	 * File in the TestData folder to convert, as "format|path"
+	 */
+	@Param({ "Tucson|Tucson/Tucson7.rwl" })
+	public String source;
+
+	private TridasTridas container;
+
+	@Setup(Level.Trial)
+	public void checkWriter() {
+		if (TridasIO.getFileWriter(writer) == null) {
+			throw new IllegalStateException("No writer called " + writer);
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void readContainer() throws Exception {
+		int split = source.indexOf('|');
+		container = BenchmarkData.readContainer(source.substring(0, split),
+				BenchmarkData.getTestFile(source.substring(split + 1)));
+	}
+
+	@Benchmark
+	public IDendroFile[] loadAndSave() throws Exception {
+		AbstractDendroCollectionWriter w = TridasIO.getFileWriter(writer);
+		w.load(container);
+		IDendroFile[] files = w.getFiles();
+		OutputStream out = OutputStream.nullOutputStream();
+		for (IDendroFile file : files) {
+			file.writeTo(out);
+		}
+		return files;
+	}
+}
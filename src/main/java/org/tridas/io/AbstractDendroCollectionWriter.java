@@ -15,9 +15,13 @@
  ******************************************************************************/
 package org.tridas.io;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.UnsupportedEncodingException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.zip.GZIPOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +47,7 @@ public abstract class AbstractDendroCollectionWriter implements Comparable<Abstr
 	private ArrayList<IDendroFile> fileList = new ArrayList<IDendroFile>();
 	private ArrayList<ConversionWarning> warnings = new ArrayList<ConversionWarning>();
 	private Class<? extends IMetadataFieldSet> defaultFieldsClass;
+	private ConversionContext context = null;
 	
 	/**
 	 * @param argDefaultFieldsClass
@@ -71,6 +76,31 @@ public abstract class AbstractDendroCollectionWriter implements Comparable<Abstr
 		defaultFieldsClass = argDefaultFieldsClass;
 	}
 	
+	/**
+	 * Set the context to write with. Without one, the writer uses
+	 * {@link TridasIO#getDefaultContext()} as it is when each file is saved. If
+	 * the context has a naming convention, a new one is made for this writer.
+	 * 
+	 * @param argContext
+	 *            the context, or null for the default
+	 */
+	public void setContext(ConversionContext argContext) {
+		context = argContext;
+		if (argContext != null) {
+			INamingConvention naming = argContext.createNamingConvention();
+			if (naming != null) {
+				setNamingConvention(naming);
+			}
+		}
+	}
+	
+	/**
+	 * @return the context this writer writes with
+	 */
+	public ConversionContext getContext() {
+		return (context != null) ? context : TridasIO.getDefaultContext();
+	}
+	
 	/**
 	 * Loads a tridas container to convert into a legacy format, using the default metadata set
 	 * 
@@ -284,8 +314,8 @@ public abstract class AbstractDendroCollectionWriter implements Comparable<Abstr
 	}
 	
 	/**
-	 * Override to implement own file saving. Make sure to respect
-	 * {@link TridasIO#getWritingCharset()}.
+	 * Override to implement own file saving. Make sure to respect the writing
+	 * charset of {@link #getContext()}.
 	 * 
 	 * @param argOutputFolder
 	 *            output folder can be absolute, and always ends with "/" unless it's an
@@ -323,13 +353,6 @@ public abstract class AbstractDendroCollectionWriter implements Comparable<Abstr
 			helper = new FileHelper();
 		}
 		
-		String[] file = argFile.saveToString();
-		if (file == null) {
-			log.error("File strings for file " + argFile.toString() + ", with the filename " + argFile + " was null");
-			return;
-		}
-		
-		
 		String fullfilename;
 		if(forceExtension!=null)
 		{
@@ -341,31 +364,31 @@ public abstract class AbstractDendroCollectionWriter implements Comparable<Abstr
 			fullfilename = argFilename + "." + argFile.getExtension();
 		}
 		
+		File outputFile;
 		if (absolute) {
-			if (TridasIO.getWritingCharset() != null) {
-				try {
-					helper.saveStrings(fullfilename, file, TridasIO.getWritingCharset());
-					return;
-				} catch (UnsupportedEncodingException e) {
-					// shouldn't happen, but
-					// TODO add warning, log message
-					e.printStackTrace();
-				} 
-			}
-			helper.saveStrings(fullfilename, file);
-			
+			outputFile = helper.saveFile(fullfilename);
 		}
 		else {
-			if (TridasIO.getWritingCharset() != null) {
-				try {
-					helper.saveStrings(argOutputFolder + fullfilename, file, TridasIO
-							.getWritingCharset());
-					return;
-				} catch (UnsupportedEncodingException e) {
-					log.error("Exception trying to save strings",e);
-				}
+			outputFile = helper.saveFile(argOutputFolder + fullfilename);
+		}
+		
+		// The file writes itself straight to disk, so formats that support it
+		// never need to hold the whole of their output in memory
+		OutputStream output = new BufferedOutputStream(new FileOutputStream(outputFile));
+		boolean saved = false;
+		try {
+			if (outputFile.getName().toLowerCase().endsWith(".gz")) {
+				output = new GZIPOutputStream(output);
+			}
+			argFile.writeTo(output, getContext().getWritingCharset());
+			saved = true;
+		} catch (IOException e) {
+			log.error("Error saving file " + outputFile.getAbsolutePath(), e);
+		} finally {
+			output.close();
+			if (!saved) {
+				outputFile.delete();
 			}
-			helper.saveStrings(argOutputFolder + fullfilename, file);
 		}
 	}
 	
@@ -402,6 +425,9 @@ public abstract class AbstractDendroCollectionWriter implements Comparable<Abstr
 	 */
 	public void addWarning(ConversionWarning warning) {
 		warnings.add(warning);
+		if (context != null) {
+			context.warn(warning);
+		}
 	}
 	
 	/**
@@ -17,6 +17,8 @@ package org.tridas.io;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
 
@@ -29,6 +31,7 @@ import org.tridas.io.exceptions.ConversionWarning;
 import org.tridas.io.exceptions.IncorrectDefaultFieldsException;
 import org.tridas.io.exceptions.InvalidDendroFileException;
 import org.tridas.io.util.FileHelper;
+import org.tridas.io.util.LineSource;
 import org.tridas.schema.TridasProject;
 import org.tridas.schema.TridasTridas;
 
@@ -40,6 +43,7 @@ public abstract class AbstractDendroFileReader implements Comparable<AbstractDen
 	private ArrayList<ConversionWarning> warnings = new ArrayList<ConversionWarning>();
 	private final Class<? extends IMetadataFieldSet> defaultFieldsClass;
 	private String origFilename;
+	private ConversionContext context = null;
 
 	
 	/**
@@ -79,6 +83,24 @@ public abstract class AbstractDendroFileReader implements Comparable<AbstractDen
 		return defaultFieldsClass;
 	}
 	
+	/**
+	 * Set the context to read with. Without one, the reader uses
+	 * {@link TridasIO#getDefaultContext()} as it is when each file is loaded.
+	 * 
+	 * @param argContext
+	 *            the context, or null for the default
+	 */
+	public void setContext(ConversionContext argContext) {
+		context = argContext;
+	}
+	
+	/**
+	 * @return the context this reader reads with
+	 */
+	public ConversionContext getContext() {
+		return (context != null) ? context : TridasIO.getDefaultContext();
+	}
+	
 	/**
 	 * The warnings generated by loading a file
 	 * 
@@ -95,6 +117,9 @@ public abstract class AbstractDendroFileReader implements Comparable<AbstractDen
 	 */
 	protected void addWarning(ConversionWarning warning) {
 		warnings.add(warning);
+		if (context != null) {
+			context.warn(warning);
+		}
 	}
 	
 	/**
@@ -149,15 +174,28 @@ public abstract class AbstractDendroFileReader implements Comparable<AbstractDen
 			loadFile(argFilename);
 			return;
 		}
-		FileHelper fileHelper = new FileHelper();
+		final FileHelper fileHelper = new FileHelper();
 		//log.debug("loading file: " + argFilename);
 		origFilename = argFilename;
+		
+		if (supportsLineSource()) {
+			final String filename = argFilename;
+			loadFile(createLineSource(new LineSource.InputOpener() {
+				@Override
+				public InputStream open() throws IOException {
+					return fileHelper.createInput(filename);
+				}
+			}), argDefaultFields, argFilename);
+			return;
+		}
+		
+		ConversionContext ctx = getContext();
 		String[] strings;
-		if (TridasIO.getReadingCharset() != null) {
-			strings = fileHelper.loadStrings(argFilename, TridasIO.getReadingCharset());
+		if (ctx.getReadingCharset() != null) {
+			strings = fileHelper.loadStrings(argFilename, ctx.getReadingCharset());
 		}
 		else {
-			if (TridasIO.isCharsetDetection()) {
+			if (ctx.isCharsetDetection()) {
 				strings = fileHelper.loadStringsFromDetectedCharset(argFilename);
 			}
 			else {
@@ -205,16 +243,29 @@ public abstract class AbstractDendroFileReader implements Comparable<AbstractDen
 			loadFile(argPath, argFilename);
 			return;
 		}
-		FileHelper fileHelper = new FileHelper(argPath);
+		final FileHelper fileHelper = new FileHelper(argPath);
 		//log.debug("loading file: " + argFilename);
 		origFilename = argFilename;
 		String fullfilename = argPath+argFilename;
+		
+		if (supportsLineSource()) {
+			final String filename = argFilename;
+			loadFile(createLineSource(new LineSource.InputOpener() {
+				@Override
+				public InputStream open() throws IOException {
+					return fileHelper.createInput(filename);
+				}
+			}), argDefaultFields, fullfilename);
+			return;
+		}
+		
+		ConversionContext ctx = getContext();
 		String[] strings;
-		if (TridasIO.getReadingCharset() != null) {
-			strings = fileHelper.loadStrings(argFilename, TridasIO.getReadingCharset());
+		if (ctx.getReadingCharset() != null) {
+			strings = fileHelper.loadStrings(argFilename, ctx.getReadingCharset());
 		}
 		else {
-			if (TridasIO.isCharsetDetection()) {
+			if (ctx.isCharsetDetection()) {
 				strings = fileHelper.loadStringsFromDetectedCharset(argFilename);
 			}
 			else {
@@ -243,6 +294,85 @@ public abstract class AbstractDendroFileReader implements Comparable<AbstractDen
 		}
 	}
 	
+	/**
+	 * Loads a file from the given path, using the given defaults. Readers that
+	 * {@link #supportsLineSource() support streaming} read the file a line at a time
+	 * rather than loading it into memory first.
+	 * 
+	 * @param argPath
+	 * @param argDefaultFields
+	 * @throws IOException
+	 * @throws IncorrectDefaultFieldsException
+	 * @throws InvalidDendroFileException
+	 */
+	public void loadFile(Path argPath, IMetadataFieldSet argDefaultFields) throws IOException,
+			IncorrectDefaultFieldsException, InvalidDendroFileException {
+		if (!supportsLineSource()) {
+			loadFile(argPath.toString(), argDefaultFields);
+			return;
+		}
+		if(argDefaultFields == null){
+			loadFile(argPath);
+			return;
+		}
+		origFilename = argPath.toString();
+		ConversionContext ctx = getContext();
+		loadFile(LineSource.fromPath(argPath, ctx.getReadingCharset(), ctx.isCharsetDetection()),
+				argDefaultFields, argPath.toString());
+	}
+	
+	/**
+	 * Loads a file from the given path, using the default metadata.
+	 * 
+	 * @param argPath
+	 * @throws IOException
+	 * @throws InvalidDendroFileException
+	 */
+	public void loadFile(Path argPath) throws IOException, InvalidDendroFileException {
+		try {
+			loadFile(argPath, constructDefaultMetadata());
+		} catch (IncorrectDefaultFieldsException e) {
+			// not gonna happen
+		}
+	}
+	
+	/**
+	 * Loads a file from a line source. The source is closed once parsing is complete.
+	 * 
+	 * @param argSource
+	 * @param argDefaults
+	 * @param inputFilename
+	 * @throws IOException
+	 * @throws IncorrectDefaultFieldsException
+	 * @throws InvalidDendroFileException
+	 */
+	public void loadFile(LineSource argSource, IMetadataFieldSet argDefaults, String inputFilename)
+			throws IOException, IncorrectDefaultFieldsException, InvalidDendroFileException {
+		if(argDefaults == null){
+			argDefaults = constructDefaultMetadata();
+		}
+		if (!argDefaults.getClass().equals(defaultFieldsClass)) {
+			throw new IncorrectDefaultFieldsException(defaultFieldsClass);
+		}
+		try {
+			parseFile(argSource, argDefaults, inputFilename);
+		} finally {
+			argSource.close();
+		}
+	}
+	
+	/**
+	 * Creates a line source over the given input, respecting the charset settings in
+	 * this reader's {@link #getContext() context}
+	 * 
+	 * @param argOpener
+	 * @return
+	 */
+	private LineSource createLineSource(LineSource.InputOpener argOpener) {
+		ConversionContext ctx = getContext();
+		return LineSource.fromInput(argOpener, ctx.getReadingCharset(), ctx.isCharsetDetection());
+	}
+	
 	/**
 	 * Loads a file from the file strings
 	 * 
@@ -313,6 +443,48 @@ public abstract class AbstractDendroFileReader implements Comparable<AbstractDen
 		parseFile(argFileString, defaults);
 	}
 	
+	/**
+	 * Whether this reader can parse directly from a {@link LineSource}.  Readers that
+	 * return true must override {@link #parseFile(LineSource, IMetadataFieldSet)} and
+	 * will then be fed files a line at a time by the loadFile methods.
+	 * 
+	 * @return
+	 */
+	protected boolean supportsLineSource() {
+		return false;
+	}
+	
+	/**
+	 * Parse the file from the given metadata and line source. Readers that opt in
+	 * through {@link #supportsLineSource()} should override this so that they
+	 * never hold more of the file in memory than they need. The default implementation
+	 * reads the whole source into an array and hands it to
+	 * {@link #parseFile(String[], IMetadataFieldSet)}.
+	 * 
+	 * @param argSource
+	 * @param argDefaultFields
+	 * @throws InvalidDendroFileException
+	 * @throws IOException
+	 */
+	protected void parseFile(LineSource argSource, IMetadataFieldSet argDefaultFields)
+			throws InvalidDendroFileException, IOException {
+		parseFile(argSource.toArray(), argDefaultFields);
+	}
+	
+	protected void parseFile(LineSource argSource, IMetadataFieldSet argDefaultFields, String originalFilename) 
+			throws InvalidDendroFileException, IOException
+	{
+		TridasMetadataFieldSet defaults = (TridasMetadataFieldSet) argDefaultFields;
+		
+		if(this.getOriginalFilename()!=null)
+		{
+			File file = new File(this.getOriginalFilename());
+			defaults.getStringDefaultValue(TridasExtraField.ORIGINAL_FILENAME).setValue(org.apache.poi.openxml4j.opc.internal.FileHelper.getFilename(file));
+		}
+		
+		parseFile(argSource, defaults);
+	}
+	
 	/**
 	 * Reset the reader
 	 */
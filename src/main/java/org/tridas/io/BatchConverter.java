@@ -0,0 +1,395 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tridas.io.exceptions.ConversionWarning;
+import org.tridas.io.formats.tridas.TridasWriter;
+import org.tridas.io.naming.HierarchicalNamingConvention;
+import org.tridas.io.naming.INamingConvention;
+import org.tridas.io.naming.NumericalNamingConvention;
+import org.tridas.io.naming.UUIDNamingConvention;
+import org.tridas.io.util.FileHelper;
+import org.tridas.schema.TridasTridas;
+
+/**
+ * Converts a set of independent files, spreading the work over a fixed number of
+ * threads. Each file runs through the whole read, convert and write pipeline on
+ * its own reader and writer, so the only thing files share is the output folder.
+ * <p>
+ * The results are always returned in the same order as the input files, whatever
+ * order the threads finish in, so warnings can be reported just as they would be
+ * for a sequential run. Output names are fixed before any work starts: each input
+ * gets its own base filename, taken from its name, which every naming convention
+ * starts its filenames with. This stops parallel writers from overwriting each
+ * other's output.
+ *
+ * @author agent
+ */
+public class BatchConverter {
+
+	private static final Logger log = LoggerFactory.getLogger(BatchConverter.class);
+
+	private final int parallelism;
+	private String inputFormat = null;
+	private String outputFormat = null;
+	private String namingConvention = "";
+	private ConversionContext context = null;
+
+	/**
+	 * Create a converter that uses one thread per available processor
+	 */
+	public BatchConverter() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param argParallelism
+	 *            maximum number of files to convert at once
+	 */
+	public BatchConverter(int argParallelism) {
+		parallelism = Math.max(1, argParallelism);
+	}
+
+	/**
+	 * @return maximum number of files converted at once
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Set the name of the input format. If null, the reader is chosen from each
+	 * file's content, or its extension if the content isn't recognised.
+	 *
+	 * @param argInputFormat
+	 */
+	public void setInputFormat(String argInputFormat) {
+		inputFormat = argInputFormat;
+	}
+
+	/**
+	 * Set the name of the output format. If null, TRiDaS is written.
+	 *
+	 * @param argOutputFormat
+	 */
+	public void setOutputFormat(String argOutputFormat) {
+		outputFormat = argOutputFormat;
+	}
+
+	/**
+	 * Set the naming convention used for output files: "hierarchy", "uuid" or
+	 * anything else for numerical names. Whichever is used, names start with the
+	 * input's base filename.
+	 *
+	 * @param argNamingConvention
+	 */
+	public void setNamingConvention(String argNamingConvention) {
+		namingConvention = (argNamingConvention == null) ? "" : argNamingConvention;
+	}
+
+	/**
+	 * Set the context every reader and writer converts with. If null, the
+	 * {@link TridasIO#getDefaultContext() default context} is taken when each
+	 * batch starts, so changing the settings in TridasIO during a batch doesn't
+	 * affect it. A naming convention in the context is replaced by the one set
+	 * with {@link #setNamingConvention(String)}.
+	 *
+	 * @param argContext
+	 */
+	public void setContext(ConversionContext argContext) {
+		context = argContext;
+	}
+
+	/**
+	 * Read, convert and save each file.
+	 *
+	 * @param argInputFolder
+	 *            folder the files are in
+	 * @param argFiles
+	 *            names of the files within the folder
+	 * @param argOutputFolder
+	 *            folder to save the converted files to
+	 * @return one conversion per input file, in input order
+	 */
+	public List<Conversion> convert(final String argInputFolder, String[] argFiles, final String argOutputFolder) {
+		ArrayList<Callable<Conversion>> tasks = new ArrayList<Callable<Conversion>>();
+		HashSet<String> usedNames = new HashSet<String>();
+		final ConversionContext ctx = getBatchContext();
+
+		for (final String file : argFiles) {
+			final String baseName = getUniqueBaseName(file, usedNames);
+			tasks.add(new Callable<Conversion>() {
+				@Override
+				public Conversion call() {
+					Conversion conversion = new Conversion(file);
+					if (!readFile(argInputFolder, conversion, ctx)) {
+						return conversion;
+					}
+					writeFile(conversion, baseName, argOutputFolder, ctx);
+					return conversion;
+				}
+			});
+		}
+		return runAll(tasks, argFiles);
+	}
+
+	/**
+	 * Read each file and build its TRiDaS container, without writing anything.
+	 *
+	 * @param argInputFolder
+	 *            folder the files are in
+	 * @param argFiles
+	 *            names of the files within the folder
+	 * @return one conversion per input file, in input order
+	 */
+	public List<Conversion> read(final String argInputFolder, String[] argFiles) {
+		ArrayList<Callable<Conversion>> tasks = new ArrayList<Callable<Conversion>>();
+		final ConversionContext ctx = getBatchContext();
+
+		for (final String file : argFiles) {
+			tasks.add(new Callable<Conversion>() {
+				@Override
+				public Conversion call() {
+					Conversion conversion = new Conversion(file);
+					readFile(argInputFolder, conversion, ctx);
+					return conversion;
+				}
+			});
+		}
+		return runAll(tasks, argFiles);
+	}
+
+	private List<Conversion> runAll(List<Callable<Conversion>> argTasks, String[] argFiles) {
+		ArrayList<Conversion> results = new ArrayList<Conversion>();
+		if (argTasks.isEmpty()) {
+			return results;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, argTasks.size()));
+		try {
+			ArrayList<Future<Conversion>> futures = new ArrayList<Future<Conversion>>();
+			for (Callable<Conversion> task : argTasks) {
+				futures.add(executor.submit(task));
+			}
+
+			// Collect in submission order so results match the input order
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					results.add(futures.get(i).get());
+				} catch (ExecutionException e) {
+					Conversion failed = new Conversion(argFiles[i]);
+					failed.errors.add(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+					results.add(failed);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					Conversion failed = new Conversion(argFiles[i]);
+					failed.errors.add(e);
+					results.add(failed);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+
+	private ConversionContext getBatchContext() {
+		return (context != null) ? context : TridasIO.getDefaultContext();
+	}
+
+	private boolean readFile(String argInputFolder, Conversion argConversion, ConversionContext argContext) {
+		String file = argConversion.origFilename;
+		AbstractDendroFileReader reader;
+		if (inputFormat != null) {
+			reader = TridasIO.getFileReader(inputFormat);
+		}
+		else {
+			reader = TridasIO.getFileReaderFromContent(new File(argInputFolder, file));
+		}
+		if (reader == null) {
+			argConversion.errors.add(new Exception("Reader format invalid"));
+			return false;
+		}
+		reader.setContext(argContext);
+		argConversion.reader = reader;
+
+		try {
+			reader.loadFile(argInputFolder + File.separator + file);
+			argConversion.container = reader.getTridasContainer();
+		} catch (Exception e) {
+			log.error("Failed to read " + file, e);
+			argConversion.errors.add(e);
+			return false;
+		}
+		return true;
+	}
+
+	private void writeFile(Conversion argConversion, String argBaseName, String argOutputFolder,
+			ConversionContext argContext) {
+		AbstractDendroCollectionWriter writer;
+		if (outputFormat != null) {
+			writer = TridasIO.getFileWriter(outputFormat);
+		}
+		else {
+			writer = new TridasWriter();
+		}
+		if (writer == null) {
+			argConversion.errors.add(new Exception("Writer format invalid: " + outputFormat));
+			return;
+		}
+		writer.setContext(argContext);
+		argConversion.writer = writer;
+
+		try {
+			writer.setNamingConvention(createNamingConvention(argBaseName));
+			writer.load(argConversion.container);
+			writer.saveAllToDisk(argOutputFolder);
+		} catch (Exception e) {
+			log.error("Failed to write " + argConversion.origFilename, e);
+			argConversion.errors.add(e);
+		}
+	}
+
+	/**
+	 * Naming convention for one input's output. Titles such as "Unnamed project"
+	 * repeat across inputs, so the hierarchical and UUID names are prefixed with
+	 * the input's base filename too, or two threads could write the same file.
+	 */
+	private INamingConvention createNamingConvention(final String argBaseName) {
+		if (namingConvention.equalsIgnoreCase("hierarchy")) {
+			return new HierarchicalNamingConvention() {
+				@Override
+				public synchronized String getFilename(IDendroFile argFile) {
+					return argBaseName + "-" + super.getFilename(argFile);
+				}
+			};
+		}
+		else if (namingConvention.equalsIgnoreCase("uuid")) {
+			return new UUIDNamingConvention() {
+				@Override
+				public synchronized String getFilename(IDendroFile argFile) {
+					return argBaseName + "-" + super.getFilename(argFile);
+				}
+			};
+		}
+		return new NumericalNamingConvention(argBaseName);
+	}
+
+	/**
+	 * Base filename for an input file's output. This is the input's name without
+	 * its extension, unless an earlier input already used that name, in which case
+	 * the extension is kept too.
+	 */
+	private static String getUniqueBaseName(String argFile, HashSet<String> argUsedNames) {
+		String name = argFile;
+		if (name.lastIndexOf(".") > 0) {
+			name = name.substring(0, name.lastIndexOf("."));
+		}
+		if (!argUsedNames.add(name.toLowerCase())) {
+			name = argFile.replace('.', '_');
+			int i = 1;
+			while (!argUsedNames.add(name.toLowerCase())) {
+				name = argFile.replace('.', '_') + "_" + (i++);
+			}
+		}
+		return FileHelper.sanitiseFilename(name);
+	}
+
+	/**
+	 * The outcome of converting a single file
+	 */
+	public static class Conversion {
+		private final String origFilename;
+		private AbstractDendroFileReader reader = null;
+		private AbstractDendroCollectionWriter writer = null;
+		private TridasTridas container = null;
+		private final ArrayList<Exception> errors = new ArrayList<Exception>();
+
+		private Conversion(String argOrigFilename) {
+			origFilename = argOrigFilename;
+		}
+
+		/**
+		 * @return name of the input file
+		 */
+		public String getOrigFilename() {
+			return origFilename;
+		}
+
+		/**
+		 * @return the reader used, or null if no reader could be found
+		 */
+		public AbstractDendroFileReader getReader() {
+			return reader;
+		}
+
+		/**
+		 * @return the writer used, or null if the file was not written
+		 */
+		public AbstractDendroCollectionWriter getWriter() {
+			return writer;
+		}
+
+		/**
+		 * @return the container read from the file, or null if it could not be read
+		 */
+		public TridasTridas getContainer() {
+			return container;
+		}
+
+		/**
+		 * @return errors that stopped this file from converting completely
+		 */
+		public List<Exception> getErrors() {
+			return errors;
+		}
+
+		/**
+		 * All the warnings from the reader and writer, reader first
+		 *
+		 * @return
+		 */
+		public List<ConversionWarning> getWarnings() {
+			ArrayList<ConversionWarning> warnings = new ArrayList<ConversionWarning>();
+			if (reader != null) {
+				if (reader.getDefaults() != null && reader.getDefaults().getWarnings() != null) {
+					warnings.addAll(reader.getDefaults().getWarnings());
+				}
+				Collections.addAll(warnings, reader.getWarnings());
+			}
+			if (writer != null) {
+				if (writer.getDefaults() != null && writer.getDefaults().getWarnings() != null) {
+					warnings.addAll(writer.getDefaults().getWarnings());
+				}
+				Collections.addAll(warnings, writer.getWarnings());
+			}
+			return warnings;
+		}
+	}
+}
@@ -21,13 +21,11 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Properties;
 
-import org.tridas.io.defaults.TridasMetadataFieldSet;
 import org.tridas.io.exceptions.ConversionWarning;
 import org.tridas.io.exceptions.ConversionWarningException;
 import org.tridas.io.exceptions.ImpossibleConversionException;
 import org.tridas.io.exceptions.InvalidDendroFileException;
 import org.tridas.io.exceptions.NothingToWriteException;
-import org.tridas.io.formats.tridas.TridasReader;
 import org.tridas.io.formats.tridas.TridasWriter;
 import org.tridas.io.naming.HierarchicalNamingConvention;
 import org.tridas.io.naming.INamingConvention;
@@ -65,6 +63,7 @@ public class CommandLineUI {
 		boolean batch = false;
 		boolean merge = false;
 		String mergelevel = "project";
+		int threads = Runtime.getRuntime().availableProcessors();
 		
 		// Check number of args
 		int index = 0;
@@ -79,7 +78,7 @@ public class CommandLineUI {
 			}
 		}
 		
-		if (args.length > 7  || args.length < 2) {
+		if (args.length > 8  || args.length < 2) {
 			showHelp(true);
 			return;
 		}
@@ -104,6 +103,18 @@ public class CommandLineUI {
 			else if (arg.equalsIgnoreCase("-batch")) {
 				batch = true;
 			}
+			else if (arg.toLowerCase().startsWith("-threads=")) {
+				try {
+					threads = Integer.parseInt(arg.substring(9).trim());
+				} catch (NumberFormatException e) {
+					showHelp(false, "Invalid number of threads: " + arg.substring(9).trim());
+					return;
+				}
+				if (threads < 1) {
+					showHelp(false, "Invalid number of threads: " + threads);
+					return;
+				}
+			}
 			else if (arg.equalsIgnoreCase("-merge-project")) {
 				merge = true;
 				mergelevel = "project";
@@ -137,8 +148,7 @@ public class CommandLineUI {
 				reader = TridasIO.getFileReader(inputFormat);
 			}
 			else {
-				reader = TridasIO.getFileReaderFromExtension(inputfilename
-						.substring(inputfilename.lastIndexOf(".") + 1));
+				reader = TridasIO.getFileReaderFromContent(new File(inputfilename));
 			}
 			if (reader == null) {
 				showHelp(false, "Reader format invalid");
@@ -161,34 +171,40 @@ public class CommandLineUI {
 		}
 		else if(batch ){
 			// BATCH
+			if (inputFormat != null && TridasIO.getFileReader(inputFormat) == null) {
+				showHelp(false, "Reader format invalid");
+				return;
+			}
+			if (outputFormat != null && TridasIO.getFileWriter(outputFormat) == null) {
+				showHelp(false, "Writer format invalid: " + outputFormat);
+				return;
+			}
+			
 			String[] files = getFilesFromFolder(inputfilename);
-			for (String file : files) {
-				AbstractDendroFileReader reader;
-				
-				if (inputFormat != null) {
-					reader = TridasIO.getFileReader(inputFormat);
-				}
-				else {
-					reader = TridasIO.getFileReaderFromExtension(file.substring(file.lastIndexOf(".") + 1));
-				}
-				if (reader == null) {
-					showHelp(false, "Reader format invalid");
-					return;
+			if(files==null || files.length==0) 
+			{
+				showHelp(false, "No file(s) found in folder "+inputfilename);
+				return;
+			}
+			
+			// Read, convert and write each file in parallel.  Results come back
+			// in the same order as the input files.
+			BatchConverter converter = new BatchConverter(threads);
+			converter.setInputFormat(inputFormat);
+			converter.setOutputFormat(outputFormat);
+			converter.setNamingConvention(convention);
+			
+			for (BatchConverter.Conversion conversion : converter.convert(inputfilename, files, outputFolder)) {
+				for (Exception e : conversion.getErrors()) {
+					System.out.println(conversion.getOrigFilename() + ": " + e.toString());
 				}
-	
-				try {
-					reader.loadFile(inputfilename + File.separator + file);
-					reader.getTridasContainer();
-				} catch (IOException e1) {
-					System.out.println(e1.toString());
-					e1.printStackTrace();
-				} catch (InvalidDendroFileException e) {
-					System.out.println(e.toString());
-					e.printStackTrace();
+				if (conversion.getReader() == null) {
+					continue;
 				}
 				WriterReaderStruct struct = new WriterReaderStruct();
-				struct.reader = reader;
-				struct.origFilename = file;
+				struct.reader = conversion.getReader();
+				struct.writer = conversion.getWriter();
+				struct.origFilename = conversion.getOrigFilename();
 				structs.add(struct);
 			}
 		}
@@ -204,100 +220,50 @@ public class CommandLineUI {
 				return;
 			}
 			
-			for (String file : files) {
-				
-				AbstractDendroFileReader reader;
-				
-				if (inputFormat != null) {
-					reader = TridasIO.getFileReader(inputFormat);
-				}
-				else {
-					reader = TridasIO.getFileReaderFromExtension(file.substring(file.lastIndexOf(".") + 1));
-				}
-				if (reader == null) {
+			// Read the files in parallel, keeping the containers in input order
+			BatchConverter converter = new BatchConverter(threads);
+			converter.setInputFormat(inputFormat);
+			
+			for (BatchConverter.Conversion conversion : converter.read(inputfilename, files)) {
+				if (conversion.getReader() == null) {
 					showHelp(false, "Reader format invalid");
 					return;
 				}
-	
-				try {
-					reader.loadFile(inputfilename + File.separator + file);
-					containers.add(reader.getTridasContainer());
-					
-					for(ConversionWarning warn : reader.getWarnings())
-					{
-						System.out.println(warn.getWarningType() + ": "+warn.getMessage());
-					}
-					
-				} catch (IOException e1) {
-					System.out.println(e1.toString());
-					e1.printStackTrace();
-				} catch (InvalidDendroFileException e) {
+				for (Exception e : conversion.getErrors()) {
 					System.out.println(e.toString());
-					e.printStackTrace();
 				}
-			}
-			
-			
-			TridasTridas bigcontainer = IOUtils.mergeToSingleProject(containers);
-			if(bigcontainer==null) System.out.println("Container is null");
-			//TridasUtils.debugTridasStructure(bigcontainer);
-			
-			TridasWriter writer = new TridasWriter();
-			TridasMetadataFieldSet argDefaults = new TridasMetadataFieldSet();
-			
-			// Write to a temporary TRiDaS file
-			File temp = null;
-			try {
-				writer.parseTridasContainer(bigcontainer, argDefaults);
-				temp = File.createTempFile("tmpfolder", "fld");
-				temp.delete();
-				temp.mkdir();
-				try {
-					writer.saveAllToDisk(temp.getAbsolutePath());
-				} catch (Exception e2) {
-					// TODO Auto-generated catch block
-					e2.printStackTrace();
+				if (conversion.getContainer() != null) {
+					containers.add(conversion.getContainer());
 				}
-				
-				files = getFilesFromFolder(temp.getAbsolutePath());
-				
-				
-				for (String file : files) {
-					
-					TridasReader reader = new TridasReader();
-					
-					try {
-						reader.loadFile(temp.getAbsolutePath() + File.separator + file);
-						reader.getTridasContainer();
-					} catch (IOException e1) {
-						System.out.println(e1.toString());
-						e1.printStackTrace();
-					} catch (InvalidDendroFileException e) {
-						System.out.println(e.toString());
-						e.printStackTrace();
-					}
-					WriterReaderStruct struct = new WriterReaderStruct();
-					struct.reader = reader;
-					struct.origFilename = inputfilename;
-					structs.add(struct);
+				for(ConversionWarning warn : conversion.getReader().getWarnings())
+				{
+					System.out.println(warn.getWarningType() + ": "+warn.getMessage());
 				}
-			} catch (IOException e1) {
-				e1.printStackTrace();
-			} catch (Exception e2) {
-				// TODO Auto-generated catch block
-				e2.printStackTrace();
-			} finally {
-				temp.delete();
 			}
-
 			
-
 			
+			// Merge in memory, combining objects and derived series with the
+			// same title, and hand the result straight to the writer
+			TridasTridas bigcontainer = IOUtils.mergeToSingleProject(containers, true);
+			if(bigcontainer==null) 
+			{
+				System.out.println("Container is null");
+				return;
+			}
+			//TridasUtils.debugTridasStructure(bigcontainer);
 			
+			WriterReaderStruct struct = new WriterReaderStruct();
+			struct.container = bigcontainer;
+			struct.origFilename = inputfilename;
+			structs.add(struct);
 		}
 		
 		// set up writers
 		for (WriterReaderStruct s : structs) {
+			if (batch) {
+				// already written by the batch converter
+				continue;
+			}
 			AbstractDendroCollectionWriter writer;
 			if (outputFormat != null) {
 				writer = TridasIO.getFileWriter(outputFormat);
@@ -329,7 +295,7 @@ public class CommandLineUI {
 				{
 					writer.setNamingConvention(namingConvention);
 				}
-				writer.load(s.reader.getTridasContainer());
+				writer.load(s.container != null ? s.container : s.reader.getTridasContainer());
 								
 				writer.saveAllToDisk(outputFolder);
 			}catch (Exception e) {
@@ -349,18 +315,25 @@ public class CommandLineUI {
 				System.out.println("--- File '" + struct.origFilename + "'" + " ---");
 				System.out.println("Reader warnings thrown:");
 				
-				if (reader.getDefaults() != null) {
-					if (reader.getDefaults().getWarnings() != null) {
-						for (ConversionWarning cw : reader.getDefaults().getWarnings()) {
-							System.out.println("  - [" + cw.getWarningType().toString() + "]: " + cw.getMessage());
+				// Merged files have no reader, their warnings were shown as they were read
+				if (reader != null) {
+					if (reader.getDefaults() != null) {
+						if (reader.getDefaults().getWarnings() != null) {
+							for (ConversionWarning cw : reader.getDefaults().getWarnings()) {
+								System.out.println("  - [" + cw.getWarningType().toString() + "]: " + cw.getMessage());
+							}
 						}
 					}
-				}
-				
-				for (ConversionWarning cw : reader.getWarnings()) {
-					System.out.println("  - [" + cw.getWarningType().toString() + "]: " + cw.getMessage());
+					
+					for (ConversionWarning cw : reader.getWarnings()) {
+						System.out.println("  - [" + cw.getWarningType().toString() + "]: " + cw.getMessage());
+					}
 				}
 				System.out.println("Writer warnings thrown:");
+				if (writer == null) {
+					System.out.println("--------------------------");
+					continue;
+				}
 				if (writer.getDefaults() != null) {
 					if (writer.getDefaults().getWarnings() != null) {
 						for (ConversionWarning cw : writer.getDefaults().getWarnings()) {
@@ -379,6 +352,9 @@ public class CommandLineUI {
 		System.out.println("Files saved:");
 		for (WriterReaderStruct s : structs) {
 			AbstractDendroCollectionWriter writer = s.writer;
+			if (writer == null) {
+				continue;
+			}
 			IDendroFile[] files = writer.getFiles();
 			
 			// Show list of output files
@@ -418,6 +394,8 @@ public class CommandLineUI {
 		System.out.println("  -inputFormat=name  - specify input format name");
 		System.out.println("  -outputFormat=name - specify output format name (default is Tridas)");
 		System.out.println("  -batch             - loads all files in a folder");
+		System.out.println("  -threads=n         - number of files to convert at once in batch mode");
+		System.out.println("                       (default is the number of processors)");
 		System.out.println("");
 		System.out.println("The following options are experimental:");
 		System.out.println("  -merge-project     - all input files treated as if from a single project");
@@ -500,5 +478,7 @@ public class CommandLineUI {
 		AbstractDendroFileReader reader;
 		AbstractDendroCollectionWriter writer;
 		String origFilename;
+		// merged container, used instead of the reader's
+		TridasTridas container;
 	}
 }
@@ -0,0 +1,232 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.function.Supplier;
+
+import org.tridas.io.exceptions.ConversionWarning;
+import org.tridas.io.naming.INamingConvention;
+import org.tridas.io.transform.TridasVersionTransformer.TridasVersion;
+
+/**
+ * The settings for a single conversion: which charsets to read and write with,
+ * whether to detect the reading charset, the version of TRiDaS held internally,
+ * the naming convention for output files and where to send warnings.
+ * <p>
+ * A context can't be changed once it is made. The <code>with</code> methods
+ * return a copy with one setting changed, so a context can be shared between
+ * threads and each conversion can have its own. Readers and writers that are
+ * not given a context use {@link TridasIO#getDefaultContext()}, which is made
+ * from the settings in {@link TridasIO}.
+ *
+ * @author agent
+ */
+public final class ConversionContext {
+
+	/**
+	 * Receives warnings as readers and writers add them, as well as them being
+	 * kept by the reader or writer. Must be thread safe if the context is shared
+	 * between conversions running at the same time.
+	 */
+	public interface WarningSink {
+
+		public void addWarning(ConversionWarning argWarning);
+	}
+
+	private final String readingCharset;
+	private final String writingCharset;
+	private final boolean charsetDetection;
+	private final TridasVersion tridasVersion;
+	private final Supplier<? extends INamingConvention> namingConvention;
+	private final WarningSink warningSink;
+
+	/**
+	 * Context that reads and writes with the platform's default charset, without
+	 * charset detection, and has no naming convention or warning sink.
+	 */
+	public ConversionContext() {
+		this(Charset.defaultCharset().displayName(), Charset.defaultCharset().displayName(), false,
+				TridasVersion.V_1_2_2, null, null);
+	}
+
+	private ConversionContext(String argReadingCharset, String argWritingCharset, boolean argCharsetDetection,
+			TridasVersion argTridasVersion, Supplier<? extends INamingConvention> argNamingConvention,
+			WarningSink argWarningSink) {
+		readingCharset = argReadingCharset;
+		writingCharset = argWritingCharset;
+		charsetDetection = argCharsetDetection;
+		tridasVersion = argTridasVersion;
+		namingConvention = argNamingConvention;
+		warningSink = argWarningSink;
+	}
+
+	/**
+	 * Copy with a different reading charset. Setting a charset turns off charset
+	 * detection, as {@link TridasIO#setReadingCharset(String)} does.
+	 *
+	 * @param argCharset
+	 *            the charset to read with, or null for the platform default
+	 * @return
+	 * @throws IllegalCharsetNameException
+	 *             - If the given charset name is illegal
+	 * @throws UnsupportedCharsetException
+	 *             - If no support for the named charset is available in this
+	 *             instance of the Java virtual machine
+	 */
+	public ConversionContext withReadingCharset(String argCharset) {
+		if (argCharset != null) {
+			// check to see if we can get the charset
+			Charset.forName(argCharset);
+		}
+		return new ConversionContext(argCharset, writingCharset, (argCharset != null) ? false : charsetDetection,
+				tridasVersion, namingConvention, warningSink);
+	}
+
+	/**
+	 * Copy with a different writing charset.
+	 *
+	 * @param argCharset
+	 *            the charset to write with, or null for UTF-8
+	 * @return
+	 * @throws IllegalCharsetNameException
+	 *             - If the given charset name is illegal
+	 * @throws UnsupportedCharsetException
+	 *             - If no support for the named charset is available in this
+	 *             instance of the Java virtual machine
+	 */
+	public ConversionContext withWritingCharset(String argCharset) {
+		if (argCharset != null) {
+			// check to see if we can get the charset
+			Charset.forName(argCharset);
+		}
+		return new ConversionContext(readingCharset, argCharset, charsetDetection, tridasVersion, namingConvention,
+				warningSink);
+	}
+
+	/**
+	 * Copy with charset detection turned on or off. Turning it on clears the
+	 * reading charset, as {@link TridasIO#setCharsetDetection(boolean)} does.
+	 *
+	 * @param argCharsetDetection
+	 * @return
+	 */
+	public ConversionContext withCharsetDetection(boolean argCharsetDetection) {
+		return new ConversionContext(argCharsetDetection ? null : readingCharset, writingCharset, argCharsetDetection,
+				tridasVersion, namingConvention, warningSink);
+	}
+
+	/**
+	 * Copy with a different internal TRiDaS version. TRiDaS files are converted
+	 * to this version when they are read and from it when they are written, so
+	 * it must match the version of the schema classes in use.
+	 *
+	 * @param argVersion
+	 * @return
+	 */
+	public ConversionContext withTridasVersion(TridasVersion argVersion) {
+		if (argVersion == null) {
+			throw new NullPointerException();
+		}
+		return new ConversionContext(readingCharset, writingCharset, charsetDetection, argVersion, namingConvention,
+				warningSink);
+	}
+
+	/**
+	 * Copy with a naming convention for writers. Naming conventions remember the
+	 * files they have named, so the context holds a factory and each writer is
+	 * given a new convention.
+	 *
+	 * @param argFactory
+	 *            creates the naming convention, or null to leave each writer
+	 *            with its own default
+	 * @return
+	 */
+	public ConversionContext withNamingConvention(Supplier<? extends INamingConvention> argFactory) {
+		return new ConversionContext(readingCharset, writingCharset, charsetDetection, tridasVersion, argFactory,
+				warningSink);
+	}
+
+	/**
+	 * Copy with a different warning sink.
+	 *
+	 * @param argSink
+	 *            the sink, or null for none
+	 * @return
+	 */
+	public ConversionContext withWarningSink(WarningSink argSink) {
+		return new ConversionContext(readingCharset, writingCharset, charsetDetection, tridasVersion, namingConvention,
+				argSink);
+	}
+
+	/**
+	 * @return the charset to read with, or null to use the platform default or
+	 *         detection
+	 */
+	public String getReadingCharset() {
+		return readingCharset;
+	}
+
+	/**
+	 * @return the charset to write with, or null for UTF-8
+	 */
+	public String getWritingCharset() {
+		return writingCharset;
+	}
+
+	/**
+	 * @return true if the charset is detected when reading files
+	 */
+	public boolean isCharsetDetection() {
+		return charsetDetection;
+	}
+
+	/**
+	 * @return version of TRiDaS held internally
+	 */
+	public TridasVersion getTridasVersion() {
+		return tridasVersion;
+	}
+
+	/**
+	 * Create a new naming convention for a writer.
+	 *
+	 * @return the convention, or null if this context doesn't have one
+	 */
+	public INamingConvention createNamingConvention() {
+		return (namingConvention == null) ? null : namingConvention.get();
+	}
+
+	/**
+	 * @return the warning sink, or null if there isn't one
+	 */
+	public WarningSink getWarningSink() {
+		return warningSink;
+	}
+
+	/**
+	 * Send a warning to the sink, if there is one
+	 *
+	 * @param argWarning
+	 */
+	void warn(ConversionWarning argWarning) {
+		if (warningSink != null) {
+			warningSink.addWarning(argWarning);
+		}
+	}
+}
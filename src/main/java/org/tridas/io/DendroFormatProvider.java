@@ -0,0 +1,89 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io;
+
+import org.tridas.io.detection.FormatProbe;
+
+/**
+ * Supplies the reader and/or writer for a single format. Providers let
+ * {@link TridasIO} list a format by its name and extensions without loading the
+ * reader or writer classes, which only happens the first time one of them is
+ * asked for.
+ * <p>
+ * Formats outside this library can be added by listing their provider classes
+ * in a <code>META-INF/services/org.tridas.io.DendroFormatProvider</code> file,
+ * in which case they are found with {@link java.util.ServiceLoader} when
+ * TridasIO is first used. The simplest way to write one is to extend
+ * {@link LazyDendroFormatProvider} with an empty constructor.
+ *
+ * @author agent
+ */
+public interface DendroFormatProvider {
+
+	/**
+	 * The format's names and extensions. This is asked for as soon as the
+	 * provider is registered, so it must not load the reader or writer.
+	 *
+	 * @return
+	 */
+	public AbstractDendroFormat getFormat();
+
+	/**
+	 * Probe used to recognise files in this format from their content.
+	 *
+	 * @return the probe, or null if files can only be recognised by their
+	 *         extension
+	 */
+	public FormatProbe getProbe();
+
+	/**
+	 * @return true if this provider has a reader for the format
+	 */
+	public boolean hasReader();
+
+	/**
+	 * @return true if this provider has a writer for the format
+	 */
+	public boolean hasWriter();
+
+	/**
+	 * The reader class, loading it if it hasn't been already.
+	 *
+	 * @return the class, or null if there is no reader
+	 */
+	public Class<? extends AbstractDendroFileReader> getReaderClass();
+
+	/**
+	 * The writer class, loading it if it hasn't been already.
+	 *
+	 * @return the class, or null if there is no writer
+	 */
+	public Class<? extends AbstractDendroCollectionWriter> getWriterClass();
+
+	/**
+	 * Create a new reader.
+	 *
+	 * @return the reader, or null if there is no reader
+	 */
+	public AbstractDendroFileReader createReader();
+
+	/**
+	 * Create a new writer.
+	 *
+	 * @return the writer, or null if there is no writer
+	 */
+	public AbstractDendroCollectionWriter createWriter();
+}
@@ -15,8 +15,16 @@
  */
 package org.tridas.io;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
 import org.tridas.interfaces.ITridasSeries;
 import org.tridas.io.defaults.IMetadataFieldSet;
+import org.tridas.io.util.IOUtils;
 
 /**
  * Interface for all Dendro File Formats.
@@ -34,6 +42,54 @@ public interface IDendroFile {
 	 */
 	public String[] saveToString();
 	
+	/**
+	 * Writes the file to a character stream. The stream is flushed but not
+	 * closed. By default this writes out the lines from {@link #saveToString()},
+	 * so formats only need to override it if they can write their output as they
+	 * go rather than building it all in memory first.
+	 * 
+	 * @param argWriter
+	 * @throws IOException
+	 *             if the file could not be written, or could not be saved to
+	 *             strings
+	 */
+	public default void writeTo(Writer argWriter) throws IOException {
+		String[] lines = saveToString();
+		if (lines == null) {
+			throw new IOException(I18n.getText("fileio.saveFailed"));
+		}
+		IOUtils.writeLines(argWriter, lines);
+		argWriter.flush();
+	}
+	
+	/**
+	 * Writes the file to a byte stream, encoded with
+	 * {@link TridasIO#getWritingCharset()}, or UTF-8 if that is not set or not
+	 * supported. The stream is flushed but not closed.
+	 * 
+	 * @param argOutput
+	 * @throws IOException
+	 */
+	public default void writeTo(OutputStream argOutput) throws IOException {
+		writeTo(argOutput, TridasIO.getWritingCharset());
+	}
+	
+	/**
+	 * Writes the file to a byte stream, encoded with the given charset, or UTF-8
+	 * if that is null or not supported. The stream is flushed but not closed.
+	 * Binary formats override this and ignore the charset.
+	 * 
+	 * @param argOutput
+	 * @param argCharset
+	 * @throws IOException
+	 */
+	public default void writeTo(OutputStream argOutput, String argCharset) throws IOException {
+		Charset charset = IOUtils.getCharsetOrDefault(argCharset);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(argOutput, charset));
+		writeTo(writer);
+		writer.flush();
+	}
+	
 	/**
 	 * Get the series list.
 	 * 
@@ -0,0 +1,219 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.Supplier;
+
+import org.tridas.io.detection.FormatProbe;
+
+/**
+ * Provider that names its reader and writer classes rather than referring to
+ * them, so they are not loaded until a reader or writer is first created. Both
+ * must have a public empty constructor.
+ *
+ * @author agent
+ */
+public class LazyDendroFormatProvider implements DendroFormatProvider {
+
+	private final AbstractDendroFormat format;
+	private final String readerClassName;
+	private final String writerClassName;
+	private final FormatProbe probe;
+	private volatile Supplier<? extends AbstractDendroFileReader> readerFactory = null;
+	private volatile Supplier<? extends AbstractDendroCollectionWriter> writerFactory = null;
+
+	/**
+	 * @param argFormat
+	 *            the format
+	 * @param argReaderClassName
+	 *            fully qualified name of the reader class, or null if there is
+	 *            no reader
+	 * @param argWriterClassName
+	 *            fully qualified name of the writer class, or null if there is
+	 *            no writer
+	 */
+	public LazyDendroFormatProvider(AbstractDendroFormat argFormat, String argReaderClassName,
+			String argWriterClassName) {
+		this(argFormat, argReaderClassName, argWriterClassName, null);
+	}
+
+	/**
+	 * @param argFormat
+	 *            the format
+	 * @param argReaderClassName
+	 *            fully qualified name of the reader class, or null if there is
+	 *            no reader
+	 * @param argWriterClassName
+	 *            fully qualified name of the writer class, or null if there is
+	 *            no writer
+	 * @param argProbe
+	 *            probe to recognise the format's files by their content, or null
+	 */
+	public LazyDendroFormatProvider(AbstractDendroFormat argFormat, String argReaderClassName,
+			String argWriterClassName, FormatProbe argProbe) {
+		format = argFormat;
+		readerClassName = argReaderClassName;
+		writerClassName = argWriterClassName;
+		probe = argProbe;
+	}
+
+	@Override
+	public AbstractDendroFormat getFormat() {
+		return format;
+	}
+
+	@Override
+	public FormatProbe getProbe() {
+		return probe;
+	}
+
+	@Override
+	public boolean hasReader() {
+		return readerClassName != null;
+	}
+
+	@Override
+	public boolean hasWriter() {
+		return writerClassName != null;
+	}
+
+	/**
+	 * @return name of the reader class, or null if there is no reader
+	 */
+	public String getReaderClassName() {
+		return readerClassName;
+	}
+
+	/**
+	 * @return name of the writer class, or null if there is no writer
+	 */
+	public String getWriterClassName() {
+		return writerClassName;
+	}
+
+	/**
+	 * @throws IllegalStateException
+	 *             if the class could not be found
+	 */
+	@Override
+	public Class<? extends AbstractDendroFileReader> getReaderClass() {
+		if (readerClassName == null) {
+			return null;
+		}
+		return loadClass(readerClassName, AbstractDendroFileReader.class);
+	}
+
+	/**
+	 * @throws IllegalStateException
+	 *             if the class could not be found
+	 */
+	@Override
+	public Class<? extends AbstractDendroCollectionWriter> getWriterClass() {
+		if (writerClassName == null) {
+			return null;
+		}
+		return loadClass(writerClassName, AbstractDendroCollectionWriter.class);
+	}
+
+	/**
+	 * @throws IllegalStateException
+	 *             if the reader could not be created
+	 */
+	@Override
+	public AbstractDendroFileReader createReader() {
+		if (readerClassName == null) {
+			return null;
+		}
+		Supplier<? extends AbstractDendroFileReader> factory = readerFactory;
+		if (factory == null) {
+			// two threads may both look up the constructor, which does no harm
+			factory = getFactory(getReaderClass());
+			readerFactory = factory;
+		}
+		return factory.get();
+	}
+
+	/**
+	 * @throws IllegalStateException
+	 *             if the writer could not be created
+	 */
+	@Override
+	public AbstractDendroCollectionWriter createWriter() {
+		if (writerClassName == null) {
+			return null;
+		}
+		Supplier<? extends AbstractDendroCollectionWriter> factory = writerFactory;
+		if (factory == null) {
+			factory = getFactory(getWriterClass());
+			writerFactory = factory;
+		}
+		return factory.get();
+	}
+
+	private <T> Class<? extends T> loadClass(String argClassName, Class<T> argType) {
+		try {
+			return Class.forName(argClassName, true, getClass().getClassLoader()).asSubclass(argType);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException(I18n.getText("fileio.creationError", argClassName), e);
+		} catch (ClassCastException e) {
+			throw new IllegalStateException(I18n.getText("fileio.creationError", argClassName), e);
+		}
+	}
+
+	private static <T> Supplier<T> getFactory(Class<T> argClass) {
+		try {
+			return createConstructorFactory(argClass);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(I18n.getText("fileio.missingEmptyConstructor", argClass.getName()), e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(I18n.getText("fileio.creationError", argClass.getName()), e);
+		}
+	}
+
+	/**
+	 * Factory that calls the empty constructor of a class through a method handle
+	 *
+	 * @param argClass
+	 * @return
+	 * @throws NoSuchMethodException
+	 *             if the class doesn't have an empty constructor
+	 * @throws IllegalAccessException
+	 *             if the constructor isn't public
+	 */
+	static <T> Supplier<T> createConstructorFactory(final Class<T> argClass) throws NoSuchMethodException,
+			IllegalAccessException {
+		final MethodHandle constructor = MethodHandles.lookup().findConstructor(argClass,
+				MethodType.methodType(void.class));
+
+		return new Supplier<T>() {
+			@Override
+			public T get() {
+				try {
+					return argClass.cast(constructor.invoke());
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		};
+	}
+}
@@ -17,6 +17,8 @@ package org.tridas.io;
 
 import java.io.BufferedReader;
 import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
@@ -26,69 +28,63 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 import java.util.TreeMap;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.tridas.io.formats.belfastapple.BelfastAppleReader;
-import org.tridas.io.formats.belfastapple.BelfastAppleWriter;
-import org.tridas.io.formats.belfastarchive.BelfastArchiveReader;
-import org.tridas.io.formats.besancon.BesanconReader;
-import org.tridas.io.formats.besancon.BesanconWriter;
-import org.tridas.io.formats.catras.CatrasReader;
-import org.tridas.io.formats.catras.CatrasWriter;
-import org.tridas.io.formats.corina.CorinaReader;
-import org.tridas.io.formats.corina.CorinaRecursiveReader;
-import org.tridas.io.formats.corina.CorinaWriter;
-import org.tridas.io.formats.cracow.CracowReader;
-//import org.tridas.io.formats.csvmatrix.CSVMatrixReader;
-import org.tridas.io.formats.csvmatrix.CSVMatrixWriter;
-import org.tridas.io.formats.csvmatrixremarks.CSVMatrixRemarksWriter;
-import org.tridas.io.formats.csvmetadatamatrix.CSVMetadataWriter;
-import org.tridas.io.formats.dendrodb.DendroDBReader;
-import org.tridas.io.formats.excelmatrix.ExcelMatrixReader;
-import org.tridas.io.formats.excelmatrix.ExcelMatrixWriter;
-import org.tridas.io.formats.fhx2.FHX2Reader;
-import org.tridas.io.formats.fhx2.FHX2Writer;
-import org.tridas.io.formats.heidelberg.HeidelbergReader;
-import org.tridas.io.formats.heidelberg.HeidelbergUnstackedWriter;
-import org.tridas.io.formats.heidelberg.HeidelbergWriter;
-import org.tridas.io.formats.heikkenensingle.HeikkenenSingleReader;
-import org.tridas.io.formats.heikkenensingle.HeikkenenSingleWriter;
-import org.tridas.io.formats.kinsys.KinsysReader;
-import org.tridas.io.formats.lipd.LiPDWriter;
-import org.tridas.io.formats.lipdmetadata.LiPDMetadataWriter;
-import org.tridas.io.formats.nottingham.NottinghamReader;
-import org.tridas.io.formats.nottingham.NottinghamWriter;
-import org.tridas.io.formats.odfmatrix.ODFMatrixReader;
-import org.tridas.io.formats.odfmatrix.ODFMatrixWriter;
-import org.tridas.io.formats.ooxml.OOXMLReader;
-import org.tridas.io.formats.ooxml.OOXMLWriter;
-import org.tridas.io.formats.oxford.OxfordReader;
-import org.tridas.io.formats.oxford.OxfordWriter;
-import org.tridas.io.formats.past4.Past4Reader;
-import org.tridas.io.formats.past4.Past4Writer;
-import org.tridas.io.formats.sheffield.SheffieldReader;
-import org.tridas.io.formats.sheffield.SheffieldWriter;
-import org.tridas.io.formats.topham.TophamReader;
-import org.tridas.io.formats.topham.TophamWriter;
-import org.tridas.io.formats.tridas.TridasReader;
-import org.tridas.io.formats.tridas.TridasWriter1_2_2;
-import org.tridas.io.formats.tridas.TridasWriter1_2_3;
-import org.tridas.io.formats.tridasjson.TridasJSONWriter;
-import org.tridas.io.formats.trims.TrimsReader;
-import org.tridas.io.formats.trims.TrimsWriter;
-import org.tridas.io.formats.tucson.TucsonReader;
-import org.tridas.io.formats.tucson.TucsonUnstackedWriter;
-import org.tridas.io.formats.tucson.TucsonWriter;
-import org.tridas.io.formats.tucsoncompact.TucsonCompactReader;
-import org.tridas.io.formats.tucsoncompact.TucsonCompactWriter;
-import org.tridas.io.formats.tucsondataonly.TucsonDataOnlyWriter;
-import org.tridas.io.formats.vformat.VFormatReader;
-import org.tridas.io.formats.vformat.VFormatWriter;
-import org.tridas.io.formats.windendro.WinDendroReader;
+import org.tridas.io.detection.FileSample;
+import org.tridas.io.detection.FormatDetection;
+import org.tridas.io.detection.FormatProbe;
+import org.tridas.io.formats.belfastapple.BelfastAppleFormat;
+import org.tridas.io.formats.belfastarchive.BelfastArchiveFormat;
+import org.tridas.io.formats.besancon.BescanconFormat;
+import org.tridas.io.formats.catras.CatrasFormat;
+import org.tridas.io.formats.catras.CatrasProbe;
+import org.tridas.io.formats.corina.CorinaFormat;
+import org.tridas.io.formats.cracow.CracowFormat;
+import org.tridas.io.formats.csvmatrix.CSVMatrixFormat;
+import org.tridas.io.formats.csvmatrixremarks.CSVMatrixRemarksFormat;
+import org.tridas.io.formats.csvmetadatamatrix.CSVMetadataFormat;
+import org.tridas.io.formats.dendrodb.DendroDBFormat;
+import org.tridas.io.formats.excelmatrix.ExcelMatrixFormat;
+import org.tridas.io.formats.excelmatrix.ExcelMatrixProbe;
+import org.tridas.io.formats.fhx2.FHX2Format;
+import org.tridas.io.formats.fhx2.FHX2Probe;
+import org.tridas.io.formats.heidelberg.HeidelbergFormat;
+import org.tridas.io.formats.heidelberg.HeidelbergProbe;
+import org.tridas.io.formats.heidelberg.HeidelbergUnstackedFormat;
+import org.tridas.io.formats.heikkenensingle.HeikkenenSingleFormat;
+import org.tridas.io.formats.kinsys.KinsysFormat;
+import org.tridas.io.formats.lipd.LiPDFormat;
+import org.tridas.io.formats.lipdmetadata.LiPDMetadataFormat;
+import org.tridas.io.formats.nottingham.NottinghamFormat;
+import org.tridas.io.formats.odfmatrix.ODFMatrixFormat;
+import org.tridas.io.formats.odfmatrix.ODFMatrixProbe;
+import org.tridas.io.formats.ooxml.OOXMLFormat;
+import org.tridas.io.formats.ooxml.OOXMLProbe;
+import org.tridas.io.formats.oxford.OxfordFormat;
+import org.tridas.io.formats.past4.Past4Format;
+import org.tridas.io.formats.past4.Past4Probe;
+import org.tridas.io.formats.sheffield.SheffieldFormat;
+import org.tridas.io.formats.topham.TophamFormat;
+import org.tridas.io.formats.tridas.TridasFormat;
+import org.tridas.io.formats.tridas.TridasProbe;
+import org.tridas.io.formats.tridasjson.TridasJSONFormat;
+import org.tridas.io.formats.trims.TrimsFormat;
+import org.tridas.io.formats.tucson.TucsonFormat;
+import org.tridas.io.formats.tucson.TucsonProbe;
+import org.tridas.io.formats.tucson.TucsonUnstackedFormat;
+import org.tridas.io.formats.tucsoncompact.TucsonCompactFormat;
+import org.tridas.io.formats.tucsondataonly.TucsonDataOnlyFormat;
+import org.tridas.io.formats.vformat.VFormat;
+import org.tridas.io.formats.windendro.WinDendroFormat;
 import org.tridas.io.transform.TridasVersionTransformer.TridasVersion;
+import org.tridas.spatial.CRSTable;
 import org.tridas.spatial.CoordinateReferenceSystem;
 import org.tridas.spatial.GMLPointSRSHandler.AxisOrder;
 
@@ -96,18 +92,38 @@ import org.tridas.spatial.GMLPointSRSHandler.AxisOrder;
 
 /**
  * Used to get readers/writers from name or extension. In order to include your
- * writer/reader in the list,
- * register it with {@link #registerFileReader(Class)} and
+ * writer/reader in the list, register its {@link DendroFormatProvider} with
+ * {@link #registerFormat(DendroFormatProvider)}, list the provider in a
+ * <code>META-INF/services/org.tridas.io.DendroFormatProvider</code> file, or
+ * register the classes with {@link #registerFileReader(Class)} and
  * {@link #registerFileWriter(Class)}. Also, this class
  * stores global properties for the library, such as charset detection when loading files.
+ * <p>
+ * The registered formats are held in an index that is rebuilt whenever a reader
+ * or writer is registered and never modified after that. Lookups by name,
+ * extension, format or filter just read the current index, so they don't lock
+ * and only create the one reader or writer they return. The built in formats
+ * only name their reader and writer classes, so none of them are loaded until
+ * they are first used. The coordinate reference systems are likewise only read
+ * the first time one is looked up.
  * 
  * @author daniel
  */
 public class TridasIO {
 	
 	private static final Logger log = LoggerFactory.getLogger(TridasIO.class);
-	private static final HashMap<String, TridasIOEntry> converterMap = new HashMap<String, TridasIOEntry>();
-	private static final HashMap<String, String> extensionMap = new HashMap<String, String>();
+	private static final String FORMATS = "org.tridas.io.formats.";
+	
+	/**
+	 * Confidence a content detection must have for
+	 * {@link #getFileReaderFromContent(File)} to use it instead of the extension
+	 */
+	public static final float MIN_DETECTION_CONFIDENCE = 0.5f;
+	/** added to a detection's confidence when the file has one of the format's extensions */
+	private static final float EXTENSION_CONFIDENCE = 0.05f;
+	
+	private static volatile Registry registry = new Registry(new TreeMap<String, TridasIOEntry>(),
+			new HashMap<String, String>());
 	
 	private static String readingCharset = Charset.defaultCharset().displayName();
 	private static String writingCharset = Charset.defaultCharset().displayName();
@@ -115,79 +131,140 @@ public class TridasIO {
 	
 	public static TridasVersion tridasVersionUsedInternally = TridasVersion.V_1_2_2;
 	
+	/**
+	 * @deprecated this is empty until the first coordinate reference system is
+	 *             looked up, use {@link #getCoordinateReferenceSystem(Integer)}
+	 *             or {@link #getCRSMap()} instead
+	 */
+	@Deprecated
 	public static TreeMap<Integer, CoordinateReferenceSystem> crsMap = new TreeMap<Integer, CoordinateReferenceSystem>();
+	private static final Object crsLock = new Object();
+	private static volatile boolean crsLoaded = false;
 	
 	static {
-		// register file readers/writers
-		registerFileReader(BelfastAppleReader.class);
-		registerFileReader(BelfastArchiveReader.class);
-		registerFileReader(BesanconReader.class);
-		registerFileReader(CatrasReader.class);
-		registerFileReader(CorinaReader.class);
-		registerFileReader(CorinaRecursiveReader.class);
-		registerFileReader(CracowReader.class);
-		//registerFileReader(CSVMatrixReader.class);
-		registerFileReader(DendroDBReader.class);
-		registerFileReader(ExcelMatrixReader.class);
-		registerFileReader(FHX2Reader.class);
-		registerFileReader(HeidelbergReader.class);
-		registerFileReader(HeikkenenSingleReader.class);
-		registerFileReader(KinsysReader.class);
-		registerFileReader(NottinghamReader.class);
-		registerFileReader(ODFMatrixReader.class);
-		registerFileReader(OOXMLReader.class);
-		registerFileReader(OxfordReader.class);
-		registerFileReader(Past4Reader.class);
-		registerFileReader(SheffieldReader.class);
-		registerFileReader(TophamReader.class);
-		registerFileReader(TridasReader.class);
-		registerFileReader(TrimsReader.class);
-		registerFileReader(TucsonReader.class);
-		registerFileReader(TucsonCompactReader.class);
-		registerFileReader(VFormatReader.class);
-		registerFileReader(WinDendroReader.class);
+		// register file readers/writers.  The recursive Corina reader has always
+		// replaced the plain one.
+		registerFormat(new LazyDendroFormatProvider(new BelfastAppleFormat(), FORMATS + "belfastapple.BelfastAppleReader", FORMATS + "belfastapple.BelfastAppleWriter"));
+		registerFormat(new LazyDendroFormatProvider(new BelfastArchiveFormat(), FORMATS + "belfastarchive.BelfastArchiveReader", null));
+		registerFormat(new LazyDendroFormatProvider(new BescanconFormat(), FORMATS + "besancon.BesanconReader", FORMATS + "besancon.BesanconWriter"));
+		registerFormat(new LazyDendroFormatProvider(new CatrasFormat(), FORMATS + "catras.CatrasReader", FORMATS + "catras.CatrasWriter", new CatrasProbe()));
+		registerFormat(new LazyDendroFormatProvider(new CorinaFormat(), FORMATS + "corina.CorinaRecursiveReader", FORMATS + "corina.CorinaWriter"));
+		registerFormat(new LazyDendroFormatProvider(new CracowFormat(), FORMATS + "cracow.CracowReader", null));
+		registerFormat(new LazyDendroFormatProvider(new DendroDBFormat(), FORMATS + "dendrodb.DendroDBReader", null));
+		registerFormat(new LazyDendroFormatProvider(new ExcelMatrixFormat(), FORMATS + "excelmatrix.ExcelMatrixReader", FORMATS + "excelmatrix.ExcelMatrixWriter", new ExcelMatrixProbe()));
+		registerFormat(new LazyDendroFormatProvider(new FHX2Format(), FORMATS + "fhx2.FHX2Reader", FORMATS + "fhx2.FHX2Writer", new FHX2Probe()));
+		registerFormat(new LazyDendroFormatProvider(new HeidelbergFormat(), FORMATS + "heidelberg.HeidelbergReader", FORMATS + "heidelberg.HeidelbergWriter", new HeidelbergProbe()));
+		registerFormat(new LazyDendroFormatProvider(new HeikkenenSingleFormat(), FORMATS + "heikkenensingle.HeikkenenSingleReader", FORMATS + "heikkenensingle.HeikkenenSingleWriter"));
+		registerFormat(new LazyDendroFormatProvider(new KinsysFormat(), FORMATS + "kinsys.KinsysReader", null));
+		registerFormat(new LazyDendroFormatProvider(new NottinghamFormat(), FORMATS + "nottingham.NottinghamReader", FORMATS + "nottingham.NottinghamWriter"));
+		registerFormat(new LazyDendroFormatProvider(new ODFMatrixFormat(), FORMATS + "odfmatrix.ODFMatrixReader", FORMATS + "odfmatrix.ODFMatrixWriter", new ODFMatrixProbe()));
+		registerFormat(new LazyDendroFormatProvider(new OOXMLFormat(), FORMATS + "ooxml.OOXMLReader", FORMATS + "ooxml.OOXMLWriter", new OOXMLProbe()));
+		registerFormat(new LazyDendroFormatProvider(new OxfordFormat(), FORMATS + "oxford.OxfordReader", FORMATS + "oxford.OxfordWriter"));
+		registerFormat(new LazyDendroFormatProvider(new Past4Format(), FORMATS + "past4.Past4Reader", FORMATS + "past4.Past4Writer", new Past4Probe()));
+		registerFormat(new LazyDendroFormatProvider(new SheffieldFormat(), FORMATS + "sheffield.SheffieldReader", FORMATS + "sheffield.SheffieldWriter"));
+		registerFormat(new LazyDendroFormatProvider(new TophamFormat(), FORMATS + "topham.TophamReader", FORMATS + "topham.TophamWriter"));
+		registerFormat(new LazyDendroFormatProvider(new TridasFormat(), FORMATS + "tridas.TridasReader", null, new TridasProbe()));
+		registerFormat(new LazyDendroFormatProvider(new TrimsFormat(), FORMATS + "trims.TrimsReader", FORMATS + "trims.TrimsWriter"));
+		registerFormat(new LazyDendroFormatProvider(new TucsonFormat(), FORMATS + "tucson.TucsonReader", FORMATS + "tucson.TucsonWriter", new TucsonProbe()));
+		registerFormat(new LazyDendroFormatProvider(new TucsonCompactFormat(), FORMATS + "tucsoncompact.TucsonCompactReader", FORMATS + "tucsoncompact.TucsonCompactWriter"));
+		registerFormat(new LazyDendroFormatProvider(new VFormat(), FORMATS + "vformat.VFormatReader", FORMATS + "vformat.VFormatWriter"));
+		registerFormat(new LazyDendroFormatProvider(new WinDendroFormat(), FORMATS + "windendro.WinDendroReader", null));
 		
-		registerFileWriter(BelfastAppleWriter.class);
-		registerFileWriter(BesanconWriter.class);
-		registerFileWriter(CatrasWriter.class);
-		registerFileWriter(CorinaWriter.class);
-		registerFileWriter(CSVMatrixWriter.class);
-		registerFileWriter(CSVMatrixRemarksWriter.class);
-		registerFileWriter(CSVMetadataWriter.class);
-		registerFileWriter(ExcelMatrixWriter.class);
-		registerFileWriter(FHX2Writer.class);
-		registerFileWriter(HeidelbergWriter.class);
-		registerFileWriter(HeidelbergUnstackedWriter.class);
-		registerFileWriter(HeikkenenSingleWriter.class);
-		registerFileWriter(LiPDWriter.class);
-		registerFileWriter(LiPDMetadataWriter.class);
-		registerFileWriter(NottinghamWriter.class);
-		registerFileWriter(ODFMatrixWriter.class);
-		registerFileWriter(OOXMLWriter.class);
-		registerFileWriter(OxfordWriter.class);
-		registerFileWriter(SheffieldWriter.class);
-		registerFileWriter(TophamWriter.class);
-		registerFileWriter(TridasWriter1_2_2.class);
-		registerFileWriter(TridasWriter1_2_3.class);
-		registerFileWriter(TridasJSONWriter.class);
-		registerFileWriter(TrimsWriter.class);
-		registerFileWriter(TucsonWriter.class);
-		registerFileWriter(TucsonUnstackedWriter.class);
-		registerFileWriter(TucsonDataOnlyWriter.class);
-		registerFileWriter(TucsonCompactWriter.class);
-		registerFileWriter(VFormatWriter.class);
-		registerFileWriter(Past4Writer.class);
+		registerFormat(new LazyDendroFormatProvider(new CSVMatrixFormat(), null, FORMATS + "csvmatrix.CSVMatrixWriter"));
+		registerFormat(new LazyDendroFormatProvider(new CSVMatrixRemarksFormat(), null, FORMATS + "csvmatrixremarks.CSVMatrixRemarksWriter"));
+		registerFormat(new LazyDendroFormatProvider(new CSVMetadataFormat(), null, FORMATS + "csvmetadatamatrix.CSVMetadataWriter"));
+		registerFormat(new LazyDendroFormatProvider(new HeidelbergUnstackedFormat(), null, FORMATS + "heidelberg.HeidelbergUnstackedWriter"));
+		registerFormat(new LazyDendroFormatProvider(new LiPDFormat(), null, FORMATS + "lipd.LiPDWriter"));
+		registerFormat(new LazyDendroFormatProvider(new LiPDMetadataFormat(), null, FORMATS + "lipdmetadata.LiPDMetadataWriter"));
+		registerFormat(new LazyDendroFormatProvider(new TridasFormat(TridasVersion.V_1_2_2), null, FORMATS + "tridas.TridasWriter1_2_2"));
+		registerFormat(new LazyDendroFormatProvider(new TridasFormat(TridasVersion.V_1_2_3), null, FORMATS + "tridas.TridasWriter1_2_3"));
+		registerFormat(new LazyDendroFormatProvider(new TridasJSONFormat(), null, FORMATS + "tridasjson.TridasJSONWriter"));
+		registerFormat(new LazyDendroFormatProvider(new TucsonUnstackedFormat(), null, FORMATS + "tucson.TucsonUnstackedWriter"));
+		registerFormat(new LazyDendroFormatProvider(new TucsonDataOnlyFormat(), null, FORMATS + "tucsondataonly.TucsonDataOnlyWriter"));
 		
-
+		// and any others on the classpath
+		loadFormatProviders();
+	}
+	
+	/**
+	 * Register every {@link DendroFormatProvider} listed in
+	 * META-INF/services/org.tridas.io.DendroFormatProvider on the classpath.
+	 */
+	private static void loadFormatProviders() {
+		Iterator<DendroFormatProvider> providers = ServiceLoader.load(DendroFormatProvider.class).iterator();
+		while (true) {
+			try {
+				if (!providers.hasNext()) {
+					break;
+				}
+				registerFormat(providers.next());
+			} catch (ServiceConfigurationError e) {
+				log.error("Could not load format provider", e);
+			}
+		}
+	}
+	
+	/**
+	 * Get the coordinate reference system with the given EPSG code.  It is
+	 * looked up in the compiled {@link CRSTable}, so only this system is read,
+	 * unless the table isn't available in which case all the systems are read
+	 * from the text file the first time one is asked for.
+	 * 
+	 * @param argCode
+	 * @return the system, or null if it isn't supported
+	 */
+	public static CoordinateReferenceSystem getCoordinateReferenceSystem(Integer argCode) {
+		if (argCode == null) {
+			return null;
+		}
+		CRSTable table = CRSTable.getDefault();
+		if (table != null) {
+			return table.get(argCode);
+		}
+		initializeCRS();
+		return crsMap.get(argCode);
+	}
+	
+	/**
+	 * Get all the coordinate reference systems supported by the library by EPSG
+	 * code, reading them if they haven't been already.
+	 * 
+	 * @return
+	 */
+	public static Map<Integer, CoordinateReferenceSystem> getCRSMap() {
 		initializeCRS();
+		return Collections.unmodifiableMap(crsMap);
 	}
 	
 	/**
 	 * Create map of all the coordinate reference systems supported by the library.  This
-	 * function reads the definitions from the text file in coordsys/srsinfo.txt.
+	 * function reads the definitions from the compiled {@link CRSTable}, or the text 
+	 * file in coordsys/srsinfo.txt if the table isn't available.  It does nothing 
+	 * if they have already been read.
 	 */
 	public static void initializeCRS()
 	{
+		if (crsLoaded) {
+			return;
+		}
+		synchronized (crsLock) {
+			if (!crsLoaded) {
+				readCRS();
+				crsLoaded = true;
+			}
+		}
+	}
+	
+	private static void readCRS()
+	{
+		CRSTable table = CRSTable.getDefault();
+		if (table != null) {
+			for (int code : table.getCodes()) {
+				crsMap.put(code, table.get(code));
+			}
+			return;
+		}
+		
 		Integer linenum = 0;
 		try{
 			  InputStream fstream  = TridasIO.class.getResourceAsStream("/coordsys/srsinfo.txt");
@@ -286,107 +363,162 @@ public class TridasIO {
 	}
 	
 	/**
-	 * Register a reader.
+	 * Register a format's reader and/or writer. The provider's format is used to
+	 * list it straight away, but its reader and writer are only created when
+	 * they are asked for.
 	 * 
-	 * @param argReader
+	 * @param argProvider
 	 */
-	public synchronized static void registerFileReader(Class<? extends AbstractDendroFileReader> argReader) {
-		// test to see if we can make an instance
-		AbstractDendroFileReader reader;
+	public synchronized static void registerFormat(DendroFormatProvider argProvider) {
+		AbstractDendroFormat format;
 		try {
-			reader = argReader.newInstance();
-		} catch (InstantiationException e) {
-			log.error(I18n.getText("fileio.missingEmptyConstructor", argReader.getName()), e);
-			return;
-		} catch (IllegalAccessException e) {
-			log.error(I18n.getText("fileio.creationError", argReader.getName()), e);
+			format = argProvider.getFormat();
+		} catch (RuntimeException e) {
+			log.error(I18n.getText("fileio.creationError", argProvider.getClass().getName()), e);
 			return;
 		}
 		
-		// it worked, so get filetypes
-		String[] filetypes = reader.getFileExtensions();
-		String name = reader.getShortName();
+		String name = format.getShortName();
+		Registry current = registry;
+		TreeMap<String, TridasIOEntry> entries = new TreeMap<String, TridasIOEntry>(current.entries);
+		HashMap<String, String> extensions = new HashMap<String, String>(current.extensions);
 		
-		if (filetypes == null) {
-			log.error(I18n.getText("fileio.fileExtensionNull", argReader.getName()));
-			return;
+		TridasIOEntry entry = entries.get(name.toLowerCase());
+		if (entry == null) {
+			entry = new TridasIOEntry(name);
+		}
+		else if (!name.equals(entry.formatName)) {
+			log.warn("Name in entry '" + entry.formatName + "' does not match format name '" + name
+					+ "'.  Replacing.");
 		}
 		
-		TridasIOEntry entry = converterMap.get(name.toLowerCase());
-		
-		if (entry == null) {
-			entry = new TridasIOEntry();
-			entry.fileReader = argReader;
-			entry.formatName = name;
-			converterMap.put(name.toLowerCase(), entry);
-		}
-		else {
-			if (entry.fileReader == null) {
-				entry.fileReader = argReader;
+		if (argProvider.hasReader()) {
+			String[] filetypes = format.getFileExtensions();
+			if (filetypes == null) {
+				log.error(I18n.getText("fileio.fileExtensionNull", argProvider.getClass().getName()));
+				return;
 			}
-			else {
+			if (entry.readerProvider != null) {
 				log.debug(I18n.getText("fileio.replaceReader", name));
-				// throw new RuntimeException("Cannot register another reader for "
-				// don't throw an exception, just use new reader
-				entry.fileReader = argReader;
 			}
-			if (!name.equals(entry.formatName)) {
-				log.warn("Name in entry '" + entry.formatName + "' does not match format name for reader '" + name
-						+ "'.  Replacing.");
-				entry.formatName = name;
+			entry = entry.withReader(name, argProvider, format);
+			for (String filetype : filetypes) {
+				extensions.put(filetype.toLowerCase(), name);
 			}
 		}
-		
-		for (String filetype : filetypes) {
-			String old = extensionMap.put(filetype.toLowerCase(), name);
-			if (old != null && !name.equals(old)) {
-				//log.debug("Extension " + filetype + " already mapped to " + old + ".  Replacing with " + name);
+		if (argProvider.hasWriter()) {
+			if (entry.writerProvider != null) {
+				log.warn(I18n.getText("fileio.replaceWriter", name));
 			}
+			entry = entry.withWriter(name, argProvider, format);
+		}
+		entries.put(name.toLowerCase(), entry);
+		
+		registry = new Registry(entries, extensions);
+	}
+	
+	/**
+	 * Register a reader. It is created through its public empty constructor.
+	 * 
+	 * @param argReader
+	 */
+	public static void registerFileReader(Class<? extends AbstractDendroFileReader> argReader) {
+		Supplier<? extends AbstractDendroFileReader> factory = getConstructorFactory(argReader);
+		if (factory != null) {
+			registerFileReader(argReader, factory);
+		}
+	}
+	
+	/**
+	 * Register a reader along with the factory used to create it.
+	 * 
+	 * @param argReader
+	 * @param argFactory
+	 *            creates a new reader each time it is called
+	 */
+	public static void registerFileReader(Class<? extends AbstractDendroFileReader> argReader,
+			Supplier<? extends AbstractDendroFileReader> argFactory) {
+		// test to see if we can make an instance
+		AbstractDendroFileReader reader;
+		try {
+			reader = argFactory.get();
+		} catch (RuntimeException e) {
+			log.error(I18n.getText("fileio.creationError", argReader.getName()), e);
+			return;
 		}
+		registerFormat(new FactoryFormatProvider(reader.getFormat(), argReader, argFactory, null, null));
 	}
 	
 	/**
-	 * Register a writer
+	 * Register a writer. It is created through its public empty constructor.
 	 * 
 	 * @param argWriter
 	 */
-	public synchronized static void registerFileWriter(Class<? extends AbstractDendroCollectionWriter> argWriter) {
+	public static void registerFileWriter(Class<? extends AbstractDendroCollectionWriter> argWriter) {
+		Supplier<? extends AbstractDendroCollectionWriter> factory = getConstructorFactory(argWriter);
+		if (factory != null) {
+			registerFileWriter(argWriter, factory);
+		}
+	}
+	
+	/**
+	 * Register a writer along with the factory used to create it.
+	 * 
+	 * @param argWriter
+	 * @param argFactory
+	 *            creates a new writer each time it is called
+	 */
+	public static void registerFileWriter(Class<? extends AbstractDendroCollectionWriter> argWriter,
+			Supplier<? extends AbstractDendroCollectionWriter> argFactory) {
 		// test to see if we can make an instance
 		AbstractDendroCollectionWriter writer;
 		try {
-			writer = argWriter.newInstance();
-		} catch (InstantiationException e) {
-			log.error(I18n.getText("fileio.missingEmptyConstructor", argWriter.getName()), e);
-			return;
-		} catch (IllegalAccessException e) {
+			writer = argFactory.get();
+		} catch (RuntimeException e) {
 			log.error(I18n.getText("fileio.creationError", argWriter.getName()), e);
 			return;
 		}
-		
-		String name = writer.getShortName();
-		
-		TridasIOEntry entry = converterMap.get(name.toLowerCase());
-		if (entry == null) {
-			entry = new TridasIOEntry();
-			entry.fileWriter = argWriter;
-			entry.formatName = name;
-			converterMap.put(name.toLowerCase(), entry);
-		}
-		else {
-			if (entry.fileWriter == null) {
-				entry.fileWriter = argWriter;
-			}
-			else {
-				log.warn(I18n.getText("fileio.replaceWriter", name));
-				// throw new RuntimeException("Cannot register another reader for "
-				// don't throw an exception, just use new reader
-				entry.fileWriter = argWriter;
-			}
-			if (!name.equals(entry.formatName)) {
-				log.warn("Name in entry '" + entry.formatName + "' does not match format name for writer '" + name
-						+ "'.  Replacing.");
-				entry.formatName = name;
-			}
+		registerFormat(new FactoryFormatProvider(writer.getFormat(), null, null, argWriter, argFactory));
+	}
+	
+	/**
+	 * Factory that calls the empty constructor of a class through a method handle
+	 * 
+	 * @return the factory, or null if the class doesn't have an accessible empty
+	 *         constructor
+	 */
+	private static <T> Supplier<T> getConstructorFactory(Class<T> argClass) {
+		try {
+			return LazyDendroFormatProvider.createConstructorFactory(argClass);
+		} catch (NoSuchMethodException e) {
+			log.error(I18n.getText("fileio.missingEmptyConstructor", argClass.getName()), e);
+		} catch (IllegalAccessException e) {
+			log.error(I18n.getText("fileio.creationError", argClass.getName()), e);
+		}
+		return null;
+	}
+	
+	private static AbstractDendroFileReader newReader(TridasIOEntry argEntry) {
+		if (argEntry == null || argEntry.readerProvider == null) {
+			return null;
+		}
+		try {
+			return argEntry.readerProvider.createReader();
+		} catch (RuntimeException e) {
+			log.error(I18n.getText("fileio.creationError", argEntry.formatName), e);
+			return null;
+		}
+	}
+	
+	private static AbstractDendroCollectionWriter newWriter(TridasIOEntry argEntry) {
+		if (argEntry == null || argEntry.writerProvider == null) {
+			return null;
+		}
+		try {
+			return argEntry.writerProvider.createWriter();
+		} catch (RuntimeException e) {
+			log.error(I18n.getText("fileio.creationError", argEntry.formatName), e);
+			return null;
 		}
 	}
 	
@@ -397,9 +529,9 @@ public class TridasIO {
 	 * @see #getSupportedWritingFormats()
 	 * @return
 	 */
-	public synchronized static AbstractDendroCollectionWriter getFileWriter(String argFormatName) {
-		TridasIOEntry e = converterMap.get(argFormatName.toLowerCase());
-		if (e == null || e.fileWriter == null) {
+	public static AbstractDendroCollectionWriter getFileWriter(String argFormatName) {
+		TridasIOEntry e = registry.entries.get(argFormatName.toLowerCase());
+		if (e == null || e.writerProvider == null) {
 			log.error("Writer for the format "+argFormatName+" was not found.  Possible options are:");
 			for(DendroFileFilter writer : getFileWritingFilterArray())
 			{
@@ -407,12 +539,24 @@ public class TridasIO {
 			}
 			return null;
 		}
-		try {
-			return e.fileWriter.newInstance();
-		} catch (Exception e1) {
-			log.error(I18n.getText("fileio.creationError", e.fileWriter.getName()), e1);
-			return null;
+		return newWriter(e);
+	}
+	
+	/**
+	 * Get a file writer from the format name that converts with the given
+	 * context rather than the default one.
+	 * 
+	 * @param argFormatName
+	 * @param argContext
+	 * @see #getSupportedWritingFormats()
+	 * @return
+	 */
+	public static AbstractDendroCollectionWriter getFileWriter(String argFormatName, ConversionContext argContext) {
+		AbstractDendroCollectionWriter writer = getFileWriter(argFormatName);
+		if (writer != null) {
+			writer.setContext(argContext);
 		}
+		return writer;
 	}
 	
 	/**
@@ -422,84 +566,42 @@ public class TridasIO {
 	 * @see #getSupportedReadingFormats()
 	 * @return
 	 */
-	public synchronized static AbstractDendroFileReader getFileReader(String argFormatName) {
-		TridasIOEntry e = converterMap.get(argFormatName.toLowerCase());
-		if (e == null || e.fileReader == null) {
-			return null;
-		}
-		try {
-			return e.fileReader.newInstance();
-		} catch (Exception e1) {
-			log.error(I18n.getText("fileio.creationError", e.fileReader.getName()), e1);
-			return null;
+	public static AbstractDendroFileReader getFileReader(String argFormatName) {
+		return newReader(registry.entries.get(argFormatName.toLowerCase()));
+	}
+	
+	/**
+	 * Get a file reader from the format name that reads with the given context
+	 * rather than the default one.
+	 * 
+	 * @param argFormatName
+	 * @param argContext
+	 * @see #getSupportedReadingFormats()
+	 * @return
+	 */
+	public static AbstractDendroFileReader getFileReader(String argFormatName, ConversionContext argContext) {
+		AbstractDendroFileReader reader = getFileReader(argFormatName);
+		if (reader != null) {
+			reader.setContext(argContext);
 		}
+		return reader;
 	}
 	
-	public synchronized static AbstractDendroFileReader getFileReaderFromFormatName(String argFormatName) {
+	public static AbstractDendroFileReader getFileReaderFromFormatName(String argFormatName) {
 		
 		return getFileReader(argFormatName);
 	}
 	
-	public synchronized static AbstractDendroFileReader getFileReaderFromFormat(AbstractDendroFormat format) {
-		Iterator it = converterMap.entrySet().iterator();
-	    while (it.hasNext()) {
-	        Map.Entry pairs = (Map.Entry)it.next();
-	        TridasIOEntry e = (TridasIOEntry) pairs.getValue();
-	        try {
-	        	if(e.fileReader==null) continue;
-	        		
-				AbstractDendroFileReader reader = e.fileReader.newInstance();
-				if(reader.getFormat().compareTo(format)==0)
-				{
-					return reader;
-				}
-			} catch (Exception e1) {
-				
-			}
-	    }
-	    return null;
-	}
-	
-	public synchronized static AbstractDendroFileReader getFileReaderFromDendroFileFilter(DendroFileFilter filter) {
-		Iterator it = converterMap.entrySet().iterator();
-	    while (it.hasNext()) {
-	        Map.Entry pairs = (Map.Entry)it.next();
-	        TridasIOEntry e = (TridasIOEntry) pairs.getValue();
-	        try {
-	        	if(e.fileReader==null) continue;
-	        	
-				AbstractDendroFileReader reader = e.fileReader.newInstance();
-				DendroFileFilter thisfilter = reader.getDendroFileFilter();
-				
-				if(filter.compareTo(reader.getDendroFileFilter())==0)
-				{
-					return reader;
-				}
-			} catch (Exception e1) {
-				
-			}
-	    }
-	    return null;
-	}
-	
-	public synchronized static AbstractDendroCollectionWriter getFileWriterFromDendroFileFilter(DendroFileFilter filter) {
-		Iterator it = converterMap.entrySet().iterator();
-	    while (it.hasNext()) {
-	        Map.Entry pairs = (Map.Entry)it.next();
-	        TridasIOEntry e = (TridasIOEntry) pairs.getValue();
-	        try {
-	        	if(e.fileWriter==null) continue;
-				AbstractDendroCollectionWriter writer = e.fileWriter.newInstance();
-
-				if(filter.compareTo(writer.getDendroFileFilter())==0)
-				{
-					return writer;
-				}
-			} catch (Exception e1) {
-				e1.printStackTrace();
-			}
-	    }
-	    return null;
+	public static AbstractDendroFileReader getFileReaderFromFormat(AbstractDendroFormat format) {
+		return newReader(registry.readersByFormat.get(getFormatKey(format)));
+	}
+	
+	public static AbstractDendroFileReader getFileReaderFromDendroFileFilter(DendroFileFilter filter) {
+		return newReader(registry.readersByFilter.get(filter.getFormatName()));
+	}
+	
+	public static AbstractDendroCollectionWriter getFileWriterFromDendroFileFilter(DendroFileFilter filter) {
+		return newWriter(registry.writersByFilter.get(filter.getFormatName()));
 	}
 	
 	/**
@@ -508,33 +610,25 @@ public class TridasIO {
 	 * @param filter
 	 * @return
 	 */
-	public synchronized static AbstractDendroFormat getDendroFormatFromDendroFileFilter(DendroFileFilter filter) {
+	public static AbstractDendroFormat getDendroFormatFromDendroFileFilter(DendroFileFilter filter) {
+		Registry current = registry;
 		
-		AbstractDendroCollectionWriter writer = getFileWriterFromDendroFileFilter(filter);
-				
-		if(writer ==null){
-			
-			AbstractDendroFileReader reader = getFileReaderFromDendroFileFilter(filter);
-			
-			if(reader==null)
-			{
-				log.debug("Unable to find format for filter '"+filter.getFormatName()+"'. Valid filters include:");
-				for(DendroFileFilter f : TridasIO.getFileReadingFilterArray())
-				{
-					log.debug("  * "+f.getFormatName());
-				}
-					
-				return null;
-			}
-			else
-			{
-				return reader.getFormat();
-			}
+		TridasIOEntry entry = current.writersByFilter.get(filter.getFormatName());
+		if (entry != null) {
+			return entry.writerFormat;
+		}
+		
+		entry = current.readersByFilter.get(filter.getFormatName());
+		if (entry != null) {
+			return entry.readerFormat;
 		}
-		else
+		
+		log.debug("Unable to find format for filter '"+filter.getFormatName()+"'. Valid filters include:");
+		for(DendroFileFilter f : current.readingFilters)
 		{
-			return writer.getFormat();
+			log.debug("  * "+f.getFormatName());
 		}
+		return null;
 	}
 	
 	
@@ -544,80 +638,25 @@ public class TridasIO {
 	 * @param format
 	 * @return
 	 */
-	public synchronized static AbstractDendroCollectionWriter getFileWriterFromFormat(AbstractDendroFormat format) {
-		Iterator it = converterMap.entrySet().iterator();
-	    while (it.hasNext()) {
-	        Map.Entry pairs = (Map.Entry)it.next();
-	        TridasIOEntry e = (TridasIOEntry) pairs.getValue();
-	        try {
-	        	if(e.fileWriter==null) continue;
-	        	AbstractDendroCollectionWriter writer = e.fileWriter.newInstance();
-				if(writer.getFormat().compareTo(format)==0)
-				{
-					return writer;
-				}
-			} catch (Exception e1) {
-				
-			}
-	    }
-	    return null;
+	public static AbstractDendroCollectionWriter getFileWriterFromFormat(AbstractDendroFormat format) {
+		return newWriter(registry.writersByFormat.get(getFormatKey(format)));
 	}
 	
 	
 	@Deprecated
-	public synchronized static ArrayList<DendroFileFilter> getFileFilterArray()
+	public static ArrayList<DendroFileFilter> getFileFilterArray()
 	{
 		return getFileReadingFilterArray();
 	}
 	
-	@SuppressWarnings("unchecked")
-	public synchronized static ArrayList<DendroFileFilter> getFileReadingFilterArray()
+	public static ArrayList<DendroFileFilter> getFileReadingFilterArray()
 	{
-		ArrayList<DendroFileFilter> arr = new ArrayList<DendroFileFilter>();
-		
-	    Iterator it = converterMap.entrySet().iterator();
-	    while (it.hasNext()) {
-	        Map.Entry pairs = (Map.Entry)it.next();
-	        TridasIOEntry e = (TridasIOEntry) pairs.getValue();
-	        try {
-				AbstractDendroFileReader reader = e.fileReader.newInstance();
-				
-				arr.add((DendroFileFilter) reader.getDendroFileFilter());
-				
-			} catch (Exception e1) {
-				
-			}
-	        
-	    }
-	    
-	    return arr;
-
-		
+		return new ArrayList<DendroFileFilter>(registry.readingFilters);
 	}
 	
-	@SuppressWarnings("unchecked")
-	public synchronized static ArrayList<DendroFileFilter> getFileWritingFilterArray()
+	public static ArrayList<DendroFileFilter> getFileWritingFilterArray()
 	{
-		ArrayList<DendroFileFilter> arr = new ArrayList<DendroFileFilter>();
-		
-	    Iterator it = converterMap.entrySet().iterator();
-	    while (it.hasNext()) {
-	        Map.Entry pairs = (Map.Entry)it.next();
-	        TridasIOEntry e = (TridasIOEntry) pairs.getValue();
-	        try {
-				AbstractDendroCollectionWriter writer = e.fileWriter.newInstance();
-				
-				arr.add((DendroFileFilter) writer.getDendroFileFilter());
-				
-			} catch (Exception e1) {
-				
-			}
-	        
-	    }
-	    
-	    return arr;
-
-		
+		return new ArrayList<DendroFileFilter>(registry.writingFilters);
 	}
 	
 	/**
@@ -626,11 +665,74 @@ public class TridasIO {
 	 * @param argExtension
 	 * @return
 	 */
-	public synchronized static AbstractDendroFileReader getFileReaderFromExtension(String argExtension) {
-		if (!extensionMap.containsKey(argExtension.toLowerCase())) {
-			return null;
+	public static AbstractDendroFileReader getFileReaderFromExtension(String argExtension) {
+		return newReader(registry.byExtension.get(argExtension.toLowerCase()));
+	}
+	
+	/**
+	 * Works out which formats a file might be in from the sample of its content.
+	 * Each reader's probe checks the same sample, and formats that have the
+	 * sample's extension get a little more confidence to break ties.
+	 * 
+	 * @param argSample
+	 * @return the formats the file could be in, most likely first
+	 */
+	public static List<FormatDetection> detectFormats(FileSample argSample) {
+		ArrayList<FormatDetection> detections = new ArrayList<FormatDetection>();
+		for (TridasIOEntry entry : registry.probedReaders) {
+			float confidence;
+			try {
+				confidence = entry.readerProvider.getProbe().probe(argSample);
+			} catch (RuntimeException e) {
+				log.error("Format probe for " + entry.formatName + " failed", e);
+				continue;
+			}
+			if (confidence <= 0) {
+				continue;
+			}
+			if (hasExtension(entry.readerFormat, argSample.getExtension())) {
+				confidence = Math.min(1f, confidence + EXTENSION_CONFIDENCE);
+			}
+			detections.add(new FormatDetection(entry.formatName, confidence));
 		}
-		return getFileReader(extensionMap.get(argExtension.toLowerCase()).toLowerCase());
+		Collections.sort(detections);
+		return detections;
+	}
+	
+	/**
+	 * Gets the reader for the format a file's content looks like it's in. If no
+	 * format is detected with at least {@link #MIN_DETECTION_CONFIDENCE} the
+	 * reader is chosen from the extension instead.
+	 * 
+	 * @param argFile
+	 * @return the reader, or null if no format was detected and the extension
+	 *         isn't known
+	 */
+	public static AbstractDendroFileReader getFileReaderFromContent(File argFile) {
+		try {
+			List<FormatDetection> detections = detectFormats(FileSample.read(argFile));
+			if (!detections.isEmpty() && detections.get(0).getConfidence() >= MIN_DETECTION_CONFIDENCE) {
+				log.debug("Detected " + detections.get(0) + " for " + argFile.getName());
+				return getFileReader(detections.get(0).getFormatName());
+			}
+		} catch (IOException e) {
+			log.debug("Could not read the start of " + argFile.getName() + " to detect its format");
+		}
+		String name = argFile.getName();
+		return getFileReaderFromExtension(name.substring(name.lastIndexOf(".") + 1));
+	}
+	
+	private static boolean hasExtension(AbstractDendroFormat argFormat, String argExtension) {
+		String[] extensions = argFormat.getFileExtensions();
+		if (argExtension == null || extensions == null) {
+			return false;
+		}
+		for (String ext : extensions) {
+			if (ext.equalsIgnoreCase(argExtension)) {
+				return true;
+			}
+		}
+		return false;
 	}
 	
 	/**
@@ -639,11 +741,12 @@ public class TridasIO {
 	 * @param argExtension
 	 * @return
 	 */
-	public synchronized static AbstractDendroCollectionWriter getFileWriterFromExtension(String argExtension) {
-		if (!extensionMap.containsKey(argExtension.toLowerCase())) {
+	public static AbstractDendroCollectionWriter getFileWriterFromExtension(String argExtension) {
+		TridasIOEntry e = registry.byExtension.get(argExtension.toLowerCase());
+		if (e == null) {
 			return null;
 		}
-		return getFileWriter(extensionMap.get(argExtension.toLowerCase()).toLowerCase());
+		return getFileWriter(e.formatName);
 	}
 	
 	/**
@@ -651,16 +754,8 @@ public class TridasIO {
 	 * 
 	 * @return
 	 */
-	public synchronized static String[] getSupportedReadingFormats() {
-		ArrayList<String> list = new ArrayList<String>();
-		for (String extension : converterMap.keySet()) {
-			TridasIOEntry entry = converterMap.get(extension);
-			if (entry.fileReader != null) {
-				list.add(entry.formatName);
-			}
-		}
-		Collections.sort(list);
-		return list.toArray(new String[0]);
+	public static String[] getSupportedReadingFormats() {
+		return registry.readingFormats.clone();
 	}
 	
 	/**
@@ -668,13 +763,15 @@ public class TridasIO {
 	 *    
 	 * @return
 	 */
-	public synchronized static ArrayList<Class<? extends AbstractDendroFileReader>> getSupportedReaders() {
+	public static ArrayList<Class<? extends AbstractDendroFileReader>> getSupportedReaders() {
 		ArrayList<Class<? extends AbstractDendroFileReader>> list = new ArrayList<Class<? extends AbstractDendroFileReader>>();
-		for (String extension : converterMap.keySet()) {
-			TridasIOEntry entry = converterMap.get(extension);
-			if (entry.fileReader != null) {
-				
-				list.add(entry.fileReader);
+		for (TridasIOEntry entry : registry.entries.values()) {
+			if (entry.readerProvider != null) {
+				try {
+					list.add(entry.readerProvider.getReaderClass());
+				} catch (RuntimeException e) {
+					log.error(I18n.getText("fileio.creationError", entry.formatName), e);
+				}
 			}
 		}
 		return list;
@@ -685,38 +782,30 @@ public class TridasIO {
 	 * 
 	 * @return
 	 */
-	public synchronized static ArrayList<AbstractDendroFileReader> getInstantiatedReaders()
+	public static ArrayList<AbstractDendroFileReader> getInstantiatedReaders()
 	{
 		ArrayList<AbstractDendroFileReader> readers = new ArrayList<AbstractDendroFileReader>();
 
-		for (Class<? extends AbstractDendroFileReader> clazz : TridasIO.getSupportedReaders()) {
-
-			AbstractDendroFileReader reader;
-			try {
-				reader = clazz.newInstance();
-			} catch (InstantiationException e) {
-				
-				continue;
+		for (TridasIOEntry entry : registry.entries.values()) {
+			AbstractDendroFileReader reader = newReader(entry);
+			if (reader != null) {
+				readers.add(reader);
 			}
-			catch (IllegalAccessException e1)
-			{
-				continue;
-			}
-			
-			readers.add(reader);
 		}
 		
 
 		return readers;
 	}
 	
-	public synchronized static ArrayList<Class<? extends AbstractDendroCollectionWriter>> getSupportedWriters() {
+	public static ArrayList<Class<? extends AbstractDendroCollectionWriter>> getSupportedWriters() {
 		ArrayList<Class<? extends AbstractDendroCollectionWriter>> list = new ArrayList<Class<? extends AbstractDendroCollectionWriter>>();
-		for (String extension : converterMap.keySet()) {
-			TridasIOEntry entry = converterMap.get(extension);
-			if (entry.fileReader != null) {
-				
-				list.add(entry.fileWriter);
+		for (TridasIOEntry entry : registry.entries.values()) {
+			if (entry.readerProvider != null) {
+				try {
+					list.add(entry.writerProvider != null ? entry.writerProvider.getWriterClass() : null);
+				} catch (RuntimeException e) {
+					log.error(I18n.getText("fileio.creationError", entry.formatName), e);
+				}
 			}
 		}
 		return list;
@@ -727,16 +816,8 @@ public class TridasIO {
 	 * 
 	 * @return
 	 */
-	public synchronized static String[] getSupportedWritingFormats() {
-		ArrayList<String> list = new ArrayList<String>();
-		for (String extension : converterMap.keySet()) {
-			TridasIOEntry entry = converterMap.get(extension);
-			if (entry.fileWriter != null) {
-				list.add(entry.formatName);
-			}
-		}
-		Collections.sort(list);
-		return list.toArray(new String[0]);
+	public static String[] getSupportedWritingFormats() {
+		return registry.writingFormats.clone();
 	}
 	
 	/**
@@ -786,9 +867,214 @@ public class TridasIO {
 		return writingCharset;
 	}
 	
-	private static class TridasIOEntry {
-		Class<? extends AbstractDendroFileReader> fileReader = null;
-		Class<? extends AbstractDendroCollectionWriter> fileWriter = null;
-		String formatName = null;
+	/**
+	 * The context used by readers and writers that haven't been given one. It is
+	 * made from the charset settings and {@link #tridasVersionUsedInternally} as
+	 * they are when this is called, so later changes to them don't affect it.
+	 * 
+	 * @return
+	 */
+	public static ConversionContext getDefaultContext() {
+		return new ConversionContext()
+				.withReadingCharset(readingCharset)
+				.withCharsetDetection(charsetDetection)
+				.withWritingCharset(writingCharset)
+				.withTridasVersion(tridasVersionUsedInternally);
+	}
+	
+	/**
+	 * Key matching formats the same way as {@link AbstractDendroFormat#compareTo(AbstractDendroFormat)}
+	 */
+	private static String getFormatKey(AbstractDendroFormat argFormat) {
+		return argFormat.getFullName() + "\n" + argFormat.getDescription();
+	}
+	
+	/**
+	 * A format's reader and writer. Never changed once created, so entries can be
+	 * shared between registries.
+	 */
+	private static final class TridasIOEntry {
+		final String formatName;
+		final DendroFormatProvider readerProvider;
+		final AbstractDendroFormat readerFormat;
+		final DendroFileFilter readerFilter;
+		final DendroFormatProvider writerProvider;
+		final AbstractDendroFormat writerFormat;
+		final DendroFileFilter writerFilter;
+		
+		TridasIOEntry(String argFormatName) {
+			this(argFormatName, null, null, null, null, null, null);
+		}
+		
+		private TridasIOEntry(String argFormatName, DendroFormatProvider argReaderProvider,
+				AbstractDendroFormat argReaderFormat, DendroFileFilter argReaderFilter,
+				DendroFormatProvider argWriterProvider, AbstractDendroFormat argWriterFormat,
+				DendroFileFilter argWriterFilter) {
+			formatName = argFormatName;
+			readerProvider = argReaderProvider;
+			readerFormat = argReaderFormat;
+			readerFilter = argReaderFilter;
+			writerProvider = argWriterProvider;
+			writerFormat = argWriterFormat;
+			writerFilter = argWriterFilter;
+		}
+		
+		TridasIOEntry withReader(String argFormatName, DendroFormatProvider argProvider, AbstractDendroFormat argFormat) {
+			return new TridasIOEntry(argFormatName, argProvider, argFormat, argFormat.getDendroFileFilter(),
+					writerProvider, writerFormat, writerFilter);
+		}
+		
+		TridasIOEntry withWriter(String argFormatName, DendroFormatProvider argProvider, AbstractDendroFormat argFormat) {
+			return new TridasIOEntry(argFormatName, readerProvider, readerFormat, readerFilter, argProvider,
+					argFormat, argFormat.getDendroFileFilter());
+		}
+	}
+	
+	/**
+	 * Provider for readers and writers registered with their factory
+	 */
+	private static final class FactoryFormatProvider implements DendroFormatProvider {
+		private final AbstractDendroFormat format;
+		private final Class<? extends AbstractDendroFileReader> readerClass;
+		private final Supplier<? extends AbstractDendroFileReader> readerFactory;
+		private final Class<? extends AbstractDendroCollectionWriter> writerClass;
+		private final Supplier<? extends AbstractDendroCollectionWriter> writerFactory;
+		
+		FactoryFormatProvider(AbstractDendroFormat argFormat, Class<? extends AbstractDendroFileReader> argReader,
+				Supplier<? extends AbstractDendroFileReader> argReaderFactory,
+				Class<? extends AbstractDendroCollectionWriter> argWriter,
+				Supplier<? extends AbstractDendroCollectionWriter> argWriterFactory) {
+			format = argFormat;
+			readerClass = argReader;
+			readerFactory = argReaderFactory;
+			writerClass = argWriter;
+			writerFactory = argWriterFactory;
+		}
+		
+		@Override
+		public AbstractDendroFormat getFormat() {
+			return format;
+		}
+		
+		@Override
+		public FormatProbe getProbe() {
+			return null;
+		}
+		
+		@Override
+		public boolean hasReader() {
+			return readerFactory != null;
+		}
+		
+		@Override
+		public boolean hasWriter() {
+			return writerFactory != null;
+		}
+		
+		@Override
+		public Class<? extends AbstractDendroFileReader> getReaderClass() {
+			return readerClass;
+		}
+		
+		@Override
+		public Class<? extends AbstractDendroCollectionWriter> getWriterClass() {
+			return writerClass;
+		}
+		
+		@Override
+		public AbstractDendroFileReader createReader() {
+			return (readerFactory != null) ? readerFactory.get() : null;
+		}
+		
+		@Override
+		public AbstractDendroCollectionWriter createWriter() {
+			return (writerFactory != null) ? writerFactory.get() : null;
+		}
+	}
+	
+	/**
+	 * Lookup tables for all the registered formats. A new registry is built each
+	 * time a reader or writer is registered and is never changed afterwards, so
+	 * lookups can read it without locking.
+	 */
+	private static final class Registry {
+		/** entries by lower case format name, in name order */
+		final Map<String, TridasIOEntry> entries;
+		/** format names by lower case extension */
+		final Map<String, String> extensions;
+		final Map<String, TridasIOEntry> byExtension;
+		final Map<String, TridasIOEntry> readersByFormat;
+		final Map<String, TridasIOEntry> writersByFormat;
+		final Map<String, TridasIOEntry> readersByFilter;
+		final Map<String, TridasIOEntry> writersByFilter;
+		final List<DendroFileFilter> readingFilters;
+		final List<DendroFileFilter> writingFilters;
+		/** entries with a reader that has a format probe, in name order */
+		final List<TridasIOEntry> probedReaders;
+		final String[] readingFormats;
+		final String[] writingFormats;
+		
+		Registry(TreeMap<String, TridasIOEntry> argEntries, Map<String, String> argExtensions) {
+			entries = Collections.unmodifiableMap(argEntries);
+			extensions = Collections.unmodifiableMap(argExtensions);
+			
+			HashMap<String, TridasIOEntry> ext = new HashMap<String, TridasIOEntry>();
+			for (Map.Entry<String, String> e : argExtensions.entrySet()) {
+				TridasIOEntry entry = argEntries.get(e.getValue().toLowerCase());
+				if (entry != null) {
+					ext.put(e.getKey(), entry);
+				}
+			}
+			byExtension = ext;
+			
+			HashMap<String, TridasIOEntry> rFormat = new HashMap<String, TridasIOEntry>();
+			HashMap<String, TridasIOEntry> wFormat = new HashMap<String, TridasIOEntry>();
+			HashMap<String, TridasIOEntry> rFilter = new HashMap<String, TridasIOEntry>();
+			HashMap<String, TridasIOEntry> wFilter = new HashMap<String, TridasIOEntry>();
+			ArrayList<DendroFileFilter> rFilters = new ArrayList<DendroFileFilter>();
+			ArrayList<DendroFileFilter> wFilters = new ArrayList<DendroFileFilter>();
+			ArrayList<String> rNames = new ArrayList<String>();
+			ArrayList<String> wNames = new ArrayList<String>();
+			ArrayList<TridasIOEntry> probed = new ArrayList<TridasIOEntry>();
+			
+			// if two formats match, the first one in name order wins
+			for (TridasIOEntry entry : argEntries.values()) {
+				if (entry.readerProvider != null) {
+					if (!rFormat.containsKey(getFormatKey(entry.readerFormat))) {
+						rFormat.put(getFormatKey(entry.readerFormat), entry);
+					}
+					if (!rFilter.containsKey(entry.readerFilter.getFormatName())) {
+						rFilter.put(entry.readerFilter.getFormatName(), entry);
+					}
+					rFilters.add(entry.readerFilter);
+					rNames.add(entry.formatName);
+					if (entry.readerProvider.getProbe() != null) {
+						probed.add(entry);
+					}
+				}
+				if (entry.writerProvider != null) {
+					if (!wFormat.containsKey(getFormatKey(entry.writerFormat))) {
+						wFormat.put(getFormatKey(entry.writerFormat), entry);
+					}
+					if (!wFilter.containsKey(entry.writerFilter.getFormatName())) {
+						wFilter.put(entry.writerFilter.getFormatName(), entry);
+					}
+					wFilters.add(entry.writerFilter);
+					wNames.add(entry.formatName);
+				}
+			}
+			readersByFormat = rFormat;
+			writersByFormat = wFormat;
+			readersByFilter = rFilter;
+			writersByFilter = wFilter;
+			readingFilters = Collections.unmodifiableList(rFilters);
+			writingFilters = Collections.unmodifiableList(wFilters);
+			probedReaders = Collections.unmodifiableList(probed);
+			
+			Collections.sort(rNames);
+			Collections.sort(wNames);
+			readingFormats = rNames.toArray(new String[0]);
+			writingFormats = wNames.toArray(new String[0]);
+		}
 	}
 }
@@ -16,7 +16,6 @@
 package org.tridas.io.defaults;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -33,13 +32,23 @@ import org.tridas.io.exceptions.ConversionWarning;
 import org.tridas.io.exceptions.ConversionWarning.WarningType;
 
 /**
+ * Cloning a field set is cheap: the clone shares the default values with the
+ * original, and each set only takes its own copy of a value the first time it
+ * gets it. Value objects got from a set before it was cloned should be got
+ * again afterwards, as they may be shared with the clone.
+ * <p>
+ * Because of this, {@link #getDefaultValue(Enum)} writes to the set: a value
+ * shared with a clone is replaced with this set's own copy. A field set is
+ * therefore not safe to read from several threads at once. Give each thread
+ * its own clone instead.
+ * 
  * @author daniel
  */
 public abstract class AbstractMetadataFieldSet implements IMetadataFieldSet {
 	
 	private final static Logger log = LoggerFactory.getLogger(AbstractMetadataFieldSet.class);
 	
-	private HashMap<Enum<?>, AbstractDefaultValue<?>> valueMap = new HashMap<Enum<?>, AbstractDefaultValue<?>>();
+	private DefaultValueTable valueTable = new DefaultValueTable();
 	private ArrayList<ConversionWarning> warnings = new ArrayList<ConversionWarning>();
 	
 	public AbstractMetadataFieldSet() {
@@ -52,15 +61,18 @@ public abstract class AbstractMetadataFieldSet implements IMetadataFieldSet {
 	protected abstract void initDefaultValues();
 	
 	public Set<Enum<?>> getEnumKeyset() {
-		return valueMap.keySet();
+		return valueTable.keySet();
 	}
 	
 	/**
+	 * Not a plain read: if the value is shared with a clone, this set's own copy
+	 * of it is made and stored first.
+	 * 
 	 * @see org.tridas.io.defaults.IMetadataFieldSet#getDefaultValue(java.lang.Enum)
 	 */
 	@Override
 	public AbstractDefaultValue<?> getDefaultValue(Enum<?> argValueType) {
-		return valueMap.get(argValueType);
+		return valueTable.get(argValueType);
 	}
 	
 	/**
@@ -226,7 +238,7 @@ public abstract class AbstractMetadataFieldSet implements IMetadataFieldSet {
 	protected void setDefaultValue(Enum<?> argValueType, AbstractDefaultValue<?> argValue) {
 		argValue.setKey(argValueType);
 		argValue.setParent(this);
-		valueMap.put(argValueType, argValue);
+		valueTable.put(argValueType, argValue);
 	}
 	
 	/**
@@ -264,7 +276,7 @@ public abstract class AbstractMetadataFieldSet implements IMetadataFieldSet {
 	}
 	
 	public Set<Enum<?>> keySet(){
-		return valueMap.keySet();
+		return valueTable.keySet();
 	}
 	
 	@Override
@@ -275,15 +287,9 @@ public abstract class AbstractMetadataFieldSet implements IMetadataFieldSet {
 		} catch (CloneNotSupportedException e) {
 			return this; // should not happen
 		}
-		o.valueMap = new HashMap<Enum<?>, AbstractDefaultValue<?>>();
-		o.warnings = new ArrayList<ConversionWarning>();
-		
-		for (Enum<?> e : valueMap.keySet()) {
-			o.valueMap.put(e, (AbstractDefaultValue<?>) valueMap.get(e).clone());
-		}
-		for (ConversionWarning cw : warnings) {
-			o.warnings.add(cw);
-		}
+		// values are cloned when first used by either set
+		o.valueTable = valueTable.share();
+		o.warnings = new ArrayList<ConversionWarning>(warnings);
 		return o;
 	}
 }
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.defaults;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The default values of a field set, held in an array for each enum the keys
+ * come from and indexed by the key's ordinal.
+ * <p>
+ * Copies are copy-on-write. {@link #share()} hands the same value objects to
+ * the copy and marks them as shared in both tables. Whichever table then asks
+ * for a shared value gets its own clone of it first. Each set only clones the
+ * values it actually uses, and changes made through one set are never seen by
+ * the other.
+ *
+ * @author agent
+ */
+final class DefaultValueTable {
+
+	private static final Class<?>[] NO_TYPES = new Class<?>[0];
+	private static final AbstractDefaultValue<?>[][] NO_VALUES = new AbstractDefaultValue<?>[0][];
+	private static final boolean[][] NO_FLAGS = new boolean[0][];
+
+	/** enum classes of the keys, in the order they were first used */
+	private Class<?>[] types = NO_TYPES;
+	/** values for each enum class, by ordinal */
+	private AbstractDefaultValue<?>[][] values = NO_VALUES;
+	/** whether each value belongs to this table alone, by ordinal */
+	private boolean[][] owned = NO_FLAGS;
+
+	/**
+	 * Get the value for the key, cloning it first if it is shared with another
+	 * table.
+	 *
+	 * @param argKey
+	 * @return the value, or null if the key isn't mapped
+	 */
+	AbstractDefaultValue<?> get(Enum<?> argKey) {
+		int type = indexOf(argKey.getDeclaringClass());
+		if (type == -1) {
+			return null;
+		}
+		int ordinal = argKey.ordinal();
+		AbstractDefaultValue<?> value = values[type][ordinal];
+		if (value != null && !owned[type][ordinal]) {
+			value = (AbstractDefaultValue<?>) value.clone();
+			values[type][ordinal] = value;
+			owned[type][ordinal] = true;
+		}
+		return value;
+	}
+
+	void put(Enum<?> argKey, AbstractDefaultValue<?> argValue) {
+		Class<?> keyType = argKey.getDeclaringClass();
+		int type = indexOf(keyType);
+		if (type == -1) {
+			int size = keyType.getEnumConstants().length;
+			type = types.length;
+			types = Arrays.copyOf(types, type + 1);
+			types[type] = keyType;
+			values = Arrays.copyOf(values, type + 1);
+			values[type] = new AbstractDefaultValue<?>[size];
+			owned = Arrays.copyOf(owned, type + 1);
+			owned[type] = new boolean[size];
+		}
+		values[type][argKey.ordinal()] = argValue;
+		owned[type][argKey.ordinal()] = true;
+	}
+
+	/**
+	 * Copy this table. The copy shares all the values with this table until
+	 * either of them asks for one.
+	 *
+	 * @return
+	 */
+	DefaultValueTable share() {
+		DefaultValueTable copy = new DefaultValueTable();
+		copy.types = types;
+		copy.values = new AbstractDefaultValue<?>[values.length][];
+		copy.owned = new boolean[owned.length][];
+		for (int i = 0; i < values.length; i++) {
+			copy.values[i] = values[i].clone();
+			copy.owned[i] = new boolean[owned[i].length];
+			Arrays.fill(owned[i], false);
+		}
+		return copy;
+	}
+
+	/**
+	 * @return the mapped keys, grouped by enum and in ordinal order
+	 */
+	Set<Enum<?>> keySet() {
+		LinkedHashSet<Enum<?>> keys = new LinkedHashSet<Enum<?>>();
+		for (int i = 0; i < types.length; i++) {
+			Object[] constants = types[i].getEnumConstants();
+			for (int j = 0; j < values[i].length; j++) {
+				if (values[i][j] != null) {
+					keys.add((Enum<?>) constants[j]);
+				}
+			}
+		}
+		return Collections.unmodifiableSet(keys);
+	}
+
+	private int indexOf(Class<?> argType) {
+		for (int i = 0; i < types.length; i++) {
+			if (types[i] == argType) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
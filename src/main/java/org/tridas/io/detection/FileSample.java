@@ -0,0 +1,223 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.detection;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The first few kilobytes of a file, read once and shared by every
+ * {@link FormatProbe}. Text based probes can use the sample as lines, which are
+ * only decoded the first time they are asked for. The bytes are decoded as
+ * ISO-8859-1, so every byte maps to one character and ASCII markers are found
+ * whatever the file's real charset.
+ *
+ * @author agent
+ */
+public final class FileSample {
+
+	/**
+	 * Number of bytes read from the start of a file by default
+	 */
+	public static final int DEFAULT_SAMPLE_SIZE = 16 * 1024;
+
+	private final byte[] bytes;
+	private final int length;
+	private final long fileSize;
+	private final String extension;
+	private String text = null;
+	private List<String> lines = null;
+
+	/**
+	 * @param argBytes
+	 *            start of the file
+	 * @param argLength
+	 *            number of bytes of argBytes that are used
+	 * @param argFileSize
+	 *            size of the whole file
+	 * @param argFilename
+	 *            name of the file, used for its extension. May be null.
+	 */
+	public FileSample(byte[] argBytes, int argLength, long argFileSize, String argFilename) {
+		bytes = argBytes;
+		length = argLength;
+		fileSize = argFileSize;
+		if (argFilename != null && argFilename.lastIndexOf(".") >= 0) {
+			extension = argFilename.substring(argFilename.lastIndexOf(".") + 1).toLowerCase();
+		}
+		else {
+			extension = null;
+		}
+	}
+
+	/**
+	 * Read the sample from the start of a file
+	 *
+	 * @param argFile
+	 * @return
+	 * @throws IOException
+	 */
+	public static FileSample read(File argFile) throws IOException {
+		return read(argFile, DEFAULT_SAMPLE_SIZE);
+	}
+
+	/**
+	 * Read the sample from the start of a file
+	 *
+	 * @param argFile
+	 * @param argSampleSize
+	 *            maximum number of bytes to read
+	 * @return
+	 * @throws IOException
+	 */
+	public static FileSample read(File argFile, int argSampleSize) throws IOException {
+		long size = argFile.length();
+		byte[] buffer = new byte[(int) Math.min(argSampleSize, size)];
+		int read = 0;
+		InputStream in = new FileInputStream(argFile);
+		try {
+			while (read < buffer.length) {
+				int count = in.read(buffer, read, buffer.length - read);
+				if (count < 0) {
+					break;
+				}
+				read += count;
+			}
+		} finally {
+			in.close();
+		}
+		return new FileSample(buffer, read, size, argFile.getName());
+	}
+
+	/**
+	 * @return number of bytes in the sample
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return size of the whole file in bytes
+	 */
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	/**
+	 * @return true if the sample holds the whole file
+	 */
+	public boolean isComplete() {
+		return length >= fileSize;
+	}
+
+	/**
+	 * @return lower case file extension, or null if there isn't one
+	 */
+	public String getExtension() {
+		return extension;
+	}
+
+	/**
+	 * Get an unsigned byte from the sample
+	 *
+	 * @param argIndex
+	 * @return the byte, or -1 if it is past the end of the sample
+	 */
+	public int getByte(int argIndex) {
+		if (argIndex < 0 || argIndex >= length) {
+			return -1;
+		}
+		return bytes[argIndex] & 0xff;
+	}
+
+	/**
+	 * Whether the file starts with the given bytes
+	 *
+	 * @param argMagic
+	 * @return
+	 */
+	public boolean startsWith(int... argMagic) {
+		if (argMagic.length > length) {
+			return false;
+		}
+		for (int i = 0; i < argMagic.length; i++) {
+			if ((bytes[i] & 0xff) != argMagic[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The sample as text, without any UTF-8 byte order mark
+	 *
+	 * @return
+	 */
+	public String getText() {
+		if (text == null) {
+			int start = startsWith(0xef, 0xbb, 0xbf) ? 3 : 0;
+			text = new String(bytes, start, length - start, StandardCharsets.ISO_8859_1);
+		}
+		return text;
+	}
+
+	/**
+	 * The lines of the sample. If the sample doesn't hold the whole file, the
+	 * last line is left out as it is probably incomplete.
+	 *
+	 * @return
+	 */
+	public List<String> getLines() {
+		if (lines == null) {
+			String s = getText();
+			ArrayList<String> list = new ArrayList<String>();
+			int start = 0;
+			for (int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if (c == '\n' || c == '\r') {
+					list.add(s.substring(start, i));
+					if (c == '\r' && i + 1 < s.length() && s.charAt(i + 1) == '\n') {
+						i++;
+					}
+					start = i + 1;
+				}
+			}
+			if (start < s.length() && isComplete()) {
+				list.add(s.substring(start));
+			}
+			lines = Collections.unmodifiableList(list);
+		}
+		return lines;
+	}
+
+	/**
+	 * @return the first line that isn't blank, or null if there isn't one
+	 */
+	public String getFirstLine() {
+		for (String line : getLines()) {
+			if (line.trim().length() > 0) {
+				return line;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.detection;
+
+/**
+ * A format a file might be in, and how sure the detection was.
+ *
+ * @author agent
+ */
+public final class FormatDetection implements Comparable<FormatDetection> {
+
+	private final String formatName;
+	private final float confidence;
+
+	public FormatDetection(String argFormatName, float argConfidence) {
+		formatName = argFormatName;
+		confidence = argConfidence;
+	}
+
+	/**
+	 * @return short name of the format
+	 */
+	public String getFormatName() {
+		return formatName;
+	}
+
+	/**
+	 * @return confidence from 0 to 1
+	 */
+	public float getConfidence() {
+		return confidence;
+	}
+
+	/**
+	 * Most confident first
+	 */
+	@Override
+	public int compareTo(FormatDetection argOther) {
+		return Float.compare(argOther.confidence, confidence);
+	}
+
+	@Override
+	public String toString() {
+		return formatName + " (" + confidence + ")";
+	}
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.detection;
+
+/**
+ * Cheap check of whether a file is in a particular format. Probes only look at
+ * the start of the file held in a {@link FileSample}, which is shared by all
+ * the probes, so they never read the file themselves or parse it in full.
+ *
+ * @author agent
+ */
+public interface FormatProbe {
+
+	/**
+	 * How sure this probe is that the sample is the start of a file in its
+	 * format.
+	 *
+	 * @param argSample
+	 * @return confidence from 0 (definitely not) to 1 (certain)
+	 */
+	public float probe(FileSample argSample);
+}
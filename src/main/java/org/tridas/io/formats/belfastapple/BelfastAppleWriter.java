@@ -27,6 +27,7 @@ import org.tridas.io.exceptions.ImpossibleConversionException;
 import org.tridas.io.exceptions.ConversionWarning.WarningType;
 import org.tridas.io.naming.INamingConvention;
 import org.tridas.io.naming.NumericalNamingConvention;
+import org.tridas.io.util.EntityIndex;
 import org.tridas.io.util.TridasUtils;
 import org.tridas.schema.TridasDerivedSeries;
 import org.tridas.schema.TridasElement;
@@ -57,6 +58,7 @@ public class BelfastAppleWriter extends AbstractDendroCollectionWriter {
 		// Grab all derivedSeries from project
 		try {
 			List<TridasDerivedSeries> lst = argProject.getDerivedSeries();
+			EntityIndex index = new EntityIndex(argProject);
 			for (TridasDerivedSeries ds : lst) {
 				// Create a belfastappleFile for each and add to file list
 				BelfastAppleFile file = new BelfastAppleFile(defaults, this);
@@ -86,7 +88,7 @@ public class BelfastAppleWriter extends AbstractDendroCollectionWriter {
 						// For now just go with the first link
 						//if(ds.getLinkSeries().getSeries().size()>1) break;
 						TridasIdentifier id = ds.getLinkSeries().getSeries().get(0).getIdentifier();
-						TridasObject parentObject = (TridasObject) TridasUtils.getEntityByIdentifier(argProject, id, TridasObject.class);
+						TridasObject parentObject = index.getEntity(id, TridasObject.class);
 						if(parentObject!=null)
 						{
 							if(parentObject.isSetTitle())
@@ -94,7 +96,7 @@ public class BelfastAppleWriter extends AbstractDendroCollectionWriter {
 								file.setObjectTitle(parentObject.getTitle());
 							}
 						}
-						TridasSample parentSample = (TridasSample) TridasUtils.getEntityByIdentifier(argProject, id, TridasSample.class);
+						TridasSample parentSample = index.getEntity(id, TridasSample.class);
 						if(parentSample!=null)
 						{
 							if(parentSample.isSetTitle())
@@ -25,6 +25,7 @@ import org.tridas.io.exceptions.ConversionWarning.WarningType;
 import org.tridas.io.naming.INamingConvention;
 import org.tridas.io.naming.NamingConventionGrouper;
 import org.tridas.io.naming.NumericalNamingConvention;
+import org.tridas.io.util.EntityIndex;
 import org.tridas.io.util.TridasUtils;
 import org.tridas.io.util.UnitUtils;
 import org.tridas.schema.NormalTridasUnit;
@@ -175,6 +176,7 @@ public class BesanconWriter extends AbstractDendroCollectionWriter {
 			}
 		}
 		
+		EntityIndex index = new EntityIndex(argProject);
 		for (TridasDerivedSeries ds : argProject.getDerivedSeries()) {
 			TridasToBesanconDefaults dsDefaults = (TridasToBesanconDefaults) defaults.clone();
 				
@@ -242,7 +244,7 @@ public class BesanconWriter extends AbstractDendroCollectionWriter {
 					// For now just go with the first link
 					//if(ds.getLinkSeries().getSeries().size()>1) break;
 					TridasIdentifier id = ds.getLinkSeries().getSeries().get(0).getIdentifier();
-					TridasElement parentElement = (TridasElement) TridasUtils.getEntityByIdentifier(argProject, id, TridasElement.class);
+					TridasElement parentElement = index.getEntity(id, TridasElement.class);
 					if(parentElement!=null)
 					{
 						tvDefaults.populateFromTridasElement(parentElement);
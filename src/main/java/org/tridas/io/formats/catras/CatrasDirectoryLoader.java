@@ -0,0 +1,134 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.formats.catras;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tridas.io.exceptions.IncorrectDefaultFieldsException;
+import org.tridas.io.exceptions.InvalidDendroFileException;
+
+/**
+ * Loads many CATRAS files in one go. CATRAS files are small, so rather than
+ * allocating an array for every file, each one is read into a single heap
+ * buffer that is reused for the whole run. The buffer only grows when a file
+ * larger than any seen so far turns up. Each file is closed once it has been
+ * read, so none of them stay open or locked.
+ * <p>
+ * Each file gets its own {@link CatrasReader}, as readers hold the series they
+ * have parsed. Files that fail to load are logged and recorded in
+ * {@link #getFailures()} rather than stopping the rest of the directory.
+ *
+ * @author agent
+ */
+public class CatrasDirectoryLoader {
+
+	private static final Logger log = LoggerFactory.getLogger(CatrasDirectoryLoader.class);
+	private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+	private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+	private final LinkedHashMap<Path, Exception> failures = new LinkedHashMap<Path, Exception>();
+
+	/**
+	 * Load a single CATRAS file using the shared buffer and the default metadata.
+	 *
+	 * @param argPath
+	 * @return a reader that has loaded the file
+	 * @throws IOException
+	 * @throws InvalidDendroFileException
+	 */
+	public CatrasReader read(Path argPath) throws IOException, InvalidDendroFileException {
+		CatrasReader reader = new CatrasReader();
+		buffer = CatrasReader.readFile(argPath, buffer);
+
+		try {
+			reader.loadFile(buffer, reader.constructDefaultMetadata(), argPath.toString());
+		} catch (IncorrectDefaultFieldsException e) {
+			// not gonna happen
+		}
+		return reader;
+	}
+
+	/**
+	 * Load every file in a directory that has a CATRAS extension. Files are read in
+	 * name order.
+	 *
+	 * @param argDirectory
+	 * @return the readers for the files that loaded successfully, keyed by path in
+	 *         the order they were read
+	 * @throws IOException
+	 *             if the directory could not be listed
+	 */
+	public LinkedHashMap<Path, CatrasReader> readDirectory(Path argDirectory) throws IOException {
+		failures.clear();
+
+		String[] extensions = new CatrasFormat().getFileExtensions();
+		ArrayList<Path> files = new ArrayList<Path>();
+		DirectoryStream<Path> stream = Files.newDirectoryStream(argDirectory);
+		try {
+			for (Path file : stream) {
+				if (Files.isRegularFile(file) && hasExtension(file, extensions)) {
+					files.add(file);
+				}
+			}
+		} finally {
+			stream.close();
+		}
+		Collections.sort(files);
+
+		LinkedHashMap<Path, CatrasReader> readers = new LinkedHashMap<Path, CatrasReader>();
+		for (Path file : files) {
+			try {
+				readers.put(file, read(file));
+			} catch (IOException e) {
+				log.error("Failed to read " + file + ": " + e.getLocalizedMessage());
+				failures.put(file, e);
+			} catch (InvalidDendroFileException e) {
+				log.error("Invalid CATRAS file " + file + ": " + e.getLocalizedMessage());
+				failures.put(file, e);
+			}
+		}
+		return readers;
+	}
+
+	/**
+	 * The files that failed to load during the last call to
+	 * {@link #readDirectory(Path)}, along with the reason why.
+	 *
+	 * @return
+	 */
+	public LinkedHashMap<Path, Exception> getFailures() {
+		return failures;
+	}
+
+	private static boolean hasExtension(Path argFile, String[] argExtensions) {
+		String name = argFile.getFileName().toString().toLowerCase();
+		for (String ext : argExtensions) {
+			if (name.endsWith("." + ext.toLowerCase())) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.formats.catras;
+
+import org.tridas.io.detection.FileSample;
+import org.tridas.io.detection.FormatProbe;
+
+/**
+ * Checks the CATRAS header: the file is made of 128 byte blocks, the number
+ * format byte is 1 and the series is short enough to fit in the file.
+ *
+ * @author agent
+ */
+public class CatrasProbe implements FormatProbe {
+
+	@Override
+	public float probe(FileSample argSample) {
+		long size = argSample.getFileSize();
+		if (size < 128 || size % 128 != 0 || argSample.getLength() < 128) {
+			return 0f;
+		}
+		// same checks as CatrasReader.checkFile()
+		if (argSample.getByte(66) != 1) {
+			return 0f;
+		}
+		// each ring is a byte pair in the blocks after the header
+		int length = argSample.getByte(44) + (argSample.getByte(45) << 8);
+		if (length == 0 || 128 + 2L * length > size) {
+			return 0.4f;
+		}
+		return 0.8f;
+	}
+}
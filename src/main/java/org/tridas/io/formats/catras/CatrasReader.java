@@ -17,6 +17,11 @@ package org.tridas.io.formats.catras;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -63,6 +68,7 @@ import org.tridas.schema.TridasValues;
 public class CatrasReader extends AbstractDendroFileReader {
 	
 	private static final Logger log = LoggerFactory.getLogger(CatrasReader.class);
+	private static final Charset CP437 = Charset.forName("Cp437");
 	// defaults given by user
 	private CatrasToTridasDefaults defaults = null;
 	
@@ -70,6 +76,8 @@ public class CatrasReader extends AbstractDendroFileReader {
 	private ArrayList<TridasDerivedSeries> dseriesList = new ArrayList<TridasDerivedSeries>();;
 	private ArrayList<Integer> ringWidthValues = new ArrayList<Integer>();
 	private ArrayList<Integer> sampleDepthValues = new ArrayList<Integer>();
+	// reused by loadFile(Path)
+	private ByteBuffer fileBuffer = null;
 		
 	public CatrasReader() {
 		super(CatrasToTridasDefaults.class, new CatrasFormat());
@@ -104,6 +112,64 @@ public class CatrasReader extends AbstractDendroFileReader {
 		loadFile(bytes, argDefaultFields);
 	}
 	
+	/**
+	 * Loads a file by reading it straight into a heap buffer, which is kept and
+	 * reused for the next file this reader loads.  The file is closed before
+	 * parsing starts, so nothing keeps it open or locked afterwards.
+	 * 
+	 * @see org.tridas.io.AbstractDendroFileReader#loadFile(java.nio.file.Path,
+	 *      org.tridas.io.defaults.IMetadataFieldSet)
+	 */
+	@Override
+	public void loadFile(Path argPath, IMetadataFieldSet argDefaultFields) throws IOException,
+			IncorrectDefaultFieldsException, InvalidDendroFileException {
+		if (argDefaultFields == null) {
+			argDefaultFields = constructDefaultMetadata();
+		}
+		log.debug("loading file from: " + argPath);
+		setOriginalFilename(argPath.toString());
+		
+		fileBuffer = readFile(argPath, fileBuffer);
+		loadFile(fileBuffer, argDefaultFields);
+	}
+	
+	/**
+	 * Reads a whole file into a heap buffer.  CATRAS files are only a few
+	 * kilobytes, so this is cheaper than mapping them, and unlike a mapping the
+	 * file is released as soon as it has been read.
+	 * 
+	 * @param argPath
+	 * @param argBuffer
+	 *            buffer to reuse if it is large enough, or null
+	 * @return the buffer holding the file, ready for reading
+	 * @throws IOException
+	 */
+	static ByteBuffer readFile(Path argPath, ByteBuffer argBuffer) throws IOException {
+		FileChannel channel = FileChannel.open(argPath, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException(I18n.getText("fileio.loadfailed"));
+			}
+			ByteBuffer buffer = argBuffer;
+			if (buffer == null || buffer.capacity() < size) {
+				int capacity = buffer == null ? 0 : buffer.capacity() * 2;
+				buffer = ByteBuffer.allocate((int) Math.max(size, capacity));
+			}
+			buffer.clear();
+			buffer.limit((int) size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					break;
+				}
+			}
+			buffer.flip();
+			return buffer;
+		} finally {
+			channel.close();
+		}
+	}
+	
 	public void loadFile(byte[] argFileBytes, IMetadataFieldSet argDefaults) throws IncorrectDefaultFieldsException,
 			InvalidDendroFileException {
 		if (!argDefaults.getClass().equals(getDefaultFieldsClass())) {
@@ -116,6 +182,40 @@ public class CatrasReader extends AbstractDendroFileReader {
 		parseFile(argFileBytes, constructDefaultMetadata());
 	}
 	
+	/**
+	 * Loads a file held in a buffer, reading from the start of the buffer up to its
+	 * limit.  The reader does not keep hold of the buffer once this returns, so the
+	 * caller is free to reuse it for the next file.
+	 * 
+	 * @param argBuffer
+	 * @param argDefaults
+	 * @throws IncorrectDefaultFieldsException
+	 * @throws InvalidDendroFileException
+	 */
+	public void loadFile(ByteBuffer argBuffer, IMetadataFieldSet argDefaults) throws IncorrectDefaultFieldsException,
+			InvalidDendroFileException {
+		if (!argDefaults.getClass().equals(getDefaultFieldsClass())) {
+			throw new IncorrectDefaultFieldsException(getDefaultFieldsClass());
+		}
+		parseFile(argBuffer, argDefaults);
+	}
+	
+	/**
+	 * Loads a file held in a buffer, recording the name of the file it was read from.
+	 * 
+	 * @param argBuffer
+	 * @param argDefaults
+	 * @param argFilename
+	 * @throws IncorrectDefaultFieldsException
+	 * @throws InvalidDendroFileException
+	 * @see #loadFile(ByteBuffer, IMetadataFieldSet)
+	 */
+	public void loadFile(ByteBuffer argBuffer, IMetadataFieldSet argDefaults, String argFilename)
+			throws IncorrectDefaultFieldsException, InvalidDendroFileException {
+		setOriginalFilename(argFilename);
+		loadFile(argBuffer, argDefaults);
+	}
+	
 	/**
 	 * Check this is a valid CATRAS file
 	 * 
@@ -123,23 +223,33 @@ public class CatrasReader extends AbstractDendroFileReader {
 	 * @throws InvalidDendroFileException
 	 */
 	protected void checkFile(byte[] argFileBytes) throws InvalidDendroFileException{
+		checkFile(argFileBytes == null ? null : ByteBuffer.wrap(argFileBytes));
+	}
+	
+	/**
+	 * Check this is a valid CATRAS file
+	 * 
+	 * @param argBuffer
+	 * @throws InvalidDendroFileException
+	 */
+	protected void checkFile(ByteBuffer argBuffer) throws InvalidDendroFileException{
 	
 		// Check there are at least 128 bytes and that the number of bytes is divisible by 128
-		if (argFileBytes == null) {
+		if (argBuffer == null) {
 			throw new InvalidDendroFileException(I18n.getText("fileio.tooShort"), 
 					1, PointerType.BYTE );
 		}
-		else if (argFileBytes.length < 128) {
+		else if (argBuffer.limit() < 128) {
 			throw new InvalidDendroFileException(I18n.getText("fileio.tooShort"), 
-					argFileBytes.length, PointerType.BYTE );
+					argBuffer.limit(), PointerType.BYTE );
 		}
-		else if (argFileBytes.length % 128!=0)
+		else if (argBuffer.limit() % 128!=0)
 		{
 			throw new InvalidDendroFileException(I18n.getText("catras.invalidFileSize"), 
-					argFileBytes.length, PointerType.BYTE );
+					argBuffer.limit(), PointerType.BYTE );
 		}
 		
-		if(CatrasReader.getIntFromByte(argFileBytes[66])!=1)
+		if(CatrasReader.getIntFromByte(argBuffer.get(66))!=1)
 		{
 			throw new InvalidDendroFileException(I18n.getText("catras.invalidNumberFormat"), 
 					67, PointerType.BYTE );
@@ -151,13 +261,24 @@ public class CatrasReader extends AbstractDendroFileReader {
 	 * @param argFileBytes
 	 * @param argDefaultFields
 	 */
-	@SuppressWarnings("unchecked")
 	protected void parseFile(byte[] argFileBytes, IMetadataFieldSet argDefaultFields) throws InvalidDendroFileException {
+		parseFile(argFileBytes == null ? null : ByteBuffer.wrap(argFileBytes), argDefaultFields);
+	}
+	
+	/**
+	 * Parse a file held in a buffer.  Values are read by absolute position from the
+	 * start of the buffer so no intermediate arrays are created.
+	 * 
+	 * @param argBuffer
+	 * @param argDefaultFields
+	 */
+	@SuppressWarnings("unchecked")
+	protected void parseFile(ByteBuffer argBuffer, IMetadataFieldSet argDefaultFields) throws InvalidDendroFileException {
 		
 		defaults = (CatrasToTridasDefaults) argDefaultFields;
 		log.debug("starting catras file parsing");
 		
-		checkFile(argFileBytes);
+		checkFile(argBuffer);
 		
 		/**  Print debug info */
 		//this.debugAsIntSingleByte(0, 128, argFileBytes);
@@ -166,51 +287,36 @@ public class CatrasReader extends AbstractDendroFileReader {
 		
 		
 		// Series Title - bytes 1-32
-		try {
-			defaults.getStringDefaultValue(DefaultFields.SERIES_NAME)
-				.setValue(new String(getSubByteArray(argFileBytes, 0, 31), "Cp437").trim());
-		} catch (UnsupportedEncodingException e2) {
-			// TODO Auto-generated catch block
-			e2.printStackTrace();
-		}
+		defaults.getStringDefaultValue(DefaultFields.SERIES_NAME)
+			.setValue(getStringFromBytes(argBuffer, 0, 31).trim());
 		
 		// Series code - bytes 33-40
-		try {
-			defaults.getStringDefaultValue(DefaultFields.SERIES_CODE)
-				.setValue(new String(getSubByteArray(argFileBytes, 32, 39), "Cp437").trim());
-		} catch (UnsupportedEncodingException e1) {
-			// TODO Auto-generated catch block
-			e1.printStackTrace();
-		}
+		defaults.getStringDefaultValue(DefaultFields.SERIES_CODE)
+			.setValue(getStringFromBytes(argBuffer, 32, 39).trim());
 		
 		// File extension - bytes 41-44
-		try {
-			defaults.getStringDefaultValue(DefaultFields.FILE_EXTENSION)
-				.setValue(new String(getSubByteArray(argFileBytes, 40, 43), "Cp437"));
-		} catch (UnsupportedEncodingException e1) {
-			// TODO Auto-generated catch block
-			e1.printStackTrace();
-		}
+		defaults.getStringDefaultValue(DefaultFields.FILE_EXTENSION)
+			.setValue(getStringFromBytes(argBuffer, 40, 43));
 		
 		// Length of series - bytes 45-46
 		defaults.getIntegerDefaultValue(DefaultFields.SERIES_LENGTH)
-			.setValue(getIntFromBytePair(getSubByteArray(argFileBytes, 44, 45)));
-		int length = getIntFromBytePair(getSubByteArray(argFileBytes, 44, 45));
+			.setValue(getIntFromBytePairByPos(argBuffer, 44));
+		int length = getIntFromBytePairByPos(argBuffer, 44);
 		
 		// Length of sapwood - bytes 47-48
 		defaults.getIntegerDefaultValue(DefaultFields.SAPWOOD_LENGTH)
-			.setValue(getIntFromBytePair(getSubByteArray(argFileBytes, 46, 47)));
+			.setValue(getIntFromBytePairByPos(argBuffer, 46));
 		
 		// 49-50 valid start
 		defaults.getIntegerDefaultValue(DefaultFields.FIRST_VALID_YEAR)
-		.setValue(getIntFromBytePair(getSubByteArray(argFileBytes, 48, 49)));
+		.setValue(getIntFromBytePairByPos(argBuffer, 48));
 		
 		// 51-52 valid end
 		defaults.getIntegerDefaultValue(DefaultFields.LAST_VALID_YEAR)
-		.setValue(getIntFromBytePair(getSubByteArray(argFileBytes, 50, 51)));		
+		.setValue(getIntFromBytePairByPos(argBuffer, 50));		
 		
 		// 53 1=pith 2=waldkante 3=pith to waldkante
-		CATRASScope comp = CATRASScope.fromCode(getIntFromByte(argFileBytes[52]));
+		CATRASScope comp = CATRASScope.fromCode(getIntFromByte(argBuffer.get(52)));
 		if(comp!=null)
 		{
 			GenericDefaultValue<CATRASScope> compField = (GenericDefaultValue<CATRASScope>) defaults
@@ -219,7 +325,7 @@ public class CatrasReader extends AbstractDendroFileReader {
 		}
 		
 		// 54 1 = ew only last ring
-		CATRASLastRing lastring = CATRASLastRing.fromCode(getIntFromByte(argFileBytes[53]));
+		CATRASLastRing lastring = CATRASLastRing.fromCode(getIntFromByte(argBuffer.get(53)));
 		if(lastring!=null)
 		{
 			GenericDefaultValue<CATRASLastRing> compField = (GenericDefaultValue<CATRASLastRing>) defaults
@@ -228,29 +334,29 @@ public class CatrasReader extends AbstractDendroFileReader {
 		}
 		
 		// Start year- bytes 55-56
-		Integer startYear = getIntFromBytePairByPos(argFileBytes, 54);		
+		Integer startYear = getIntFromBytePairByPos(argBuffer, 54);		
 		defaults.getIntegerDefaultValue(DefaultFields.START_YEAR)
 			.setValue(startYear);
 		
 		// Number of characters in series name - byte 57
 		defaults.getIntegerDefaultValue(DefaultFields.NUMBER_OF_CHARS_IN_TITLE)
-			.setValue(getIntFromByte(argFileBytes[56]));
+			.setValue(getIntFromByte(argBuffer.get(56)));
 		
 		// Quality code - byte 58
 		defaults.getIntegerDefaultValue(DefaultFields.QUALITY_CODE)
-			.setValue(getIntFromByte(argFileBytes[57]));	
+			.setValue(getIntFromByte(argBuffer.get(57)));	
 		
 		// Species code - byte 59 - 60  (not much use without associated dictionary file)
 		defaults.getIntegerDefaultValue(DefaultFields.SPECIES_CODE)
-			.setValue(getIntFromBytePair(getSubByteArray(argFileBytes, 58, 59)));
+			.setValue(getIntFromBytePairByPos(argBuffer, 58));
 		//defaults.getStringDefaultValue(DefaultFields.SPECIES_CODE).setValue(new String(getSubByteArray(argFileBytes, 58, 59)));
 		
 		
 		// 61, 62, 63 creation date- dd, mm, yy respectively
 		try{
-			Integer day   = getIntFromByte(argFileBytes[60]);
-			Integer month = getIntFromByte(argFileBytes[61]);
-			Integer year  = getIntFromByte(argFileBytes[62])+1900;
+			Integer day   = getIntFromByte(argBuffer.get(60));
+			Integer month = getIntFromByte(argBuffer.get(61));
+			Integer year  = getIntFromByte(argBuffer.get(62))+1900;
 			
 			if(year>1900){ defaults.getDateTimeDefaultValue(DefaultFields.CREATION_DATE)
 				.setValue(DateUtils.getDateTime(day, month, year));
@@ -263,9 +369,9 @@ public class CatrasReader extends AbstractDendroFileReader {
 		
 		// 64, 65, 66 - amended date - day, month year 
 		try{
-			Integer day   = getIntFromByte(argFileBytes[63]);
-			Integer month = getIntFromByte(argFileBytes[64]);
-			Integer year  = getIntFromByte(argFileBytes[65])+1900;
+			Integer day   = getIntFromByte(argBuffer.get(63));
+			Integer month = getIntFromByte(argBuffer.get(64));
+			Integer year  = getIntFromByte(argBuffer.get(65))+1900;
 			
 			if(year>1900){ defaults.getDateTimeDefaultValue(DefaultFields.UPDATED_DATE)
 				.setValue(DateUtils.getDateTime(day, month, year));
@@ -280,7 +386,7 @@ public class CatrasReader extends AbstractDendroFileReader {
 		// Always 1 = IEEE
 		
 		// 68 - Series type
-		CATRASVariableType vartype = CATRASVariableType.fromCode(getIntFromByte(argFileBytes[67]));
+		CATRASVariableType vartype = CATRASVariableType.fromCode(getIntFromByte(argBuffer.get(67)));
 		if(vartype!=null)
 		{
 			GenericDefaultValue<CATRASVariableType> field = (GenericDefaultValue<CATRASVariableType>) defaults
@@ -291,7 +397,7 @@ public class CatrasReader extends AbstractDendroFileReader {
 		// 69-81 Not used
 		
 		// 82 - Source
-		CATRASSource source = CATRASSource.fromCode(String.valueOf(getIntFromBytePairByPos(argFileBytes, 81)));
+		CATRASSource source = CATRASSource.fromCode(String.valueOf(getIntFromBytePairByPos(argBuffer, 81)));
 		if(source!=null)
 		{
 			GenericDefaultValue<CATRASSource> field = (GenericDefaultValue<CATRASSource>) defaults
@@ -300,7 +406,7 @@ public class CatrasReader extends AbstractDendroFileReader {
 		}
 		
 		// 83 - Protection
-		CATRASProtection protection = CATRASProtection.fromCode(getIntFromByte(argFileBytes[82]));
+		CATRASProtection protection = CATRASProtection.fromCode(getIntFromByte(argBuffer.get(82)));
 		if(protection!=null)
 		{
 			GenericDefaultValue<CATRASProtection> field = (GenericDefaultValue<CATRASProtection>) defaults
@@ -309,7 +415,7 @@ public class CatrasReader extends AbstractDendroFileReader {
 		}		
 		
 		// 84 - File type
-		CATRASFileType filetype = CATRASFileType.fromCode(getIntFromByte(argFileBytes[83]));
+		CATRASFileType filetype = CATRASFileType.fromCode(getIntFromByte(argBuffer.get(83)));
 		Boolean isChronology = false;
 		if(filetype!=null)
 		{
@@ -320,22 +426,18 @@ public class CatrasReader extends AbstractDendroFileReader {
 		}		
 		
 		// Userid - bytes 85-88
-		try {
-			defaults.getStringDefaultValue(DefaultFields.USER_ID)
-				.setValue(new String(getSubByteArray(argFileBytes, 84, 87), "Cp437").trim());
-		} catch (UnsupportedEncodingException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+		defaults.getStringDefaultValue(DefaultFields.USER_ID)
+			.setValue(getStringFromBytes(argBuffer, 84, 87).trim());
 		
 		// 89-128 Statistics - 
 		// Ignored
 				
-		// Extract the data
-		byte[] theData = getSubByteArray(argFileBytes, 127, 127+(length*2));
+		// Extract the data.  Values are byte pairs starting at byte 129, stopping early
+		// if the file is shorter than the length in the header says it should be
+		int endOfData = Math.min(128+(length*2), argBuffer.limit()) - 1;
 		//boolean reachedStopMarker = false;
-		for (int i = 1; i < theData.length; i = i + 2) {
-			int valueFromFile = getIntFromBytePairByPos(theData, i);
+		for (int i = 128; i < endOfData; i = i + 2) {
+			int valueFromFile = getIntFromBytePairByPos(argBuffer, i);
 			/*if (valueFromFile == 999) {
 				// Stop marker found
 				// There are 32 bytes (inclusive) after the data and before
@@ -381,7 +483,7 @@ public class CatrasReader extends AbstractDendroFileReader {
 		
 		if(isChronology)
 		{
-			int fileBytes = argFileBytes.length;
+			int fileBytes = argBuffer.limit();
 			int fileSizeDataOnly = CatrasFile.roundToNext128(length*2)+128;
 			if(fileBytes == fileSizeDataOnly)
 			{
@@ -394,41 +496,37 @@ public class CatrasReader extends AbstractDendroFileReader {
 			}
 			else
 			{
-				try{
-					int firstDataByte = 128;
-					int lengthOfDataInBytes = CatrasFile.roundToNext128(length*2);
-					int firstCountByte = firstDataByte + lengthOfDataInBytes;
-					int lastCountByte = firstCountByte+(length*2)-1;
-				    
-				    log.debug("Number of rings         = "+length);
-				    log.debug("Number of bytes (rings) = "+lengthOfDataInBytes);
-				    log.debug("Length of file in bytes = "+argFileBytes.length);
-				    log.debug("Remaining size in bytes = "+(argFileBytes.length-firstDataByte-lengthOfDataInBytes));
-				    log.debug("Data starts at byte     = "+firstDataByte);
-				    log.debug("First count byte is at  = "+firstCountByte);
-				    log.debug("Last count byte is at   = "+lastCountByte);
-				    
-					byte[] theDepths = getSubByteArray(argFileBytes, firstCountByte, lastCountByte);
-					
-					log.debug("Size of depths array    = "+theDepths.length);
-					
-					for (int i = 0; i < theDepths.length; i = i + 2) {
-						int valueFromFile = getIntFromBytePairByPos(theDepths, i);
-						log.debug("Byte 1 ["+i+"]: "+theDepths[i]);
-						log.debug("Byte 2 ["+(i+1)+"]: "+theDepths[i+1]);
+				int firstDataByte = 128;
+				int lengthOfDataInBytes = CatrasFile.roundToNext128(length*2);
+				int firstCountByte = firstDataByte + lengthOfDataInBytes;
+				int lastCountByte = firstCountByte+(length*2)-1;
+			    
+			    log.debug("Number of rings         = "+length);
+			    log.debug("Number of bytes (rings) = "+lengthOfDataInBytes);
+			    log.debug("Length of file in bytes = "+fileBytes);
+			    log.debug("Remaining size in bytes = "+(fileBytes-firstDataByte-lengthOfDataInBytes));
+			    log.debug("Data starts at byte     = "+firstDataByte);
+			    log.debug("First count byte is at  = "+firstCountByte);
+			    log.debug("Last count byte is at   = "+lastCountByte);
+			    
+				if (firstCountByte < 0 || lastCountByte >= fileBytes)
+				{
+					log.error("Failed to get count data");
+				}
+				else
+				{
+					for (int i = firstCountByte; i < lastCountByte; i = i + 2) {
+						int valueFromFile = getIntFromBytePairByPos(argBuffer, i);
 						log.debug("Value : "+valueFromFile);
 						sampleDepthValues.add(valueFromFile);
 					}
-				} catch (Exception ex)
-				{
-					log.error("Failed to get count data");
 				}
 			}
 		}
 		
 		
 		// Check length metadata and number of ring width values match
-		/*if (ringWidthValues.size() > getIntFromBytePair(getSubByteArray(argFileBytes, 44, 45))) {
+		/*if (ringWidthValues.size() > getIntFromBytePairByPos(argBuffer, 44)) {
 			//addWarning(new ConversionWarning(WarningType.INVALID, I18n.getText("fileio.valueCountMismatch", ringWidthValues.size()+"", length+"")));
 			// Trim off extra ring width values
 			ArrayList<Integer> trimmedRingValues = new ArrayList<Integer>();
@@ -566,7 +664,6 @@ public class CatrasReader extends AbstractDendroFileReader {
 		
 		short lsb = 0; // least significant byte
 		short msb = 0; // most significant byte
-		int w = -1; // actual value
 		// Depending on endian, extract bytes in correct order. Java is always
 		// big endian, but Windoze i386 are always (?) little endian. As CATRAS
 		// is the only (?) program that writes CATRAS files then they should
@@ -590,6 +687,20 @@ public class CatrasReader extends AbstractDendroFileReader {
 		//log.debug("LSB value of "+ wBytes[0] + " = "+String.valueOf(lsb));
 		//log.debug("MSB value of "+ wBytes[1] + " = "+String.valueOf(msb));
 		
+		return getIntFromBytePair(lsb, msb);
+	}
+	
+	/**
+	 * Combine the unsigned (0-255) least and most significant bytes of a CATRAS
+	 * integer
+	 * 
+	 * @param lsb
+	 * @param msb
+	 * @return
+	 */
+	private static int getIntFromBytePair(int lsb, int msb) {
+		
+		int w = -1; // actual value
 		
 		if (msb>128)
 		{
@@ -624,16 +735,34 @@ public class CatrasReader extends AbstractDendroFileReader {
 	
 	
 	/**
-	 * Extract a byte pair from a large byte array according to the position
-	 * value of the first byte. Then extract the integer value assuming
-	 * data is little-endian.
+	 * Extract the integer value of the byte pair starting at the given position
+	 * of a buffer, assuming data is little-endian.  As with
+	 * {@link #getBytePairByPos(byte[], int)}, bytes beyond the end of the buffer
+	 * are read as zero.
 	 * 
-	 * @param wBytes
+	 * @param argBuffer
 	 * @param pos
 	 * @return
 	 */
-	private int getIntFromBytePairByPos(byte[] wBytes, int pos) {
-		return getIntFromBytePair(getBytePairByPos(wBytes, pos));
+	private static int getIntFromBytePairByPos(ByteBuffer argBuffer, int pos) {
+		int lsb = (pos < argBuffer.limit()) ? getIntFromByte(argBuffer.get(pos)) : 0;
+		int msb = (pos + 1 < argBuffer.limit()) ? getIntFromByte(argBuffer.get(pos + 1)) : 0;
+		return getIntFromBytePair(lsb, msb);
+	}
+	
+	/**
+	 * Decode the Cp437 text between two positions (inclusive) of a buffer
+	 * 
+	 * @param argBuffer
+	 * @param start
+	 * @param end
+	 * @return
+	 */
+	private static String getStringFromBytes(ByteBuffer argBuffer, int start, int end) {
+		ByteBuffer text = argBuffer.duplicate();
+		text.limit(end + 1);
+		text.position(start);
+		return CP437.decode(text).toString();
 	}
 			
 	
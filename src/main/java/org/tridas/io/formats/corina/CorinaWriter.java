@@ -26,6 +26,7 @@ import org.tridas.io.exceptions.ImpossibleConversionException;
 import org.tridas.io.formats.corina.CorinaToTridasDefaults.DefaultFields;
 import org.tridas.io.naming.INamingConvention;
 import org.tridas.io.naming.NumericalNamingConvention;
+import org.tridas.io.util.EntityIndex;
 import org.tridas.io.util.TridasUtils;
 import org.tridas.io.util.UnitUtils;
 import org.tridas.schema.NormalTridasUnit;
@@ -156,6 +157,7 @@ public class CorinaWriter extends AbstractDendroCollectionWriter {
 			}
 		}
 		
+		EntityIndex index = new EntityIndex(argProject);
 		for (TridasDerivedSeries ds : argProject.getDerivedSeries()) 
 		{			
 			for (int i = 0; i < ds.getValues().size(); i++) 
@@ -241,12 +243,12 @@ public class CorinaWriter extends AbstractDendroCollectionWriter {
 					if(ds.getLinkSeries().getSeries().size()==1)
 					{
 						TridasIdentifier id = ds.getLinkSeries().getSeries().get(0).getIdentifier();
-						TridasElement parentElement = (TridasElement) TridasUtils.getEntityByIdentifier(argProject, id, TridasElement.class);
+						TridasElement parentElement = index.getEntity(id, TridasElement.class);
 						if(parentElement!=null)
 						{
 							dsDefaults.populateFromTridasElement(parentElement);
 						}
-						TridasSample parentSample = (TridasSample) TridasUtils.getEntityByIdentifier(argProject, id, TridasSample.class);
+						TridasSample parentSample = index.getEntity(id, TridasSample.class);
 						if(parentSample!=null)
 						{
 							dsDefaults.populateFromTridasSample(parentSample);
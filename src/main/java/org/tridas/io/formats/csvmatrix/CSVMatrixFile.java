@@ -1,5 +1,8 @@
 package org.tridas.io.formats.csvmatrix;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashSet;
 
@@ -12,6 +15,7 @@ import org.tridas.io.defaults.IMetadataFieldSet;
 import org.tridas.io.defaults.values.DateTimeDefaultValue;
 import org.tridas.io.defaults.values.StringDefaultValue;
 import org.tridas.io.formats.csvmatrix.TridasToMatrixDefaults.DefaultFields;
+import org.tridas.io.util.IOUtils;
 import org.tridas.io.util.SafeIntYear;
 import org.tridas.io.util.YearRange;
 import org.tridas.schema.TridasValues;
@@ -36,29 +40,26 @@ public class CSVMatrixFile implements IDendroFile {
 	@Override
 	public String[] saveToString() {
 		
-		String[] lines = new String[fileYearRange.span()+1];
-		
-		ArrayList<String[]> matrix = getMatrix();
-		
-		for(int i=0; i< lines.length; i++)
-		{
-			String line = "";
-			for(String[] column : matrix)
-			{
-				if(column[i]==null)
-				{
-					line += ",";
-				}
-				else
-				{
-					line += column[i]+",";
-				}
-			}
-			lines[i] = line.substring(0, line.length()-1);
+		StringWriter string = new StringWriter();
+		try {
+			writeTo(string);
+		} catch (IOException e) {
+			// not gonna happen with a StringWriter
+			log.error("Error writing CSV file", e);
 		}
-		
-		
-		return lines;
+		return IOUtils.splitLines(string.toString());
+	}
+	
+	/**
+	 * Writes the matrix out a row at a time, without building the whole file in
+	 * memory first.
+	 * 
+	 * @see org.tridas.io.IDendroFile#writeTo(java.io.Writer)
+	 */
+	@Override
+	public void writeTo(Writer argWriter) throws IOException {
+		getRowEmitter().writeRows(argWriter, 0, fileYearRange.span()+1);
+		argWriter.flush();
 	}
 
 	@Override
@@ -371,26 +372,26 @@ public class CSVMatrixFile implements IDendroFile {
 	
 	public ArrayList<String[]> getMatrix()
 	{
-		ArrayList<String[]> matrix = new ArrayList<String[]>();
+		return getRowEmitter().toMatrix(fileYearRange.span()+1);
+	}
+	
+	/**
+	 * The year column followed by a column for each series.  Values are looked
+	 * up as each row is asked for rather than copied into a matrix.
+	 * 
+	 * @return
+	 */
+	protected MatrixRowEmitter getRowEmitter()
+	{
+		MatrixRowEmitter emitter = new MatrixRowEmitter();
 		
 		// First column - year headers
-		String[] yearcolumn = new String[fileYearRange.span()+1];
-		yearcolumn[0] = "Years ";
+		String yearheader = "Years ";
 		if(defaults.getStringDefaultValue(DefaultFields.DATING_TYPE).getValue()!=null)
 		{
-			yearcolumn[0] = yearcolumn[0] + "("+defaults.getStringDefaultValue(DefaultFields.DATING_TYPE).getValue()+")";
-		}
-		int ind = 1;
-		
-		SafeIntYear start = fileYearRange.getStart();
-		SafeIntYear end = fileYearRange.getEnd();
-		
-		for(SafeIntYear currYear =start; currYear.compareTo(end)<=0; currYear = currYear.add(1))
-		{
-			yearcolumn[ind] = currYear.toString();
-			ind++;
+			yearheader = yearheader + "("+defaults.getStringDefaultValue(DefaultFields.DATING_TYPE).getValue()+")";
 		}
-		matrix.add(yearcolumn);
+		emitter.addColumn(new MatrixRowEmitter.YearColumn(yearheader, fileYearRange.getStart(), fileYearRange.span()));
 		
 		// Create a HashSet of variables so we can see if they need to be included in column headers
 		HashSet<String> variables = new HashSet<String>();
@@ -403,11 +404,8 @@ public class CSVMatrixFile implements IDendroFile {
 		}
 		
 		// Now the data columns
-		String[] datacolumn = new String[fileYearRange.span()+1];
 		for(MatrixSeries s : seriesList)
 		{
-			datacolumn = new String[fileYearRange.span()+1];
-			
 			// Header
 			String header = s.def.getStringDefaultValue(DefaultFields.SERIES_TITLE).getStringValue();
 			
@@ -416,27 +414,13 @@ public class CSVMatrixFile implements IDendroFile {
 			{
 				header+=" ("+s.def.getStringDefaultValue(DefaultFields.VARIABLE).getValue()+")";
 			}
-			datacolumn[0] = header.replace(",", "_");
-			
-			
-			// Data values
-			if(s.values.getValues().size()>0)
-			{	
-				int yearIndex = fileYearRange.getStart().diff(s.range.getStart())+1;
-				if(yearIndex<0) yearIndex = 0- yearIndex+2;
-							
-				for(int i=0; i<s.values.getValues().size(); i++)
-				{
-					datacolumn[yearIndex] = s.values.getValues().get(i).getValue().replace(",", "_");
-					yearIndex++;
-				}
-			}
 			
-			matrix.add(datacolumn);
+			// Data values start in the row of the series' first year
+			int firstRow = s.range.getStart().diff(fileYearRange.getStart())+1;
+			emitter.addColumn(new MatrixRowEmitter.ValuesColumn(header.replace(",", "_"), s.values.getValues(), firstRow));
 		}
 		
-		
-		return matrix;
+		return emitter;
 	}
 
 	
@@ -0,0 +1,254 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.formats.csvmatrix;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.tridas.io.util.SafeIntYear;
+import org.tridas.schema.TridasValue;
+
+/**
+ * Assembles the comma separated rows of a matrix file from its columns, one row
+ * at a time. Columns are asked for their cells as each row is built, so the
+ * matrix never has to be held as a list of column arrays, and each row is built
+ * in a single reused StringBuilder.
+ * 
+ * @author agent
+ */
+public class MatrixRowEmitter {
+	
+	public static final String LINE_SEPARATOR = System.getProperty("line.separator");
+	
+	/**
+	 * A column of the matrix. Row 0 is the header.
+	 */
+	public interface Column {
+		
+		/**
+		 * @param argRow
+		 * @return the cell in this row, or null if it is empty
+		 */
+		public String getCell(int argRow);
+	}
+	
+	private final ArrayList<Column> columns = new ArrayList<Column>();
+	private final StringBuilder line = new StringBuilder();
+	
+	public void addColumn(Column argColumn) {
+		columns.add(argColumn);
+	}
+	
+	/**
+	 * Adds columns that are already held as arrays
+	 * 
+	 * @param argColumns
+	 */
+	public void addColumns(List<String[]> argColumns) {
+		for (String[] column : argColumns) {
+			columns.add(new ArrayColumn(column));
+		}
+	}
+	
+	public int getColumnCount() {
+		return columns.size();
+	}
+	
+	/**
+	 * Writes rows from argFirstRow up to but not including argEndRow, each
+	 * followed by the platform line separator. The writer is not flushed.
+	 * 
+	 * @param argWriter
+	 * @param argFirstRow
+	 * @param argEndRow
+	 * @throws IOException
+	 */
+	public void writeRows(Writer argWriter, int argFirstRow, int argEndRow) throws IOException {
+		writeRows(argWriter, argFirstRow, argEndRow, LINE_SEPARATOR);
+	}
+	
+	/**
+	 * Writes rows from argFirstRow up to but not including argEndRow, each
+	 * followed by argLineSeparator. The writer is not flushed.
+	 * 
+	 * @param argWriter
+	 * @param argFirstRow
+	 * @param argEndRow
+	 * @param argLineSeparator
+	 * @throws IOException
+	 */
+	public void writeRows(Writer argWriter, int argFirstRow, int argEndRow, String argLineSeparator)
+			throws IOException {
+		for (int row = argFirstRow; row < argEndRow; row++) {
+			buildLine(row);
+			line.append(argLineSeparator);
+			argWriter.append(line);
+		}
+	}
+	
+	/**
+	 * @param argFirstRow
+	 * @param argEndRow
+	 * @return rows from argFirstRow up to but not including argEndRow, without
+	 *         line separators
+	 */
+	public String[] getLines(int argFirstRow, int argEndRow) {
+		String[] lines = new String[Math.max(0, argEndRow - argFirstRow)];
+		for (int i = 0; i < lines.length; i++) {
+			lines[i] = buildLine(argFirstRow + i).toString();
+		}
+		return lines;
+	}
+	
+	/**
+	 * Copies the columns into arrays, for formats that need the whole matrix
+	 * 
+	 * @param argRowCount
+	 * @return list of columns, each argRowCount long
+	 */
+	public ArrayList<String[]> toMatrix(int argRowCount) {
+		ArrayList<String[]> matrix = new ArrayList<String[]>(columns.size());
+		for (Column column : columns) {
+			String[] cells = new String[argRowCount];
+			for (int row = 0; row < argRowCount; row++) {
+				cells[row] = column.getCell(row);
+			}
+			matrix.add(cells);
+		}
+		return matrix;
+	}
+	
+	private StringBuilder buildLine(int argRow) {
+		line.setLength(0);
+		for (int col = 0; col < columns.size(); col++) {
+			if (col > 0) {
+				line.append(',');
+			}
+			String cell = columns.get(col).getCell(argRow);
+			if (cell != null) {
+				line.append(cell);
+			}
+		}
+		return line;
+	}
+	
+	/**
+	 * Column held as an array
+	 */
+	public static class ArrayColumn implements Column {
+		private final String[] cells;
+		
+		public ArrayColumn(String[] argCells) {
+			cells = argCells;
+		}
+		
+		@Override
+		public String getCell(int argRow) {
+			return argRow < cells.length ? cells[argRow] : null;
+		}
+	}
+	
+	/**
+	 * Column of consecutive years, under a header
+	 */
+	public static class YearColumn implements Column {
+		private final String header;
+		private final SafeIntYear firstYear;
+		private final int yearCount;
+		
+		/**
+		 * @param argHeader
+		 * @param argFirstYear
+		 *            year in row 1
+		 * @param argYearCount
+		 *            number of years
+		 */
+		public YearColumn(String argHeader, SafeIntYear argFirstYear, int argYearCount) {
+			header = argHeader;
+			firstYear = argFirstYear;
+			yearCount = argYearCount;
+		}
+		
+		@Override
+		public String getCell(int argRow) {
+			if (argRow == 0) {
+				return header;
+			}
+			if (argRow > yearCount) {
+				return null;
+			}
+			return firstYear.add(argRow - 1).toString();
+		}
+	}
+	
+	/**
+	 * Column with one cell for each value of a series, starting at the row of
+	 * the series' first year. Cells before and after the series are empty.
+	 */
+	public static abstract class SeriesColumn implements Column {
+		private final String header;
+		private final List<TridasValue> values;
+		private final int firstRow;
+		
+		/**
+		 * @param argHeader
+		 * @param argValues
+		 * @param argFirstRow
+		 *            row of the first value
+		 */
+		public SeriesColumn(String argHeader, List<TridasValue> argValues, int argFirstRow) {
+			header = argHeader;
+			values = argValues;
+			firstRow = argFirstRow;
+		}
+		
+		@Override
+		public String getCell(int argRow) {
+			if (argRow == 0) {
+				return header;
+			}
+			int index = argRow - firstRow;
+			if (index < 0 || index >= values.size()) {
+				return null;
+			}
+			return getValueCell(values.get(index));
+		}
+		
+		/**
+		 * @param argValue
+		 * @return the cell for this value
+		 */
+		protected abstract String getValueCell(TridasValue argValue);
+	}
+	
+	/**
+	 * Column of the values of a series, with commas replaced so they don't
+	 * break the row
+	 */
+	public static class ValuesColumn extends SeriesColumn {
+		
+		public ValuesColumn(String argHeader, List<TridasValue> argValues, int argFirstRow) {
+			super(argHeader, argValues, argFirstRow);
+		}
+		
+		@Override
+		protected String getValueCell(TridasValue argValue) {
+			return argValue.getValue().replace(",", "_");
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package org.tridas.io.formats.csvmatrixremarks;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -12,11 +14,13 @@ import org.tridas.io.IDendroFile;
 import org.tridas.io.defaults.IMetadataFieldSet;
 import org.tridas.io.defaults.values.DateTimeDefaultValue;
 import org.tridas.io.defaults.values.StringDefaultValue;
+import org.tridas.io.formats.csvmatrix.MatrixRowEmitter;
 import org.tridas.io.formats.csvmatrix.TridasToMatrixDefaults;
 import org.tridas.io.formats.csvmatrix.TridasToMatrixDefaults.DefaultFields;
 import org.tridas.io.util.SafeIntYear;
 import org.tridas.io.util.YearRange;
 import org.tridas.schema.TridasRemark;
+import org.tridas.schema.TridasValue;
 import org.tridas.schema.TridasValues;
 
 public class CSVMatrixRemarksFile implements IDendroFile {
@@ -39,29 +43,19 @@ public class CSVMatrixRemarksFile implements IDendroFile {
 	@Override
 	public String[] saveToString() {
 		
-		String[] lines = new String[(fileYearRange.span())+1];
-		
-		ArrayList<String[]> matrix = getMatrix();
-		
-		for(int i=0; i< lines.length; i++)
-		{
-			String line = "";
-			for(String[] column : matrix)
-			{
-				if(column[i]==null)
-				{
-					line += ",";
-				}
-				else
-				{
-					line += column[i]+",";
-				}
-			}
-			lines[i] = line.substring(0, line.length()-1);
-		}
-		
-		
-		return lines;
+		return getRowEmitter().getLines(0, fileYearRange.span()+1);
+	}
+	
+	/**
+	 * Writes the matrix out a row at a time, without building the whole file in
+	 * memory first.
+	 * 
+	 * @see org.tridas.io.IDendroFile#writeTo(java.io.Writer)
+	 */
+	@Override
+	public void writeTo(Writer argWriter) throws IOException {
+		getRowEmitter().writeRows(argWriter, 0, fileYearRange.span()+1);
+		argWriter.flush();
 	}
 
 	@Override
@@ -374,26 +368,27 @@ public class CSVMatrixRemarksFile implements IDendroFile {
 	
 	public ArrayList<String[]> getMatrix()
 	{
-		ArrayList<String[]> matrix = new ArrayList<String[]>();
+		return getRowEmitter().toMatrix(fileYearRange.span()+1);
+	}
+	
+	/**
+	 * The year column followed by a values column and a remarks column for each
+	 * series.  Cells are looked up as each row is asked for rather than copied
+	 * into a matrix.
+	 * 
+	 * @return
+	 */
+	protected MatrixRowEmitter getRowEmitter()
+	{
+		MatrixRowEmitter emitter = new MatrixRowEmitter();
 		
 		// First column - year headers
-		String[] yearcolumn = new String[fileYearRange.span()+1];
-		yearcolumn[0] = "Years ";
+		String yearheader = "Years ";
 		if(defaults.getStringDefaultValue(DefaultFields.DATING_TYPE).getValue()!=null)
 		{
-			yearcolumn[0] = yearcolumn[0] + "("+defaults.getStringDefaultValue(DefaultFields.DATING_TYPE).getValue()+")";
+			yearheader = yearheader + "("+defaults.getStringDefaultValue(DefaultFields.DATING_TYPE).getValue()+")";
 		}
-		int ind = 1;
-		
-		SafeIntYear start = fileYearRange.getStart();
-		SafeIntYear end = fileYearRange.getEnd();
-		
-		for(SafeIntYear currYear =start; currYear.compareTo(end)<=0; currYear = currYear.add(1))
-		{
-			yearcolumn[ind] = currYear.toString();
-			ind++;
-		}
-		matrix.add(yearcolumn);
+		emitter.addColumn(new MatrixRowEmitter.YearColumn(yearheader, fileYearRange.getStart(), fileYearRange.span()));
 		
 		// Create a HashSet of variables so we can see if they need to be included in column headers
 		HashSet<String> variables = new HashSet<String>();
@@ -405,12 +400,9 @@ public class CSVMatrixRemarksFile implements IDendroFile {
 			}
 		}
 		
-		// Now the data columns
-		String[] datacolumn = new String[fileYearRange.span()+1];
+		// Now the data and remarks columns
 		for(MatrixSeries s : seriesList)
 		{
-			datacolumn = new String[fileYearRange.span()+1];
-			
 			// Header
 			String header = s.def.getStringDefaultValue(DefaultFields.SERIES_TITLE).getStringValue();
 			
@@ -419,83 +411,49 @@ public class CSVMatrixRemarksFile implements IDendroFile {
 			{
 				header+=" ("+s.def.getStringDefaultValue(DefaultFields.VARIABLE).getValue()+")";
 			}
-			datacolumn[0] = header.replace(",", "_");
 			
+			// Values start in the row of the series' first year
+			int firstRow = s.range.getStart().diff(fileYearRange.getStart())+1;
+			emitter.addColumn(new MatrixRowEmitter.ValuesColumn(header.replace(",", "_"), s.values.getValues(), firstRow));
+			emitter.addColumn(new RemarksColumn(header.replace(",", "_")+" remarks", s.values.getValues(), firstRow));
+		}
+		
+		return emitter;
+	}
+	
+	/**
+	 * Quoted list of the remarks on each value
+	 */
+	private static class RemarksColumn extends MatrixRowEmitter.SeriesColumn
+	{
+		public RemarksColumn(String header, List<TridasValue> values, int firstRow)
+		{
+			super(header, values, firstRow);
+		}
+		
+		@Override
+		protected String getValueCell(TridasValue value)
+		{
+			ArrayList<String> remarks = new ArrayList<String>();
 			
-			// Data values
-			if(s.values.getValues().size()>0)
-			{	
-				int yearIndex = fileYearRange.getStart().diff(s.range.getStart())+1;
-				if(yearIndex<0) yearIndex = 0- yearIndex+2;
-							
-				for(int i=0; i<s.values.getValues().size(); i++)
+			for(TridasRemark r : value.getRemarks())
+			{
+				if(r.isSetNormalTridas())
 				{
-					datacolumn[yearIndex] = s.values.getValues().get(i).getValue().replace(",", "_");
-					yearIndex++;
+					remarks.add(r.getNormalTridas().value());
 				}
-			}
-			
-			matrix.add(datacolumn);
-			
-			// Header for remarks
-			datacolumn = new String[fileYearRange.span()+1];
-			header = s.def.getStringDefaultValue(DefaultFields.SERIES_TITLE).getStringValue();
-			
-			// Add variable type to column heading if there are different variables in file
-			if(variables.size()>1 && s.def.getStringDefaultValue(DefaultFields.VARIABLE).getValue()!=null && s.def.getStringDefaultValue(DefaultFields.VARIABLE).getValue().length()>0)
-			{
-				header+=" ("+s.def.getStringDefaultValue(DefaultFields.VARIABLE).getValue()+")";
-			}
-			datacolumn[0] = header.replace(",", "_")+" remarks";
-			
-			
-			// Remarks values
-			if(s.values.getValues().size()>0)
-			{	
-				int yearIndex = fileYearRange.getStart().diff(s.range.getStart())+1;
-				if(yearIndex<0) yearIndex = 0- yearIndex+2;
-							
-				for(int i=0; i<s.values.getValues().size(); i++)
+				else if (r.isSetNormalStd())
 				{
-					ArrayList<String> remarks = new ArrayList<String>();
-					
-					for(int j=0; j<s.values.getValues().get(i).getRemarks().size(); j++)
-					{
-						TridasRemark r = s.values.getValues().get(i).getRemarks().get(j);
-						
-						if(r.isSetNormalTridas())
-						{
-							remarks.add(r.getNormalTridas().value());
-						}
-						else if (r.isSetNormalStd())
-						{
-							remarks.add(r.getNormalStd());
-						}
-						else if (r.isSetValue())
-						{
-							remarks.add(r.getValue());
-						}
-					}
-					
-					if(remarks.size()>0)
-					{
-						datacolumn[yearIndex] = "\""+String.join("; ",remarks)+"\"";
-					}
-					else
-					{
-						datacolumn[yearIndex] = "\"\"";
-					}
-					yearIndex++;
+					remarks.add(r.getNormalStd());
+				}
+				else if (r.isSetValue())
+				{
+					remarks.add(r.getValue());
 				}
 			}
-			matrix.add(datacolumn);
-			
-			
 			
+			return "\""+String.join("; ",remarks)+"\"";
 		}
-		
-		
-		return matrix;
 	}
 
 	
@@ -15,11 +15,14 @@
  */
 package org.tridas.io.formats.csvmetadatamatrix;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tridas.io.formats.csvmatrix.CSVMatrixFile;
+import org.tridas.io.formats.csvmatrix.MatrixRowEmitter;
 
 public class CSVMetadataFile extends CSVMatrixFile {
 	
@@ -38,35 +41,13 @@ public class CSVMetadataFile extends CSVMatrixFile {
 	}
 		
 	@Override
-	public String[] saveToString() {
+	public void writeTo(Writer argWriter) throws IOException {
 			
-		
-			
-			ArrayList<String[]> matrix = getMetadataMatrix();
-			
-			String[] lines = new String[matrix.get(0).length];
-			
-			
-			for(int i=0; i< lines.length; i++)
-			{
-				String line = "";
-				for(String[] column : matrix)
-				{
-					if(column[i]==null)
-					{
-						line += ",";
-					}
-					else
-					{
-						line += column[i]+",";
-					}
-				}
-				lines[i] = line.substring(0, line.length()-1);
-			}
-			
-			
-			return lines;
-		
+		ArrayList<String[]> matrix = getMetadataMatrix();
+		MatrixRowEmitter emitter = new MatrixRowEmitter();
+		emitter.addColumns(matrix);
+		emitter.writeRows(argWriter, 0, matrix.get(0).length);
+		argWriter.flush();
 	}
 	
 }
@@ -28,6 +28,8 @@ import org.tridas.io.exceptions.ConversionWarning.WarningType;
 import org.tridas.io.exceptions.InvalidDendroFileException;
 import org.tridas.io.formats.dendrodb.DendroDBToTridasDefaults.DDBDefaultFields;
 import org.tridas.io.formats.dendrodb.DendroDBToTridasDefaults.DendroDBParameter;
+import org.tridas.io.util.ColumnarTridasValues;
+import org.tridas.io.util.IntArrayBuffer;
 import org.tridas.io.util.SafeIntYear;
 import org.tridas.schema.TridasElement;
 import org.tridas.schema.TridasMeasurementSeries;
@@ -36,8 +38,6 @@ import org.tridas.schema.TridasProject;
 import org.tridas.schema.TridasRadius;
 import org.tridas.schema.TridasSample;
 import org.tridas.schema.TridasTridas;
-import org.tridas.schema.TridasValue;
-import org.tridas.schema.TridasValues;
 
 public class DendroDBReader extends AbstractDendroFileReader {
 
@@ -241,14 +241,8 @@ public class DendroDBReader extends AbstractDendroFileReader {
 			TridasRadius r = series.defaults.getDefaultTridasRadius();
 			TridasMeasurementSeries ms = series.defaults.getDefaultTridasMeasurementSeries();
 			
-			TridasValues valuesGroup = series.defaults.getDefaultTridasValues();
-			
-			for (Integer val : series.dataVals)
-			{
-				TridasValue value = new TridasValue();
-				value.setValue(val.toString());
-				valuesGroup.getValues().add(value);
-			}
+			ColumnarTridasValues valuesGroup = new ColumnarTridasValues(series.defaults.getDefaultTridasValues());
+			valuesGroup.setIntColumn(series.dataVals.toArray());
 			
 			ms.getValues().add(valuesGroup);			
 			r.getMeasurementSeries().add(ms);
@@ -272,7 +266,7 @@ public class DendroDBReader extends AbstractDendroFileReader {
 
 	private static class DendroDBSeries {
 		public DendroDBToTridasDefaults defaults;
-		public final ArrayList<Integer> dataVals = new ArrayList<Integer>();
+		public final IntArrayBuffer dataVals = new IntArrayBuffer();
 	}
 	
 }
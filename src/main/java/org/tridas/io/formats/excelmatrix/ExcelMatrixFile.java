@@ -114,6 +114,20 @@ public class ExcelMatrixFile implements IDendroFile {
 		
 	}
 	
+	/**
+	 * Binary format, so the spreadsheet is written with {@link #saveToDisk(OutputStream)}
+	 * 
+	 * @see org.tridas.io.IDendroFile#writeTo(java.io.OutputStream, java.lang.String)
+	 */
+	@Override
+	public void writeTo(OutputStream argOutput, String argCharset) throws IOException {
+		try {
+			saveToDisk(argOutput);
+		} catch (WriteException e) {
+			throw new IOException(e);
+		}
+	}
+	
 	/**
 	 * An alternative to the normal saveToString() as this is a binary format
 	 * 
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.formats.excelmatrix;
+
+import org.tridas.io.detection.FileSample;
+import org.tridas.io.detection.FormatProbe;
+
+/**
+ * Excel 97-2003 workbooks are OLE compound documents. Other Office documents
+ * are too, so this is only a guess.
+ *
+ * @author agent
+ */
+public class ExcelMatrixProbe implements FormatProbe {
+
+	@Override
+	public float probe(FileSample argSample) {
+		return argSample.startsWith(0xd0, 0xcf, 0x11, 0xe0, 0xa1, 0xb1, 0x1a, 0xe1) ? 0.6f : 0f;
+	}
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.formats.fhx2;
+
+import org.tridas.io.detection.FileSample;
+import org.tridas.io.detection.FormatProbe;
+
+/**
+ * FHX2 data starts after a <code>FHX2 FORMAT</code> (or
+ * <code>FIRE2 FORMAT</code>) line, which usually comes after a short header.
+ *
+ * @author agent
+ */
+public class FHX2Probe implements FormatProbe {
+
+	@Override
+	public float probe(FileSample argSample) {
+		for (String line : argSample.getLines()) {
+			String trimmed = line.trim();
+			if (trimmed.equalsIgnoreCase("FHX2 FORMAT") || trimmed.equalsIgnoreCase("FIRE2 FORMAT")) {
+				return 0.95f;
+			}
+		}
+		return 0f;
+	}
+}
@@ -15,6 +15,10 @@
  */
 package org.tridas.io.formats.heidelberg;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 
 import org.slf4j.Logger;
@@ -29,6 +33,7 @@ import org.tridas.io.exceptions.ConversionWarning;
 import org.tridas.io.exceptions.ConversionWarning.WarningType;
 import org.tridas.io.formats.heidelberg.HeidelbergToTridasDefaults.DefaultFields;
 import org.tridas.io.formats.heidelberg.HeidelbergToTridasDefaults.FHDataFormat;
+import org.tridas.io.util.IOUtils;
 import org.tridas.io.util.StringUtils;
 import org.tridas.schema.TridasDerivedSeries;
 import org.tridas.schema.TridasValue;
@@ -85,12 +90,31 @@ public class HeidelbergFile implements IDendroFile {
 	@Override
 	public String[] saveToString() {
 		
-		ArrayList<String> file = new ArrayList<String>();
+		StringWriter string = new StringWriter();
+		try {
+			writeTo(string);
+		} catch (IOException e) {
+			// not gonna happen with a StringWriter
+			log.error("Error writing Heidelberg file", e);
+		}
+		return IOUtils.splitLines(string.toString());
+	}
+	
+	/**
+	 * Writes the file line by line, without building the whole file in memory
+	 * first.
+	 * 
+	 * @see org.tridas.io.IDendroFile#writeTo(java.io.Writer)
+	 */
+	@Override
+	public void writeTo(Writer argWriter) throws IOException {
+		
+		BufferedWriter file = new BufferedWriter(argWriter);
 		
 		for (HeidelbergSeries ser : seriesList)
 		{
 
-			file.add("HEADER:");
+			writeLine(file, "HEADER:");
 			
 			addIfNotNull(ser.defaults, "Bark", DefaultFields.BARK, file);
 			addIfNotNull(ser.defaults, "CoreNo", DefaultFields.CORE_NUMBER, file, I18n.getText("unnamed.element"));
@@ -148,10 +172,10 @@ public class HeidelbergFile implements IDendroFile {
 			
 					
 			if (ser.chrono) {
-				file.add("DATA:HalfChrono");
+				writeLine(file, "DATA:HalfChrono");
 			}
 			else {
-				file.add("DATA:Tree");
+				writeLine(file, "DATA:Tree");
 			}
 			
 			int j = 0;
@@ -167,20 +191,19 @@ public class HeidelbergFile implements IDendroFile {
 					}
 					j++;
 				}
-				file.add(line.toString());
+				writeLine(file, line.toString());
 			}
 		}
 			
-			
-		return file.toArray(new String[0]);
+		file.flush();
 	}
 	
-	private void addIfNotNull(TridasToHeidelbergDefaults defaults, String argKeyString, DefaultFields argEnum, ArrayList<String> argList) 
+	private void addIfNotNull(TridasToHeidelbergDefaults defaults, String argKeyString, DefaultFields argEnum, BufferedWriter argList) throws IOException
 	{
 			addIfNotNull(defaults, argKeyString, argEnum, argList, null);
 	}
 	
-	private void addIfNotNull(TridasToHeidelbergDefaults defaults, String argKeyString, DefaultFields argEnum, ArrayList<String> argList, String defaultValue) {
+	private void addIfNotNull(TridasToHeidelbergDefaults defaults, String argKeyString, DefaultFields argEnum, BufferedWriter argList, String defaultValue) throws IOException {
 		if (defaults.getDefaultValue(argEnum).getStringValue().equals("")) {
 			return;
 		}
@@ -188,7 +211,12 @@ public class HeidelbergFile implements IDendroFile {
 		{
 			return;
 		}
-		argList.add(argKeyString + "=" + defaults.getDefaultValue(argEnum).getStringValue().replaceAll("\\n", "; "));
+		writeLine(argList, argKeyString + "=" + defaults.getDefaultValue(argEnum).getStringValue().replaceAll("\\n", "; "));
+	}
+	
+	private static void writeLine(BufferedWriter argWriter, String argLine) throws IOException {
+		argWriter.write(argLine);
+		argWriter.newLine();
 	}
 	
 	/**
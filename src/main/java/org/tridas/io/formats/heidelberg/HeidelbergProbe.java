@@ -0,0 +1,43 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.formats.heidelberg;
+
+import org.tridas.io.detection.FileSample;
+import org.tridas.io.detection.FormatProbe;
+
+/**
+ * Heidelberg files start with a <code>HEADER:</code> block, which is followed
+ * by a <code>DATA:</code> block.
+ *
+ * @author agent
+ */
+public class HeidelbergProbe implements FormatProbe {
+
+	@Override
+	public float probe(FileSample argSample) {
+		String first = argSample.getFirstLine();
+		if (first == null || !first.trim().toUpperCase().startsWith("HEADER")) {
+			return 0f;
+		}
+		for (String line : argSample.getLines()) {
+			if (line.toUpperCase().startsWith("DATA:")) {
+				return 0.95f;
+			}
+		}
+		// the data may just be past the end of the sample
+		return 0.7f;
+	}
+}
@@ -16,6 +16,7 @@
 package org.tridas.io.formats.heidelberg;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -44,10 +45,12 @@ import org.tridas.io.formats.heidelberg.HeidelbergToTridasDefaults.FHPith;
 import org.tridas.io.formats.heidelberg.HeidelbergToTridasDefaults.FHSeriesType;
 import org.tridas.io.formats.heidelberg.HeidelbergToTridasDefaults.FHStartsOrEndsWith;
 import org.tridas.io.formats.heidelberg.HeidelbergToTridasDefaults.FHWaldKante;
+import org.tridas.io.util.ColumnarTridasValues;
 import org.tridas.io.util.DateUtils;
 import org.tridas.io.util.ITRDBTaxonConverter;
+import org.tridas.io.util.IntArrayBuffer;
+import org.tridas.io.util.LineSource;
 import org.tridas.io.util.SafeIntYear;
-import org.tridas.io.util.TridasUtils;
 import org.tridas.io.util.UnitUtils;
 import org.tridas.schema.ControlledVoc;
 import org.tridas.schema.DateTime;
@@ -94,11 +97,34 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 	@Override
 	protected void parseFile(String[] argFileString, IMetadataFieldSet argDefaultFields)
 			throws InvalidDendroFileException {
-		log.debug("Parsing: " + argFileString);
+		try {
+			parseFile(LineSource.fromStrings(argFileString), argDefaultFields);
+		} catch (IOException e) {
+			// Can't happen with an in-memory source
+			throw new InvalidDendroFileException(I18n.getText("fileio.loadfailed"));
+		}
+	}
+	
+	@Override
+	protected boolean supportsLineSource() {
+		return true;
+	}
+	
+	/**
+	 * Parses the file one HEADER/DATA block at a time, so only the lines for the
+	 * current series are held in memory.
+	 * 
+	 * @see org.tridas.io.AbstractDendroFileReader#parseFile(LineSource, IMetadataFieldSet)
+	 */
+	@Override
+	protected void parseFile(LineSource argSource, IMetadataFieldSet argDefaultFields)
+			throws InvalidDendroFileException, IOException {
+		log.debug("Parsing Heidelberg file");
 		defaults = (HeidelbergToTridasDefaults) argDefaultFields;
 		
 		// first lets see if we look like a heidelberg file
-		checkFile(argFileString);
+		checkFile(argSource);
+		argSource.rewind();
 		
 		if(this.getOriginalFilename()!=null)
 		{
@@ -106,29 +132,29 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 			defaults.getStringDefaultValue(TridasExtraField.ORIGINAL_FILENAME).setValue(FileHelper.getFilename(file));
 		}
 		
-		int fileLength = argFileString.length;
-		int lineNum = 0;
 		HeidelbergSeries currSeries = null;
 		String commentsCache = "";
+		String line;
 		
-		while (lineNum < fileLength) {
-			currentLineNum = lineNum; // update line num
-			String line = argFileString[lineNum];
+		// Lines are peeked so that the line which ends a block is left for the next
+		// pass round the loop.  The line number is therefore the index of the peeked line
+		while ((line = argSource.peekLine()) != null) {
+			currentLineNum = argSource.getLineNumber(); // update line num
 			
 			if (line.startsWith("HEADER:")) {
-				lineNum++;// get off header line
-				currentLineNum = lineNum; // update line num
-				line = argFileString[lineNum];
+				argSource.nextLine();// get off header line
+				currentLineNum = argSource.getLineNumber(); // update line num
+				line = argSource.peekLine();
 				
 				ArrayList<String> header = new ArrayList<String>();
 				FHStartsOrEndsWith seriesstarts = null;
-				while (!line.toUpperCase().startsWith("DATA:")) {
+				while (line != null && !line.toUpperCase().startsWith("DATA:")) {
 					
-					header.add(line);
-					currentLineNum = ++lineNum; // update line num
-					line = argFileString[lineNum];
+					header.add(argSource.nextLine());
+					currentLineNum = argSource.getLineNumber(); // update line num
+					line = argSource.peekLine();
 					
-					if(line.toLowerCase().startsWith("seriesstart"))
+					if(line!=null && line.toLowerCase().startsWith("seriesstart"))
 					{
 						String[] split = line.split("=");
 						if (split.length == 2) {
@@ -154,23 +180,21 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 							+"] is not recognised");
 				}
 				
-				lineNum++;
-				line = argFileString[lineNum];
-				currentLineNum = lineNum; // update line num
+				argSource.nextLine();
+				currentLineNum = argSource.getLineNumber(); // update line num
 				
 				ArrayList<String> data = new ArrayList<String>();
-				while (lineNum < fileLength) {
-					line = argFileString[lineNum];
+				while ((line = argSource.peekLine()) != null) {
 					if (line.startsWith("HEADER")) {
 						break;
 					}
+					argSource.nextLine();
+					currentLineNum = argSource.getLineNumber(); // update line num
 					if (line.trim().equals(""))
 					{
-						currentLineNum = ++lineNum;
 						continue;
 					}
 					data.add(line);
-					currentLineNum = ++lineNum; // update line num
 				}
 				if (currSeries == null) {
 					currSeries = new HeidelbergSeries();
@@ -190,7 +214,7 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 			}
 			else {
 				log.error("Found unknown line.  Treating as comment");
-				lineNum++;
+				argSource.nextLine();
 				
 				// Cache the line to add to the next series as comments
 				if(commentsCache==null)
@@ -275,15 +299,16 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 	
 	// check file to see if it generally looks like a Heidelberg file
 	// this should catch any errors for reading the file, so we don't have to check later
-	private void checkFile(String[] argStrings) throws InvalidDendroFileException {
+	private void checkFile(LineSource argSource) throws InvalidDendroFileException, IOException {
 		log.debug("Checking file to see if it looks like a Heidelberg file");
 		
 		boolean inHeader = false;
 		boolean foundHeaderOrDataYet = false;
 		
-		for (int i = 0; i < argStrings.length; i++) {
+		String s;
+		while ((s = argSource.nextLine()) != null) {
+			int i = argSource.getLineNumber() - 1;
 			currentLineNum = i; // update line number
-			String s = argStrings[i];
 			if (s.startsWith("HEADER")) {
 				inHeader = true;
 				foundHeaderOrDataYet = true;
@@ -394,9 +419,9 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 		// we treat them as value and counts of the same series
 		FHDataType dataType = argSeries.dataType;
 		
-		ArrayList<TridasValue> ints = new ArrayList<TridasValue>();   // Whole ring widths
-		ArrayList<TridasValue> ints2 = new ArrayList<TridasValue>();  // Early wood
-		ArrayList<TridasValue> ints3 = new ArrayList<TridasValue>();  // Late wood
+		HeidelbergValues ints = new HeidelbergValues();   // Whole ring widths
+		HeidelbergValues ints2 = new HeidelbergValues();  // Early wood
+		HeidelbergValues ints3 = new HeidelbergValues();  // Late wood
 		
 		switch (argSeries.dataFormat) {
 			case Chrono :
@@ -411,17 +436,15 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 						// spread over four lines.
 						Integer intval = null;
 						String[] parts = line.split(";");
-						TridasValue val = new TridasValue();
 						
 						// Extract remarks
-						ArrayList<TridasRemark> remarks = (ArrayList<TridasRemark>) val.getRemarks();
+						ArrayList<TridasRemark> remarks = new ArrayList<TridasRemark>();
 						
 						if(parts.length==0)	continue;
 						
 						if(parts.length>=1)
 						{
 							intval = Integer.parseInt(parts[0].trim());
-							val.setValue(intval.toString());
 						}
 						
 						if(parts.length>=2)
@@ -446,8 +469,7 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 						
 						// Add count value
 						Integer countval = Integer.parseInt(argData[i+1].trim());
-						val.setCount(countval);
-						ints.add(val);
+						ints.add(intval, countval, remarks);
 						
 						// Skip over other values 
 						i=i+3;
@@ -465,10 +487,7 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 							//Integer thirdval = Integer.parseInt(s[j+2].trim());
 							//Integer fourthval = Integer.parseInt(s[j+3].trim());
 							
-							TridasValue val = new TridasValue();
-							val.setValue(firstval.toString());
-							val.setCount(secondval);
-							ints.add(val);
+							ints.add(firstval, secondval, null);
 						}
 					}
 				}
@@ -487,17 +506,15 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 						// spread over two lines.
 						Integer intval = null;
 						String[] parts = line.split(";");
-						TridasValue val = new TridasValue();
 						
 						// Extract remarks
-						ArrayList<TridasRemark> remarks = (ArrayList<TridasRemark>) val.getRemarks();
+						ArrayList<TridasRemark> remarks = new ArrayList<TridasRemark>();
 						
 						if(parts.length==0)	continue;
 						
 						if(parts.length>=1)
 						{
 							intval = Integer.parseInt(parts[0].trim());
-							val.setValue(intval.toString());
 						}
 						
 						if(parts.length>=2)
@@ -535,12 +552,12 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 							// Add value to correct series then switch format flag ready for next value
 							if(argSeries.nextValueIs.equals(FHStartsOrEndsWith.EARLYWOOD))
 							{
-								ints2.add(val);
+								ints2.add(intval, null, remarks);
 								argSeries.nextValueIs = FHStartsOrEndsWith.LATEWOOD;
 							}
 							else if(argSeries.nextValueIs.equals(FHStartsOrEndsWith.LATEWOOD))
 							{
-								ints3.add(val);
+								ints3.add(intval, null, remarks);
 								argSeries.nextValueIs = FHStartsOrEndsWith.EARLYWOOD;
 							}
 
@@ -549,8 +566,7 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 						{
 							// Handle second value here and treat as count 
 							Integer countval = Integer.parseInt(argData[i+1].trim());
-							val.setCount(countval);
-							ints.add(val);
+							ints.add(intval, countval, remarks);
 							
 							// Jump line pointer forward
 							i++;
@@ -564,13 +580,6 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 							Integer firstval = Integer.parseInt(s[j].trim());
 							Integer secondval = Integer.parseInt(s[j+1].trim());
 							
-							TridasValue val1 = new TridasValue();
-							val1.setValue(firstval.toString());
-							
-							
-							TridasValue val2 = new TridasValue();
-							val2.setValue(secondval.toString());
-							
 							
 							if(argSeries.nextValueIs == null || argSeries.nextValueIs.equals(FHStartsOrEndsWith.RING_WIDTH))
 							{
@@ -587,13 +596,13 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 							
 							if(argSeries.nextValueIs.equals(FHStartsOrEndsWith.EARLYWOOD))
 							{
-								ints2.add(val1);  // First value goes into ints2 (earlywood)
-								ints3.add(val2); // Second value goes into ints3 (latewood)
+								ints2.add(firstval, null, null);  // First value goes into ints2 (earlywood)
+								ints3.add(secondval, null, null); // Second value goes into ints3 (latewood)
 							}
 							else if(argSeries.nextValueIs.equals(FHStartsOrEndsWith.LATEWOOD))
 							{
-								ints2.add(val2); // Second value goes into ints2 (earlywood)
-								ints3.add(val1);// First value goes into ints3 (latewood)
+								ints2.add(secondval, null, null); // Second value goes into ints2 (earlywood)
+								ints3.add(firstval, null, null);// First value goes into ints3 (latewood)
 								
 							}
 
@@ -615,15 +624,13 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 							// Single line and contains comments and or flags
 							Integer intval = null;
 							String[] parts = line.split(";");
-							TridasValue val = new TridasValue();
-							ArrayList<TridasRemark> remarks = (ArrayList<TridasRemark>) val.getRemarks();
+							ArrayList<TridasRemark> remarks = new ArrayList<TridasRemark>();
 							
 							if(parts.length==0)	continue;
 							
 							if(parts.length>=1)
 							{
 								intval = Integer.parseInt(parts[0].trim());
-								val.setValue(intval.toString());
 							}
 							
 							if(parts.length>=2)
@@ -646,7 +653,7 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 								
 							}
 							
-							ints.add(val);
+							ints.add(intval, null, remarks);
 						}
 						else 
 						{
@@ -655,10 +662,8 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 							//String[] s = StringUtils.chopString(line, DATA_CHARS_PER_NUMBER_REG);
 							String[] s = line.trim().split("[\\s]+");
 							for (int j = 0; j < s.length; j++) {
-								TridasValue val = new TridasValue();
 								Integer intval = Integer.parseInt(s[j].trim());
-								val.setValue(intval.toString());
-								ints.add(val);
+								ints.add(intval, null, null);
 							}
 						}
 					}
@@ -679,10 +684,7 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 			{
 				for(int i=0; i<ints2.size(); i++)
 				{
-					TridasValue val = new TridasValue();
-					Integer intval = Integer.parseInt(ints2.get(i).getValue())+Integer.parseInt(ints3.get(i).getValue());
-					val.setValue(intval.toString());
-					ints.add(val);
+					ints.add(ints2.values.get(i)+ints3.values.get(i), null, null);
 				}
 			}
 			
@@ -1248,13 +1250,11 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 			// Remove trailing zero data values
 			for(int i=s.dataVals.size()-1; i>0; i-- )
 			{
-				TridasValue v = s.dataVals.get(i);
-
 				// If not a zero stop removing!
-				if(!v.getValue().equals("0")) break;
+				if(s.dataVals.values.get(i)!=0) break;
 					
 				// Zero so remove and keep going
-				s.dataVals.remove(i);
+				s.dataVals.removeLast();
 			}
 			
 			
@@ -1280,7 +1280,7 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 			}
 			
 			s.defaults.getIntegerDefaultValue(DefaultFields.RING_COUNT).setValue(dataRingCount);
-			s.defaults.getDoubleDefaultValue(DefaultFields.AV_RING_WIDTH).setValue(TridasUtils.getAverageRingCount(s.dataVals));
+			s.defaults.getDoubleDefaultValue(DefaultFields.AV_RING_WIDTH).setValue(s.dataVals.values.average());
 
 		}
 	}
@@ -1314,11 +1314,9 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 					ms.setId(uuidKey);*/
 					
 					TridasDerivedSeries ds = s.defaults.getDefaultTridasDerivedSeries();
-					ArrayList<TridasValue> tridasValues = s.dataVals;
 					
 					// Add values to nested value(s) tags
-					TridasValues valuesGroup = s.defaults.getTridasValuesWithDefaults();
-					valuesGroup.setValues(tridasValues);
+					TridasValues valuesGroup = s.dataVals.toTridasValues(s.defaults.getTridasValuesWithDefaults());
 					
 					// link series to sample					
 					SeriesLink link = new SeriesLink();					
@@ -1359,12 +1357,11 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 						TridasRadius radius = s.defaults.getDefaultTridasRadius();
 						TridasMeasurementSeries series = s.defaults.getDefaultTridasMeasurementSeries();
 						
-						TridasValues valuesGroup = s.defaults.getTridasValuesWithDefaults();
+						TridasValues valuesGroup = s.dataVals.toTridasValues(s.defaults.getTridasValuesWithDefaults());
 					
 						TridasVariable var = new TridasVariable();
 						var.setNormalTridas(NormalTridasVariable.RING_WIDTH);
 						valuesGroup.setVariable(var);
-						valuesGroup.setValues(s.dataVals);
 						
 						int numDataInts = s.dataVals.size();
 						String slength = s.fileMetadata.get("length");
@@ -1381,12 +1378,11 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 						
 						
 						// Early Wood Widths
-						TridasValues valuesGroup2 = s.defaults.getTridasValuesWithDefaults();
+						TridasValues valuesGroup2 = s.dataValsSecondSeries.toTridasValues(s.defaults.getTridasValuesWithDefaults());
 					
 						TridasVariable var2 = new TridasVariable();
 						var2.setNormalTridas(NormalTridasVariable.EARLYWOOD_WIDTH);
 						valuesGroup2.setVariable(var2);
-						valuesGroup2.setValues(s.dataValsSecondSeries);
 						
 						if (slength != null) {
 							try {
@@ -1401,12 +1397,11 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 						
 						
 						// Late Wood Widths
-						TridasValues valuesGroup3 = s.defaults.getTridasValuesWithDefaults();
+						TridasValues valuesGroup3 = s.dataValsThirdSeries.toTridasValues(s.defaults.getTridasValuesWithDefaults());
 						
 						TridasVariable var3 = new TridasVariable();
 						var3.setNormalTridas(NormalTridasVariable.LATEWOOD_WIDTH);
 						valuesGroup3.setVariable(var3);
-						valuesGroup3.setValues(s.dataValsThirdSeries);
 						
 						numDataInts = s.dataValsThirdSeries.size();
 						if (slength != null) {
@@ -1437,9 +1432,8 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 					TridasRadius radius = s.defaults.getDefaultTridasRadius();
 					TridasMeasurementSeries series = s.defaults.getDefaultTridasMeasurementSeries();
 					
-					TridasValues valuesGroup = s.defaults.getTridasValuesWithDefaults();
+					TridasValues valuesGroup = s.dataVals.toTridasValues(s.defaults.getTridasValuesWithDefaults());
 					
-					valuesGroup.setValues(s.dataVals);
 					
 					int numDataInts = s.dataVals.size();
 					String slength = s.fileMetadata.get("length");
@@ -1522,12 +1516,74 @@ public class HeidelbergReader extends AbstractDendroFileReader {
 		public FHDataType dataType;
 		public HeidelbergToTridasDefaults defaults;
 		public final HashMap<String, String> fileMetadata = new HashMap<String, String>();
-		public final ArrayList<TridasValue> dataVals = new ArrayList<TridasValue>();
-		public final ArrayList<TridasValue> dataValsSecondSeries = new ArrayList<TridasValue>();
-		public final ArrayList<TridasValue> dataValsThirdSeries = new ArrayList<TridasValue>();
+		public final HeidelbergValues dataVals = new HeidelbergValues();
+		public final HeidelbergValues dataValsSecondSeries = new HeidelbergValues();
+		public final HeidelbergValues dataValsThirdSeries = new HeidelbergValues();
 		public FHStartsOrEndsWith nextValueIs = FHStartsOrEndsWith.RING_WIDTH;
 	}
 	
+	/**
+	 * Values of a series as read from the file. Widths and counts are held as
+	 * primitives, and the few values that have flags or comments keep their
+	 * remarks in a map by index. These are handed on as
+	 * {@link ColumnarTridasValues} when the project is built.
+	 * 
+	 * @author peterbrewer
+	 */
+	private static class HeidelbergValues {
+		public final IntArrayBuffer values = new IntArrayBuffer();
+		private final IntArrayBuffer counts = new IntArrayBuffer();
+		private final HashMap<Integer, List<TridasRemark>> remarks = new HashMap<Integer, List<TridasRemark>>();
+		
+		/**
+		 * @param argValue
+		 * @param argCount
+		 *            count for the value or null if there isn't one
+		 * @param argRemarks
+		 *            remarks for the value or null if there aren't any
+		 */
+		public void add(int argValue, Integer argCount, List<TridasRemark> argRemarks) {
+			if (argRemarks != null && argRemarks.size() > 0) {
+				remarks.put(values.size(), argRemarks);
+			}
+			values.add(argValue);
+			counts.add(argCount == null ? ColumnarTridasValues.NO_COUNT : argCount);
+		}
+		
+		public void addAll(HeidelbergValues argOther) {
+			for (Map.Entry<Integer, List<TridasRemark>> entry : argOther.remarks.entrySet()) {
+				remarks.put(values.size() + entry.getKey(), entry.getValue());
+			}
+			values.addAll(argOther.values);
+			counts.addAll(argOther.counts);
+		}
+		
+		public void removeLast() {
+			remarks.remove(values.size() - 1);
+			values.removeLast();
+			counts.removeLast();
+		}
+		
+		public int size() {
+			return values.size();
+		}
+		
+		/**
+		 * @param argTemplate
+		 *            values group holding the variable and units to use
+		 * @return the values, still held as columns
+		 */
+		public ColumnarTridasValues toTridasValues(TridasValues argTemplate) {
+			ColumnarTridasValues columns = new ColumnarTridasValues(argTemplate);
+			columns.setIntColumn(values.toArray());
+			columns.setCountColumn(counts.toArray());
+			for (Map.Entry<Integer, List<TridasRemark>> entry : remarks.entrySet()) {
+				columns.setRemarks(entry.getKey(), entry.getValue());
+			}
+			return columns;
+		}
+	}
+	
 	/**
 	 * @see org.tridas.io.AbstractDendroFileReader#resetReader()
 	 */
@@ -15,12 +15,14 @@
  */
 package org.tridas.io.formats.lipd;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -64,6 +66,20 @@ public class LiPDFile  extends LiPDMetadataFile {
 		
 	}
 
+	/**
+	 * Binary format, so the archive is written with {@link #saveToDisk(OutputStream)}
+	 * 
+	 * @see org.tridas.io.IDendroFile#writeTo(java.io.OutputStream, java.lang.String)
+	 */
+	@Override
+	public void writeTo(OutputStream argOutput, String argCharset) throws IOException {
+		try {
+			saveToDisk(argOutput);
+		} catch (WriteException e) {
+			throw new IOException(e);
+		}
+	}
+	
 	/**
 	 * An alternative to the normal saveToString() as this is a binary format
 	 * 
@@ -95,24 +111,13 @@ public class LiPDFile  extends LiPDMetadataFile {
           in.close();
           
           
-          // Create CSV File
+          // Create CSV File, without the header row
           out.putNextEntry(new ZipEntry("lipd-data.csv"));
-          String[] matrix = flipMatrix();
-          String data = "";
-          
-          // Remove header
-          for (int i=1; i<matrix.length; i++)
-          {
-        	  data += matrix[i] + "\n";
-          }
-          in =  new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));    
-          // Transfer bytes from the file to the ZIP file
-          while ((len = in.read(buf)) > 0) {
-              out.write(buf, 0, len);
-          }
-          // Complete the entry
+          Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+          getRowEmitter().writeRows(csv, 1, fileYearRange.span()+1, "\n");
+          // Flush rather than close so the ZIP stays open
+          csv.flush();
           out.closeEntry();
-          in.close();
           
 
         // Complete the ZIP file
@@ -120,33 +125,6 @@ public class LiPDFile  extends LiPDMetadataFile {
 
 	}
 	
-	private String[] flipMatrix() {
-		
-		String[] lines = new String[fileYearRange.span()+1];
-		
-		ArrayList<String[]> matrix = getMatrix();
-		
-		for(int i=0; i< lines.length; i++)
-		{
-			String line = "";
-			for(String[] column : matrix)
-			{
-				if(column[i]==null)
-				{
-					line += ",";
-				}
-				else
-				{
-					line += column[i]+",";
-				}
-			}
-			lines[i] = line.substring(0, line.length()-1);
-		}
-		
-		
-		return lines;
-	}
-	
 	/**
 	 * @see org.tridas.io.IDendroFile#getExtension()
 	 */
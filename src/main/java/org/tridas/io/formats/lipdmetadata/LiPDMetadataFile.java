@@ -17,6 +17,7 @@ package org.tridas.io.formats.lipdmetadata;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,6 +26,7 @@ import org.json.simple.JSONObject;
 import org.tridas.io.formats.csvmatrix.CSVMatrixFile;
 import org.tridas.io.formats.lipd.TridasToLiPDDefaults;
 import org.tridas.io.formats.lipd.TridasToLiPDDefaults.DefaultFields;
+import org.tridas.io.util.IOUtils;
 import org.tridas.io.util.TridasUtils;
 import org.tridas.schema.TridasValues;
 
@@ -60,6 +62,13 @@ public class LiPDMetadataFile  extends CSVMatrixFile {
 		
 	}
 	
+	@Override
+	public void writeTo(Writer argWriter) throws IOException {
+		
+		IOUtils.writeLines(argWriter, saveToString());
+		argWriter.flush();
+	}
+	
 	@SuppressWarnings("unchecked")
 	protected String getJSONFileString()
 	{
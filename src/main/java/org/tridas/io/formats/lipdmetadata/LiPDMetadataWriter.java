@@ -24,7 +24,6 @@ import org.slf4j.LoggerFactory;
 import org.tridas.io.AbstractDendroCollectionWriter;
 import org.tridas.io.AbstractDendroFormat;
 import org.tridas.io.IDendroFile;
-import org.tridas.io.TridasIO;
 import org.tridas.io.defaults.IMetadataFieldSet;
 import org.tridas.io.defaults.TridasMetadataFieldSet;
 import org.tridas.io.exceptions.ConversionWarningException;
@@ -93,6 +92,7 @@ public class LiPDMetadataWriter extends AbstractDendroCollectionWriter  {
 		if (file == null) {
 			return;
 		}
+		String charset = getContext().getWritingCharset();
 		
 		
 		String fullfilename;
@@ -107,9 +107,9 @@ public class LiPDMetadataWriter extends AbstractDendroCollectionWriter  {
 		}
 		
 		if (absolute) {
-			if (TridasIO.getWritingCharset() != null) {
+			if (charset != null) {
 				try {
-					helper.saveStrings(fullfilename, file, TridasIO.getWritingCharset());
+					helper.saveStrings(fullfilename, file, charset);
 					return;
 				} catch (UnsupportedEncodingException e) {
 					// shouldn't happen, but
@@ -121,10 +121,9 @@ public class LiPDMetadataWriter extends AbstractDendroCollectionWriter  {
 			
 		}
 		else {
-			if (TridasIO.getWritingCharset() != null) {
+			if (charset != null) {
 				try {
-					helper.saveStrings(argOutputFolder + fullfilename, file, TridasIO
-							.getWritingCharset());
+					helper.saveStrings(argOutputFolder + fullfilename, file, charset);
 					return;
 				} catch (UnsupportedEncodingException e) {
 					log.error("Exception trying to save strings",e);
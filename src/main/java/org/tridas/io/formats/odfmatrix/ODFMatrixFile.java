@@ -17,19 +17,10 @@ package org.tridas.io.formats.odfmatrix;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.ArrayList;
+import java.io.Writer;
+
+import javax.xml.stream.XMLStreamException;
 
-import org.odftoolkit.odfdom.doc.OdfSpreadsheetDocument;
-import org.odftoolkit.odfdom.doc.table.OdfTable;
-import org.odftoolkit.odfdom.doc.table.OdfTableCell;
-import org.odftoolkit.odfdom.doc.table.OdfTableColumn;
-import org.odftoolkit.odfdom.doc.table.OdfTableRow;
-import org.odftoolkit.odfdom.type.Color;
-import org.odftoolkit.simple.SpreadsheetDocument;
-import org.odftoolkit.simple.table.Cell;
-import org.odftoolkit.simple.table.Column;
-import org.odftoolkit.simple.table.Row;
-import org.odftoolkit.simple.table.Table;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tridas.io.I18n;
@@ -58,112 +49,39 @@ public class ODFMatrixFile extends CSVMatrixFile {
 		
 	}
 	
+	@Override
+	public void writeTo(Writer argWriter) throws IOException {
+		
+		throw new UnsupportedOperationException(I18n.getText("fileio.binaryAsStringUnsupported"));
+		
+	}
+	
+	/**
+	 * Binary format, so the spreadsheet is written with {@link #saveToDisk(OutputStream)}
+	 * 
+	 * @see org.tridas.io.IDendroFile#writeTo(java.io.OutputStream, java.lang.String)
+	 */
+	@Override
+	public void writeTo(OutputStream argOutput, String argCharset) throws IOException {
+		saveToDisk(argOutput);
+	}
+	
 	/**
-	 * An alternative to the normal saveToString() as this is a binary format
+	 * An alternative to the normal saveToString() as this is a binary format.
+	 * The spreadsheet is streamed into the output a row at a time by
+	 * {@link ODFSpreadsheetWriter}.
 	 * 
 	 * @param os
 	 * @throws IOException
 	 */
 	public void saveToDisk(OutputStream os) throws IOException {
-		SpreadsheetDocument outputDocument;
-
 		try {
-			outputDocument = SpreadsheetDocument.newSpreadsheetDocument();
-			
-			Table table; 
-			
-			table = outputDocument.appendSheet(I18n.getText("general.data"));
-
-			ArrayList<String[]> matrix = getMatrix();
-			
-			for(int rowind=0; rowind<matrix.get(0).length; rowind++)
-			{			
-				Row therow = table.getRowByIndex(rowind);
-				
-				for(int colind=0; colind<matrix.size(); colind++)
-				{									
-					if(matrix.get(colind)[rowind]==null || matrix.get(colind)[rowind].getBytes().length==0) continue;
-					
-					Cell cell = therow.getCellByIndex(colind);
-
-					if(rowind==0)
-					{		
-
-						therow.setHeight(12, false);
-						cell.setStringValue(matrix.get(colind)[rowind]);
-						//cell.setCellBackgroundColor(Color.AQUA);
-						cell.setTextWrapped(true);
-						Column thecol = table.getColumnByIndex(colind);
-						thecol.setWidth(40);
-					}
-					else 
-					{
-						//cell.setCellBackgroundColor(Color.WHITE);
-
-						try{
-							therow.getCellByIndex(colind).setDoubleValue(Double.valueOf(matrix.get(colind)[rowind]));
-						} catch (Exception e)
-						{
-							therow.getCellByIndex(colind).setStringValue(matrix.get(colind)[rowind]);
-						}
-					}
-					
-					
-					
-				}
-			}
-			
-			Table table2; 
-			
-			table2 = outputDocument.appendSheet(I18n.getText("general.metadata"));
-			matrix = getMetadataMatrix();
-			
-			for(int rowind=0; rowind<matrix.get(0).length; rowind++)
-			{			
-				Row therow = table2.getRowByIndex(rowind);
-				
-				for(int colind=0; colind<matrix.size(); colind++)
-				{									
-					if(matrix.get(colind)[rowind]==null || matrix.get(colind)[rowind].getBytes().length==0) continue;
-					
-					Cell cell = therow.getCellByIndex(colind);
-
-					if(rowind==0)
-					{		
-
-						therow.setHeight(12, false);
-						cell.setStringValue(matrix.get(colind)[rowind]);
-						//cell.setCellBackgroundColor(Color.AQUA);
-						cell.setTextWrapped(true);
-						Column thecol = table2.getColumnByIndex(colind);
-						thecol.setWidth(40);
-					}
-					else 
-					{
-						//cell.setCellBackgroundColor(Color.WHITE);
-
-						try{
-							therow.getCellByIndex(colind).setDoubleValue(Double.valueOf(matrix.get(colind)[rowind]));
-						} catch (Exception e)
-						{
-							therow.getCellByIndex(colind).setStringValue(matrix.get(colind)[rowind]);
-						}
-					}
-					
-					
-					
-				}
-			}
-			
-			outputDocument.removeSheet(0);
-						
-			outputDocument.save(os);
-
-			
-		} catch (Exception e) {
-
-			throw new IOException(e.getLocalizedMessage());
+			ODFSpreadsheetWriter writer = new ODFSpreadsheetWriter(os);
+			writer.writeTable(I18n.getText("general.data"), getMatrix());
+			writer.writeTable(I18n.getText("general.metadata"), getMetadataMatrix());
+			writer.finish();
+		} catch (XMLStreamException e) {
+			throw new IOException(e.getLocalizedMessage(), e);
 		}
-		
 	}
 }
@@ -0,0 +1,40 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.formats.odfmatrix;
+
+import org.tridas.io.detection.FileSample;
+import org.tridas.io.detection.FormatProbe;
+
+/**
+ * OpenDocument files are zip files whose first, uncompressed, entry holds the
+ * document's mime type.
+ *
+ * @author agent
+ */
+public class ODFMatrixProbe implements FormatProbe {
+
+	@Override
+	public float probe(FileSample argSample) {
+		if (!argSample.startsWith('P', 'K', 3, 4)) {
+			return 0f;
+		}
+		String text = argSample.getText();
+		if (text.contains("mimetypeapplication/vnd.oasis.opendocument.spreadsheet")) {
+			return 0.95f;
+		}
+		return 0f;
+	}
+}
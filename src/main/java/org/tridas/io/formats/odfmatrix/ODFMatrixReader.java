@@ -17,13 +17,18 @@ package org.tridas.io.formats.odfmatrix;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
-import org.odftoolkit.odfdom.doc.OdfSpreadsheetDocument;
-import org.odftoolkit.odfdom.doc.table.OdfTable;
-import org.odftoolkit.odfdom.doc.table.OdfTableColumn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tridas.io.AbstractDendroFileReader;
@@ -48,11 +53,26 @@ import org.tridas.schema.TridasValue;
 import org.tridas.schema.TridasValues;
 import org.tridas.schema.TridasVariable;
 
+/**
+ * Reader for OpenDocument spreadsheets. The <code>content.xml</code> of the
+ * file is read with StAX a row at a time, so large sheets are never held in
+ * memory. Cells and rows repeated with <code>table:number-columns-repeated</code>
+ * and <code>table:number-rows-repeated</code> are expanded, except that runs of
+ * empty rows are only looked at once.
+ */
 public class ODFMatrixReader extends AbstractDendroFileReader {
 
 	private static final Logger log = LoggerFactory.getLogger(ODFMatrixReader.class);
+	private static final String OFFICE_NS = ODFSpreadsheetWriter.OFFICE_NS;
+	private static final String TABLE_NS = ODFSpreadsheetWriter.TABLE_NS;
+	private static final String TEXT_NS = ODFSpreadsheetWriter.TEXT_NS;
+	private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+	static {
+		xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+	}
+	
 	private ODFMatrixToTridasDefaults defaults;
-	private OdfTable sheet;
 	private ArrayList<ODFDendroSeries> series = new ArrayList<ODFDendroSeries>();
 	
 	public ODFMatrixReader()
@@ -88,15 +108,7 @@ public class ODFMatrixReader extends AbstractDendroFileReader {
 		
 		log.debug("loading file from: " + argFilename);
 		defaults = (ODFMatrixToTridasDefaults) argDefaultFields;
-		File file = new File(argFilename);
-		
-		try {
-			OdfSpreadsheetDocument doc = OdfSpreadsheetDocument.loadDocument(file);
-			parseFile(doc);
-		} catch (Exception e) {
-			throw new InvalidDendroFileException(e.getLocalizedMessage());
-		}
-
+		load(new File(argFilename));
 	}
 	
 	@Override
@@ -105,180 +117,447 @@ public class ODFMatrixReader extends AbstractDendroFileReader {
 		
 		log.debug("loading file from: " + argPath + File.separatorChar + argFilename);
 		defaults = (ODFMatrixToTridasDefaults) argDefaultFields;
-		File file = new File(argPath + File.separatorChar + argFilename);
+		load(new File(argPath + File.separatorChar + argFilename));
+	}
+	
+	private void load(File file) throws InvalidDendroFileException {
+		series.clear();
 		
+		ZipFile zip = null;
 		try {
-			OdfSpreadsheetDocument doc = OdfSpreadsheetDocument.loadDocument(file);
-			parseFile(doc);
+			zip = new ZipFile(file);
+			ZipEntry content = zip.getEntry("content.xml");
+			if(content==null) throw new InvalidDendroFileException(I18n.getText("excelmatrix.workbookError"));
+			
+			InputStream is = zip.getInputStream(content);
+			XMLStreamReader xml = xmlInputFactory.createXMLStreamReader(is);
+			try {
+				parseFile(xml);
+			} finally {
+				xml.close();
+				is.close();
+			}
+		} catch (InvalidDendroFileException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new InvalidDendroFileException(e.getLocalizedMessage());
+		} finally {
+			if(zip!=null) {
+				try {
+					zip.close();
+				} catch (IOException e) {
+					log.debug("unable to close " + file, e);
+				}
+			}
 		}
-
 	}
 		
 	/**
-	 * Check this is a valid ODF file
+	 * Parse the first table of the spreadsheet content. The years are checked
+	 * as each row is read, but errors and warnings in the data columns are held
+	 * back until the end so they are reported column by column.
 	 * 
-	 * @param argFileBytes
+	 * @param xml reader positioned at the start of content.xml
 	 * @throws InvalidDendroFileException
+	 * @throws XMLStreamException
 	 */
-	protected void parseFile(OdfSpreadsheetDocument doc) throws InvalidDendroFileException{
+	protected void parseFile(XMLStreamReader xml) throws InvalidDendroFileException, XMLStreamException {
 	
-		if(doc==null) throw new InvalidDendroFileException(I18n.getText("excelmatrix.workbookError"));
+		SheetParser sheet = null;
+		boolean moreTables = false;
+		while(xml.hasNext())
+		{
+			if(xml.next()!=XMLStreamConstants.START_ELEMENT || !isElement(xml, TABLE_NS, "table")) continue;
+			
+			if(sheet!=null)
+			{
+				moreTables = true;
+				break;
+			}
+			sheet = new SheetParser(xml.getAttributeValue(TABLE_NS, "name"));
+			sheet.parse(xml);
+		}
+		
+		if(sheet==null) throw new InvalidDendroFileException(I18n.getText("excelmatrix.workbookError"));
 		
-		if(doc.getTableList().size()>1)
+		if(moreTables)
 		{
 			this.addWarning(new ConversionWarning(WarningType.IGNORED, 
-					I18n.getText("excelmatrix.ignoringWorksheetsExcept",
-							doc.getTableList().get(0).getTableName())));
+					I18n.getText("excelmatrix.ignoringWorksheetsExcept", sheet.name)));
 		}
 		
-		sheet = doc.getTableList().get(0);
-
-		// Check year column is valid
-		OdfTableColumn yearCol = sheet.getColumnByIndex(0);
-		Integer lastval = null;
-		Integer thisval = null;
-		for (int i=1; i < (yearCol.getCellCount()); i++)
+		// Loop through data columns
+		for(int i=1; i < sheet.columnCount; i++)
 		{
-			if(sheet.getCellByPosition(0, i).getStringValue().equals(""))
+			ColumnState col = sheet.columns[i];
+			
+			// Throw a wobbly if header is empty
+			if(col.header.equals("")) 
 			{
-				break;
+				throw new InvalidDendroFileException(
+						I18n.getText("excelmatrix.emptyHeader"), 
+						getColRef(i)+"1", PointerType.CELL);
 			}
 			
-			// Check cell is an integer
-			try{
-				thisval = Integer.parseInt(sheet.getCellByPosition(0, i).getStringValue());
+			if(col.error!=null) throw col.error;
+			
+			for(ConversionWarning warning : col.warnings)
+			{
+				this.addWarning(warning);
+			}
+			
+			col.series.label = col.header;
+			col.series.defaults = defaults;
+			series.add(col.series);
+		}
+	}
+	
+	private static boolean isElement(XMLStreamReader xml, String namespace, String localName)
+	{
+		return namespace.equals(xml.getNamespaceURI()) && localName.equals(xml.getLocalName());
+	}
+	
+	private static int getRepeat(XMLStreamReader xml, String attribute)
+	{
+		String repeat = xml.getAttributeValue(TABLE_NS, attribute);
+		if(repeat==null) return 1;
+		try{
+			return Math.max(1, Integer.parseInt(repeat));
+		} catch (NumberFormatException e)
+		{
+			return 1;
+		}
+	}
+	
+	/**
+	 * Skip the rest of the current element
+	 */
+	private static void skipElement(XMLStreamReader xml) throws XMLStreamException
+	{
+		int depth = 1;
+		while(depth>0)
+		{
+			int event = xml.next();
+			if(event==XMLStreamConstants.START_ELEMENT) depth++;
+			else if(event==XMLStreamConstants.END_ELEMENT) depth--;
+		}
+	}
+	
+	/**
+	 * Progress through the data of one column
+	 */
+	private static class ColumnState {
+		public String header = "";
+		public ODFDendroSeries series = new ODFDendroSeries();
+		public boolean atStartOfData = false;
+		public boolean atEndOfData = false;
+		public boolean moreDataThanYears = false;
+		public InvalidDendroFileException error;
+		public ArrayList<ConversionWarning> warnings = new ArrayList<ConversionWarning>();
+	}
+	
+	/**
+	 * Reads the rows of a single table, checking the years and collecting the
+	 * data of each column as it goes
+	 */
+	private class SheetParser {
+		public final String name;
+		public int columnCount = 0;
+		public ColumnState[] columns;
+		
+		// cell values of the row being read
+		private String[] text;
+		private String[] valueType;
+		private String[] value;
+		
+		private int rowIndex = 0;
+		private Integer lastYear = null;
+		private boolean atEndOfYears = false;
+		
+		public SheetParser(String name)
+		{
+			this.name = name;
+		}
+		
+		/**
+		 * Read up to the end of the table element
+		 */
+		public void parse(XMLStreamReader xml) throws InvalidDendroFileException, XMLStreamException
+		{
+			while(xml.hasNext())
+			{
+				int event = xml.next();
+				if(event==XMLStreamConstants.END_ELEMENT && isElement(xml, TABLE_NS, "table"))
+				{
+					break;
+				}
+				if(event!=XMLStreamConstants.START_ELEMENT || !TABLE_NS.equals(xml.getNamespaceURI())) continue;
+				
+				String element = xml.getLocalName();
+				if(element.equals("table-column"))
+				{
+					columnCount += getRepeat(xml, "number-columns-repeated");
+				}
+				else if(element.equals("table-row"))
+				{
+					readRow(xml);
+				}
+				else if(!element.equals("table-columns") && !element.equals("table-header-columns")
+						&& !element.equals("table-column-group") && !element.equals("table-rows")
+						&& !element.equals("table-header-rows") && !element.equals("table-row-group"))
+				{
+					skipElement(xml);
+				}
+			}
+			
+			if(columns==null) startRows();
+		}
+		
+		private void startRows()
+		{
+			columns = new ColumnState[columnCount];
+			for(int i=0; i<columnCount; i++)
+			{
+				columns[i] = new ColumnState();
+			}
+			text = new String[columnCount];
+			valueType = new String[columnCount];
+			value = new String[columnCount];
+		}
+		
+		private void readRow(XMLStreamReader xml) throws InvalidDendroFileException, XMLStreamException
+		{
+			if(columns==null) startRows();
+			
+			int repeat = getRepeat(xml, "number-rows-repeated");
+			Arrays.fill(text, "");
+			Arrays.fill(valueType, null);
+			Arrays.fill(value, null);
+			
+			int col = 0;
+			boolean empty = true;
+			while(true)
+			{
+				int event = xml.next();
+				if(event==XMLStreamConstants.END_ELEMENT && isElement(xml, TABLE_NS, "table-row"))
+				{
+					break;
+				}
+				if(event!=XMLStreamConstants.START_ELEMENT) continue;
 				
-				if(thisval.equals(0))
+				if(!isElement(xml, TABLE_NS, "table-cell") && !isElement(xml, TABLE_NS, "covered-table-cell"))
 				{
-					throw new InvalidDendroFileException(
-							I18n.getText("excelmatrix.yearsNotGregorian"), 
-							"A"+String.valueOf(i), PointerType.CELL);
+					skipElement(xml);
+					continue;
 				}
 				
-			} catch (NumberFormatException e)
+				int cellRepeat = getRepeat(xml, "number-columns-repeated");
+				String cellType = xml.getAttributeValue(OFFICE_NS, "value-type");
+				String cellValue = xml.getAttributeValue(OFFICE_NS, "value");
+				String cellText = readCellText(xml);
+				if(!cellText.equals("")) empty = false;
+				
+				for(int i=0; i<cellRepeat && col<columnCount; i++, col++)
+				{
+					text[col] = cellText;
+					valueType[col] = cellType;
+					value[col] = cellValue;
+				}
+			}
+			
+			// Once an empty row has been seen, repeats of it change nothing
+			int times = empty ? Math.min(repeat, 2) : repeat;
+			for(int i=0; i<times; i++)
 			{
-				throw new InvalidDendroFileException(
-						I18n.getText("excelmatrix.yearNumberExpected"), 
-						"A"+String.valueOf(i), PointerType.CELL);
+				processRow(rowIndex+i);
+			}
+			rowIndex += repeat;
+		}
+		
+		/**
+		 * @return the text of the cell's paragraphs, ignoring annotations
+		 */
+		private String readCellText(XMLStreamReader xml) throws XMLStreamException
+		{
+			StringBuilder sb = new StringBuilder();
+			boolean firstParagraph = true;
+			int depth = 1;
+			while(depth>0)
+			{
+				int event = xml.next();
+				if(event==XMLStreamConstants.START_ELEMENT)
+				{
+					if(isElement(xml, OFFICE_NS, "annotation"))
+					{
+						skipElement(xml);
+						continue;
+					}
+					depth++;
+					if(isElement(xml, TEXT_NS, "p"))
+					{
+						if(!firstParagraph) sb.append('\n');
+						firstParagraph = false;
+					}
+					else if(isElement(xml, TEXT_NS, "s"))
+					{
+						String count = xml.getAttributeValue(TEXT_NS, "c");
+						int spaces = 1;
+						if(count!=null)
+						{
+							try{
+								spaces = Integer.parseInt(count);
+							} catch (NumberFormatException e)
+							{
+								spaces = 1;
+							}
+						}
+						for(int i=0; i<spaces; i++) sb.append(' ');
+					}
+					else if(isElement(xml, TEXT_NS, "tab"))
+					{
+						sb.append('\t');
+					}
+					else if(isElement(xml, TEXT_NS, "line-break"))
+					{
+						sb.append('\n');
+					}
+				}
+				else if(event==XMLStreamConstants.END_ELEMENT)
+				{
+					depth--;
+				}
+				else if(event==XMLStreamConstants.CHARACTERS || event==XMLStreamConstants.CDATA)
+				{
+					if(depth>1) sb.append(xml.getText());
+				}
+			}
+			return sb.toString();
+		}
+		
+		private void processRow(int row) throws InvalidDendroFileException
+		{
+			if(row==0)
+			{
+				for(int i=1; i<columnCount; i++)
+				{
+					columns[i].header = text[i];
+				}
+				return;
 			}
 			
-
+			if(columnCount>0) checkYear(row);
+			
+			for(int i=1; i<columnCount; i++)
+			{
+				addDataValue(i, row);
+			}
+		}
+		
+		/**
+		 * Check year column is valid
+		 */
+		private void checkYear(int row) throws InvalidDendroFileException
+		{
+			if(atEndOfYears) return;
 			
-			if (lastval==null) 
+			if(text[0].equals(""))
 			{
-				// First year 
-				lastval = thisval;
-				continue;
+				atEndOfYears = true;
+				return;
 			}
 			
-			SafeIntYear previousYear = new SafeIntYear(lastval);
-			SafeIntYear thisYear = new SafeIntYear(thisval);
+			// Check cell is an integer
+			Integer thisval;
+			try{
+				thisval = Integer.parseInt(text[0]);
+			} catch (NumberFormatException e)
+			{
+				throw new InvalidDendroFileException(
+						I18n.getText("excelmatrix.yearNumberExpected"), 
+						"A"+String.valueOf(row), PointerType.CELL);
+			}
 			
-			if(previousYear.add(1).equals(thisYear))
+			if(thisval.equals(0))
 			{
-				// Next year in sequence - so ok
-				lastval = thisval;
-				continue;
+				throw new InvalidDendroFileException(
+						I18n.getText("excelmatrix.yearsNotGregorian"), 
+						"A"+String.valueOf(row), PointerType.CELL);
 			}
-			else
+			
+			if (lastYear!=null && !new SafeIntYear(lastYear).add(1).equals(new SafeIntYear(thisval))) 
 			{
 				throw new InvalidDendroFileException(
 						I18n.getText("excelmatrix.invalidYearSequence"), 
-						"A"+String.valueOf(i+1), PointerType.CELL);
+						"A"+String.valueOf(row+1), PointerType.CELL);
 			}
+			lastYear = thisval;
 		}
 		
-		// Loop through data columns
-		for(int i=1; i < sheet.getColumnCount(); i++)
+		private void addDataValue(int i, int row)
 		{
-			OdfTableColumn datacol = sheet.getColumnByIndex(i);
-			ODFDendroSeries edc = new ODFDendroSeries();
+			ColumnState col = columns[i];
+			if(col.error!=null) return;
 			
-			// Throw a wobbly if header is empty
-			if(datacol.getCellByIndex(0).getStringValue().equals("")) 
+			// Warn if there is more data than years, and leave it out
+			if(atEndOfYears)
 			{
-				throw new InvalidDendroFileException(
-						I18n.getText("excelmatrix.emptyHeader"), 
-						getColRef(i)+"1", PointerType.CELL);
+				if(!text[i].equals("") && !col.moreDataThanYears)
+				{
+					col.moreDataThanYears = true;
+					col.warnings.add(new ConversionWarning(WarningType.IGNORED, 
+							I18n.getText("excelmatrix.moreDataThanYears", getColRef(i))));
+				}
+				return;
 			}
 			
-			// Warn if there is more data than years
-			if(datacol.getCellCount()>yearCol.getCellCount())
+			if(col.atEndOfData) return;
+			
+			if(col.atStartOfData== false && text[i].equals(""))
 			{
-				this.addWarning(new ConversionWarning(WarningType.IGNORED, 
-						I18n.getText("excelmatrix.moreDataThanYears",
-						getColRef(i))));
+				return;
 			}
-					
-			// Compile a list of the data values
-			ArrayList<Double> dataVals = new ArrayList<Double>();
-			Boolean atStartOfData =false;
-			for(int j=1; j<datacol.getCellCount(); j++)
+			else if (col.atStartOfData == false)
 			{
-				if(atStartOfData== false && datacol.getCellByIndex(j).getStringValue().equals(""))
-				{
-					continue;
-				}
-				else if (atStartOfData == false)
-				{
-					atStartOfData = true;
-					edc.startYear = this.getYearForRow(j);
-				}
-				else if(atStartOfData== true && datacol.getCellByIndex(j).getStringValue().equals(""))
+				col.atStartOfData = true;
+				col.series.startYear = getYearForRow();
+			}
+			else if(text[i].equals(""))
+			{
+				col.atEndOfData = true;
+				return;
+			}
+			
+			try{ 
+				if(!"float".equals(valueType[i]) || value[i]==null)
 				{
-					break;
+					throw new NumberFormatException();
 				}
 				
+				Double val = Double.parseDouble(value[i]);
+				col.series.dataVals.add(val);
 				
-				try{ 
-					if(!datacol.getCellByIndex(j).getValueType().equals("float"))
-					{
-						throw new InvalidDendroFileException(
-								I18n.getText("excelmatrix.invalidDataValue"), 
-								getColRef(i)+String.valueOf(j+1), 
-								PointerType.CELL);
-					}
-						
-					dataVals.add(datacol.getCellByIndex(j).getDoubleValue());
-					
-					if(datacol.getCellByIndex(j).getDoubleValue()>10d)
-					{
-						this.addWarning(new ConversionWarning(WarningType.ASSUMPTION, 
-								I18n.getText("excelmatrix.largeDataValue")));
-					}
-					
-					
-					
-				} catch (NumberFormatException e)
+				if(val>10d)
 				{
-					throw new InvalidDendroFileException(
-							I18n.getText("excelmatrix.invalidDataValue"), 
-							getColRef(i)+String.valueOf(j+1), 
-							PointerType.CELL);
+					col.warnings.add(new ConversionWarning(WarningType.ASSUMPTION, 
+							I18n.getText("excelmatrix.largeDataValue")));
 				}
+			} catch (NumberFormatException e)
+			{
+				col.error = new InvalidDendroFileException(
+						I18n.getText("excelmatrix.invalidDataValue"), 
+						getColRef(i)+String.valueOf(row+1), 
+						PointerType.CELL);
 			}
-			
-			edc.label = datacol.getCellByIndex(0).getStringValue();
-			edc.defaults = defaults;
-			edc.dataVals = dataVals;
-			series.add(edc);
-			
-			
 		}
 		
-
-
-	}
-	
-	private SafeIntYear getYearForRow(int row)
-	{
-		try{
-			return new SafeIntYear(sheet.getCellByPosition(0, row).getStringValue());
-		} catch (NumberFormatException e)
+		private SafeIntYear getYearForRow()
 		{
-			return null;
+			try{
+				return new SafeIntYear(text[0]);
+			} catch (NumberFormatException e)
+			{
+				return null;
+			}
 		}
 	}
 	
@@ -313,7 +592,6 @@ public class ODFMatrixReader extends AbstractDendroFileReader {
 	
 	@Override
 	protected void resetReader() {
-		sheet = null;
 		defaults = null;
 	}
 	
@@ -0,0 +1,317 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.formats.odfmatrix;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes an OpenDocument spreadsheet a row at a time with a StAX writer
+ * straight into the zip container, so the document is never built in memory.
+ * Tables are given as lists of columns, the first row of which is the header.
+ * Call {@link #writeTable(String, ArrayList)} for each table and then
+ * {@link #finish()}.
+ *
+ * @author agent
+ */
+class ODFSpreadsheetWriter {
+
+	static final String MIMETYPE = "application/vnd.oasis.opendocument.spreadsheet";
+
+	static final String OFFICE_NS = "urn:oasis:names:tc:opendocument:xmlns:office:1.0";
+	static final String TABLE_NS = "urn:oasis:names:tc:opendocument:xmlns:table:1.0";
+	static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+	private static final String STYLE_NS = "urn:oasis:names:tc:opendocument:xmlns:style:1.0";
+	private static final String FO_NS = "urn:oasis:names:tc:opendocument:xmlns:xsl-fo-compatible:1.0";
+	private static final String MANIFEST_NS = "urn:oasis:names:tc:opendocument:xmlns:manifest:1.0";
+	private static final String ODF_VERSION = "1.2";
+
+	// styles for the header row, matching the old odfdom output
+	private static final String HEADER_COLUMN_STYLE = "co1";
+	private static final String HEADER_ROW_STYLE = "ro1";
+	private static final String HEADER_CELL_STYLE = "ce1";
+
+	private static final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+
+	private final ZipOutputStream zip;
+	private final XMLStreamWriter xml;
+
+	/**
+	 * Starts the document. The output stream is finished but not closed by
+	 * {@link #finish()}.
+	 *
+	 * @param argOutput
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	ODFSpreadsheetWriter(OutputStream argOutput) throws IOException, XMLStreamException {
+		zip = new ZipOutputStream(argOutput);
+		writeMimetype();
+		writeManifest();
+		writeStyles();
+
+		zip.putNextEntry(new ZipEntry("content.xml"));
+		xml = xmlOutputFactory.createXMLStreamWriter(zip, "UTF-8");
+		xml.writeStartDocument("UTF-8", "1.0");
+		xml.writeStartElement("office", "document-content", OFFICE_NS);
+		xml.writeNamespace("office", OFFICE_NS);
+		xml.writeNamespace("style", STYLE_NS);
+		xml.writeNamespace("text", TEXT_NS);
+		xml.writeNamespace("table", TABLE_NS);
+		xml.writeNamespace("fo", FO_NS);
+		xml.writeAttribute("office", OFFICE_NS, "version", ODF_VERSION);
+
+		xml.writeStartElement("office", "automatic-styles", OFFICE_NS);
+		xml.writeStartElement("style", "style", STYLE_NS);
+		xml.writeAttribute("style", STYLE_NS, "name", HEADER_COLUMN_STYLE);
+		xml.writeAttribute("style", STYLE_NS, "family", "table-column");
+		xml.writeEmptyElement("style", "table-column-properties", STYLE_NS);
+		xml.writeAttribute("style", STYLE_NS, "column-width", "40mm");
+		xml.writeEndElement();
+		xml.writeStartElement("style", "style", STYLE_NS);
+		xml.writeAttribute("style", STYLE_NS, "name", HEADER_ROW_STYLE);
+		xml.writeAttribute("style", STYLE_NS, "family", "table-row");
+		xml.writeEmptyElement("style", "table-row-properties", STYLE_NS);
+		xml.writeAttribute("style", STYLE_NS, "row-height", "12mm");
+		xml.writeAttribute("style", STYLE_NS, "use-optimal-row-height", "false");
+		xml.writeEndElement();
+		xml.writeStartElement("style", "style", STYLE_NS);
+		xml.writeAttribute("style", STYLE_NS, "name", HEADER_CELL_STYLE);
+		xml.writeAttribute("style", STYLE_NS, "family", "table-cell");
+		xml.writeEmptyElement("style", "table-cell-properties", STYLE_NS);
+		xml.writeAttribute("fo", FO_NS, "wrap-option", "wrap");
+		xml.writeEndElement();
+		xml.writeEndElement();
+
+		xml.writeStartElement("office", "body", OFFICE_NS);
+		xml.writeStartElement("office", "spreadsheet", OFFICE_NS);
+	}
+
+	/**
+	 * Write a table. Empty and null cells are left blank, the header row is
+	 * written as text and every other cell as a number if it is one.
+	 *
+	 * @param argName
+	 *            name of the table
+	 * @param argColumns
+	 *            columns of the table, all the same length
+	 * @throws XMLStreamException
+	 */
+	void writeTable(String argName, ArrayList<String[]> argColumns) throws XMLStreamException {
+		int rowCount = argColumns.isEmpty() ? 0 : argColumns.get(0).length;
+
+		xml.writeStartElement("table", "table", TABLE_NS);
+		xml.writeAttribute("table", TABLE_NS, "name", argName);
+
+		// header columns are widened, runs of the others are written once
+		int plainColumns = 0;
+		for (String[] column : argColumns) {
+			if (rowCount > 0 && !isEmpty(column[0])) {
+				writeColumns(null, plainColumns);
+				plainColumns = 0;
+				writeColumns(HEADER_COLUMN_STYLE, 1);
+			}
+			else {
+				plainColumns++;
+			}
+		}
+		writeColumns(null, plainColumns);
+
+		for (int row = 0; row < rowCount; row++) {
+			writeRow(argColumns, row);
+		}
+
+		xml.writeEndElement();
+	}
+
+	/**
+	 * Ends the document and finishes the zip
+	 *
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	void finish() throws IOException, XMLStreamException {
+		xml.writeEndElement();
+		xml.writeEndElement();
+		xml.writeEndElement();
+		xml.writeEndDocument();
+		xml.close();
+		zip.closeEntry();
+		zip.finish();
+	}
+
+	private void writeColumns(String argStyle, int argCount) throws XMLStreamException {
+		if (argCount == 0) {
+			return;
+		}
+		xml.writeEmptyElement("table", "table-column", TABLE_NS);
+		if (argStyle != null) {
+			xml.writeAttribute("table", TABLE_NS, "style-name", argStyle);
+		}
+		if (argCount > 1) {
+			xml.writeAttribute("table", TABLE_NS, "number-columns-repeated", String.valueOf(argCount));
+		}
+	}
+
+	private void writeRow(ArrayList<String[]> argColumns, int argRow) throws XMLStreamException {
+		boolean header = argRow == 0;
+
+		xml.writeStartElement("table", "table-row", TABLE_NS);
+		if (header) {
+			for (String[] column : argColumns) {
+				if (!isEmpty(column[0])) {
+					xml.writeAttribute("table", TABLE_NS, "style-name", HEADER_ROW_STYLE);
+					break;
+				}
+			}
+		}
+
+		// blank cells are only written when a filled one follows them
+		int blanks = 0;
+		boolean wroteCell = false;
+		for (String[] column : argColumns) {
+			String value = argRow < column.length ? column[argRow] : null;
+			if (isEmpty(value)) {
+				blanks++;
+				continue;
+			}
+			writeBlankCells(blanks);
+			blanks = 0;
+			wroteCell = true;
+
+			Double number = header ? null : parseNumber(value);
+			xml.writeStartElement("table", "table-cell", TABLE_NS);
+			if (header) {
+				xml.writeAttribute("table", TABLE_NS, "style-name", HEADER_CELL_STYLE);
+			}
+			if (number != null) {
+				xml.writeAttribute("office", OFFICE_NS, "value-type", "float");
+				xml.writeAttribute("office", OFFICE_NS, "value", number.toString());
+			}
+			else {
+				xml.writeAttribute("office", OFFICE_NS, "value-type", "string");
+			}
+			xml.writeStartElement("text", "p", TEXT_NS);
+			xml.writeCharacters(value);
+			xml.writeEndElement();
+			xml.writeEndElement();
+		}
+		if (!wroteCell) {
+			// a row must hold at least one cell
+			writeBlankCells(1);
+		}
+
+		xml.writeEndElement();
+	}
+
+	private void writeBlankCells(int argCount) throws XMLStreamException {
+		if (argCount == 0) {
+			return;
+		}
+		xml.writeEmptyElement("table", "table-cell", TABLE_NS);
+		if (argCount > 1) {
+			xml.writeAttribute("table", TABLE_NS, "number-columns-repeated", String.valueOf(argCount));
+		}
+	}
+
+	/**
+	 * The mimetype must be the first entry in the zip and stored uncompressed
+	 * so the format can be recognised from the start of the file
+	 */
+	private void writeMimetype() throws IOException {
+		byte[] bytes = MIMETYPE.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+
+		ZipEntry entry = new ZipEntry("mimetype");
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(bytes.length);
+		entry.setCompressedSize(bytes.length);
+		entry.setCrc(crc.getValue());
+		zip.putNextEntry(entry);
+		zip.write(bytes);
+		zip.closeEntry();
+	}
+
+	private void writeManifest() throws IOException, XMLStreamException {
+		zip.putNextEntry(new ZipEntry("META-INF/manifest.xml"));
+		XMLStreamWriter manifest = xmlOutputFactory.createXMLStreamWriter(zip, "UTF-8");
+		manifest.writeStartDocument("UTF-8", "1.0");
+		manifest.writeStartElement("manifest", "manifest", MANIFEST_NS);
+		manifest.writeNamespace("manifest", MANIFEST_NS);
+		manifest.writeAttribute("manifest", MANIFEST_NS, "version", ODF_VERSION);
+		writeManifestEntry(manifest, "/", MIMETYPE);
+		writeManifestEntry(manifest, "content.xml", "text/xml");
+		writeManifestEntry(manifest, "styles.xml", "text/xml");
+		manifest.writeEndElement();
+		manifest.writeEndDocument();
+		manifest.close();
+		zip.closeEntry();
+	}
+
+	private static void writeManifestEntry(XMLStreamWriter argManifest, String argPath, String argMediaType)
+			throws XMLStreamException {
+		argManifest.writeEmptyElement("manifest", "file-entry", MANIFEST_NS);
+		argManifest.writeAttribute("manifest", MANIFEST_NS, "full-path", argPath);
+		if ("/".equals(argPath)) {
+			argManifest.writeAttribute("manifest", MANIFEST_NS, "version", ODF_VERSION);
+		}
+		argManifest.writeAttribute("manifest", MANIFEST_NS, "media-type", argMediaType);
+	}
+
+	private void writeStyles() throws IOException, XMLStreamException {
+		zip.putNextEntry(new ZipEntry("styles.xml"));
+		XMLStreamWriter styles = xmlOutputFactory.createXMLStreamWriter(zip, "UTF-8");
+		styles.writeStartDocument("UTF-8", "1.0");
+		styles.writeStartElement("office", "document-styles", OFFICE_NS);
+		styles.writeNamespace("office", OFFICE_NS);
+		styles.writeAttribute("office", OFFICE_NS, "version", ODF_VERSION);
+		styles.writeEmptyElement("office", "styles", OFFICE_NS);
+		styles.writeEndElement();
+		styles.writeEndDocument();
+		styles.close();
+		zip.closeEntry();
+	}
+
+	private static boolean isEmpty(String argValue) {
+		return argValue == null || argValue.length() == 0;
+	}
+
+	/**
+	 * @return the value as a number, or null if it isn't one that can be
+	 *         stored in a float cell
+	 */
+	private static Double parseNumber(String argValue) {
+		try {
+			Double number = Double.valueOf(argValue);
+			if (number.isNaN() || number.isInfinite()) {
+				return null;
+			}
+			return number;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -17,19 +17,32 @@ package org.tridas.io.formats.ooxml;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.util.ArrayList;
 
-import jxl.write.WriteException;
-
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.tridas.io.I18n;
 import org.tridas.io.formats.csvmatrix.CSVMatrixFile;
 
 public class OOXMLFile extends CSVMatrixFile {
 	
+	/**
+	 * Files with more cells than this are written with a streaming workbook
+	 */
+	public static final int DEFAULT_STREAMING_THRESHOLD = 250000;
+	/**
+	 * Rows a streaming workbook keeps in memory before flushing them to disk
+	 */
+	public static final int DEFAULT_ROW_WINDOW = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+	
+	private int streamingThreshold = DEFAULT_STREAMING_THRESHOLD;
+	private int rowWindow = DEFAULT_ROW_WINDOW;
+	private boolean compressTempFiles = true;
+	
 	public OOXMLFile() {
 		
 	}
@@ -46,88 +59,154 @@ public class OOXMLFile extends CSVMatrixFile {
 		
 	}
 	
+	@Override
+	public void writeTo(Writer argWriter) throws IOException {
+		
+		throw new UnsupportedOperationException(I18n.getText("fileio.binaryAsStringUnsupported"));
+		
+	}
+	
+	/**
+	 * Binary format, so the spreadsheet is written with {@link #saveToDisk(OutputStream)}
+	 * 
+	 * @see org.tridas.io.IDendroFile#writeTo(java.io.OutputStream, java.lang.String)
+	 */
+	@Override
+	public void writeTo(OutputStream argOutput, String argCharset) throws IOException {
+		saveToDisk(argOutput);
+	}
+	
+	/**
+	 * Set how many cells the data sheet can have before the file is written
+	 * with a streaming workbook. A streaming workbook only keeps a window of
+	 * rows in memory and writes the rest to a temporary file, so large files
+	 * don't need the whole spreadsheet in memory. The sheets are the same
+	 * either way.
+	 * 
+	 * @param argCells
+	 *            number of cells, 0 to always stream, or
+	 *            {@link Integer#MAX_VALUE} to never stream
+	 */
+	public void setStreamingThreshold(int argCells) {
+		streamingThreshold = argCells;
+	}
+	
+	public int getStreamingThreshold() {
+		return streamingThreshold;
+	}
+	
+	/**
+	 * Set how many rows a streaming workbook keeps in memory
+	 * 
+	 * @param argRows
+	 */
+	public void setRowWindow(int argRows) {
+		if (argRows < 1) {
+			throw new IllegalArgumentException("Row window must be at least 1");
+		}
+		rowWindow = argRows;
+	}
+	
+	public int getRowWindow() {
+		return rowWindow;
+	}
+	
+	/**
+	 * Set whether a streaming workbook compresses its temporary files. This
+	 * uses less disk but more time. Default of true.
+	 * 
+	 * @param argCompress
+	 */
+	public void setCompressTempFiles(boolean argCompress) {
+		compressTempFiles = argCompress;
+	}
+	
+	public boolean isCompressTempFiles() {
+		return compressTempFiles;
+	}
+	
 	/**
 	 * An alternative to the normal saveToString() as this is a binary format
 	 * 
 	 * @param os
 	 * @throws IOException
-	 * @throws WriteException
 	 */
 	public void saveToDisk(OutputStream os) throws IOException {
 		
-		Workbook workbook = new XSSFWorkbook(); 	
-		Sheet dataSheet = workbook.createSheet(I18n.getText("general.data"));
-	
 		ArrayList<String[]> matrix = getMatrix();
-				
-		for(int rowind=0; rowind<matrix.get(0).length; rowind++)
-		{
-			Row rw = dataSheet.createRow(rowind);
+		boolean streaming = (long) matrix.size() * matrix.get(0).length > streamingThreshold;
+		
+		Workbook workbook;
+		if (streaming) {
+			workbook = new SXSSFWorkbook(null, rowWindow, compressTempFiles);
+		}
+		else {
+			workbook = new XSSFWorkbook();
+		}
+		
+		try {
+			Sheet dataSheet = workbook.createSheet(I18n.getText("general.data"));
+			writeSheet(dataSheet, matrix, true);
+			matrix = null;
 			
-			for(int colind=0; colind<matrix.size(); colind++)
-			{
-				
-				if(matrix.get(colind)[rowind]==null || matrix.get(colind)[rowind].getBytes().length==0) continue;
-				
-				if(rowind==0)
-				{
-					rw.createCell(colind).setCellValue(matrix.get(colind)[rowind]);
-
-				}
-				else if(colind==0)
-				{
-					rw.createCell(colind).setCellValue(Integer.valueOf(matrix.get(colind)[rowind]));
-
-				}
-				else 
-				{
-					try{
-						rw.createCell(colind).setCellValue(Double.valueOf(matrix.get(colind)[rowind]));
-					} catch (Exception e)
-					{
-						try{
-							rw.createCell(colind).setCellValue(Integer.valueOf(matrix.get(colind)[rowind]));
-						} catch (Exception e2)
-						{
-							rw.createCell(colind).setCellValue(matrix.get(colind)[rowind]);
-						}
-					}
-				}
-				
-				
-			}
+			Sheet metadataSheet = workbook.createSheet(I18n.getText("general.metadata"));
+			writeSheet(metadataSheet, getMetadataMatrix(), false);
 			
+			workbook.write(os);
+		} finally {
+			if (streaming) {
+				// delete the temporary files
+				((SXSSFWorkbook) workbook).dispose();
+			}
+			workbook.close();
 		}
 		
-		Sheet metadataSheet = workbook.createSheet(I18n.getText("general.metadata"));
+		os.close();
+		
+	}
 	
-		matrix = this.getMetadataMatrix();
-				
-		for(int rowind=0; rowind<matrix.get(0).length; rowind++)
+	/**
+	 * Writes a matrix, held as a list of columns, to a sheet a row at a time so
+	 * it can be streamed. The first row holds headers. Other cells are numbers
+	 * if they can be parsed as one.
+	 * 
+	 * @param argSheet
+	 * @param argMatrix
+	 * @param argYearColumn
+	 *            true if the first column holds whole years
+	 */
+	private static void writeSheet(Sheet argSheet, ArrayList<String[]> argMatrix, boolean argYearColumn) {
+		
+		for(int rowind=0; rowind<argMatrix.get(0).length; rowind++)
 		{
-			Row rw = metadataSheet.createRow(rowind);
+			Row rw = argSheet.createRow(rowind);
 			
-			for(int colind=0; colind<matrix.size(); colind++)
+			for(int colind=0; colind<argMatrix.size(); colind++)
 			{
-				
-				if(matrix.get(colind)[rowind]==null || matrix.get(colind)[rowind].getBytes().length==0) continue;
+				String value = argMatrix.get(colind)[rowind];
+				if(value==null || value.isEmpty()) continue;
 				
 				if(rowind==0)
 				{
-					rw.createCell(colind).setCellValue(matrix.get(colind)[rowind]);
+					rw.createCell(colind).setCellValue(value);
+
+				}
+				else if(argYearColumn && colind==0)
+				{
+					rw.createCell(colind).setCellValue(Integer.valueOf(value));
 
 				}
 				else 
 				{
 					try{
-						rw.createCell(colind).setCellValue(Double.valueOf(matrix.get(colind)[rowind]));
+						rw.createCell(colind).setCellValue(Double.valueOf(value));
 					} catch (Exception e)
 					{
 						try{
-							rw.createCell(colind).setCellValue(Integer.valueOf(matrix.get(colind)[rowind]));
+							rw.createCell(colind).setCellValue(Integer.valueOf(value));
 						} catch (Exception e2)
 						{
-							rw.createCell(colind).setCellValue(matrix.get(colind)[rowind]);
+							rw.createCell(colind).setCellValue(value);
 						}
 					}
 				}
@@ -136,12 +215,6 @@ public class OOXMLFile extends CSVMatrixFile {
 			}
 			
 		}
-				
-		workbook.write(os);
-		
-		
-		os.close();
-		
 	}
 
 }
@@ -16,20 +16,28 @@
 package org.tridas.io.formats.ooxml;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
-import org.apache.poi.xssf.usermodel.XSSFFormulaEvaluator;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tridas.io.AbstractDendroFileReader;
@@ -53,13 +61,13 @@ import org.tridas.schema.TridasUnit;
 import org.tridas.schema.TridasValue;
 import org.tridas.schema.TridasValues;
 import org.tridas.schema.TridasVariable;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
 public class OOXMLReader extends AbstractDendroFileReader {
 
 	private static final Logger log = LoggerFactory.getLogger(OOXMLReader.class);
 	private OOXMLToTridasDefaults defaults;
-	private Sheet sheet;
-	private Workbook wb;
 	private ArrayList<ExcelDendroSeries> series = new ArrayList<ExcelDendroSeries>();
 	
 	public OOXMLReader()
@@ -95,18 +103,7 @@ public class OOXMLReader extends AbstractDendroFileReader {
 		
 		log.debug("loading file from: " + argFilename);
 		defaults = (OOXMLToTridasDefaults) argDefaultFields;
-		InputStream file = new FileInputStream(argFilename);
-		
-		try {
-			wb = WorkbookFactory.create(file);
-			parseFile(wb);
-		} catch (InvalidDendroFileException e) {
-			throw e;
-		} catch (Exception e)
-		{
-			throw new InvalidDendroFileException(e.getMessage());
-		}
-
+		load(new File(argFilename));
 	}
 	
 	@Override
@@ -115,323 +112,327 @@ public class OOXMLReader extends AbstractDendroFileReader {
 		
 		log.debug("loading file from: " + argPath + File.separatorChar + argFilename);
 		defaults = (OOXMLToTridasDefaults) argDefaultFields;
-		InputStream file = new FileInputStream(argPath + File.separatorChar + argFilename);
+		load(new File(argPath + File.separatorChar + argFilename));
+	}
+	
+	/**
+	 * Excel 2007 workbooks are streamed a row at a time, so only the series
+	 * being built are held in memory. Anything else WorkbookFactory can open
+	 * is loaded into memory and read from there.
+	 * 
+	 * @param argFile
+	 * @throws IOException
+	 * @throws InvalidDendroFileException
+	 */
+	private void load(File argFile) throws IOException, InvalidDendroFileException {
+		series.clear();
 		
 		try {
-			wb = WorkbookFactory.create(file);
-			parseFile(wb);
+			if (FileMagic.valueOf(argFile) == FileMagic.OOXML) {
+				streamFile(argFile);
+				return;
+			}
+			
+			Workbook wb = WorkbookFactory.create(argFile, null, true);
+			try {
+				parseFile(wb);
+			} finally {
+				wb.close();
+			}
 		} catch (InvalidDendroFileException e) {
 			throw e;
 		} catch (Exception e)
 		{
 			throw new InvalidDendroFileException(e.getMessage());
 		}
-
 	}
-		
-	private Double getCellValueAsDouble(Cell cell)
-	{
-		
-		if(cell.getCellType() == Cell.CELL_TYPE_BLANK)
-		{
-			return null;
-		}
-		else if (cell.getCellType() == Cell.CELL_TYPE_BOOLEAN)
-		{
-			return null;
-		}
-		else if (cell.getCellType() == Cell.CELL_TYPE_ERROR)
-		{
-			return null;
-		}
-		else if (cell.getCellType() == Cell.CELL_TYPE_FORMULA)
-		{
-			try
-			{	
-				XSSFFormulaEvaluator evaluator = new XSSFFormulaEvaluator((XSSFWorkbook) wb);
-				return evaluator.evaluate(cell).getNumberValue();				
-			} catch (Exception e)
-			{
-				return null;
+	
+	/**
+	 * Reads the first worksheet with the event model. Formulas are read from
+	 * their cached results rather than being evaluated again.
+	 * 
+	 * @param argFile
+	 * @throws Exception
+	 */
+	private void streamFile(File argFile) throws Exception {
+		OPCPackage pkg = OPCPackage.open(argFile, PackageAccess.READ);
+		try {
+			XSSFReader reader = new XSSFReader(pkg);
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+			if (!sheets.hasNext()) {
+				throw new InvalidDendroFileException(I18n.getText("excelmatrix.workbookError"));
 			}
-		}
-		else if (cell.getCellType() == Cell.CELL_TYPE_NUMERIC)
-		{
-			return cell.getNumericCellValue();
-		}
-		else if (cell.getCellType() == Cell.CELL_TYPE_STRING)
-		{
-			try{
-				Double dbl = Double.valueOf(cell.getStringCellValue());
-				return dbl;
-			} catch (NumberFormatException e){
-				return null;
+			
+			InputStream sheetData = sheets.next();
+			try {
+				if (sheets.hasNext()) {
+					this.addWarning(new ConversionWarning(WarningType.IGNORED, 
+							I18n.getText("excelmatrix.ignoringWorksheetsExcept", sheets.getSheetName())));
+				}
+				
+				StreamingSheetParser parser = new StreamingSheetParser();
+				XMLReader xml = XMLHelper.newXMLReader();
+				xml.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(),
+						new ReadOnlySharedStringsTable(pkg), parser, new RawNumberFormatter(), false));
+				try {
+					xml.parse(new InputSource(sheetData));
+				} catch (ParseAbort e) {
+					throw e.exception;
+				}
+				parser.finish();
+			} finally {
+				sheetData.close();
 			}
+		} finally {
+			pkg.revert();
 		}
-		
-		
-		return null;
-		
 	}
-	private String getCellValueAsString(Cell cell)
+		
+	/**
+	 * The contents of a cell as the event model would hand them over, so
+	 * workbooks read into memory go through the same checks as streamed ones
+	 * 
+	 * @param argCell
+	 * @return the contents, or null if the cell is blank
+	 */
+	private static String getCellContents(Cell argCell)
 	{
-		if(cell.getCellType() == Cell.CELL_TYPE_BLANK)
+		CellType type = argCell.getCellType();
+		if (type == CellType.FORMULA)
 		{
-			return null;
+			// the result cached in the file, rather than evaluating it again
+			type = argCell.getCachedFormulaResultType();
 		}
-		else if (cell.getCellType() == Cell.CELL_TYPE_BOOLEAN)
-		{
-			if(cell.getBooleanCellValue()==true)
-			{
-				return "true";
-			}
-			else
-			{
-				return "false";
-			}
-		}
-		else if (cell.getCellType() == Cell.CELL_TYPE_ERROR)
-		{
-			return null;
-		}
-		else if (cell.getCellType() == Cell.CELL_TYPE_FORMULA)
+		
+		switch (type)
 		{
-			try
-			{	
-				return cell.getStringCellValue();
-			} catch (Exception e)
-			{
+			case NUMERIC :
+				return String.valueOf(argCell.getNumericCellValue());
+			case STRING :
+				return argCell.getStringCellValue();
+			case BOOLEAN :
+				return argCell.getBooleanCellValue() ? "TRUE" : "FALSE";
+			case ERROR :
+				return "ERROR";
+			default :
 				return null;
-			}
-		}
-		else if (cell.getCellType() == Cell.CELL_TYPE_NUMERIC)
-		{
-			return String.valueOf(cell.getNumericCellValue());
-		}
-		else if (cell.getCellType() == Cell.CELL_TYPE_STRING)
-		{
-			return cell.getStringCellValue();
 		}
-		
-		
-		return null;
-		
 	}
 	
-	
 	/**
-	 * Check this is a valid Excel file
+	 * Read the first worksheet of a workbook that has been loaded into memory,
+	 * passing its rows to a {@link StreamingSheetParser} just as the event
+	 * model does
 	 * 
-	 * @param argFileBytes
+	 * @param wb
 	 * @throws InvalidDendroFileException
 	 */
 	protected void parseFile(Workbook wb) throws InvalidDendroFileException{
 	
 		if(wb==null) throw new InvalidDendroFileException(I18n.getText("excelmatrix.workbookError"));
 		
-		try{
-			wb.getSheetAt(1);
+		if(wb.getNumberOfSheets()>1)
+		{
 			this.addWarning(new ConversionWarning(WarningType.IGNORED, 
 					I18n.getText("excelmatrix.ignoringWorksheetsExcept",
 							wb.getSheetAt(0).getSheetName())));
-		} catch (Exception e){ }
-		
+		}
 		
-		sheet = wb.getSheetAt(0);
-
-		// Check year column is valid
-		Integer lastval = null;
-		Integer thisval = null;
-		Integer ringCount = 0;
-		for (int row=1; row < 1000; row++)
-		{
-			try{
-				if (sheet.getRow(row).getCell(0).getCellType()== Cell.CELL_TYPE_BLANK) break;
-			} catch (Exception e){ break; }
-			
-			ringCount = row;
-			
-			
-			// Check cell is an integer
-			try{
-				Double dblval = getCellValueAsDouble(sheet.getRow(row).getCell(0));
-				if(dblval==null)
+		StreamingSheetParser parser = new StreamingSheetParser();
+		try {
+			for (Row row : wb.getSheetAt(0))
+			{
+				parser.startRow(row.getRowNum());
+				for (Cell cell : row)
 				{
-					throw new InvalidDendroFileException(
-							I18n.getText("excelmatrix.yearsNotGregorian"), 
-							"A"+String.valueOf(row+1), PointerType.CELL);
+					parser.cell(cell.getAddress().formatAsString(), getCellContents(cell), null);
 				}
-				
-				// Check value is not a decimal
-				long iPart = (long) ((double)dblval);
-				double fPart = ((double)dblval) - iPart;
-				if(fPart>0)
-				{
-					throw new InvalidDendroFileException(
-							I18n.getText("excelmatrix.yearsNotGregorian"), 
-							"A"+String.valueOf(row+1), PointerType.CELL);
+				parser.endRow(row.getRowNum());
+			}
+		} catch (ParseAbort e) {
+			throw e.exception;
+		}
+		parser.finish();
+	}
+	
+	/**
+	 * Builds the series a row at a time, both for streamed worksheets and for
+	 * workbooks read into memory. The years in column A must be consecutive and
+	 * the years end at the first row without one. Each column with a header in
+	 * the first row is a series, from its first value up to the first gap.
+	 */
+	private class StreamingSheetParser implements SheetContentsHandler {
+		
+		private final ArrayList<ExcelDendroSeries> columns = new ArrayList<ExcelDendroSeries>();
+		private boolean headerEnded = false;
+		private boolean yearsEnded = false;
+		private int lastYearRow = 0;
+		private SafeIntYear lastYear = null;
+		private SafeIntYear rowYear = null;
+		private int currentRow = 0;
+		private int nextCol = 0;
+		
+		@Override
+		public void startRow(int argRowNum) {
+			rowYear = null;
+			currentRow = argRowNum;
+			nextCol = 0;
+			if (argRowNum > 0 && argRowNum != lastYearRow + 1) {
+				// a missing row ends the years
+				yearsEnded = true;
+			}
+		}
+		
+		@Override
+		public void endRow(int argRowNum) {
+			if (argRowNum == 0 || yearsEnded) {
+				return;
+			}
+			if (rowYear == null) {
+				yearsEnded = true;
+			}
+			else {
+				lastYearRow = argRowNum;
+			}
+		}
+		
+		@Override
+		public void cell(String argCellReference, String argValue, XSSFComment argComment) {
+			int row;
+			int col;
+			if (argCellReference != null) {
+				CellReference ref = new CellReference(argCellReference);
+				row = ref.getRow();
+				col = ref.getCol();
+			}
+			else {
+				row = currentRow;
+				col = nextCol;
+			}
+			nextCol = col + 1;
+			boolean blank = (argValue == null || argValue.isEmpty());
+			
+			if (row == 0) {
+				if (col == 0 || headerEnded) {
+					return;
 				}
-				
-				thisval = dblval.intValue();
-				
-				// Check value is not zero
-				if(thisval.equals(0))
-				{
-					throw new InvalidDendroFileException(
-							I18n.getText("excelmatrix.yearsNotGregorian"), 
-							"A"+String.valueOf(row+1), PointerType.CELL);
+				if (blank || col != columns.size() + 1) {
+					headerEnded = true;
+					return;
 				}
-				
-			} catch (Exception e)
-			{
-				throw new InvalidDendroFileException(
-						I18n.getText("excelmatrix.yearNumberExpected"), 
-						"A"+String.valueOf(row+1), PointerType.CELL);
+				ExcelDendroSeries edc = new ExcelDendroSeries();
+				edc.label = argValue;
+				edc.defaults = defaults;
+				columns.add(edc);
+				return;
 			}
 			
-			if (lastval==null) 
-			{
-				// First year 
-				lastval = thisval;
-				continue;
+			if (yearsEnded) {
+				return;
 			}
+			String ref = CellReference.convertNumToColString(col) + (row + 1);
 			
-			SafeIntYear previousYear = new SafeIntYear(lastval);
-			SafeIntYear thisYear = new SafeIntYear(thisval);
+			if (col == 0) {
+				if (!blank) {
+					rowYear = parseYear(argValue, ref);
+				}
+				return;
+			}
+			if (rowYear == null) {
+				// no year in column A, so the years have ended
+				yearsEnded = true;
+				return;
+			}
+			if (blank || col > columns.size()) {
+				return;
+			}
 			
-			if(previousYear.add(1).equals(thisYear))
-			{
-				// Next year in sequence - so ok
-				lastval = thisval;
-				continue;
+			ExcelDendroSeries edc = columns.get(col - 1);
+			if (edc.ended) {
+				return;
 			}
-			else
-			{
-				throw new InvalidDendroFileException(
-						I18n.getText("excelmatrix.invalidYearSequence"), 
-						"A"+String.valueOf(row+1), PointerType.CELL);
+			if (edc.startYear == null) {
+				edc.startYear = rowYear;
+			}
+			else if (edc.lastRow != row - 1) {
+				// a gap ends the series, as in the Excel 97 reader
+				edc.ended = true;
+				return;
+			}
+			edc.lastRow = row;
+			try {
+				edc.dataVals.add(Double.valueOf(argValue));
+			} catch (NumberFormatException e) {
+				throw new ParseAbort(new InvalidDendroFileException(
+						I18n.getText("excelmatrix.invalidDataValue"), ref, PointerType.CELL));
 			}
 		}
 		
-		// Loop through data columns
-		for(int col=1; col < 100000; col++)
-		{
-			try{
-				if (sheet.getRow(0).getCell(col).getCellType()== Cell.CELL_TYPE_BLANK) break;
-			} catch (Exception e){ break; }
-			
-			ExcelDendroSeries edc = new ExcelDendroSeries();
-				
-			// Compile a list of the data values
-			ArrayList<Double> dataVals = new ArrayList<Double>();
-			Boolean atStartOfData =false;
-			for(int rowindex=1; rowindex<=ringCount; rowindex++)
-			{		
-				Row row = sheet.getRow(rowindex);
-				
-				try{
-					if (sheet.getRow(rowindex).getCell(col).getCellType()== Cell.CELL_TYPE_BLANK) continue;
-				} catch (Exception e){ continue; }
-				
-				if (atStartOfData == false)
-				{
-					atStartOfData = true;
-					edc.startYear = this.getYearForRow(rowindex);
-				}
-				else if(atStartOfData== true && row.getCell(col) == null)
-				{
-					break;
-				}
-				
-				try{ 
-					 					
-					Double nc = getCellValueAsDouble(row.getCell(col));
-					if(nc==null)
-					{
-						throw new InvalidDendroFileException(
-								I18n.getText("excelmatrix.invalidDataValue"), 
-								getColRef(col)+String.valueOf(rowindex+1), 
-								PointerType.CELL);
-					}
-					
-					dataVals.add(nc);
-										
-				} catch (NumberFormatException e)
-				{
-					throw new InvalidDendroFileException(
-							I18n.getText("excelmatrix.invalidDataValue"), 
-							getColRef(col)+String.valueOf(rowindex+1), 
-							PointerType.CELL);
+		@Override
+		public void headerFooter(String argText, boolean argIsHeader, String argTagName) {}
+		
+		private SafeIntYear parseYear(String argValue, String argRef) {
+			SafeIntYear year;
+			try {
+				double dblval = Double.parseDouble(argValue);
+				if (dblval != Math.rint(dblval) || dblval == 0) {
+					throw new NumberFormatException();
 				}
+				year = new SafeIntYear((int) dblval);
+			} catch (Exception e) {
+				throw new ParseAbort(new InvalidDendroFileException(
+						I18n.getText("excelmatrix.yearNumberExpected"), argRef, PointerType.CELL));
 			}
 			
-			edc.label = getCellValueAsString(sheet.getRow(0).getCell(col));
-			edc.defaults = defaults;
-			edc.dataVals = dataVals;
-			series.add(edc);
-			
-			
+			if (lastYear != null && !lastYear.add(1).equals(year)) {
+				throw new ParseAbort(new InvalidDendroFileException(
+						I18n.getText("excelmatrix.invalidYearSequence"), argRef, PointerType.CELL));
+			}
+			lastYear = year;
+			return year;
 		}
 		
-
-
+		/**
+		 * Add the series once the whole sheet has been read
+		 */
+		public void finish() {
+			series.addAll(columns);
+		}
 	}
 	
-	private SafeIntYear getYearForRow(int row) throws InvalidDendroFileException
-	{
-		try{
-			Cell cell = sheet.getRow(row).getCell(0);
-			
-			if (cell.getCellType() == Cell.CELL_TYPE_NUMERIC)
-			{
-				Double val = cell.getNumericCellValue();
-				return new SafeIntYear(val.intValue());
-			}
-			else
-			{
-				throw new InvalidDendroFileException("Year value is not a number",
-						"A"+String.valueOf(row+1), 
-						PointerType.CELL);
-			}
+	/**
+	 * Carries a parse error out of the SAX handler
+	 */
+	private static class ParseAbort extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		private final InvalidDendroFileException exception;
 		
-		} catch (NumberFormatException e)
-		{
-			return null;
+		public ParseAbort(InvalidDendroFileException argException) {
+			super(argException);
+			exception = argException;
 		}
 	}
 	
 	/**
-	 * Get the Excel column reference for a column number 
-	 * 
-	 * @param col <= 676
-	 * @return
+	 * Hands numbers over as they are stored rather than in the cell's display
+	 * format, so no precision is lost
 	 */
-	private String getColRef(int col)
-	{
-		String colcodes = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-				
-		if(col<0) return null;
+	private static class RawNumberFormatter extends DataFormatter {
 		
-		if(col > 676)
-		{
-			log.error("getColRef called with number out of range");
-			return "??";
+		@Override
+		public String formatRawCellContents(double argValue, int argFormatIndex, String argFormatString) {
+			return String.valueOf(argValue);
 		}
-		else if (col < 26)
-		{
-			return String.valueOf(colcodes.charAt(col));
+		
+		@Override
+		public String formatRawCellContents(double argValue, int argFormatIndex, String argFormatString,
+				boolean argUse1904Windowing) {
+			return String.valueOf(argValue);
 		}
-		else
-		{
-			int quotient = col / 26;
-			int remainder = col % 26;
-			return String.valueOf(colcodes.charAt(quotient-1)) + String.valueOf(colcodes.charAt(remainder));
-		}		
 	}
 	
 	@Override
 	protected void resetReader() {
-		sheet = null;
 		defaults = null;
 	}
 	
@@ -501,6 +502,8 @@ public class OOXMLReader extends AbstractDendroFileReader {
 		public SafeIntYear startYear;
 		public String label;
 		public ArrayList<Double> dataVals = new ArrayList<Double>();
+		public int lastRow;
+		public boolean ended = false;
 		
 	}
 	
@@ -34,11 +34,73 @@ public class OOXMLWriter extends CSVMatrixWriter {
 	IMetadataFieldSet defaults;
 	INamingConvention naming = new NumericalNamingConvention();
 	
+	private int streamingThreshold = OOXMLFile.DEFAULT_STREAMING_THRESHOLD;
+	private int rowWindow = OOXMLFile.DEFAULT_ROW_WINDOW;
+	private boolean compressTempFiles = true;
+	
 	public OOXMLWriter() {
 		super(TridasToMatrixDefaults.class, new OOXMLFormat());
 		clazz = OOXMLFile.class;
 	}
 	
+	/**
+	 * Set the number of cells above which files are written with a streaming
+	 * workbook
+	 * 
+	 * @param argCells
+	 * @see OOXMLFile#setStreamingThreshold(int)
+	 */
+	public void setStreamingThreshold(int argCells) {
+		streamingThreshold = argCells;
+		configureFiles();
+	}
+	
+	/**
+	 * Set how many rows a streaming workbook keeps in memory
+	 * 
+	 * @param argRows
+	 * @see OOXMLFile#setRowWindow(int)
+	 */
+	public void setRowWindow(int argRows) {
+		if (argRows < 1) {
+			throw new IllegalArgumentException("Row window must be at least 1");
+		}
+		rowWindow = argRows;
+		configureFiles();
+	}
+	
+	/**
+	 * Set whether streaming workbooks compress their temporary files
+	 * 
+	 * @param argCompress
+	 * @see OOXMLFile#setCompressTempFiles(boolean)
+	 */
+	public void setCompressTempFiles(boolean argCompress) {
+		compressTempFiles = argCompress;
+		configureFiles();
+	}
+	
+	@Override
+	protected void addToFileList(IDendroFile argFile) {
+		configure(argFile);
+		super.addToFileList(argFile);
+	}
+	
+	private void configureFiles() {
+		for (IDendroFile file : getFiles()) {
+			configure(file);
+		}
+	}
+	
+	private void configure(IDendroFile argFile) {
+		if (argFile instanceof OOXMLFile) {
+			OOXMLFile file = (OOXMLFile) argFile;
+			file.setStreamingThreshold(streamingThreshold);
+			file.setRowWindow(rowWindow);
+			file.setCompressTempFiles(compressTempFiles);
+		}
+	}
+	
 	@Override
 	public void saveFileToDisk(String argOutputFolder, String argFilename, IDendroFile argFile) throws FilePermissionException {
 		
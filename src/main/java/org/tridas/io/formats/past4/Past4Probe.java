@@ -0,0 +1,33 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.formats.past4;
+
+import org.tridas.io.detection.FileSample;
+import org.tridas.io.detection.FormatProbe;
+
+/**
+ * PAST4 project files are XML with a <code>PAST_4_PROJECT_FILE</code> root
+ * element.
+ *
+ * @author agent
+ */
+public class Past4Probe implements FormatProbe {
+
+	@Override
+	public float probe(FileSample argSample) {
+		return argSample.getText().contains("<PAST_4_PROJECT_FILE") ? 0.95f : 0f;
+	}
+}
@@ -16,6 +16,7 @@
 package org.tridas.io.formats.sheffield;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -42,6 +43,7 @@ import org.tridas.io.formats.sheffield.TridasToSheffieldDefaults.SheffieldPeriod
 import org.tridas.io.formats.sheffield.TridasToSheffieldDefaults.SheffieldPithCode;
 import org.tridas.io.formats.sheffield.TridasToSheffieldDefaults.SheffieldShapeCode;
 import org.tridas.io.formats.sheffield.TridasToSheffieldDefaults.SheffieldVariableCode;
+import org.tridas.io.util.LineSource;
 import org.tridas.io.util.SafeIntYear;
 import org.tridas.schema.ComplexPresenceAbsence;
 import org.tridas.schema.SeriesLink;
@@ -74,14 +76,31 @@ public class SheffieldReader extends AbstractDendroFileReader {
 		super(SheffieldToTridasDefaults.class, new SheffieldFormat());
 	}
 	
-	@SuppressWarnings("unchecked")
 	@Override
 	protected void parseFile(String[] argFileString, IMetadataFieldSet argDefaultFields)
 			throws InvalidDendroFileException {
+		try {
+			parseFile(LineSource.fromStrings(argFileString), argDefaultFields);
+		} catch (IOException e) {
+			// Can't happen with an in-memory source
+			throw new InvalidDendroFileException(I18n.getText("fileio.loadfailed"));
+		}
+	}
+	
+	@Override
+	protected boolean supportsLineSource() {
+		return true;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	protected void parseFile(LineSource argSource, IMetadataFieldSet argDefaultFields)
+			throws InvalidDendroFileException, IOException {
 		
 		defaults = (SheffieldToTridasDefaults) argDefaultFields;
 		// Check the file is valid
-		checkFile(argFileString);
+		checkFile(argSource);
+		argSource.rewind();
 		
 		if(this.getOriginalFilename()!=null)
 		{
@@ -92,7 +111,7 @@ public class SheffieldReader extends AbstractDendroFileReader {
 		ArrayList<TridasValue> ringWidthValues = new ArrayList<TridasValue>();
 		SafeIntYear startYear = null;
 		for (int lineNum = 1; lineNum <= 22; lineNum++) {
-			String lineString = argFileString[lineNum - 1];
+			String lineString = argSource.nextLine();
 						
 			// Line 1 - Series title
 			if (lineNum == 1) {
@@ -483,21 +502,21 @@ public class SheffieldReader extends AbstractDendroFileReader {
 			
 		}
 		
-		int lineNum = 23;
-		// Extract actual values
-		for (int i = 22; i < argFileString.length; i++) {
+		// Extract actual values up to the H, R or F marker line
+		String markerLine = null;
+		String lineString;
+		while ((lineString = argSource.nextLine()) != null) {
 			
 			TridasValue v = new TridasValue();
 			
-			if (!argFileString[i].trim().equals("H") && !argFileString[i].trim().equals("R")
-					&& !argFileString[i].trim().equals("F")) {
+			if (!isMarkerLine(lineString)) {
 				
-				v.setValue(argFileString[i].trim());
+				v.setValue(lineString.trim());
 				ringWidthValues.add(v);
-				log.debug("value = " + String.valueOf(argFileString[i]));
+				log.debug("value = " + lineString);
 			}
 			else {
-				lineNum = i + 1;
+				markerLine = lineString;
 				break;
 			}
 		}
@@ -512,22 +531,22 @@ public class SheffieldReader extends AbstractDendroFileReader {
 		}
 		
 		// See if we can get counts
-		if (argFileString[lineNum - 1].trim().equals("H")) {
-			for (int i = lineNum; i < argFileString.length; i++) {
+		if (markerLine != null && markerLine.trim().equals("H")) {
+			int i = 0;
+			while ((lineString = argSource.nextLine()) != null) {
 				TridasValue v = null;
 				try {
-					v = ringWidthValues.get(i - lineNum);
+					v = ringWidthValues.get(i++);
 				} catch (Exception e) {
 					break;
 				}
 				
-				if (!argFileString[i].trim().equals("H") && !argFileString[i].trim().equals("R")
-						&& !argFileString[i].trim().equals("F")) {
+				if (!isMarkerLine(lineString)) {
 					
 					Integer count;
 					
 					try {
-						count = Integer.parseInt(argFileString[i]);
+						count = Integer.parseInt(lineString);
 					} catch (NumberFormatException e) {
 						break;
 					}
@@ -536,7 +555,6 @@ public class SheffieldReader extends AbstractDendroFileReader {
 					log.debug("count = " + String.valueOf(count));
 				}
 				else {
-					lineNum = i;
 					break;
 				}
 			}
@@ -687,26 +705,40 @@ public class SheffieldReader extends AbstractDendroFileReader {
 	}
 		
 	/**
-	 * Check that this is a valid Sheffield DFormat file
+	 * Whether this line is one of the H, R or F markers that end the block of values
 	 * 
-	 * @param argStrings
+	 * @param line
+	 * @return
+	 */
+	private boolean isMarkerLine(String line) {
+		String trimmed = line.trim();
+		return trimmed.equals("H") || trimmed.equals("R") || trimmed.equals("F");
+	}
+	
+	/**
+	 * Check that this is a valid Sheffield DFormat file. The source is left
+	 * part way through the file.
+	 * 
+	 * @param argSource
 	 * @throws InvalidDendroFileException
+	 * @throws IOException
 	 */
-	private void checkFile(String[] argStrings) throws InvalidDendroFileException {
+	private void checkFile(LineSource argSource) throws InvalidDendroFileException, IOException {
 		log.debug("Checking file to see if it looks like a D Format file");
 		
-		// File too short to be valid
-		if (argStrings.length < 25) {
-			throw new InvalidDendroFileException(I18n.getText("sheffield.incompleteHeader"), argStrings.length);
-		}
-		
 		// Check none of the header lines are empty
-		for (int i = 0; i < 24; i++) {
-			if (argStrings[i] == "" || argStrings[i] == null) {
-				throw new InvalidDendroFileException(I18n.getText("sheffield.blankLine"), i + 1);
+		String line;
+		while ((line = argSource.nextLine()) != null && argSource.getLineNumber() <= 24) {
+			if (line == "") {
+				throw new InvalidDendroFileException(I18n.getText("sheffield.blankLine"), argSource.getLineNumber());
 			}
 		}
 		
+		// File too short to be valid.  We only need to know there are at least 25 lines
+		if (line == null || argSource.getLineNumber() < 25) {
+			throw new InvalidDendroFileException(I18n.getText("sheffield.incompleteHeader"), argSource.getLineNumber());
+		}
+		
 	}
 	
 	private enum NorthingEasting {
@@ -15,15 +15,16 @@
  */
 package org.tridas.io.formats.tridas;
 
+import java.io.IOException;
 import java.io.StringWriter;
-import java.net.URL;
+import java.io.Writer;
 import java.util.ArrayList;
 
-import javax.xml.XMLConstants;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
+import javax.xml.transform.Result;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamResult;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,12 +32,11 @@ import org.tridas.interfaces.ITridasSeries;
 import org.tridas.io.I18n;
 import org.tridas.io.IDendroFile;
 import org.tridas.io.TridasIO;
-import org.tridas.io.TridasNamespacePrefixMapper;
 import org.tridas.io.defaults.IMetadataFieldSet;
 import org.tridas.io.exceptions.ImpossibleConversionException;
 import org.tridas.io.transform.TridasVersionTransformer;
 import org.tridas.io.transform.TridasVersionTransformer.TridasVersion;
-import org.tridas.io.util.IOUtils;
+import org.tridas.io.util.TridasJAXBCache;
 import org.tridas.schema.TridasProject;
 import org.tridas.schema.TridasTridas;
 import org.xml.sax.SAXException;
@@ -58,8 +58,12 @@ public class TridasFile implements IDendroFile {
 	
 	private IMetadataFieldSet defaults;
 	private StringWriter swriter;
+	// Output version that was asked for when swriter was last filled
+	private TridasVersion requestedVersion = null;
 	
 	private TridasVersion outputVersion = TridasIO.tridasVersionUsedInternally;
+	// Version the projects are held in
+	private TridasVersion internalVersion = TridasIO.tridasVersionUsedInternally;
 	
 	public TridasFile(IMetadataFieldSet argDefaults) {
 		defaults = argDefaults;
@@ -82,34 +86,52 @@ public class TridasFile implements IDendroFile {
 	}
 	
 	public void validate() throws ImpossibleConversionException
+	{
+		swriter = new StringWriter();
+		requestedVersion = outputVersion;
+		marshal(new StreamResult(swriter));
+	}
+	
+	/**
+	 * Marshals the container to the result, validating it against the schema and
+	 * converting it to the output version on the way.
+	 * 
+	 * @param argResult
+	 * @throws ImpossibleConversionException
+	 */
+	private void marshal(Result argResult) throws ImpossibleConversionException
 	{
 		Schema schema = null;
 		
-		// Validate output against schema first
-		SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-		URL file = IOUtils.getFileInJarURL("schemas/tridas.xsd");
-		if(file == null){
+		// Validate output against schema first.  The schema is only compiled once
+		// and then shared by all files.
+		try {
+			schema = TridasJAXBCache.getSchema(TridasJAXBCache.TRIDAS_SCHEMA);
+		} catch (SAXException e) {
+			log.error("Error getting TRiDaS schema for validation, not using.", e);
+			throw new ImpossibleConversionException(I18n.getText("fileio.errorGettingSchema"));
+		}
+		if(schema == null){
 			log.error("Could not find schema file");
-		}else{
+		}
+		
+		// If a different version of TRiDaS has been requested, the marshaller
+		// writes straight into the compiled version transform
+		Result result = argResult;
+		if(!outputVersion.equals(internalVersion))
+		{
 			try {
-				schema = factory.newSchema(file);
-			} catch (SAXException e) {
-				log.error("Error getting TRiDaS schema for validation, not using.", e);
-				throw new ImpossibleConversionException(I18n.getText("fileio.errorGettingSchema"));
+				result = new SAXResult(TridasVersionTransformer.newTransformPipeline(
+						internalVersion, outputVersion, argResult));
+			} catch (Exception e) {
+				log.error("Failed to convert TRiDaS to version: "+outputVersion.getVersionString()+".  Just sending what I've got.");
 			}
 		}
 		
-		swriter = new StringWriter();
 		// Marshaller code goes here...
-		JAXBContext jc;
 		try {
-			jc = JAXBContext.newInstance("org.tridas.schema");
-			Marshaller m = jc.createMarshaller();
-			m.setProperty("com.sun.xml.bind.namespacePrefixMapper", new TridasNamespacePrefixMapper());
-			if (schema != null) {
-				m.setSchema(schema);
-			}
-			m.marshal(getTridasContainer(), swriter);
+			Marshaller m = TridasJAXBCache.getMarshaller(schema);
+			m.marshal(getTridasContainer(), result);
 
 		} catch (Exception e) {
 			log.error("Jaxb error", e);
@@ -133,7 +155,7 @@ public class TridasFile implements IDendroFile {
 		if (projects == null) {
 			return null;
 		}
-		if(swriter==null)
+		if(swriter==null || !outputVersion.equals(requestedVersion))
 		{
 			try {
 				validate();
@@ -144,13 +166,27 @@ public class TridasFile implements IDendroFile {
 			}
 		}
 		
+		// The marshalled XML has already been converted to the requested version
+		return swriter.getBuffer().toString().split("\n");
+	}
+	
+	/**
+	 * Marshals straight into the writer, rather than building the whole file as
+	 * a string first.
+	 * 
+	 * @see org.tridas.io.IDendroFile#writeTo(java.io.Writer)
+	 */
+	@Override
+	public void writeTo(Writer argWriter) throws IOException {
+		if (projects == null) {
+			throw new IOException(I18n.getText("fileio.saveFailed"));
+		}
 		try {
-			// Try and convert to the requested version
-			return TridasVersionTransformer.transformTridas(swriter.getBuffer().toString().split("\n"), outputVersion);
-		} catch (Exception e) {
-			log.error("Failed to convert TRiDaS to version: "+outputVersion.getVersionString()+".  Just sending what I've got.");
-			return swriter.getBuffer().toString().split("\n");
+			marshal(new StreamResult(argWriter));
+		} catch (ImpossibleConversionException e) {
+			throw new IOException(e.getLocalizedMessage(), e);
 		}
+		argWriter.flush();
 	}
 	
 	/**
@@ -197,5 +233,16 @@ public class TridasFile implements IDendroFile {
 	public void setOutputVersion(TridasVersion outputVersion) {
 		this.outputVersion = outputVersion;
 	}
+	
+	/**
+	 * Set the TRiDaS schema version the projects are held in, which is
+	 * converted to the output version when the file is written
+	 * 
+	 * @param argVersion
+	 */
+	public void setInternalVersion(TridasVersion argVersion) {
+		internalVersion = argVersion;
+		swriter = null;
+	}
 
 }
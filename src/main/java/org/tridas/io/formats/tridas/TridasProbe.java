@@ -0,0 +1,42 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.formats.tridas;
+
+import org.tridas.io.detection.FileSample;
+import org.tridas.io.detection.FormatProbe;
+
+/**
+ * TRiDaS files are XML documents in the TRiDaS namespace.
+ *
+ * @author agent
+ */
+public class TridasProbe implements FormatProbe {
+
+	@Override
+	public float probe(FileSample argSample) {
+		String text = argSample.getText();
+		if (!text.trim().startsWith("<")) {
+			return 0f;
+		}
+		if (text.contains("http://www.tridas.org/")) {
+			return 0.95f;
+		}
+		if (text.contains("<tridas") || text.contains(":tridas")) {
+			return 0.5f;
+		}
+		return 0f;
+	}
+}
@@ -16,6 +16,8 @@
 package org.tridas.io.formats.tridas;
 
 import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
 import java.io.StringReader;
 import java.net.URL;
 import java.util.ArrayList;
@@ -24,16 +26,17 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.XMLConstants;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.UnmarshalException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
@@ -47,7 +50,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tridas.io.AbstractDendroFileReader;
 import org.tridas.io.I18n;
-import org.tridas.io.TridasIO;
 import org.tridas.io.TridasNamespacePrefixMapper;
 import org.tridas.io.defaults.IMetadataFieldSet;
 import org.tridas.io.defaults.TridasMetadataFieldSet;
@@ -57,7 +59,10 @@ import org.tridas.io.exceptions.InvalidDendroFileException;
 import org.tridas.io.transform.TridasVersionTransformer;
 import org.tridas.io.transform.TridasVersionTransformer.TridasVersion;
 import org.tridas.io.util.IOUtils;
+import org.tridas.io.util.LineSource;
+import org.tridas.io.util.TridasJAXBCache;
 import org.tridas.io.util.TridasUtils;
+import org.tridas.schema.TridasLocationGeometry;
 import org.tridas.schema.TridasObject;
 import org.tridas.schema.TridasProject;
 import org.tridas.schema.TridasTridas;
@@ -67,7 +72,6 @@ import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
-import com.jhlabs.map.proj.ProjectionException;
 
 /**
  * Reader for the TRiDaS file format. This is little more than a
@@ -79,6 +83,11 @@ import com.jhlabs.map.proj.ProjectionException;
 public class TridasReader extends AbstractDendroFileReader {
 	
 	private static final Logger log = LoggerFactory.getLogger(TridasReader.class);
+	private static final String SCHEMA_RESOURCE = "tridas.xsd";
+	private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+	static {
+		xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
 	
 	private List<TridasProject> projects = null;
 	private TridasMetadataFieldSet defaults = null;
@@ -130,7 +139,7 @@ public class TridasReader extends AbstractDendroFileReader {
 			// Version parsed successfully so we can now transform to the version of TRiDaS that we're using internally.
 			// If it's already that version then the file will be untouched.
 			try {
-				argFileString = TridasVersionTransformer.transformTridas(argFileString, TridasIO.tridasVersionUsedInternally);
+				argFileString = TridasVersionTransformer.transformTridas(argFileString, getContext().getTridasVersion());
 			} catch (Exception e) {
 				// TODO Auto-generated catch block
 				e.printStackTrace();
@@ -141,9 +150,8 @@ public class TridasReader extends AbstractDendroFileReader {
 	
 		
 		// Validate the file against the TRiDaS schema
-		SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-		URL file = IOUtils.getFileInJarURL("tridas.xsd");
-		Schema schema = null;
+		URL file = IOUtils.getFileInJarURL(SCHEMA_RESOURCE);
+		Validator validator = null;
 		if(file==null)
 		{
 			log.error(I18n.getText("tridas.schemaMissing"));
@@ -151,9 +159,10 @@ public class TridasReader extends AbstractDendroFileReader {
 		}
 		else
 		{
-			// Next try to load the schema to validate
+			// Next try to load the schema to validate.  The compiled schema is shared
+			// between readers, and each thread reuses its own validator
 			try {
-				schema = factory.newSchema(file);
+				validator = TridasJAXBCache.getValidator(SCHEMA_RESOURCE);
 			} catch (Exception e) {
 				// if we can't find the schema it's ok, doesn't mean it's not an invalid
 				// dendro file
@@ -179,26 +188,25 @@ public class TridasReader extends AbstractDendroFileReader {
 			reader = new StringReader(fileString.toString());
 			
 			// Do the validation
-			Validator validator = schema.newValidator();
-			StreamSource source = new StreamSource();
-			source.setReader(reader);
-			try {
-				validator.validate(source);
-			} catch (SAXException ex) 
-			{
-				throw new InvalidDendroFileException(I18n.getText("tridas.schemaException", ex.getLocalizedMessage()));
-			} catch (IOException e) {
-				throw new InvalidDendroFileException(I18n.getText("tridas.schemaIOError"));
+			if (validator != null) {
+				StreamSource source = new StreamSource();
+				source.setReader(reader);
+				try {
+					validator.validate(source);
+				} catch (SAXException ex) 
+				{
+					throw new InvalidDendroFileException(I18n.getText("tridas.schemaException", ex.getLocalizedMessage()));
+				} catch (IOException e) {
+					throw new InvalidDendroFileException(I18n.getText("tridas.schemaIOError"));
+				}
 			}
 		}
 
 		
 		// All should be ok so now unmarshall to Java classes
-		JAXBContext jc;
 		reader = new StringReader(fileString.toString());
 		try {
-			jc = JAXBContext.newInstance("org.tridas.schema");
-			Unmarshaller u = jc.createUnmarshaller();
+			Unmarshaller u = TridasJAXBCache.getUnmarshaller(null);
 			// Read the file into the project
 			
 			Object root = u.unmarshal(reader);
@@ -221,8 +229,142 @@ public class TridasReader extends AbstractDendroFileReader {
 			addWarning(new ConversionWarning(WarningType.DEFAULT, I18n.getText("fileio.loadfailed")));
 		}
 		
-		// Now check to see if there are any coordinates in the file and
-		// convert to WGS84 if possible
+		projectLocationsToWGS84();
+	}
+	
+	/**
+	 * Stream the file straight from the LineSource.  The root element's namespace
+	 * is read to find the TRiDaS version, then the same stream is validated and
+	 * unmarshalled in a single pass, so the file is never held in memory as text.
+	 * Files in an older or newer version of TRiDaS than we use internally need
+	 * transforming first, and so fall back to the in-memory route.
+	 */
+	@Override
+	protected void parseFile(LineSource argSource, IMetadataFieldSet argDefaultFields)
+			throws InvalidDendroFileException, IOException {
+		defaults = (TridasMetadataFieldSet) argDefaultFields;
+		
+		XMLStreamReader xml = null;
+		try {
+			xml = xmlInputFactory.createXMLStreamReader(skipToMarkup(argSource.asReader()));
+			
+			// Detect what version of TRiDaS this XML file adheres to...
+			TridasVersion xmlFileVersion = TridasVersionTransformer.getTridasVersionFromRootElement(xml);
+			if(xmlFileVersion==null)
+			{
+				throw new InvalidDendroFileException("This is not a valid TRiDaS file.  The file is missing a namespace declaration, or the declaration is invalid");
+			}
+			else if(xmlFileVersion.equals(TridasVersion.V_FUTURE))
+			{
+				throw new InvalidDendroFileException(I18n.getText("tridas.versionTooNew"));
+			}
+			else if(!xmlFileVersion.equals(getContext().getTridasVersion()))
+			{
+				xml.close();
+				xml = null;
+				argSource.rewind();
+				parseFile(argSource.toArray(), argDefaultFields);
+				return;
+			}
+			
+			// Validate while unmarshalling
+			Schema schema = null;
+			if(IOUtils.getFileInJarURL(SCHEMA_RESOURCE)==null)
+			{
+				log.error(I18n.getText("tridas.schemaMissing"));
+				addWarning(new ConversionWarning(WarningType.INVALID, I18n.getText("tridas.schemaMissing")));
+			}
+			else
+			{
+				try {
+					schema = TridasJAXBCache.getSchema(SCHEMA_RESOURCE);
+				} catch (SAXException e) {
+					// if we can't find the schema it's ok, doesn't mean it's not an invalid
+					// dendro file
+					log.error(I18n.getText("tridas.schemaMissing", e.getLocalizedMessage()));
+					addWarning(new ConversionWarning(WarningType.INVALID, I18n.getText("tridas.schemaMissing", e
+							.getLocalizedMessage())));
+				}
+			}
+			
+			Object root;
+			try {
+				root = TridasJAXBCache.getUnmarshaller(schema).unmarshal(xml);
+			} catch (UnmarshalException e) {
+				Throwable cause = (e.getLinkedException() != null) ? e.getLinkedException() : e.getCause();
+				if (cause instanceof SAXException) {
+					throw new InvalidDendroFileException(I18n.getText("tridas.schemaException", cause.getLocalizedMessage()));
+				}
+				if (cause instanceof XMLStreamException || cause instanceof IOException) {
+					throw new InvalidDendroFileException(I18n.getText("tridas.schemaIOError"));
+				}
+				addWarning(new ConversionWarning(WarningType.DEFAULT, I18n.getText("fileio.loadfailed")));
+				root = null;
+			} catch (JAXBException e) {
+				addWarning(new ConversionWarning(WarningType.DEFAULT, I18n.getText("fileio.loadfailed")));
+				root = null;
+			}
+			
+			if(root instanceof TridasProject)
+			{
+				projects = new ArrayList<TridasProject>();
+				projects.add((TridasProject) root);
+			}
+			else if (root instanceof TridasTridas)
+			{
+				projects = ((TridasTridas) root).getProjects();
+			}
+			else if (root != null)
+			{
+				addWarning(new ConversionWarning(WarningType.DEFAULT, I18n.getText("fileio.loadfailed")));
+			}
+		} catch (XMLStreamException e) {
+			throw new InvalidDendroFileException(I18n.getText("tridas.schemaException", e.getLocalizedMessage()));
+		} finally {
+			if (xml != null) {
+				try {
+					xml.close();
+				} catch (XMLStreamException e) {}
+			}
+		}
+		
+		if (projects != null) {
+			projectLocationsToWGS84();
+		}
+	}
+	
+	/**
+	 * @see org.tridas.io.AbstractDendroFileReader#supportsLineSource()
+	 */
+	@Override
+	protected boolean supportsLineSource() {
+		return true;
+	}
+	
+	/**
+	 * Skip anything before the first '<' (e.g. a byte order mark), as the
+	 * in-memory route does for the first line.
+	 */
+	private static Reader skipToMarkup(Reader argReader) throws IOException {
+		PushbackReader reader = new PushbackReader(argReader);
+		int c;
+		while ((c = reader.read()) != -1 && c != '<') {}
+		if (c != -1) {
+			reader.unread(c);
+		}
+		return reader;
+	}
+	
+	/**
+	 * Check to see if there are any coordinates in the file and
+	 * convert to WGS84 if possible
+	 */
+	private void projectLocationsToWGS84()
+	{
+		// Gather the points so they can be projected together
+		ArrayList<TridasLocationGeometry> geometries = new ArrayList<TridasLocationGeometry>();
+		ArrayList<PointType> points = new ArrayList<PointType>();
+		
 		for(TridasProject p : projects)
 		{
 			for(TridasObject o: TridasUtils.getObjectList(p))
@@ -243,21 +385,8 @@ public class TridasReader extends AbstractDendroFileReader {
 							}
 							else
 							{
-								try{
-									GMLPointSRSHandler tph = new GMLPointSRSHandler(point);
-									o.getLocation().getLocationGeometry().setPoint(tph.getAsWGS84PointType());
-									if(tph.hasSpecificProjection())
-									{
-										addWarning(new ConversionWarning(WarningType.INFORMATION, 
-												I18n.getText("srsname.projectedToWGS84")));
-									}
-								}
-								catch (ProjectionException ex)
-								{
-									o.getLocation().getLocationGeometry().getPoint().setSrsName(SpatialUtils.WGS84);
-									addWarning(new ConversionWarning(WarningType.ASSUMPTION, 
-											I18n.getText("srsname.notSupportedAssumingWGS84")));
-								}
+								geometries.add(o.getLocation().getLocationGeometry());
+								points.add(point);
 							}
 						}
 					}
@@ -265,7 +394,26 @@ public class TridasReader extends AbstractDendroFileReader {
 			}
 		}
 		
-		
+		List<GMLPointSRSHandler> handlers = GMLPointSRSHandler.projectToWGS84(points);
+		for(int i=0; i<handlers.size(); i++)
+		{
+			GMLPointSRSHandler tph = handlers.get(i);
+			if(tph!=null)
+			{
+				geometries.get(i).setPoint(tph.getAsWGS84PointType());
+				if(tph.hasSpecificProjection())
+				{
+					addWarning(new ConversionWarning(WarningType.INFORMATION, 
+							I18n.getText("srsname.projectedToWGS84")));
+				}
+			}
+			else
+			{
+				points.get(i).setSrsName(SpatialUtils.WGS84);
+				addWarning(new ConversionWarning(WarningType.ASSUMPTION, 
+						I18n.getText("srsname.notSupportedAssumingWGS84")));
+			}
+		}
 	}
 	
 	/**
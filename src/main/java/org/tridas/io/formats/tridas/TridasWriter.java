@@ -78,6 +78,7 @@ public class TridasWriter extends AbstractDendroCollectionWriter {
 		
 		TridasFile file = new TridasFile(argDefaults);
 		file.setOutputVersion(outputVersion);
+		file.setInternalVersion(getContext().getTridasVersion());
 
 		for(TridasProject p : argContainer.getProjects())
 		{
@@ -136,6 +137,7 @@ public class TridasWriter extends AbstractDendroCollectionWriter {
 		
 		TridasFile file = new TridasFile(argDefaults);
 		file.setOutputVersion(outputVersion);
+		file.setInternalVersion(getContext().getTridasVersion());
 		
 		file.addTridasProject(p);
 		
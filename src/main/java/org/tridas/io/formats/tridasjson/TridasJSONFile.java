@@ -17,14 +17,10 @@ package org.tridas.io.formats.tridasjson;
 
 import java.io.IOException;
 import java.io.StringWriter;
-import java.net.URL;
 import java.util.ArrayList;
 
-import javax.xml.XMLConstants;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 
 import org.json.simple.JSONObject;
 import org.slf4j.Logger;
@@ -33,11 +29,10 @@ import org.tridas.interfaces.ITridasSeries;
 import org.tridas.io.I18n;
 import org.tridas.io.IDendroFile;
 import org.tridas.io.TridasIO;
-import org.tridas.io.TridasNamespacePrefixMapper;
 import org.tridas.io.defaults.IMetadataFieldSet;
 import org.tridas.io.exceptions.ImpossibleConversionException;
 import org.tridas.io.transform.TridasVersionTransformer.TridasVersion;
-import org.tridas.io.util.IOUtils;
+import org.tridas.io.util.TridasJAXBCache;
 import org.tridas.io.util.TridasUtils;
 import org.tridas.schema.ControlledVoc;
 import org.tridas.schema.TridasDerivedSeries;
@@ -106,30 +101,22 @@ public class TridasJSONFile implements IDendroFile {
 	{
 		Schema schema = null;
 		
-		// Validate output against schema first
-		SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-		URL file = IOUtils.getFileInJarURL("schemas/tridas.xsd");
-		if(file == null){
+		// Validate output against schema first.  The schema is only compiled once
+		// and then shared by all files.
+		try {
+			schema = TridasJAXBCache.getSchema(TridasJAXBCache.TRIDAS_SCHEMA);
+		} catch (SAXException e) {
+			log.error("Error getting TRiDaS schema for validation, not using.", e);
+			throw new ImpossibleConversionException(I18n.getText("fileio.errorGettingSchema"));
+		}
+		if(schema == null){
 			log.error("Could not find schema file");
-		}else{
-			try {
-				schema = factory.newSchema(file);
-			} catch (SAXException e) {
-				log.error("Error getting TRiDaS schema for validation, not using.", e);
-				throw new ImpossibleConversionException(I18n.getText("fileio.errorGettingSchema"));
-			}
 		}
 		
 		swriter = new StringWriter();
 		// Marshaller code goes here...
-		JAXBContext jc;
 		try {
-			jc = JAXBContext.newInstance("org.tridas.schema");
-			Marshaller m = jc.createMarshaller();
-			m.setProperty("com.sun.xml.bind.namespacePrefixMapper", new TridasNamespacePrefixMapper());
-			if (schema != null) {
-				m.setSchema(schema);
-			}
+			Marshaller m = TridasJAXBCache.getMarshaller(schema);
 			m.marshal(getTridasContainer(), swriter);
 
 		} catch (Exception e) {
@@ -15,7 +15,10 @@
  */
 package org.tridas.io.formats.tucson;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -29,6 +32,7 @@ import org.tridas.io.exceptions.ConversionWarning;
 import org.tridas.io.exceptions.ConversionWarning.WarningType;
 import org.tridas.io.formats.tucson.TridasToTucsonDefaults.TucsonField;
 import org.tridas.io.util.AstronomicalYear;
+import org.tridas.io.util.IOUtils;
 import org.tridas.io.util.SafeIntYear;
 import org.tridas.io.util.StringUtils;
 import org.tridas.io.util.YearRange;
@@ -100,11 +104,28 @@ public class TucsonFile implements IDendroFile {
 	@Override
 	public String[] saveToString() {
 		
-		StringBuilder string = new StringBuilder();
-		
-		writeFileHeader(string);
-		writeSeriesData(string);
-		return string.toString().split("\n");
+		StringWriter string = new StringWriter();
+		try {
+			writeTo(string);
+		} catch (IOException e) {
+			// not gonna happen with a StringWriter
+			log.error("Error writing Tucson file", e);
+		}
+		return IOUtils.splitLines(string.toString());
+	}
+	
+	/**
+	 * Writes the file line by line, without building the whole file in memory
+	 * first.
+	 * 
+	 * @see org.tridas.io.IDendroFile#writeTo(java.io.Writer)
+	 */
+	@Override
+	public void writeTo(Writer argWriter) throws IOException {
+		BufferedWriter writer = new BufferedWriter(argWriter);
+		writeFileHeader(writer);
+		writeSeriesData(writer);
+		writer.flush();
 	}
 	
 	
@@ -116,7 +137,7 @@ public class TucsonFile implements IDendroFile {
 	 * @param string
 	 * @throws IOException
 	 */
-	protected void writeSeriesData(StringBuilder string) {
+	protected void writeSeriesData(BufferedWriter string) throws IOException {
 
 		
 		// Loop through each series in our list
@@ -228,12 +249,12 @@ public class TucsonFile implements IDendroFile {
 				if (y.compareTo(end) >= 0 || (isChronology && y.compareTo(start) < 0)) {
 					if (!isChronology) {
 						// "   999", and STOP
-						string.append(StringUtils.leftPad(eofMarker, 6));
+						string.write(StringUtils.leftPad(eofMarker, 6));
 						break;
 					}
 					else {
 						// "9990   " or "9990  0"
-						string.append(isSummed ? StringUtils.rightPad(eofMarker, 6)+"0": StringUtils.rightPad(eofMarker, 7));
+						string.write(isSummed ? StringUtils.rightPad(eofMarker, 6)+"0": StringUtils.rightPad(eofMarker, 7));
 					}
 				}
 				else {
@@ -259,7 +280,7 @@ public class TucsonFile implements IDendroFile {
 					
 					// Print data value, either left padded to 4 or 6 digits for measurementSeries and derivedSeries
 					// respectively
-					string.append(StringUtils.leftPad
+					string.write(StringUtils.leftPad
 							(thisDataValue, 
 							(isChronology ? 4 : 6)));
 					
@@ -267,12 +288,12 @@ public class TucsonFile implements IDendroFile {
 					if (isChronology) {
 						if(data.get(y.diff(start)).isSetCount())
 						{
-							string.append(StringUtils.leftPad(data.get(y.diff(start)).getCount().toString(), 3));
+							string.write(StringUtils.leftPad(data.get(y.diff(start)).getCount().toString(), 3));
 						}
 						else
 						{
 							// This series is a derivedSeries but has no count info.  Set count to 1.
-							string.append(StringUtils.leftPad("1", 3));
+							string.write(StringUtils.leftPad("1", 3));
 						}
 					}
 
@@ -286,14 +307,14 @@ public class TucsonFile implements IDendroFile {
 				// eoln
  				 				
 				if (y.column() == 9) {
-					string.append("\n");
+					string.newLine();
 				}
 				
 				// increment year counter
 				y = y.add(+1);
 			}
 			
-			string.append("\n");
+			string.newLine();
 			
 		}
 	}
@@ -311,7 +332,7 @@ public class TucsonFile implements IDendroFile {
 	 *            The year we're at
 	 * @throws IOException
 	 */
-	private void writeRowHeader(StringBuilder string, String code, int colWidth, AstronomicalYear y) {
+	private void writeRowHeader(BufferedWriter string, String code, int colWidth, AstronomicalYear y) throws IOException {
 		String yearMarker; // don't print the decade for the first one
 		if (y.compareTo(allSeriesRange.getStart()) <= 0) {
 			yearMarker = allSeriesRange.getStart().toAstronomicalYear().toString();
@@ -322,7 +343,7 @@ public class TucsonFile implements IDendroFile {
 
 		yearMarker = StringUtils.leftPad(yearMarker, 4);
 		code = StringUtils.rightPad(code, colWidth).substring(0,8);
-		string.append(code + yearMarker);
+		string.write(code + yearMarker);
 	}
 	
 	
@@ -330,8 +351,9 @@ public class TucsonFile implements IDendroFile {
 	 * Writes the header for this file
 	 * 
 	 * @param string
+	 * @throws IOException
 	 */
-	private void writeFileHeader(StringBuilder string) {
+	private void writeFileHeader(BufferedWriter string) throws IOException {
 		// Write header info
 		String siteCode = fileDefaults.getStringDefaultValue(TucsonField.SITE_CODE).getStringValue();
 		String siteName = fileDefaults.getStringDefaultValue(TucsonField.SITE_NAME).getStringValue();
@@ -351,10 +373,13 @@ public class TucsonFile implements IDendroFile {
 		String investigator = fileDefaults.getStringDefaultValue(TucsonField.INVESTIGATOR).getStringValue();
 		String compDate = fileDefaults.getStringDefaultValue(TucsonField.COMP_DATE).getStringValue();
 		
-		string.append(siteCode + "1" +StringUtils.getSpaces(1) + siteName + speciesCode + StringUtils.getSpaces(15) + "\n");
-		string.append(siteCode + "2" +StringUtils.getSpaces(1) + stateCountry + speciesName  
-				+ elevation + latlong + StringUtils.getSpaces(10) + getRangeAsString() + StringUtils.getSpaces(4)+"\n");
-		string.append(siteCode + "3" +StringUtils.getSpaces(1) + investigator + compDate + "\n");
+		string.write(siteCode + "1" +StringUtils.getSpaces(1) + siteName + speciesCode + StringUtils.getSpaces(15));
+		string.newLine();
+		string.write(siteCode + "2" +StringUtils.getSpaces(1) + stateCountry + speciesName  
+				+ elevation + latlong + StringUtils.getSpaces(10) + getRangeAsString() + StringUtils.getSpaces(4));
+		string.newLine();
+		string.write(siteCode + "3" +StringUtils.getSpaces(1) + investigator + compDate);
+		string.newLine();
 	}
 	
 	
@@ -0,0 +1,284 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.formats.tucson;
+
+/**
+ * Column based checks for the fixed width lines of Tucson files.
+ * <p>
+ * Every Tucson line type is a fixed sequence of character columns, so each
+ * check just walks the columns of the start of the line in turn. Each one
+ * accepts exactly the lines that were previously matched with a regular
+ * expression (given in the method docs), without compiling a pattern or
+ * allocating anything per line. Like the regular expressions, only the start
+ * of the line is checked and anything after it is ignored.
+ *
+ * @author agent
+ */
+public final class TucsonLineScanner {
+
+	private static final int YEAR_CHARS = 4;
+	private static final int RWL_VALUE_CHARS = 6;
+	private static final int CRN_VALUE_CHARS = 7;
+	private static final int VALUES_PER_LINE = 10;
+
+	private TucsonLineScanner() {}
+
+	/**
+	 * Whether the line starts with RWL data:
+	 * <code>^[\w\t -.]{keycode}[\t\d -]{3}\d([ -][\t\d -]{4}\d){1 or 10}</code>
+	 *
+	 * @param argLine
+	 * @param argKeycodeLength
+	 *            6 or 8
+	 * @param argComplete
+	 *            if true there must be a full decade of values, otherwise one
+	 *            is enough
+	 * @return
+	 */
+	public static boolean isRWLData(CharSequence argLine, int argKeycodeLength, boolean argComplete) {
+		int values = argComplete ? VALUES_PER_LINE : 1;
+		if (argLine.length() < argKeycodeLength + YEAR_CHARS + values * RWL_VALUE_CHARS) {
+			return false;
+		}
+		if (!isKeycodeAndYear(argLine, argKeycodeLength)) {
+			return false;
+		}
+
+		int pos = argKeycodeLength + YEAR_CHARS;
+		for (int v = 0; v < values; v++) {
+			char c = argLine.charAt(pos);
+			if (c != ' ' && c != '-') {
+				return false;
+			}
+			for (int i = pos + 1; i < pos + RWL_VALUE_CHARS - 1; i++) {
+				if (!isYearChar(argLine.charAt(i))) {
+					return false;
+				}
+			}
+			if (!isDigit(argLine.charAt(pos + RWL_VALUE_CHARS - 1))) {
+				return false;
+			}
+			pos += RWL_VALUE_CHARS;
+		}
+		return true;
+	}
+
+	/**
+	 * Whether the line starts with a full decade of CRN data:
+	 * <code>^[\w\t -.]{keycode}[\t\d -]{3}\d([\d ]{4}((\d\d\d)|( \d\d)|(  \d))){10}</code>
+	 *
+	 * @param argLine
+	 * @param argKeycodeLength
+	 *            6 or 8
+	 * @return
+	 */
+	public static boolean isCRNData(CharSequence argLine, int argKeycodeLength) {
+		if (argLine.length() < argKeycodeLength + YEAR_CHARS + VALUES_PER_LINE * CRN_VALUE_CHARS) {
+			return false;
+		}
+		if (!isKeycodeAndYear(argLine, argKeycodeLength)) {
+			return false;
+		}
+
+		int pos = argKeycodeLength + YEAR_CHARS;
+		for (int v = 0; v < VALUES_PER_LINE; v++) {
+			// four digit value
+			for (int i = pos; i < pos + 4; i++) {
+				char c = argLine.charAt(i);
+				if (c != ' ' && !isDigit(c)) {
+					return false;
+				}
+			}
+			// three digit count, right aligned
+			char c0 = argLine.charAt(pos + 4);
+			char c1 = argLine.charAt(pos + 5);
+			char c2 = argLine.charAt(pos + 6);
+			if (!isDigit(c2)) {
+				return false;
+			}
+			if (isDigit(c0)) {
+				if (!isDigit(c1)) {
+					return false;
+				}
+			}
+			else if (c0 == ' ') {
+				if (c1 != ' ' && !isDigit(c1)) {
+					return false;
+				}
+			}
+			else {
+				return false;
+			}
+			pos += CRN_VALUE_CHARS;
+		}
+		return true;
+	}
+
+	/**
+	 * Whether the line looks like the first standard header line:
+	 * <code>^[\d\w ]{7}[1 ] [^\n]{52}[A-Z]{4}</code>, case insensitive
+	 *
+	 * @param argLine
+	 * @return
+	 */
+	public static boolean isHeaderLine1(CharSequence argLine) {
+		if (argLine.length() < 65 || !isHeaderPrefix(argLine, '1')) {
+			return false;
+		}
+		if (!isNotNewline(argLine, 9, 61)) {
+			return false;
+		}
+		for (int i = 61; i < 65; i++) {
+			if (!isLetter(argLine.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Whether the line looks like the second standard header line:
+	 * <code>^[\d\w ]{7}[2 ] [^\n]{31}[ 0-9mMft.]{5} {2}[0-9\t+\- NWnw]{11}[ _]{9}[0-9 -]{4} [0-9 -]{4}</code>,
+	 * case insensitive
+	 *
+	 * @param argLine
+	 * @return
+	 */
+	public static boolean isHeaderLine2(CharSequence argLine) {
+		if (argLine.length() < 76 || !isHeaderPrefix(argLine, '2')) {
+			return false;
+		}
+		if (!isNotNewline(argLine, 9, 40)) {
+			return false;
+		}
+		// elevation
+		for (int i = 40; i < 45; i++) {
+			char c = argLine.charAt(i);
+			if (c != ' ' && c != '.' && !isDigit(c) && "mMfFtT".indexOf(c) == -1) {
+				return false;
+			}
+		}
+		if (argLine.charAt(45) != ' ' || argLine.charAt(46) != ' ') {
+			return false;
+		}
+		// lat/long
+		for (int i = 47; i < 58; i++) {
+			char c = argLine.charAt(i);
+			if (!isDigit(c) && "\t+- NWnw".indexOf(c) == -1) {
+				return false;
+			}
+		}
+		for (int i = 58; i < 67; i++) {
+			char c = argLine.charAt(i);
+			if (c != ' ' && c != '_') {
+				return false;
+			}
+		}
+		// first and last years
+		for (int i = 67; i < 76; i++) {
+			char c = argLine.charAt(i);
+			if (i == 71) {
+				if (c != ' ') {
+					return false;
+				}
+			}
+			else if (c != ' ' && c != '-' && !isDigit(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Whether the line looks like the third standard header line:
+	 * <code>^[\d\w ]{7}[3 ] [^\n]{63}[\d\w /-]{8}</code>
+	 *
+	 * @param argLine
+	 * @return
+	 */
+	public static boolean isHeaderLine3(CharSequence argLine) {
+		if (argLine.length() < 80 || !isHeaderPrefix(argLine, '3')) {
+			return false;
+		}
+		if (!isNotNewline(argLine, 9, 72)) {
+			return false;
+		}
+		for (int i = 72; i < 80; i++) {
+			char c = argLine.charAt(i);
+			if (!isWordChar(c) && c != ' ' && c != '/' && c != '-') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Keycode followed by a four character year
+	 */
+	private static boolean isKeycodeAndYear(CharSequence argLine, int argKeycodeLength) {
+		for (int i = 0; i < argKeycodeLength; i++) {
+			char c = argLine.charAt(i);
+			if (!isWordChar(c) && c != '\t' && (c < ' ' || c > '.')) {
+				return false;
+			}
+		}
+		for (int i = argKeycodeLength; i < argKeycodeLength + YEAR_CHARS - 1; i++) {
+			if (!isYearChar(argLine.charAt(i))) {
+				return false;
+			}
+		}
+		return isDigit(argLine.charAt(argKeycodeLength + YEAR_CHARS - 1));
+	}
+
+	/**
+	 * Site code, the header line number (or a space) then a space
+	 */
+	private static boolean isHeaderPrefix(CharSequence argLine, char argLineNumber) {
+		for (int i = 0; i < 7; i++) {
+			char c = argLine.charAt(i);
+			if (!isWordChar(c) && c != ' ') {
+				return false;
+			}
+		}
+		char c = argLine.charAt(7);
+		return (c == argLineNumber || c == ' ') && argLine.charAt(8) == ' ';
+	}
+
+	private static boolean isNotNewline(CharSequence argLine, int argStart, int argEnd) {
+		for (int i = argStart; i < argEnd; i++) {
+			if (argLine.charAt(i) == '\n') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isYearChar(char c) {
+		return isDigit(c) || c == ' ' || c == '-' || c == '\t';
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private static boolean isWordChar(char c) {
+		return isLetter(c) || isDigit(c) || c == '_';
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.formats.tucson;
+
+import org.tridas.io.detection.FileSample;
+import org.tridas.io.detection.FormatProbe;
+
+/**
+ * Classifies the sample's lines with {@link TucsonLineScanner}. The more of
+ * them that are Tucson header or data lines, the more likely it is a Tucson
+ * file.
+ *
+ * @author agent
+ */
+public class TucsonProbe implements FormatProbe {
+
+	/**
+	 * Lines to look at. Enough for a few decades of several series.
+	 */
+	private static final int MAX_LINES = 200;
+
+	@Override
+	public float probe(FileSample argSample) {
+		int checked = 0;
+		int data = 0;
+		int header = 0;
+		for (String line : argSample.getLines()) {
+			if (line.trim().length() == 0) {
+				continue;
+			}
+			if (checked == MAX_LINES) {
+				break;
+			}
+			checked++;
+			if (TucsonLineScanner.isRWLData(line, 6, false) || TucsonLineScanner.isRWLData(line, 8, false)
+					|| TucsonLineScanner.isCRNData(line, 6) || TucsonLineScanner.isCRNData(line, 8)) {
+				data++;
+			}
+			else if (TucsonLineScanner.isHeaderLine1(line) || TucsonLineScanner.isHeaderLine2(line)
+					|| TucsonLineScanner.isHeaderLine3(line)) {
+				header++;
+			}
+		}
+		if (data == 0) {
+			return 0f;
+		}
+		// Loose header lines are common, so they count but not as strongly
+		float recognised = (data + header * 0.5f) / checked;
+		return Math.min(0.9f, recognised * 0.9f);
+	}
+}
@@ -15,11 +15,11 @@
  */
 package org.tridas.io.formats.tucson;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +32,10 @@ import org.tridas.io.exceptions.ConversionWarning.WarningType;
 import org.tridas.io.exceptions.InvalidDendroFileException;
 import org.tridas.io.exceptions.InvalidDendroFileException.PointerType;
 import org.tridas.io.formats.tucson.TucsonToTridasDefaults.TucsonDefaultField;
+import org.tridas.io.util.ColumnarTridasValues;
 import org.tridas.io.util.DateUtils;
+import org.tridas.io.util.IntArrayBuffer;
+import org.tridas.io.util.LineSource;
 import org.tridas.io.util.SafeIntYear;
 import org.tridas.io.util.StatsUtil;
 import org.tridas.io.util.TridasUtils;
@@ -49,7 +52,6 @@ import org.tridas.schema.TridasProject;
 import org.tridas.schema.TridasRadius;
 import org.tridas.schema.TridasSample;
 import org.tridas.schema.TridasTridas;
-import org.tridas.schema.TridasValue;
 import org.tridas.schema.TridasValues;
 
 import javax.measure.Measure;
@@ -67,7 +69,7 @@ import static javax.measure.unit.SI.*;
  */
 public class TucsonReader extends AbstractDendroFileReader {
 	
-	private static final Logger log = LoggerFactory.getLogger(TucsonReader.class);	
+	private static final Logger log = LoggerFactory.getLogger(TucsonReader.class);	
 	private ArrayList<TucsonSeries> seriesList = new ArrayList<TucsonSeries>();
 
 	private TucsonToTridasDefaults defaults = null; // defaults given by user
@@ -152,17 +154,9 @@ public class TucsonReader extends AbstractDendroFileReader {
 				TridasDerivedSeries ds = series.defaults
 						.getDerivedSeriesWithDefaults();
 				ArrayList<TridasValues> valuesGroupList = new ArrayList<TridasValues>();
-				TridasValues values = series.defaults.getDefaultTridasValues();
-				ArrayList<TridasValue> valuesList = new ArrayList<TridasValue>();
-
-				for (int i = 0; i < series.dataInts.size(); i++) {
-					TridasValue value = new TridasValue();
-					value.setValue(String.valueOf(series.dataInts.get(i)));
-					value.setCount(series.countInts.get(i));
-
-					valuesList.add(value);
-				}
-				values.setValues(valuesList);
+				ColumnarTridasValues values = new ColumnarTridasValues(series.defaults.getDefaultTridasValues());
+				values.setIntColumn(series.dataInts.toArray());
+				values.setCountColumn(Arrays.copyOf(series.countInts.toArray(), series.dataInts.size()));
 				valuesGroupList.add(values);
 				ds.setValues(valuesGroupList);
 				
@@ -213,16 +207,8 @@ public class TucsonReader extends AbstractDendroFileReader {
 				TridasRadius r = series.defaults.getRadiusWithDefaults(false);
 				TridasMeasurementSeries ms = series.defaults.getDefaultTridasMeasurementSeries();
 				ArrayList<TridasValues> valuesGroupList = new ArrayList<TridasValues>();
-				TridasValues values = series.defaults.getDefaultTridasValues();
-				ArrayList<TridasValue> valuesList = new ArrayList<TridasValue>();
-
-				for (Integer val : series.dataInts) {
-					TridasValue value = new TridasValue();
-					value.setValue(String.valueOf(val));
-					valuesList.add(value);
-				}
-
-				values.setValues(valuesList);
+				ColumnarTridasValues values = new ColumnarTridasValues(series.defaults.getDefaultTridasValues());
+				values.setIntColumn(series.dataInts.toArray());
 				valuesGroupList.add(values);
 				ms.setValues(valuesGroupList);
 
@@ -264,6 +250,33 @@ public class TucsonReader extends AbstractDendroFileReader {
 	protected void parseFile(String[] argFileString,
 			IMetadataFieldSet argDefaultFields)
 			throws InvalidDendroFileException {
+		try {
+			parseFile(LineSource.fromStrings(argFileString), argDefaultFields);
+		} catch (IOException e) {
+			// Can't happen with an in-memory source
+			throw new InvalidDendroFileException(I18n.getText("fileio.loadfailed"));
+		}
+	}
+	
+	/**
+	 * @see org.tridas.io.AbstractDendroFileReader#supportsLineSource()
+	 */
+	@Override
+	protected boolean supportsLineSource() {
+		return true;
+	}
+
+	/**
+	 * Parses the file in two passes over the source. The first validates the file and
+	 * gathers line statistics, the second extracts the series.  Only one line (plus a 
+	 * single line of look-ahead) is held at any time.
+	 * 
+	 * @see org.tridas.io.AbstractDendroFileReader#parseFile(LineSource, IMetadataFieldSet)
+	 */
+	@Override
+	protected void parseFile(LineSource argSource,
+			IMetadataFieldSet argDefaultFields)
+			throws InvalidDendroFileException, IOException {
 		
 		defaults = (TucsonToTridasDefaults) argDefaultFields;
 		log.debug("starting tucson file parsing");
@@ -280,16 +293,15 @@ public class TucsonReader extends AbstractDendroFileReader {
 
 
 		// Check that the file is valid
-		checkValidFile(argFileString);
+		checkValidFile(argSource);
+		argSource.rewind();
 
 		// Loop through each line in file
-		for (int index = 0; index < argFileString.length; index++) {
+		String line;
+		while ((line = argSource.nextLine()) != null) {
 
 			// Increment line number
-			currentLineNumber = index + 1;
-
-			// Extract line from array
-			String line = argFileString[index];
+			currentLineNumber = argSource.getLineNumber();
 
 			// Skip blank lines
 			if ((line == null) || (line.equals(""))) {
@@ -489,9 +501,9 @@ public class TucsonReader extends AbstractDendroFileReader {
 
 				// Extract actual data listening for last year flag
 				if (isChronology) {
-					loadCRNDataFromDataLine(line, index, argFileString, currentSeries);
+					loadCRNDataFromDataLine(line, currentSeries);
 				} else {
-					loadRWLDataFromDataLine(line, index, argFileString, currentSeries);
+					loadRWLDataFromDataLine(line, argSource.peekLine(), currentSeries);
 				}
 				break;
 
@@ -584,22 +596,38 @@ public class TucsonReader extends AbstractDendroFileReader {
 	 */
 	public void checkValidFile(String[] argFileString)
 			throws InvalidDendroFileException {
-		/**
-		 * @todo This function is computationally expensive as it does a
-		 *       complete regex parse of the file. We could dramatically speed
-		 *       things up with more thorough regular expressions.
-		 */
-		int index = 0;
+		try {
+			checkValidFile(LineSource.fromStrings(argFileString));
+		} catch (IOException e) {
+			// Can't happen with an in-memory source
+			throw new InvalidDendroFileException(I18n.getText("fileio.loadfailed"));
+		}
+	}
+	
+	/**
+	 * This checks to see if the file is a valid Tucson file and at the same
+	 * time sets whether its an RWL or CRN style file. The line statistics used
+	 * when parsing are gathered in the same pass. The source is left at the 
+	 * end of the file.
+	 * 
+	 * @param argSource
+	 * @throws InvalidDendroFileException
+	 * @throws IOException
+	 */
+	private void checkValidFile(LineSource argSource)
+			throws InvalidDendroFileException, IOException {
 		int crnLines = 0;
 		int rwlLines = 0;
 		int headerLines = 0;
 		
-		buildLineStats(argFileString);
-		
+		LinkedHashMap<Integer, Integer> lineLengths = new LinkedHashMap<Integer, Integer>();
+		minLineLength = null;
+		maxLineLength = null;
 
-		for (; index < argFileString.length; index++) {
-			String line = argFileString[index];
-			currentLineNumber = index + 1;
+		String line;
+		while ((line = argSource.nextLine()) != null) {
+			currentLineNumber = argSource.getLineNumber();
+			addToLineStats(line, lineLengths);
 
 			if (matchesLineType(TucsonLineType.CRN_DATA, line)) {
 				crnLines++;
@@ -613,6 +641,10 @@ public class TucsonReader extends AbstractDendroFileReader {
 			
 		}
 
+		if (!lineLengths.isEmpty()) {
+			modeLineLength = StatsUtil.mode(lineLengths);
+		}
+
 		if (crnLines == 0 && rwlLines == 0) {
 			log.debug("No data lines so file is invalid");
 			throw new InvalidDendroFileException(I18n.getText("fileio.noData"));
@@ -780,8 +812,10 @@ public class TucsonReader extends AbstractDendroFileReader {
 	 * @throws InvalidDendroFileException
 	 */
 	@SuppressWarnings("unchecked")
-	private void loadRWLDataFromDataLine(String line, int lineindex, String[] argLineStrings, TucsonSeries series)
+	private void loadRWLDataFromDataLine(String line, String nextLine, TucsonSeries series)
 			throws InvalidDendroFileException {
+		
+		String originalLine = line;
 
 		try{
 		if(modeLineLength > 80 && modeLineLength < 87 && line.length()>modeLineLength)
@@ -793,7 +827,7 @@ public class TucsonReader extends AbstractDendroFileReader {
 			log.error("line length = " +line.length() +". Can't truncate to 80 chars");
 		}
 		
-		ArrayList<Integer> dataValues = new ArrayList<Integer>();
+		IntArrayBuffer dataValues = new IntArrayBuffer();
 		ArrayList<String> vals = new ArrayList<String>();
 
 		// Remove keycode from line
@@ -827,7 +861,7 @@ public class TucsonReader extends AbstractDendroFileReader {
 				// a) a ring of width 999 in a micron unit series
 				// b) an end of series marker in a 1/100th unit series
 								
-				if(colnum==vals.size() && !doesNextLineYearSequenceFollow(argLineStrings, lineindex))
+				if(colnum==vals.size() && !doesNextLineYearSequenceFollow(originalLine, nextLine))
 				{
 					// This is the last column in the line and the next line year marker isn't in sequence
 					// We can therefore be certain this is a 1/100th mm end of series marker
@@ -891,22 +925,20 @@ public class TucsonReader extends AbstractDendroFileReader {
 	 * Look forward to the next line to see if the year number is likely in sequence indicating
 	 * that we've not come to the end of the series yet
 	 * 
-	 * @param argFileString
-	 * @param currentlineindex
+	 * @param currentLine
+	 * @param nextLine the following line in the file, or null if currentLine is the last
 	 * @return
 	 */
-	private boolean doesNextLineYearSequenceFollow(String[] argFileString, int currentlineindex)
+	private boolean doesNextLineYearSequenceFollow(String currentLine, String nextLine)
 	{
-		String currentYearMarker = argFileString[currentlineindex].substring(8, 12);
+		String currentYearMarker = currentLine.substring(8, 12);
 		String nextYearMarker ="";
 		Integer currentYearValue;
 		Integer nextYearValue;
 		
-		log.debug("Line count in file " + argFileString.length);
-		
-		if(argFileString.length > currentlineindex+1)
+		if(nextLine!=null)
 		{
-			nextYearMarker = argFileString[currentlineindex+1].substring(8, 12);
+			nextYearMarker = nextLine.substring(8, 12);
 		}
 		else
 		{
@@ -938,7 +970,7 @@ public class TucsonReader extends AbstractDendroFileReader {
 	 * 
 	 * @param line
 	 */
-	private void loadCRNDataFromDataLine(String line, int lineindex, String[] argLineStrings, TucsonSeries series)
+	private void loadCRNDataFromDataLine(String line, TucsonSeries series)
 			throws InvalidDendroFileException {
 
 		if(modeLineLength > 80 && modeLineLength < 87)
@@ -959,8 +991,8 @@ public class TucsonReader extends AbstractDendroFileReader {
 			line = line.substring(0, 80);
 		}
 		
-		ArrayList<Integer> vals = new ArrayList<Integer>();
-		ArrayList<Integer> counts = new ArrayList<Integer>();
+		IntArrayBuffer vals = new IntArrayBuffer();
+		IntArrayBuffer counts = new IntArrayBuffer();
 
 		// Remove keycode from line
 		line = line.substring(getKeycodeLength());
@@ -1183,44 +1215,36 @@ public class TucsonReader extends AbstractDendroFileReader {
 		}
 	}
 
-	private void buildLineStats(String[] argFileString)
+	/**
+	 * Add a line to the running line length statistics
+	 * 
+	 * @param line
+	 * @param lineLengths frequency of each line length, in order of first occurrence
+	 */
+	private void addToLineStats(String line, LinkedHashMap<Integer, Integer> lineLengths)
 	{
-		if(argFileString==null) return;
-		if(argFileString.length==0) return;
+		int length = line.length();
+		if(minLineLength==null || length<minLineLength) minLineLength = length;
+		if(maxLineLength==null || length>maxLineLength) maxLineLength = length;
 		
-		Integer cumLines = 0;
-		ArrayList<Integer> lineCounts = new ArrayList<Integer>();
-		
-		minLineLength = argFileString[0].length();
-		maxLineLength = argFileString[0].length();
-		
-		for(String line : argFileString)
-		{
-			if(line.length()<minLineLength) minLineLength = line.length();
-			if(line.length()>maxLineLength) maxLineLength = line.length();
-			cumLines = cumLines + line.length();
-			lineCounts.add(line.length());
-		}
-		
-		modeLineLength = StatsUtil.mode(lineCounts);
+		Integer count = lineLengths.get(length);
+		lineLengths.put(length, count==null ? 1 : count+1);
 	}
 	
 
 	
 	/**
-	 * Check whether a line matches a specific line type. This is simple
-	 * regexing so it isn't perfect, especially for headers. The HEADER_LINE3
-	 * inparticular is very likely to give false positives.
+	 * Check whether a line matches a specific line type. The line is checked
+	 * column by column with {@link TucsonLineScanner}, so this is cheap enough to
+	 * call several times per line. It isn't perfect though, especially for
+	 * headers. The HEADER_LINE3 inparticular is very likely to give false
+	 * positives.
 	 * 
 	 * @param type
 	 * @param line
 	 * @return
 	 */
 	private boolean matchesLineType(TucsonLineType type, String line) {
-		String regex = null;
-		Pattern p1;
-		Matcher m1;
-
 		// If line is empty or very short save ourselves the hassle and return
 		// now
 		if (line == null) {
@@ -1234,38 +1258,23 @@ public class TucsonReader extends AbstractDendroFileReader {
 			}
 		}
 
-		String regexKeycode6 = "[\\w\\t -.]{6}";
-		String regexKeycode8 = "[\\w\\t -.]{8}";
-		String regexYear = "[\\t\\d -]{3}[\\d]{1}";
-		String regexRWLVal = "[ -]{1}[\\t\\d -]{4}[\\d]{1}";
-		String regexCRNVal = "[\\d ]{4}((\\d\\d\\d)|( \\d\\d)|(  \\d))";
-
 		switch (type) {
 
 		// RWL DATA TYPES
 		case RWL_DATA_COMPLETE_6:
-			regex = "^" + regexKeycode6 + regexYear + "(" + regexRWLVal
-					+ "){10}";
-			p1 = Pattern.compile(regex, Pattern.CASE_INSENSITIVE
-					| Pattern.DOTALL);
-			m1 = p1.matcher(line);
-			if (m1.find()) {
+			if (TucsonLineScanner.isRWLData(line, 6, true)) {
 				keycodeLen6++;
-				if (line.substring(5, 6).equals("-")) {
+				if (line.charAt(5) == '-') {
 					turnOnFiveCharYears();
 				}
 				return true;
 			}
 			return false;
 		case RWL_DATA_PARTIAL_6:
-			regex = "^" + regexKeycode6 + regexYear + regexRWLVal;
-			p1 = Pattern.compile(regex, Pattern.CASE_INSENSITIVE
-					| Pattern.DOTALL);
-			m1 = p1.matcher(line);
-			if (m1.find()) {
+			if (TucsonLineScanner.isRWLData(line, 6, false)) {
 				if (!matchesLineType(TucsonLineType.RWL_DATA_COMPLETE_6, line)) {
 					keycodeLen6++;
-					if (line.substring(5, 6).equals("-")) {
+					if (line.charAt(5) == '-') {
 						turnOnFiveCharYears();
 					}
 					return true;
@@ -1273,27 +1282,19 @@ public class TucsonReader extends AbstractDendroFileReader {
 			}
 			return false;
 		case RWL_DATA_COMPLETE_8:
-			regex = "^" + regexKeycode8 + regexYear + "(" + regexRWLVal
-					+ "){10}";
-			p1 = Pattern.compile(regex, Pattern.CASE_INSENSITIVE
-					| Pattern.DOTALL);
-			m1 = p1.matcher(line);
-			if (m1.find()) {
+			if (TucsonLineScanner.isRWLData(line, 8, true)) {
 				keycodeLen8++;
-				if (line.substring(7, 8).equals("-")) {
+				if (line.charAt(7) == '-') {
 					turnOnFiveCharYears();
 				}
 				return true;
 			}
 			return false;
 		case RWL_DATA_PARTIAL_8:
-			regex = "^" + regexKeycode8 + regexYear + regexRWLVal;
-			p1 = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
-			m1 = p1.matcher(line);
-			if (m1.find()) {
+			if (TucsonLineScanner.isRWLData(line, 8, false)) {
 				if (!matchesLineType(TucsonLineType.RWL_DATA_COMPLETE_8, line)) {
 					keycodeLen8++;
-					if (line.substring(7, 8).equals("-")) {
+					if (line.charAt(7) == '-') {
 						turnOnFiveCharYears();
 					}
 					return true;
@@ -1312,14 +1313,9 @@ public class TucsonReader extends AbstractDendroFileReader {
 
 			// CRN DATA TYPES
 		case CRN_DATA_COMPLETE_6:
-			regex = "^" + regexKeycode6 + regexYear + "(" + regexCRNVal
-					+ "){10}";
-			p1 = Pattern.compile(regex, Pattern.CASE_INSENSITIVE
-					| Pattern.DOTALL);
-			m1 = p1.matcher(line);
-			if (m1.find()) {
+			if (TucsonLineScanner.isCRNData(line, 6)) {
 				keycodeLen6++;
-				if (line.substring(5, 6).equals("-")) {
+				if (line.charAt(5) == '-') {
 					turnOnFiveCharYears();
 				}
 				return true;
@@ -1331,14 +1327,9 @@ public class TucsonReader extends AbstractDendroFileReader {
 			// should contain 10 values
 			return false;
 		case CRN_DATA_COMPLETE_8:
-			regex = "^" + regexKeycode8 + regexYear + "(" + regexCRNVal
-					+ "){10}";
-			p1 = Pattern.compile(regex, Pattern.CASE_INSENSITIVE
-					| Pattern.DOTALL);
-			m1 = p1.matcher(line);
-			if (m1.find()) {
+			if (TucsonLineScanner.isCRNData(line, 8)) {
 				keycodeLen8++;
-				if (line.substring(7, 8).equals("-")) {
+				if (line.charAt(7) == '-') {
 					turnOnFiveCharYears();
 				}
 				return true;
@@ -1379,28 +1370,11 @@ public class TucsonReader extends AbstractDendroFileReader {
 
 			// HEADER TYPES
 		case HEADER_LINE1:
-			regex = "^[\\d\\w ]{7}[1 ][ ][^\\n]{52}[A-Z]{4}";
-			p1 = Pattern.compile(regex, Pattern.CASE_INSENSITIVE
-					| Pattern.DOTALL);
-			m1 = p1.matcher(line);
-			return m1.find();
+			return TucsonLineScanner.isHeaderLine1(line);
 		case HEADER_LINE2:
-			//regex = "^[^\\n]{9}[^\\n]{21}[\\t ]{10}[0-9mMft.]{5}[\\s]{2}[0-9\\t+\\- ]{10}[\\t ]{10}[\\d\\t ]{9}";
-			//regex = "^[\\d\\w ]{7}[2 ][ ][^\\n]{30}[ ][ 0-9mMft.]{5}[ ]{2}[0-9\\t+\\- NWnw]{11}[ ]{9}[0-9 -]{4}[ ][0-9 -]{4}";			
-			regex = "^[\\d\\w ]{7}[2 ][ ][^\\n]{31}[ 0-9mMft.]{5}[ ]{2}[0-9\\t+\\- NWnw]{11}[ _]{9}[0-9 -]{4}[ ][0-9 -]{4}";
-			//regex = "^[\\d\\w ]{7}[2 ][ ][^\\n]{31}[ 0-9mMft.]{5}[ ]{2}[0-9\\t+\\- NWnw]{11}[ _]{8}[0-9 -]{5}[ ][0-9 -]{5}";
-
-
-			p1 = Pattern.compile(regex, Pattern.CASE_INSENSITIVE
-					| Pattern.DOTALL);
-			m1 = p1.matcher(line);
-			return m1.find();
+			return TucsonLineScanner.isHeaderLine2(line);
 		case HEADER_LINE3:
-			regex = "^[\\d\\w ]{7}[3 ][ ][^\\n]{63}[\\d\\w /-]{8}";
-			p1 = Pattern.compile(regex, Pattern.CASE_INSENSITIVE
-					| Pattern.DOTALL);
-			m1 = p1.matcher(line);
-			return m1.find();
+			return TucsonLineScanner.isHeaderLine3(line);
 		case HEADER:
 			if ((matchesLineType(TucsonLineType.HEADER_LINE1, line))
 					|| (matchesLineType(TucsonLineType.HEADER_LINE2, line))
@@ -1463,8 +1437,8 @@ public class TucsonReader extends AbstractDendroFileReader {
 	 */
 	private static class TucsonSeries {
 		public TucsonToTridasDefaults defaults;
-		public final ArrayList<Integer> dataInts = new ArrayList<Integer>();
-		public final ArrayList<Integer> countInts = new ArrayList<Integer>();
+		public final IntArrayBuffer dataInts = new IntArrayBuffer();
+		public final IntArrayBuffer countInts = new IntArrayBuffer();
 		public SafeIntYear firstYear = new SafeIntYear();
 		public SafeIntYear lastYear = new SafeIntYear();
 		public String typeColumn = null;
@@ -1478,15 +1452,7 @@ public class TucsonReader extends AbstractDendroFileReader {
 			if(dataInts.size()>0)
 			{
 				defaults.getIntegerDefaultValue(TucsonDefaultField.RING_COUNT).setValue(dataInts.size());
-			
-				Integer count = dataInts.size();
-				Double sum = 0.0;
-				for(Integer val : dataInts)
-				{
-					sum = sum+val;
-				}
-				
-				defaults.getDoubleDefaultValue(TucsonDefaultField.AV_RING_WIDTH).setValue(sum/count);
+				defaults.getDoubleDefaultValue(TucsonDefaultField.AV_RING_WIDTH).setValue(dataInts.average());
 			}
 		}
 		
@@ -28,6 +28,7 @@ import org.tridas.io.exceptions.ImpossibleConversionException;
 import org.tridas.io.naming.INamingConvention;
 import org.tridas.io.naming.NamingConventionGrouper;
 import org.tridas.io.naming.NumericalNamingConvention;
+import org.tridas.io.util.EntityIndex;
 import org.tridas.io.util.SafeIntYear;
 import org.tridas.io.util.TridasUtils;
 import org.tridas.io.util.UnitUtils;
@@ -101,6 +102,7 @@ public class TucsonWriter extends AbstractDendroCollectionWriter {
 			 * 
 			 */
 		
+			EntityIndex index = new EntityIndex(p);
 			for (TridasDerivedSeries ds : dsList) 
 			{
 				
@@ -137,13 +139,13 @@ public class TucsonWriter extends AbstractDendroCollectionWriter {
 							//if(ds.getLinkSeries().getSeries().size()>1) break;
 							TridasIdentifier id = ds.getLinkSeries().getSeries().get(0).getIdentifier();
 							
-							TridasObject parentObject = (TridasObject) TridasUtils.getEntityByIdentifier(p, id, TridasObject.class);
+							TridasObject parentObject = index.getEntity(id, TridasObject.class);
 							if(parentObject!=null)
 							{
 								dft.populateFromTridasObject(parentObject);
 							}
 	
-							TridasElement parentElement = (TridasElement) TridasUtils.getEntityByIdentifier(p, id, TridasElement.class);
+							TridasElement parentElement = index.getEntity(id, TridasElement.class);
 							if(parentElement!=null)
 							{
 								dft.populateFromTridasElement(parentElement);
@@ -15,6 +15,9 @@
  */
 package org.tridas.io.formats.tucsondataonly;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import org.tridas.interfaces.ITridasSeries;
 import org.tridas.io.defaults.IMetadataFieldSet;
@@ -32,11 +35,11 @@ public class TucsonDataOnlyFile extends TucsonFile {
 	
 
 	@Override
-	public String[] saveToString() {
+	public void writeTo(Writer argWriter) throws IOException {
 		
-		StringBuilder string = new StringBuilder();
-		writeSeriesData(string );
-		return string.toString().split("\n");
+		BufferedWriter writer = new BufferedWriter(argWriter);
+		writeSeriesData(writer);
+		writer.flush();
 	}
 	
 	
@@ -24,6 +24,7 @@ import org.tridas.io.exceptions.ImpossibleConversionException;
 import org.tridas.io.exceptions.ConversionWarning.WarningType;
 import org.tridas.io.naming.INamingConvention;
 import org.tridas.io.naming.NumericalNamingConvention;
+import org.tridas.io.util.EntityIndex;
 import org.tridas.io.util.TridasUtils;
 import org.tridas.io.util.UnitUtils;
 import org.tridas.schema.NormalTridasUnit;
@@ -184,6 +185,7 @@ public class VFormatWriter extends AbstractDendroCollectionWriter {
 			}
 		}
 		
+		EntityIndex index = new EntityIndex(argProject);
 		for (TridasDerivedSeries ds : argProject.getDerivedSeries()) 
 		{
 			TridasToVFormatDefaults dsDefaults = (TridasToVFormatDefaults) defaults.clone();
@@ -263,25 +265,25 @@ public class VFormatWriter extends AbstractDendroCollectionWriter {
 					if(ds.getLinkSeries().getSeries().size()>1) break;
 					TridasIdentifier id = ds.getLinkSeries().getSeries().get(0).getIdentifier();
 					
-					TridasObject parentObject = (TridasObject) TridasUtils.getEntityByIdentifier(argProject, id, TridasObject.class);
+					TridasObject parentObject = index.getEntity(id, TridasObject.class);
 					if(parentObject!=null)
 					{
 						tvDefaults.populateFromTridasObject(parentObject);
 					}
 
-					TridasElement parentElement = (TridasElement) TridasUtils.getEntityByIdentifier(argProject, id, TridasElement.class);
+					TridasElement parentElement = index.getEntity(id, TridasElement.class);
 					if(parentElement!=null)
 					{
 						tvDefaults.populateFromTridasElement(parentElement);
 					}
 					
-					TridasSample parentSample = (TridasSample) TridasUtils.getEntityByIdentifier(argProject, id, TridasSample.class);
+					TridasSample parentSample = index.getEntity(id, TridasSample.class);
 					if(parentSample!=null)
 					{
 						tvDefaults.populateFromTridasSample(parentSample);
 					}
 					
-					TridasRadius parentRadius = (TridasRadius) TridasUtils.getEntityByIdentifier(argProject, id, TridasRadius.class);
+					TridasRadius parentRadius = index.getEntity(id, TridasRadius.class);
 					if(parentRadius!=null)
 					{
 						tvDefaults.populateFromTridasRadius(parentRadius);
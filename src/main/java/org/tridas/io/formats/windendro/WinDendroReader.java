@@ -31,7 +31,9 @@ import org.tridas.io.exceptions.InvalidDendroFileException;
 import org.tridas.io.exceptions.ConversionWarning.WarningType;
 import org.tridas.io.formats.windendro.WinDendroToTridasDefaults.WDDefaultField;
 import org.tridas.io.formats.windendro.WinDendroToTridasDefaults.WinDendroDataType;
+import org.tridas.io.util.ColumnarTridasValues;
 import org.tridas.io.util.DateUtils;
+import org.tridas.io.util.DoubleArrayBuffer;
 import org.tridas.schema.TridasElement;
 import org.tridas.schema.TridasMeasurementSeries;
 import org.tridas.schema.TridasObject;
@@ -39,7 +41,6 @@ import org.tridas.schema.TridasProject;
 import org.tridas.schema.TridasRadius;
 import org.tridas.schema.TridasSample;
 import org.tridas.schema.TridasTridas;
-import org.tridas.schema.TridasValue;
 import org.tridas.schema.TridasValues;
 
 public class WinDendroReader extends AbstractDendroFileReader {
@@ -80,17 +81,8 @@ public class WinDendroReader extends AbstractDendroFileReader {
 			TridasRadius r = series.defaults.getRadiusWithDefaults(false);
 			TridasMeasurementSeries ms = series.defaults.getMeasurementSeriesWithDefaults();
 			ArrayList<TridasValues> valuesGroupList = new ArrayList<TridasValues>();
-			TridasValues values = series.defaults.getDefaultTridasValues();
-			ArrayList<TridasValue> valuesList = new ArrayList<TridasValue>();
-			
-			for (Double val : series.dataDoubles)
-			{
-				TridasValue value = new TridasValue();
-				value.setValue(String.valueOf(val));
-				valuesList.add(value);
-			}
-			
-			values.setValues(valuesList);
+			ColumnarTridasValues values = new ColumnarTridasValues(series.defaults.getDefaultTridasValues());
+			values.setDoubleColumn(series.dataDoubles.toArray());
 			valuesGroupList.add(values);
 			ms.setValues(valuesGroupList);
 			
@@ -423,7 +415,7 @@ public class WinDendroReader extends AbstractDendroFileReader {
 	 */
 	private static class WinDendroSeries{
 		public WinDendroToTridasDefaults defaults;
-		public final ArrayList<Double> dataDoubles = new ArrayList<Double>();
+		public final DoubleArrayBuffer dataDoubles = new DoubleArrayBuffer();
 		
 		private WinDendroSeries(WinDendroToTridasDefaults df)
 		{
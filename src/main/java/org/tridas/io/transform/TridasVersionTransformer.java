@@ -4,20 +4,30 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Result;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -28,6 +38,7 @@ import org.tridas.io.TridasIO;
 import org.tridas.io.util.FileHelper;
 import org.tridas.io.util.ThreePartVersionCode;
 import org.w3c.dom.Document;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
 /**
@@ -41,6 +52,9 @@ import org.xml.sax.SAXException;
 public class TridasVersionTransformer {
 
 	private final static Logger log = LoggerFactory.getLogger(TridasVersionTransformer.class);
+	private final static SAXTransformerFactory transformerFactory = (SAXTransformerFactory) TransformerFactory.newInstance();
+	private final static ConcurrentHashMap<String, Templates> templatesCache = new ConcurrentHashMap<String, Templates>();
+	private final static Pattern TRIDAS_NAMESPACE = Pattern.compile("http://www.tridas.org/([\\d.]*)", Pattern.CASE_INSENSITIVE);
 	
 
 	/**
@@ -61,27 +75,127 @@ public class TridasVersionTransformer {
 			throw new Exception("Unable to determine version of existing TRiDaS file so version transformation failed");
 		}
 		
-		
-		// Create a list of XSL file streams one for each step in the upgrade/downgrade process.
-		ArrayList<InputStream> xsllist = new ArrayList<InputStream>();
 		if(inputVersion.equals(outputVersion))
 		{
 			//log.info("The input file is already v"+inputVersion.versionString+" so file will not be transformed");
 			return inputFileStrings;
 		}
+		
+		StringBuilder lines = new StringBuilder();
+		for(String line: inputFileStrings)
+		{
+			lines.append(line);
+			lines.append("\n");
+		}
+		
+		// Run the file through each compiled XSL transform in turn
+		StringWriter output = new StringWriter();
+		ContentHandler pipeline = newTransformPipeline(inputVersion, outputVersion, new StreamResult(output));
+		Transformer parser;
+		synchronized (transformerFactory) {
+			parser = transformerFactory.newTransformer();
+		}
+		parser.transform(new StreamSource(new StringReader(lines.toString())), new SAXResult(pipeline));
+		
+		// Return the converted file
+		return output.toString().split("\\n");
+	}
+	
+	/**
+	 * Create a SAX pipeline that converts TRiDaS XML from one version to another.  XML 
+	 * events sent to the returned handler (e.g. by a JAXB marshaller) are passed through 
+	 * the compiled XSL transform for each step of the upgrade/downgrade, and the final
+	 * document is written to the given result.  Nothing is buffered between steps.
+	 * <p>
+	 * If the two versions are the same the events are written to the result untouched.
+	 * 
+	 * @param inputVersion version of the XML that will be sent to the handler
+	 * @param outputVersion version of the XML to write to the result
+	 * @param result where to write the converted XML
+	 * @return the handler to send the XML events to
+	 * @throws Exception if the conversion is not supported or a stylesheet could not be compiled
+	 */
+	public static ContentHandler newTransformPipeline(TridasVersion inputVersion, TridasVersion outputVersion, Result result) throws Exception
+	{
+		ArrayList<TransformerHandler> steps = new ArrayList<TransformerHandler>();
+		synchronized (transformerFactory) {
+			for(String xsl : getStylesheets(inputVersion, outputVersion))
+			{
+				steps.add(transformerFactory.newTransformerHandler(getTemplates(xsl)));
+			}
+			if(steps.isEmpty())
+			{
+				steps.add(transformerFactory.newTransformerHandler());
+			}
+		}
+		
+		// Join each step to the next, and the last one to the result
+		for(int i=0; i<steps.size()-1; i++)
+		{
+			steps.get(i).setResult(new SAXResult(steps.get(i+1)));
+		}
+		steps.get(steps.size()-1).setResult(result);
+		
+		return steps.get(0);
+	}
+	
+	/**
+	 * Get the compiled form of an XSL file on the classpath.  Each stylesheet is 
+	 * only compiled once, and the compiled Templates are safe to share between 
+	 * threads.
+	 * 
+	 * @param xslResource classpath location of the XSL file
+	 * @return
+	 * @throws TransformerConfigurationException
+	 */
+	public static Templates getTemplates(String xslResource) throws TransformerConfigurationException
+	{
+		Templates templates = templatesCache.get(xslResource);
+		if(templates!=null) return templates;
+		
+		synchronized (transformerFactory) {
+			templates = templatesCache.get(xslResource);
+			if(templates==null)
+			{
+				InputStream xslstream = TridasIO.class.getResourceAsStream(xslResource);
+				if(xslstream==null)
+				{
+					throw new TransformerConfigurationException("Unable to find stylesheet "+xslResource);
+				}
+				log.debug("Compiling stylesheet "+xslResource);
+				templates = transformerFactory.newTemplates(new StreamSource(xslstream));
+				templatesCache.put(xslResource, templates);
+			}
+		}
+		return templates;
+	}
+	
+	/**
+	 * Get the list of XSL files, one for each step in the upgrade/downgrade process.  
+	 * 
+	 * @param inputVersion
+	 * @param outputVersion
+	 * @return list of classpath locations of the XSL files, empty if no transform is needed
+	 * @throws Exception if the conversion is not supported
+	 */
+	private static ArrayList<String> getStylesheets(TridasVersion inputVersion, TridasVersion outputVersion) throws Exception
+	{
+		ArrayList<String> xsllist = new ArrayList<String>();
+		if(inputVersion.equals(outputVersion))
+		{
+			return xsllist;
+		}
 		if(inputVersion.equals(TridasVersion.V_1_2_2) &&
 				outputVersion.equals(TridasVersion.V_1_2_3))
 		{		
 			log.debug("User has requested to upgrade their file from v1.2.2 to v.1.2.3");
-			InputStream xslstream = TridasIO.class.getResourceAsStream("/xslt/Upgrade1.2.2-to-1.2.3.xsl");
-			xsllist.add(xslstream);
+			xsllist.add("/xslt/Upgrade1.2.2-to-1.2.3.xsl");
 		}
 		else if (inputVersion.equals(TridasVersion.V_1_2_3) &&
 				outputVersion.equals(TridasVersion.V_1_2_2))
 		{
 			log.debug("User has requested to downgrade their file from v1.2.3 to v.1.2.2");
-			InputStream xslstream = TridasIO.class.getResourceAsStream("/xslt/Downgrade1.2.3-to-1.2.2.xsl");
-			xsllist.add(xslstream);
+			xsllist.add("/xslt/Downgrade1.2.3-to-1.2.2.xsl");
 		}
 		
 		else if ( inputVersion.getSequence()<TridasVersion.V_1_2_2.getSequence() ||  
@@ -94,17 +208,7 @@ public class TridasVersionTransformer {
 		{			
 			throw new Exception("Transforming from v"+inputVersion.versionString+" to v"+outputVersion.versionString+" is currently not supported");
 		}
-				
-		// Run each XSL transform in turn
-		String[] currentFileStrings = inputFileStrings;
-		for(InputStream currentXSL : xsllist)
-		{
-			currentFileStrings = TridasVersionTransformer.xslTransform(currentFileStrings, currentXSL);
-			if(currentFileStrings==null) throw new Exception("Failed to transform TRiDaS file");
-		}
-		
-		// Return the converted file
-		return currentFileStrings;
+		return xsllist;
 	}
 	
 	
@@ -332,6 +436,53 @@ public class TridasVersionTransformer {
 		
 	}
 	
+	/**
+	 * Get the TridasVersion of an XML document by reading no further than its root
+	 * element. The reader is left positioned on the root element's start tag, so
+	 * it can be handed straight on to an unmarshaller. If the root element is not
+	 * itself in a TRiDaS namespace, any TRiDaS namespace declared on it is used.
+	 * 
+	 * @param reader
+	 * @return the version, or null if the root element has no TRiDaS namespace
+	 * @throws XMLStreamException
+	 */
+	public static TridasVersion getTridasVersionFromRootElement(XMLStreamReader reader) throws XMLStreamException
+	{
+		while (reader.getEventType() != XMLStreamConstants.START_ELEMENT)
+		{
+			if (!reader.hasNext()) return null;
+			reader.next();
+		}
+		
+		TridasVersion version = getTridasVersionFromNamespace(reader.getNamespaceURI());
+		if (version != null) return version;
+		
+		for (int i = 0; i < reader.getNamespaceCount(); i++)
+		{
+			version = getTridasVersionFromNamespace(reader.getNamespaceURI(i));
+			if (version != null) return version;
+		}
+		return null;
+	}
+	
+	/**
+	 * Get the TridasVersion from a TRiDaS namespace URI such as "http://www.tridas.org/1.2.2" 
+	 * 
+	 * @param uri
+	 * @return the version, or null if this is not a TRiDaS namespace
+	 */
+	public static TridasVersion getTridasVersionFromNamespace(String uri)
+	{
+		if (uri == null) return null;
+		
+		Matcher m1 = TRIDAS_NAMESPACE.matcher(uri);
+		if (m1.matches()) 
+		{
+			return TridasVersion.getTridasVersionFromCodeString(m1.group(1));
+		}
+		return null;
+	}
+	
 	/**
 	 * Enumeration containing all the known versions of the TRiDaS schema
 	 * 
@@ -0,0 +1,296 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.tridas.schema.TridasRemark;
+import org.tridas.schema.TridasValue;
+import org.tridas.schema.TridasValues;
+
+/**
+ * TridasValues whose data is held in primitive columns: an int or double array
+ * of values, an optional array of counts and a side table of remarks for the
+ * few values that have them. The usual list of TridasValue objects is only
+ * built the first time something asks for it through {@link #getValues()}, or
+ * when the values are marshalled to XML. From then on the list is the master
+ * copy and the columns are dropped.
+ * <p>
+ * Readers create these so that conversions which only need the numbers, such
+ * as unit conversion, can work on the columns through the view methods
+ * ({@link #size()}, {@link #getDouble(int)}, {@link #getCount(int)} etc)
+ * without creating and parsing a String for every ring. Code that doesn't
+ * know about this class just sees ordinary TridasValues.
+ *
+ * @author agent
+ */
+public class ColumnarTridasValues extends TridasValues {
+
+	/**
+	 * Marks a value without a count in the counts column
+	 */
+	public static final int NO_COUNT = Integer.MIN_VALUE;
+
+	private int size = 0;
+	private int[] ints = null;
+	private double[] doubles = null;
+	private int[] counts = null;
+	private HashMap<Integer, List<TridasRemark>> remarks = null;
+	private boolean materialised = false;
+
+	/**
+	 * Create empty values using the variable and units of another values group,
+	 * usually the one built from a reader's defaults
+	 *
+	 * @param argTemplate
+	 */
+	public ColumnarTridasValues(TridasValues argTemplate) {
+		setVariable(argTemplate.getVariable());
+		setUnit(argTemplate.getUnit());
+		setUnitless(argTemplate.getUnitless());
+	}
+
+	/**
+	 * Set the values to whole numbers, dropping any previous values. Counts and
+	 * remarks are kept if the values haven't been materialised and there are the
+	 * same number of values as before.
+	 *
+	 * @param argValues
+	 */
+	public void setIntColumn(int[] argValues) {
+		resetColumns(argValues.length);
+		ints = argValues;
+	}
+
+	/**
+	 * Set the values to decimal numbers, dropping any previous values. Counts and
+	 * remarks are kept if the values haven't been materialised and there are the
+	 * same number of values as before.
+	 *
+	 * @param argValues
+	 */
+	public void setDoubleColumn(double[] argValues) {
+		resetColumns(argValues.length);
+		doubles = argValues;
+	}
+
+	/**
+	 * Set the count for each value. Must be called after the values are set.
+	 *
+	 * @param argCounts
+	 *            a count for each value, {@link #NO_COUNT} where there isn't
+	 *            one, or null for no counts at all
+	 */
+	public void setCountColumn(int[] argCounts) {
+		if (argCounts != null && argCounts.length != size()) {
+			throw new IllegalArgumentException("Expected " + size() + " counts but got " + argCounts.length);
+		}
+		if (materialised) {
+			List<TridasValue> list = super.getValues();
+			for (int i = 0; argCounts != null && i < argCounts.length; i++) {
+				list.get(i).setCount((argCounts[i] != NO_COUNT) ? argCounts[i] : null);
+			}
+			return;
+		}
+		counts = argCounts;
+	}
+
+	/**
+	 * Set the remarks for a single value. Must be called after the values are
+	 * set.
+	 *
+	 * @param argIndex
+	 * @param argRemarks
+	 */
+	public void setRemarks(int argIndex, List<TridasRemark> argRemarks) {
+		checkIndex(argIndex);
+		if (materialised) {
+			super.getValues().get(argIndex).getRemarks().addAll(argRemarks);
+			return;
+		}
+		if (remarks == null) {
+			remarks = new HashMap<Integer, List<TridasRemark>>();
+		}
+		remarks.put(argIndex, argRemarks);
+	}
+
+	/**
+	 * @return true if the values are still held only in columns, so the view
+	 *         methods are cheap. Once false, the view methods read from the
+	 *         TridasValue list instead.
+	 */
+	public boolean isColumnar() {
+		return !materialised;
+	}
+
+	/**
+	 * @return number of values
+	 */
+	public int size() {
+		return materialised ? super.getValues().size() : size;
+	}
+
+	/**
+	 * @return true if every value is a whole number held in an int column
+	 */
+	public boolean isIntegral() {
+		return !materialised && ints != null;
+	}
+
+	/**
+	 * @param argIndex
+	 * @return the value as a double
+	 * @throws NumberFormatException
+	 *             if the values have been materialised and this one isn't a number
+	 */
+	public double getDouble(int argIndex) {
+		checkIndex(argIndex);
+		if (materialised) {
+			return Double.parseDouble(super.getValues().get(argIndex).getValue());
+		}
+		return (ints != null) ? ints[argIndex] : doubles[argIndex];
+	}
+
+	/**
+	 * @param argIndex
+	 * @return true if the value has a count
+	 */
+	public boolean hasCount(int argIndex) {
+		checkIndex(argIndex);
+		if (materialised) {
+			return super.getValues().get(argIndex).getCount() != null;
+		}
+		return counts != null && counts[argIndex] != NO_COUNT;
+	}
+
+	/**
+	 * @param argIndex
+	 * @return the count for the value, or null if it doesn't have one
+	 */
+	public Integer getCount(int argIndex) {
+		if (!hasCount(argIndex)) {
+			return null;
+		}
+		return materialised ? super.getValues().get(argIndex).getCount() : counts[argIndex];
+	}
+
+	/**
+	 * Get the values of any TridasValues as doubles. For columnar values that
+	 * haven't been materialised this doesn't touch any Strings.
+	 *
+	 * @param argValues
+	 * @return
+	 * @throws NumberFormatException
+	 *             if a value isn't a number
+	 */
+	public static double[] getDoubleValues(TridasValues argValues) {
+		if (argValues instanceof ColumnarTridasValues && ((ColumnarTridasValues) argValues).isColumnar()) {
+			ColumnarTridasValues columns = (ColumnarTridasValues) argValues;
+			double[] ret = new double[columns.size];
+			for (int i = 0; i < columns.size; i++) {
+				ret[i] = (columns.ints != null) ? columns.ints[i] : columns.doubles[i];
+			}
+			return ret;
+		}
+
+		List<TridasValue> list = argValues.getValues();
+		double[] ret = new double[list.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = Double.parseDouble(list.get(i).getValue());
+		}
+		return ret;
+	}
+
+	/**
+	 * Builds the TridasValue list from the columns the first time it's asked for
+	 *
+	 * @see org.tridas.schema.TridasValues#getValues()
+	 */
+	@Override
+	public List<TridasValue> getValues() {
+		materialise();
+		return super.getValues();
+	}
+
+	@Override
+	public boolean isSetValues() {
+		return materialised ? super.isSetValues() : size > 0;
+	}
+
+	@Override
+	public void setValues(List<TridasValue> argValues) {
+		dropColumns();
+		materialised = true;
+		super.setValues(argValues);
+	}
+
+	/**
+	 * Build the TridasValue list from the columns and drop the columns. Does
+	 * nothing if this has already happened.
+	 */
+	public void materialise() {
+		if (materialised) {
+			return;
+		}
+		ArrayList<TridasValue> list = new ArrayList<TridasValue>(size);
+		for (int i = 0; i < size; i++) {
+			TridasValue value = new TridasValue();
+			value.setValue((ints != null) ? String.valueOf(ints[i]) : String.valueOf(doubles[i]));
+			if (counts != null && counts[i] != NO_COUNT) {
+				value.setCount(counts[i]);
+			}
+			if (remarks != null && remarks.containsKey(i)) {
+				value.getRemarks().addAll(remarks.get(i));
+			}
+			list.add(value);
+		}
+		dropColumns();
+		materialised = true;
+		super.setValues(list);
+	}
+
+	private void resetColumns(int argSize) {
+		if (materialised) {
+			super.getValues().clear();
+			dropColumns();
+			materialised = false;
+		}
+		else if (argSize != size) {
+			counts = null;
+			remarks = null;
+		}
+		ints = null;
+		doubles = null;
+		size = argSize;
+	}
+
+	private void dropColumns() {
+		size = 0;
+		ints = null;
+		doubles = null;
+		counts = null;
+		remarks = null;
+	}
+
+	private void checkIndex(int argIndex) {
+		if (argIndex < 0 || argIndex >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + argIndex + ", Size: " + size());
+		}
+	}
+}
@@ -0,0 +1,341 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import org.tridas.interfaces.ITridas;
+import org.tridas.schema.TridasDerivedSeries;
+import org.tridas.schema.TridasElement;
+import org.tridas.schema.TridasIdentifier;
+import org.tridas.schema.TridasMeasurementSeries;
+import org.tridas.schema.TridasObject;
+import org.tridas.schema.TridasProject;
+import org.tridas.schema.TridasRadius;
+import org.tridas.schema.TridasSample;
+import org.tridas.schema.TridasTridas;
+
+/**
+ * Index of TRiDaS entities by identifier, along with the entities that contain
+ * them. It is built with one walk through the project tree, so looking up
+ * linked series is a hash lookup rather than another walk as with
+ * {@link TridasUtils#getEntityByIdentifier(TridasProject, TridasIdentifier, Class)}.
+ * Writers build one per project and use it to find the entities each derived
+ * series links to.
+ * <p>
+ * Entities added to the tree after the index is built can be added with the
+ * add methods, giving the parent they were added to. If more than one entity
+ * has the same identifier, the first one added is kept. The index isn't thread
+ * safe.
+ * 
+ * @author agent
+ */
+public class EntityIndex {
+
+	private final HashMap<IdentifierKey, Node> identifiers = new HashMap<IdentifierKey, Node>();
+	private final IdentityHashMap<ITridas, Node> nodes = new IdentityHashMap<ITridas, Node>();
+
+	/**
+	 * Create an empty index
+	 */
+	public EntityIndex() {}
+
+	/**
+	 * Create an index of everything in a project
+	 * 
+	 * @param argProject
+	 */
+	public EntityIndex(TridasProject argProject) {
+		addProject(argProject);
+	}
+
+	/**
+	 * Create an index of everything in all the projects of a container
+	 * 
+	 * @param argContainer
+	 */
+	public EntityIndex(TridasTridas argContainer) {
+		for (TridasProject p : argContainer.getProjects()) {
+			addProject(p);
+		}
+	}
+
+	/**
+	 * Add a project and everything in it
+	 * 
+	 * @param argProject
+	 */
+	public void addProject(TridasProject argProject) {
+		Node node = add(argProject, null);
+		for (TridasObject o : argProject.getObjects()) {
+			addObject(o, node);
+		}
+		for (TridasDerivedSeries ds : argProject.getDerivedSeries()) {
+			add(ds, node);
+		}
+	}
+
+	/**
+	 * Add an object and everything in it
+	 * 
+	 * @param argObject
+	 * @param argParent
+	 *            the project or object it is in
+	 */
+	public void addObject(TridasObject argObject, ITridas argParent) {
+		addObject(argObject, getNode(argParent));
+	}
+
+	/**
+	 * Add an element and everything in it
+	 * 
+	 * @param argElement
+	 * @param argParent
+	 *            the object it is in
+	 */
+	public void addElement(TridasElement argElement, TridasObject argParent) {
+		addElement(argElement, getNode(argParent));
+	}
+
+	/**
+	 * Add a sample and everything in it
+	 * 
+	 * @param argSample
+	 * @param argParent
+	 *            the element it is in
+	 */
+	public void addSample(TridasSample argSample, TridasElement argParent) {
+		addSample(argSample, getNode(argParent));
+	}
+
+	/**
+	 * Add a radius and its series
+	 * 
+	 * @param argRadius
+	 * @param argParent
+	 *            the sample it is in
+	 */
+	public void addRadius(TridasRadius argRadius, TridasSample argParent) {
+		addRadius(argRadius, getNode(argParent));
+	}
+
+	/**
+	 * @param argSeries
+	 * @param argParent
+	 *            the radius it is in
+	 */
+	public void addMeasurementSeries(TridasMeasurementSeries argSeries, TridasRadius argParent) {
+		add(argSeries, getNode(argParent));
+	}
+
+	/**
+	 * @param argSeries
+	 * @param argParent
+	 *            the project it is in
+	 */
+	public void addDerivedSeries(TridasDerivedSeries argSeries, TridasProject argParent) {
+		add(argSeries, getNode(argParent));
+	}
+
+	/**
+	 * Get the entity with the given identifier
+	 * 
+	 * @param argIdentifier
+	 * @return the entity, or null if there isn't one
+	 */
+	public ITridas getEntity(TridasIdentifier argIdentifier) {
+		if (argIdentifier == null) {
+			return null;
+		}
+		Node node = identifiers.get(new IdentifierKey(argIdentifier));
+		return node == null ? null : node.entity;
+	}
+
+	/**
+	 * Get the entity of the given class that contains the entity with the given
+	 * identifier, or is that entity. If the identifier belongs to a derived
+	 * series and a different class is asked for, the first series it links to
+	 * is looked up instead, as
+	 * {@link TridasUtils#getEntityByIdentifier(TridasProject, TridasIdentifier, Class)}
+	 * does.
+	 * 
+	 * @param argIdentifier
+	 * @param argEntityClass
+	 *            class of the entity to return, e.g. TridasObject to get the
+	 *            object a sample is in. If null or ITridas the entity itself is
+	 *            returned.
+	 * @return the entity, or null if there isn't one
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends ITridas> T getEntity(TridasIdentifier argIdentifier, Class<T> argEntityClass) {
+		if (argIdentifier == null) {
+			return null;
+		}
+		Node node = identifiers.get(new IdentifierKey(argIdentifier));
+
+		// Follow links from derived series, stopping if they go round in circles
+		int links = 0;
+		while (node != null && node.entity instanceof TridasDerivedSeries && argEntityClass != null
+				&& !argEntityClass.isInstance(node.entity) && links++ < identifiers.size()) {
+			TridasIdentifier linked = getFirstLink((TridasDerivedSeries) node.entity);
+			node = linked == null ? null : identifiers.get(new IdentifierKey(linked));
+		}
+
+		while (node != null) {
+			if (argEntityClass == null) {
+				return (T) node.entity;
+			}
+			if (argEntityClass.isInstance(node.entity)) {
+				return argEntityClass.cast(node.entity);
+			}
+			node = node.parent;
+		}
+		return null;
+	}
+
+	/**
+	 * Get the entities that contain the entity with the given identifier
+	 * 
+	 * @param argIdentifier
+	 * @return the containing entities, starting with its parent and ending with
+	 *         the project, or an empty list if there is no entity with the
+	 *         identifier
+	 */
+	public List<ITridas> getParents(TridasIdentifier argIdentifier) {
+		ArrayList<ITridas> parents = new ArrayList<ITridas>();
+		if (argIdentifier == null) {
+			return parents;
+		}
+		Node node = identifiers.get(new IdentifierKey(argIdentifier));
+		if (node == null) {
+			return parents;
+		}
+		for (Node parent = node.parent; parent != null; parent = parent.parent) {
+			parents.add(parent.entity);
+		}
+		return parents;
+	}
+
+	/**
+	 * @param argEntity
+	 * @return true if the entity has been added to the index
+	 */
+	public boolean contains(ITridas argEntity) {
+		return nodes.containsKey(argEntity);
+	}
+
+	private void addObject(TridasObject argObject, Node argParent) {
+		Node node = add(argObject, argParent);
+		for (TridasObject o : argObject.getObjects()) {
+			addObject(o, node);
+		}
+		for (TridasElement e : argObject.getElements()) {
+			addElement(e, node);
+		}
+	}
+
+	private void addElement(TridasElement argElement, Node argParent) {
+		Node node = add(argElement, argParent);
+		for (TridasSample s : argElement.getSamples()) {
+			addSample(s, node);
+		}
+	}
+
+	private void addSample(TridasSample argSample, Node argParent) {
+		Node node = add(argSample, argParent);
+		for (TridasRadius r : argSample.getRadiuses()) {
+			addRadius(r, node);
+		}
+	}
+
+	private void addRadius(TridasRadius argRadius, Node argParent) {
+		Node node = add(argRadius, argParent);
+		for (TridasMeasurementSeries ms : argRadius.getMeasurementSeries()) {
+			add(ms, node);
+		}
+	}
+
+	private Node add(ITridas argEntity, Node argParent) {
+		Node node = new Node(argEntity, argParent);
+		nodes.put(argEntity, node);
+		if (argEntity.isSetIdentifier()) {
+			IdentifierKey key = new IdentifierKey(argEntity.getIdentifier());
+			if (!identifiers.containsKey(key)) {
+				identifiers.put(key, node);
+			}
+		}
+		return node;
+	}
+
+	private Node getNode(ITridas argParent) {
+		Node node = nodes.get(argParent);
+		if (node == null) {
+			throw new IllegalArgumentException("Parent entity hasn't been added to the index");
+		}
+		return node;
+	}
+
+	private static TridasIdentifier getFirstLink(TridasDerivedSeries argSeries) {
+		if (argSeries.isSetLinkSeries() && argSeries.getLinkSeries().isSetSeries()
+				&& argSeries.getLinkSeries().getSeries().get(0).isSetIdentifier()) {
+			return argSeries.getLinkSeries().getSeries().get(0).getIdentifier();
+		}
+		return null;
+	}
+
+	private static final class Node {
+		private final ITridas entity;
+		private final Node parent;
+
+		private Node(ITridas argEntity, Node argParent) {
+			entity = argEntity;
+			parent = argParent;
+		}
+	}
+
+	/**
+	 * Domain and value of an identifier. TridasIdentifier doesn't define
+	 * equals or hashCode itself.
+	 */
+	private static final class IdentifierKey {
+		private final String domain;
+		private final String value;
+
+		private IdentifierKey(TridasIdentifier argIdentifier) {
+			domain = argIdentifier.getDomain();
+			value = argIdentifier.getValue();
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = domain == null ? 0 : domain.hashCode();
+			return 31 * hash + (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object argObj) {
+			if (!(argObj instanceof IdentifierKey)) {
+				return false;
+			}
+			IdentifierKey other = (IdentifierKey) argObj;
+			return (domain == null ? other.domain == null : domain.equals(other.domain))
+					&& (value == null ? other.value == null : value.equals(other.value));
+		}
+	}
+}
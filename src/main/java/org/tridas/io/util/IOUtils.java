@@ -29,6 +29,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -41,6 +42,7 @@ import javax.swing.JFrame;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tridas.schema.TridasDerivedSeries;
 import org.tridas.schema.TridasObject;
 import org.tridas.schema.TridasProject;
 import org.tridas.schema.TridasTridas;
@@ -57,6 +59,8 @@ public class IOUtils {
 	
 	private final static Logger log = LoggerFactory.getLogger(IOUtils.class);
 	
+	private final static String LINE_SEPARATOR = System.getProperty("line.separator");
+	
 	private IOUtils() {}
 	
 	/*
@@ -532,6 +536,55 @@ public class IOUtils {
 		writer.flush();
 	}
 	
+	/**
+	 * Writes each string followed by the platform line separator, just as
+	 * {@link #saveStrings(OutputStream, String[], String)} does.
+	 * 
+	 * @param argWriter
+	 * @param argLines
+	 * @throws IOException
+	 */
+	public static void writeLines(Writer argWriter, String[] argLines) throws IOException {
+		for (String line : argLines) {
+			argWriter.write(line);
+			argWriter.write(LINE_SEPARATOR);
+		}
+	}
+	
+	/**
+	 * Splits text written with {@link #writeLines(Writer, String[])}, or any
+	 * other mix of '\n' and '\r\n' line endings, back into lines. Trailing
+	 * empty lines are dropped.
+	 * 
+	 * @param argText
+	 * @return
+	 */
+	public static String[] splitLines(String argText) {
+		if (argText.length() == 0) {
+			return new String[0];
+		}
+		return argText.split("\r?\n");
+	}
+	
+	/**
+	 * Get the named charset, falling back to UTF-8 if the name is null or the
+	 * charset is not supported.
+	 * 
+	 * @param argCharsetName
+	 * @return
+	 */
+	public static Charset getCharsetOrDefault(String argCharsetName) {
+		if (argCharsetName != null) {
+			try {
+				if (Charset.isSupported(argCharsetName)) {
+					return Charset.forName(argCharsetName);
+				}
+			} catch (IllegalArgumentException e) {}
+			log.warn("Charset " + argCharsetName + " is not supported, using UTF-8 instead");
+		}
+		return Charset.forName("UTF-8");
+	}
+	
 	/**
 	 * Takes a path and creates any in-between folders if they don't already
 	 * exist. Useful when trying to save to a subfolder that may not actually
@@ -566,6 +619,25 @@ public class IOUtils {
 	 * @return
 	 */
 	public static TridasTridas mergeToSingleProject(ArrayList<TridasTridas> containers)
+	{
+		return mergeToSingleProject(containers, false);
+	}
+	
+	/**
+	 * Merge all the provided data into a single Tridas container containing
+	 * a single TridasProject, which takes its metadata from the first project.  
+	 * If consolidate is true, objects and derived series with the same title are 
+	 * merged together using {@link TridasUtils#consolidateObjects(List)} and 
+	 * {@link TridasUtils#consolidateDerivedSeries(ArrayList)}.
+	 * 
+	 * The merged project reuses the entities of the containers, so they
+	 * shouldn't be used afterwards.
+	 * 
+	 * @param containers
+	 * @param consolidate
+	 * @return
+	 */
+	public static TridasTridas mergeToSingleProject(List<TridasTridas> containers, boolean consolidate)
 	{
 		if(containers==null) {
 			log.warn("TRiDaS container is null");
@@ -580,30 +652,33 @@ public class IOUtils {
 			return null;
 		}
 
-		//System.out.println(containers.size()+" containers provided to merge");
-		
-		TridasProject p = containers.get(0).getProjects().get(0);
-		p.setObjects(null);
-		p.setDerivedSeries(null);
-		
-		TridasTridas thiscont = new TridasTridas();
+		// Collect everything before clearing the first project, as it is 
+		// one of the projects being merged
+		ArrayList<TridasObject> objects = new ArrayList<TridasObject>();
+		ArrayList<TridasDerivedSeries> derivedSeries = new ArrayList<TridasDerivedSeries>();
 		for(TridasTridas c : containers)
 		{
-			//System.out.println(c.getProjects().size()+" project(s) in this container to merge");
 			for (TridasProject pr : c.getProjects())
 			{
-				
-				List<TridasObject> objects = pr.getObjects();
-				//System.out.println(objects.size()+" object(s) in this project");
-				p.getObjects().addAll(objects);
-				p.getDerivedSeries().addAll(pr.getDerivedSeries());
+				objects.addAll(pr.getObjects());
+				derivedSeries.addAll(pr.getDerivedSeries());
 			}
 		}
 		
+		if(consolidate)
+		{
+			objects = TridasUtils.consolidateObjects(objects);
+			derivedSeries = TridasUtils.consolidateDerivedSeries(derivedSeries);
+		}
 		
+		TridasProject p = containers.get(0).getProjects().get(0);
+		p.getObjects().clear();
+		p.getObjects().addAll(objects);
+		p.getDerivedSeries().clear();
+		p.getDerivedSeries().addAll(derivedSeries);
 		
+		TridasTridas thiscont = new TridasTridas();
 		thiscont.getProjects().add(p);
-		//System.out.println(thiscont.getProjects().size()+" project(s) in this merged container");
 		
 		return thiscont;
 	}
@@ -33,42 +33,47 @@ import org.tridas.schema.ControlledVoc;
  */
 public class ITRDBTaxonConverter {
 	
-	private static HashMap<String, String> codeToNameMap = null;
-	private static HashMap<String, String> nameToCodeMap = null;
-	private static HashMap<String, String> namenoauthToCodeMap = null;
-	private static String defaultCode = "UNKN";
-	private static String defaultTaxon = "Plantae";
-	private static String defaultDictionary = "ITRDB/WSL Dendrochronology Species Database";
+	private static final String defaultCode = "UNKN";
+	private static final String defaultTaxon = "Plantae";
+	private static final String defaultDictionary = "ITRDB/WSL Dendrochronology Species Database";
 	
 	private ITRDBTaxonConverter() {}
 	
 	
-	private static void initializeMap() {
-		FileHelper fh = new FileHelper();
-		String[] file = fh.loadStrings("spmap.csv");
-		HashMap<String, String> map = new HashMap<String, String>();
-		HashMap<String, String> map2 = new HashMap<String, String>();
-		HashMap<String, String> map3 = new HashMap<String, String>();
-
-		for (String s : file) {
-			String key = s.substring(0, s.indexOf(","));
-			String value = s.substring(s.indexOf(",") + 1).trim();
-			
-			int secondspacepos = org.apache.commons.lang3.StringUtils.ordinalIndexOf(value, " ", 2);
-			
-			if(secondspacepos>0)
-			{
-				map3.put(value.substring(0, secondspacepos), key);
-			}
+	/**
+	 * Holds the maps read from spmap.csv. They are built when the holder class
+	 * is first used, and class initialisation guarantees that every thread sees
+	 * them fully populated.
+	 */
+	private static class TaxonMaps {
+		
+		private static final TaxonMaps INSTANCE = new TaxonMaps();
+		
+		private final HashMap<String, String> codeToNameMap = new HashMap<String, String>();
+		private final HashMap<String, String> nameToCodeMap = new HashMap<String, String>();
+		private final HashMap<String, String> namenoauthToCodeMap = new HashMap<String, String>();
+		
+		private TaxonMaps() {
+			FileHelper fh = new FileHelper();
+			String[] file = fh.loadStrings("spmap.csv");
 			
-			if (key != null && value != null) {
-				map.put(key, value);
-				map2.put(value, key);
+			for (String s : file) {
+				String key = s.substring(0, s.indexOf(","));
+				String value = s.substring(s.indexOf(",") + 1).trim();
+				
+				int secondspacepos = org.apache.commons.lang3.StringUtils.ordinalIndexOf(value, " ", 2);
+				
+				if(secondspacepos>0)
+				{
+					namenoauthToCodeMap.put(value.substring(0, secondspacepos), key);
+				}
+				
+				if (key != null && value != null) {
+					codeToNameMap.put(key, value);
+					nameToCodeMap.put(value, key);
+				}
 			}
 		}
-		codeToNameMap = map;
-		nameToCodeMap = map2;
-		namenoauthToCodeMap = map3;
 	}
 	
 	/**
@@ -137,10 +142,7 @@ public class ITRDBTaxonConverter {
 	 */
 	public static String getNormalisedCode(String argCode)
 	{
-		if (codeToNameMap == null) {
-			initializeMap();
-		}
-		if (codeToNameMap.containsKey(argCode)) {
+		if (TaxonMaps.INSTANCE.codeToNameMap.containsKey(argCode)) {
 			return argCode.toUpperCase();
 		}
 		else {
@@ -162,9 +164,7 @@ public class ITRDBTaxonConverter {
 		//Upper case the code
 		argCode = argCode.toUpperCase();
 		
-		if (codeToNameMap == null) {
-			initializeMap();
-		}
+		HashMap<String, String> codeToNameMap = TaxonMaps.INSTANCE.codeToNameMap;
 		if (codeToNameMap.containsKey(argCode)) {
 			return codeToNameMap.get(argCode);
 		}
@@ -214,16 +214,14 @@ public class ITRDBTaxonConverter {
 	 * @return
 	 */
 	public static String getCodeFromName(String argName) {
-		if (nameToCodeMap == null) {
-			initializeMap();
-		}
+		TaxonMaps maps = TaxonMaps.INSTANCE;
 		
-		if (nameToCodeMap.containsKey(argName)) {
-			return nameToCodeMap.get(argName);
+		if (maps.nameToCodeMap.containsKey(argName)) {
+			return maps.nameToCodeMap.get(argName);
 		}
-		else if (namenoauthToCodeMap.containsKey(argName))
+		else if (maps.namenoauthToCodeMap.containsKey(argName))
 		{
-			return namenoauthToCodeMap.get(argName);
+			return maps.namenoauthToCodeMap.get(argName);
 		}
 		else {
 			return argName;
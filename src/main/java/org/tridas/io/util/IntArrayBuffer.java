@@ -0,0 +1,158 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints, used by readers to collect ring widths and
+ * counts while parsing. Unlike an <code>ArrayList&lt;Integer&gt;</code> each
+ * value costs four bytes in a single backing array rather than a separate
+ * object, so long series are cheap to hold until they are turned into
+ * TridasValues.
+ *
+ * @author agent
+ */
+public class IntArrayBuffer {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] data;
+	private int size = 0;
+
+	public IntArrayBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param argInitialCapacity
+	 *            number of values to make room for up front
+	 */
+	public IntArrayBuffer(int argInitialCapacity) {
+		data = new int[Math.max(1, argInitialCapacity)];
+	}
+
+	/**
+	 * Add a value to the end of the buffer
+	 *
+	 * @param argValue
+	 */
+	public void add(int argValue) {
+		if (size == data.length) {
+			grow(size + 1);
+		}
+		data[size++] = argValue;
+	}
+
+	/**
+	 * Add all the values in another buffer to the end of this one
+	 *
+	 * @param argOther
+	 */
+	public void addAll(IntArrayBuffer argOther) {
+		if (size + argOther.size > data.length) {
+			grow(size + argOther.size);
+		}
+		System.arraycopy(argOther.data, 0, data, size, argOther.size);
+		size += argOther.size;
+	}
+
+	/**
+	 * @param argIndex
+	 * @return the value at the index
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int get(int argIndex) {
+		checkIndex(argIndex);
+		return data[argIndex];
+	}
+
+	/**
+	 * @param argIndex
+	 * @param argValue
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void set(int argIndex, int argValue) {
+		checkIndex(argIndex);
+		data[argIndex] = argValue;
+	}
+
+	/**
+	 * Remove the last value in the buffer
+	 *
+	 * @return the value removed
+	 * @throws IndexOutOfBoundsException
+	 *             if the buffer is empty
+	 */
+	public int removeLast() {
+		checkIndex(size - 1);
+		return data[--size];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @return sum of all the values, or 0 if empty
+	 */
+	public long sum() {
+		long sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += data[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * @return mean of all the values, or null if empty
+	 */
+	public Double average() {
+		if (size == 0) {
+			return null;
+		}
+		return (double) sum() / size;
+	}
+
+	/**
+	 * @return a copy of the values
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(data, size);
+	}
+
+	private void grow(int argMinCapacity) {
+		int newCapacity = data.length + (data.length >> 1) + 1;
+		if (newCapacity < argMinCapacity) {
+			newCapacity = argMinCapacity;
+		}
+		data = Arrays.copyOf(data, newCapacity);
+	}
+
+	private void checkIndex(int argIndex) {
+		if (argIndex < 0 || argIndex >= size) {
+			throw new IndexOutOfBoundsException("Index: " + argIndex + ", Size: " + size);
+		}
+	}
+}
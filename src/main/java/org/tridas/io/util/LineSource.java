@@ -0,0 +1,342 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tridas.io.I18n;
+
+import com.ibm.icu.text.CharsetDetector;
+import com.ibm.icu.text.CharsetMatch;
+
+/**
+ * Forward-only cursor over the lines of a text file. Lines are read on demand so
+ * readers that parse through a LineSource only ever hold the lines they are
+ * currently working on, rather than the whole file as a String[].
+ * <p>
+ * A single line of look-ahead is available through {@link #peekLine()}, and readers
+ * that need more than one pass over a file (e.g. a validation pass followed by a
+ * parsing pass) can {@link #rewind()} back to the start. Rewinding a file-backed
+ * source re-opens the underlying stream rather than caching its contents.
+ *
+ * @author agent
+ */
+public abstract class LineSource implements Closeable {
+
+	private final static Logger log = LoggerFactory.getLogger(LineSource.class);
+
+	private String peeked = null;
+	private boolean hasPeeked = false;
+	private int lineNumber = 0;
+
+	/**
+	 * Opens a fresh stream on the underlying data. Called once when the source is
+	 * first read and again each time it is rewound.
+	 */
+	public interface InputOpener {
+		public InputStream open() throws IOException;
+	}
+
+	/**
+	 * Read the next line from the underlying data
+	 *
+	 * @return the line, or null if the end of the data has been reached
+	 * @throws IOException
+	 */
+	protected abstract String readLine() throws IOException;
+
+	/**
+	 * Reposition the underlying data at the first line
+	 *
+	 * @throws IOException
+	 */
+	protected abstract void restart() throws IOException;
+
+	/**
+	 * Get the next line and advance the cursor.
+	 *
+	 * @return the line, or null if there are no more lines
+	 * @throws IOException
+	 */
+	public String nextLine() throws IOException {
+		String line;
+		if (hasPeeked) {
+			line = peeked;
+			peeked = null;
+			hasPeeked = false;
+		}
+		else {
+			line = readLine();
+		}
+		if (line != null) {
+			lineNumber++;
+		}
+		return line;
+	}
+
+	/**
+	 * Get the next line without advancing the cursor.
+	 *
+	 * @return the line that the next call to {@link #nextLine()} will return, or null
+	 *         if there are no more lines
+	 * @throws IOException
+	 */
+	public String peekLine() throws IOException {
+		if (!hasPeeked) {
+			peeked = readLine();
+			hasPeeked = true;
+		}
+		return peeked;
+	}
+
+	/**
+	 * Whether there are any more lines to read
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean hasNextLine() throws IOException {
+		return peekLine() != null;
+	}
+
+	/**
+	 * The 1-based number of the line most recently returned by {@link #nextLine()}, or
+	 * 0 if no lines have been read since the source was opened or rewound.
+	 *
+	 * @return
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Move the cursor back to the start so the data can be read again.
+	 *
+	 * @throws IOException
+	 */
+	public void rewind() throws IOException {
+		peeked = null;
+		hasPeeked = false;
+		lineNumber = 0;
+		restart();
+	}
+
+	/**
+	 * Read all the remaining lines into an array. This is here for readers that
+	 * have not yet been written to stream their input, and defeats the purpose of
+	 * using a LineSource for anything else.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public String[] toArray() throws IOException {
+		ArrayList<String> lines = new ArrayList<String>();
+		String line;
+		while ((line = nextLine()) != null) {
+			lines.add(line);
+		}
+		return lines.toArray(new String[0]);
+	}
+
+	/**
+	 * Get a Reader over the remaining lines, for parsers that want characters
+	 * rather than lines (e.g. XML parsers). Lines are handed over one at a time and
+	 * joined with '\n'. Closing the Reader does not close this source.
+	 *
+	 * @return
+	 */
+	public Reader asReader() {
+		return new Reader() {
+			private String current = null;
+			private int pos = 0;
+
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				if (len == 0) {
+					return 0;
+				}
+				if (current == null || pos >= current.length()) {
+					String line = nextLine();
+					if (line == null) {
+						return -1;
+					}
+					current = line + "\n";
+					pos = 0;
+				}
+				int count = Math.min(len, current.length() - pos);
+				current.getChars(pos, pos + count, cbuf, off);
+				pos += count;
+				return count;
+			}
+
+			@Override
+			public void close() {}
+		};
+	}
+
+	/**
+	 * Create a LineSource over lines that are already in memory.
+	 *
+	 * @param argLines
+	 * @return
+	 */
+	public static LineSource fromStrings(final String[] argLines) {
+		return new LineSource() {
+			private int index = 0;
+
+			@Override
+			protected String readLine() {
+				if (argLines == null || index >= argLines.length) {
+					return null;
+				}
+				return argLines[index++];
+			}
+
+			@Override
+			protected void restart() {
+				index = 0;
+			}
+
+			@Override
+			public void close() {}
+		};
+	}
+
+	/**
+	 * Create a LineSource over a file on disk. Files ending in .gz are transparently
+	 * decompressed.
+	 *
+	 * @param argPath
+	 * @param argCharset
+	 *            charset to decode with, or null to use either charset detection or the
+	 *            platform default
+	 * @param argDetectCharset
+	 *            whether to detect the charset when argCharset is null
+	 * @return
+	 */
+	public static LineSource fromPath(final Path argPath, String argCharset, boolean argDetectCharset) {
+		final boolean gzip = argPath.getFileName() != null
+				&& argPath.getFileName().toString().toLowerCase().endsWith(".gz");
+		return fromInput(new InputOpener() {
+			@Override
+			public InputStream open() throws IOException {
+				InputStream is = Files.newInputStream(argPath);
+				if (gzip) {
+					return new GZIPInputStream(is);
+				}
+				return is;
+			}
+		}, argCharset, argDetectCharset);
+	}
+
+	/**
+	 * Create a LineSource over any stream of bytes. The opener is called again
+	 * each time the source is rewound.
+	 *
+	 * @param argOpener
+	 * @param argCharset
+	 *            charset to decode with, or null to use either charset detection or the
+	 *            platform default
+	 * @param argDetectCharset
+	 *            whether to detect the charset when argCharset is null
+	 * @return
+	 */
+	public static LineSource fromInput(InputOpener argOpener, String argCharset, boolean argDetectCharset) {
+		return new StreamLineSource(argOpener, argCharset, argDetectCharset);
+	}
+
+	/**
+	 * LineSource that decodes lines from a re-openable stream.
+	 */
+	private static class StreamLineSource extends LineSource {
+		private final InputOpener opener;
+		private final String charset;
+		private final boolean detectCharset;
+		private BufferedReader reader = null;
+
+		private StreamLineSource(InputOpener argOpener, String argCharset, boolean argDetectCharset) {
+			opener = argOpener;
+			charset = argCharset;
+			detectCharset = argDetectCharset;
+		}
+
+		@Override
+		protected String readLine() throws IOException {
+			if (reader == null) {
+				reader = open();
+			}
+			return reader.readLine();
+		}
+
+		@Override
+		protected void restart() throws IOException {
+			close();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (reader != null) {
+				reader.close();
+				reader = null;
+			}
+		}
+
+		private BufferedReader open() throws IOException {
+			InputStream is = opener.open();
+			if (is == null) {
+				throw new IOException(I18n.getText("fileio.loadfailed"));
+			}
+
+			if (charset != null) {
+				UnicodeBOMInputStream bis = new UnicodeBOMInputStream(is);
+				bis.skipBOM();
+				return new BufferedReader(new InputStreamReader(bis, charset));
+			}
+
+			if (detectCharset) {
+				// The detector only samples the start of the stream, then resets it
+				BufferedInputStream bis = new BufferedInputStream(is);
+				CharsetDetector detector = new CharsetDetector();
+				detector.setText(bis);
+				CharsetMatch match = detector.detect();
+				if (match != null) {
+					log.debug("Best charset match is " + match.getName() + " (" + match.getLanguage()
+							+ ") with a confidence of " + match.getConfidence() + "%");
+					Reader detected = match.getReader();
+					if (detected != null) {
+						return new BufferedReader(detected);
+					}
+				}
+				return new BufferedReader(new InputStreamReader(bis, Charset.defaultCharset()));
+			}
+
+			return new BufferedReader(new InputStreamReader(is));
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package org.tridas.io.util;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class StatsUtil {
 
@@ -28,4 +30,29 @@ public class StatsUtil {
 		return maxValue;
 	}
 	
+	/**
+	 * Calculate the mode from a table of value frequencies rather than the raw values.
+	 * Where there is a tie, the value that was added to the table first wins, as with
+	 * {@link #mode(ArrayList)}.
+	 * 
+	 * @param frequencies map of value to the number of times it occurs, in order of
+	 *            first occurrence
+	 * @return
+	 */
+	public static int mode(LinkedHashMap<Integer, Integer> frequencies)
+	{
+		int maxValue = 0, maxCount = 0;
+		
+		for (Map.Entry<Integer, Integer> entry : frequencies.entrySet())
+		{
+			if (entry.getValue() > maxCount)
+			{
+				maxCount = entry.getValue();
+				maxValue = entry.getKey();
+			}
+		}
+		
+		return maxValue;
+	}
+	
 }
@@ -0,0 +1,200 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.util;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tridas.io.TridasNamespacePrefixMapper;
+import org.xml.sax.SAXException;
+
+/**
+ * Shared JAXB context and compiled schemas for reading and writing TRiDaS.
+ * <p>
+ * Creating a JAXBContext or compiling the TRiDaS schema takes far longer than
+ * parsing a typical file, so both are done once and shared. They are
+ * thread-safe, but the unmarshallers, marshallers and validators they create
+ * are not. Each thread therefore gets its own instances, which are reused for
+ * every file that thread handles.
+ *
+ * @author agent
+ */
+public final class TridasJAXBCache {
+
+	private final static Logger log = LoggerFactory.getLogger(TridasJAXBCache.class);
+
+	/**
+	 * Location of the TRiDaS schema bundled with this library
+	 */
+	public final static String TRIDAS_SCHEMA = "schemas/tridas.xsd";
+
+	private final static String SCHEMA_PACKAGE = "org.tridas.schema";
+
+	private static volatile JAXBContext context = null;
+	private final static ConcurrentHashMap<String, Schema> schemas = new ConcurrentHashMap<String, Schema>();
+
+	private final static ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<Unmarshaller>();
+	private final static ThreadLocal<Marshaller> marshallers = new ThreadLocal<Marshaller>();
+	private final static ThreadLocal<HashMap<String, Validator>> validators = new ThreadLocal<HashMap<String, Validator>>() {
+		@Override
+		protected HashMap<String, Validator> initialValue() {
+			return new HashMap<String, Validator>();
+		}
+	};
+
+	private TridasJAXBCache() {}
+
+	/**
+	 * Get the shared JAXBContext for the TRiDaS schema classes, creating it the
+	 * first time it is asked for.
+	 *
+	 * @return
+	 * @throws JAXBException
+	 */
+	public static JAXBContext getContext() throws JAXBException {
+		JAXBContext jc = context;
+		if (jc == null) {
+			synchronized (TridasJAXBCache.class) {
+				jc = context;
+				if (jc == null) {
+					log.debug("Creating JAXB context for " + SCHEMA_PACKAGE);
+					jc = JAXBContext.newInstance(SCHEMA_PACKAGE);
+					context = jc;
+				}
+			}
+		}
+		return jc;
+	}
+
+	/**
+	 * Get the compiled schema held in a resource on the classpath, compiling it
+	 * the first time it is asked for.
+	 *
+	 * @param argResource
+	 *            classpath location of the schema, e.g. {@link #TRIDAS_SCHEMA}
+	 * @return the schema, or null if the resource could not be found
+	 * @throws SAXException
+	 *             if the schema could not be compiled
+	 */
+	public static Schema getSchema(String argResource) throws SAXException {
+		Schema schema = schemas.get(argResource);
+		if (schema != null) {
+			return schema;
+		}
+
+		URL file = IOUtils.getFileInJarURL(argResource);
+		if (file == null) {
+			return null;
+		}
+
+		// Two threads may both compile the schema the first time round, but only
+		// one of them is kept
+		log.debug("Compiling schema " + argResource);
+		SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		schema = factory.newSchema(file);
+		Schema existing = schemas.putIfAbsent(argResource, schema);
+		return (existing != null) ? existing : schema;
+	}
+
+	/**
+	 * Get this thread's unmarshaller.
+	 *
+	 * @param argSchema
+	 *            schema to validate against while unmarshalling, or null for none
+	 * @return
+	 * @throws JAXBException
+	 */
+	public static Unmarshaller getUnmarshaller(Schema argSchema) throws JAXBException {
+		Unmarshaller u = unmarshallers.get();
+		if (u == null) {
+			u = getContext().createUnmarshaller();
+			unmarshallers.set(u);
+		}
+		u.setSchema(argSchema);
+		u.setEventHandler(null);
+		return u;
+	}
+
+	/**
+	 * Get this thread's marshaller. It uses the {@link TridasNamespacePrefixMapper}
+	 * for namespace prefixes, and materialises any {@link ColumnarTridasValues}
+	 * as it reaches them.
+	 *
+	 * @param argSchema
+	 *            schema to validate against while marshalling, or null for none
+	 * @return
+	 * @throws JAXBException
+	 */
+	public static Marshaller getMarshaller(Schema argSchema) throws JAXBException {
+		Marshaller m = marshallers.get();
+		if (m == null) {
+			m = getContext().createMarshaller();
+			m.setProperty("com.sun.xml.bind.namespacePrefixMapper", new TridasNamespacePrefixMapper());
+			m.setListener(new Marshaller.Listener() {
+				@Override
+				public void beforeMarshal(Object argSource) {
+					// JAXB reads the values field directly, so build it first
+					if (argSource instanceof ColumnarTridasValues) {
+						((ColumnarTridasValues) argSource).materialise();
+					}
+				}
+			});
+			marshallers.set(m);
+		}
+		m.setSchema(argSchema);
+		m.setEventHandler(null);
+		return m;
+	}
+
+	/**
+	 * Get this thread's validator for the schema held in a resource on the
+	 * classpath.
+	 *
+	 * @param argResource
+	 *            classpath location of the schema
+	 * @return the validator, or null if the schema resource could not be found
+	 * @throws SAXException
+	 *             if the schema could not be compiled
+	 */
+	public static Validator getValidator(String argResource) throws SAXException {
+		HashMap<String, Validator> threadValidators = validators.get();
+		Validator validator = threadValidators.get(argResource);
+		if (validator == null) {
+			Schema schema = getSchema(argResource);
+			if (schema == null) {
+				return null;
+			}
+			validator = schema.newValidator();
+			threadValidators.put(argResource, validator);
+		}
+		else {
+			validator.reset();
+		}
+		return validator;
+	}
+}
@@ -18,6 +18,7 @@ package org.tridas.io.util;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
 
@@ -319,49 +320,26 @@ public class TridasUtils {
 	
 	public static ArrayList<TridasProject> consolidateProjects(ArrayList<TridasProject> projects, Boolean treatUnknownsAsDifferent)
 	{
-		ArrayList<ITridas> returnProjects = new ArrayList<ITridas>();
+		String unknown = treatUnknownsAsDifferent ? I18n.getText("unnamed.project") : null;
 		
 		// First consolidate Projects
-		for(TridasProject p1 : projects)
-		{
-			if(getMatchInArrayByTitle(returnProjects, p1, treatUnknownsAsDifferent)==null)
-			{
-				// Project not in return list, so add
-				returnProjects.add(p1);
-			}
-			else
-			{
-				// Project is in return list, so grab 
-				TridasProject p2 = (TridasProject) getMatchInArrayByTitle(returnProjects, p1, treatUnknownsAsDifferent);
-				
-				// Remove existing from list
-				returnProjects = removeEntriesThatMatchTitle(returnProjects, p1);
-				
+		ArrayList<TridasProject> returnProjects = mergeByTitle(projects, unknown, new TitleMerger<TridasProject>() {
+			@Override
+			public boolean merge(TridasProject argInto, TridasProject argFrom) {
 				// Append extra objects
-				p2.getObjects().addAll(p1.getObjects());
-							
-				// Add back to list
-				returnProjects.add(p2);
+				argInto.getObjects().addAll(argFrom.getObjects());
+				return true;
 			}
-		}
-				
+		});
 		
-		// Cast to ArrayList<TridasProject>
-		ArrayList<TridasProject> returnProjects2 = new ArrayList<TridasProject>();
-		for(ITridas i : returnProjects)
+		// Recurse to merge child entries
+		for(TridasProject p : returnProjects)
 		{
-			TridasProject i2 = (TridasProject) i;
-			ArrayList<TridasObject> objlist = new ArrayList<TridasObject>();
-			for(TridasObject o : i2.getObjects())
-			{
-				objlist.add(o);
-			}
-
-			i2.getObjects().clear();
-			i2.getObjects().addAll(consolidateObjects(objlist));
-			returnProjects2.add(i2);
+			ArrayList<TridasObject> objlist = new ArrayList<TridasObject>(p.getObjects());
+			p.getObjects().clear();
+			p.getObjects().addAll(consolidateObjects(objlist));
 		}
-		return returnProjects2;
+		return returnProjects;
 		
 	}
 	
@@ -378,61 +356,30 @@ public class TridasUtils {
 	
 	public static ArrayList<TridasObject> consolidateObjects(List<TridasObject> objects,  Boolean treatUnknownsAsDifferent)
 	{
-		ArrayList<ITridas> returnObjects = new ArrayList<ITridas>();
+		String unknown = treatUnknownsAsDifferent ? I18n.getText("unnamed.object") : null;
 		
 		// First consolidate Objects
-		for(TridasObject o1 : objects)
-		{
-			if(getMatchInArrayByTitle(returnObjects, o1, treatUnknownsAsDifferent)==null)
-			{
-				// Object not in return list, so add
-				returnObjects.add(o1);
-			}
-			else
-			{
-				// Object is in return list, so grab 
-				TridasObject o2 = (TridasObject) getMatchInArrayByTitle(returnObjects, o1, treatUnknownsAsDifferent);
-								
-				// Remove existing from list
-				returnObjects = removeEntriesThatMatchTitle(returnObjects, o1);
-				
+		ArrayList<TridasObject> returnObjects = mergeByTitle(objects, unknown, new TitleMerger<TridasObject>() {
+			@Override
+			public boolean merge(TridasObject argInto, TridasObject argFrom) {
 				// Append extra elements
-				o2.getElements().addAll(o1.getElements());
-				
-				// Add back to list
-				returnObjects.add(o2);
+				argInto.getElements().addAll(argFrom.getElements());
+				return true;
 			}
-		}
+		});
 		
-		
-		// Cast to ArrayList<TridasObject>
-		ArrayList<TridasObject> returnObjects2 = new ArrayList<TridasObject>();
-		for(ITridas i : returnObjects)
+		// Recurse to merge child entries
+		for(TridasObject o : returnObjects)
 		{
-			TridasObject i2 = (TridasObject) i;
-			ArrayList<TridasObject> objlist = new ArrayList<TridasObject>();
-			for(TridasObject o : i2.getObjects())
-			{
-				objlist.add(o);
-			}
-
-			i2.getObjects().clear();
-			i2.getObjects().addAll(consolidateObjects(objlist));
-			
-			
-			ArrayList<TridasElement> ellist = new ArrayList<TridasElement>();
-			for(TridasElement e : i2.getElements())
-			{
-				ellist.add(e);
-			}
-			
-			i2.getElements().clear();
-			i2.getElements().addAll(consolidateElements(ellist));
+			ArrayList<TridasObject> objlist = new ArrayList<TridasObject>(o.getObjects());
+			o.getObjects().clear();
+			o.getObjects().addAll(consolidateObjects(objlist));
 			
-			returnObjects2.add(i2);
-
+			ArrayList<TridasElement> ellist = new ArrayList<TridasElement>(o.getElements());
+			o.getElements().clear();
+			o.getElements().addAll(consolidateElements(ellist));
 		}
-		return returnObjects2;
+		return returnObjects;
 		
 	}
 	
@@ -444,49 +391,25 @@ public class TridasUtils {
 	 */
 	public static ArrayList<TridasElement> consolidateElements(ArrayList<TridasElement> elements)
 	{
-		ArrayList<ITridas> returnElements = new ArrayList<ITridas>();
-		
 		// First consolidate Elements
-		for(TridasElement e1 : elements)
-		{
-			if(getMatchInArrayByTitle(returnElements, e1)==null)
-			{
-				// Element not in return list, so add
-				returnElements.add(e1);
-			}
-			else
-			{
-				// Element is in return list, so grab 
-				TridasElement e2 = (TridasElement) getMatchInArrayByTitle(returnElements, e1);
-				
-				// Remove existing from list
-				returnElements = removeEntriesThatMatchTitle(returnElements, e1);
-				
+		ArrayList<TridasElement> returnElements = mergeByTitle(elements, I18n.getText("unnamed.element"),
+				new TitleMerger<TridasElement>() {
+			@Override
+			public boolean merge(TridasElement argInto, TridasElement argFrom) {
 				// Append extra samples
-				e2.getSamples().addAll(e1.getSamples());
-				
-				// Add back to list
-				returnElements.add(e2);
+				argInto.getSamples().addAll(argFrom.getSamples());
+				return true;
 			}
-		}
-				
+		});
 		
 		// Recurse to merge child entries
-		ArrayList<TridasElement> returnElements2 = new ArrayList<TridasElement>();
-		for(ITridas i : returnElements)
+		for(TridasElement e : returnElements)
 		{
-			TridasElement i2 = (TridasElement) i;
-			ArrayList<TridasSample> sampList = new ArrayList<TridasSample>();
-			for(TridasSample s : i2.getSamples())
-			{
-				sampList.add(s);
-			}
-
-			i2.getSamples().clear();
-			i2.getSamples().addAll(consolidateSamples(sampList));
-			returnElements2.add(i2);
+			ArrayList<TridasSample> sampList = new ArrayList<TridasSample>(e.getSamples());
+			e.getSamples().clear();
+			e.getSamples().addAll(consolidateSamples(sampList));
 		}
-		return returnElements2;
+		return returnElements;
 		
 	}
 	
@@ -499,49 +422,23 @@ public class TridasUtils {
 	 */
 	public static ArrayList<TridasDerivedSeries> consolidateDerivedSeries(ArrayList<TridasDerivedSeries> series)
 	{
-		ArrayList<ITridas> returnSeries = new ArrayList<ITridas>();
-		
-		// First consolidate series
-		for(TridasDerivedSeries s1 : series)
-		{
-			if(getMatchInArrayByTitle(returnSeries, s1)==null)
-			{
-				// Series not in return list, so add
-				returnSeries.add(s1);
-			}
-			else
-			{
-				// Series is in return list, so grab 
-				TridasDerivedSeries s2 = (TridasDerivedSeries) getMatchInArrayByTitle(returnSeries, s1);
-				
-				
+		ArrayList<TridasDerivedSeries> returnSeries = mergeByTitle(series, null,
+				new TitleMerger<TridasDerivedSeries>() {
+			@Override
+			public boolean merge(TridasDerivedSeries argInto, TridasDerivedSeries argFrom) {
 				// Make sure the list of values is the same, otherwise skip merge
-				if(s1.getValues().get(0).getValues().size()==s2.getValues().get(0).getValues().size())
-				{		
-					// Remove existing from list
-					returnSeries = removeEntriesThatMatchTitle(returnSeries, s1);
-					
-					// Append extra values groups
-					s2.getValues().addAll(s1.getValues());
-					
-					// Add back to list
-					returnSeries.add(s2);
-				}
-				else
+				if(argFrom.getValues().get(0).getValues().size()!=argInto.getValues().get(0).getValues().size())
 				{
-					return series;
+					return false;
 				}
+				
+				// Append extra values groups
+				argInto.getValues().addAll(argFrom.getValues());
+				return true;
 			}
-		}
-			
-		ArrayList<TridasDerivedSeries> returnSeries2 = new ArrayList<TridasDerivedSeries>();
+		});
 		
-		for(ITridas s : returnSeries)
-		{
-			returnSeries2.add((TridasDerivedSeries) s);
-		}
-		
-		return returnSeries2;
+		return (returnSeries != null) ? returnSeries : series;
 	}
 
 	
@@ -554,49 +451,25 @@ public class TridasUtils {
 	 */
 	public static ArrayList<TridasSample> consolidateSamples(ArrayList<TridasSample> samples)
 	{
-		ArrayList<ITridas> returnSamples = new ArrayList<ITridas>();
-		
 		// First consolidate Samples
-		for(TridasSample s1 : samples)
-		{
-			if(getMatchInArrayByTitle(returnSamples, s1)==null)
-			{
-				// Samples not in return list, so add
-				returnSamples.add(s1);
-			}
-			else
-			{
-				// Samples is in return list, so grab 
-				TridasSample s2 = (TridasSample) getMatchInArrayByTitle(returnSamples, s1);
-				
-				// Remove existing from list
-				returnSamples = removeEntriesThatMatchTitle(returnSamples, s1);
-				
+		ArrayList<TridasSample> returnSamples = mergeByTitle(samples, I18n.getText("unnamed.sample"),
+				new TitleMerger<TridasSample>() {
+			@Override
+			public boolean merge(TridasSample argInto, TridasSample argFrom) {
 				// Append extra radii
-				s2.getRadiuses().addAll(s1.getRadiuses());
-				
-				// Add back to list
-				returnSamples.add(s2);
+				argInto.getRadiuses().addAll(argFrom.getRadiuses());
+				return true;
 			}
-		}
-				
+		});
 		
 		// Recurse to merge child entries
-		ArrayList<TridasSample> returnSamples2 = new ArrayList<TridasSample>();
-		for(ITridas i : returnSamples)
+		for(TridasSample s : returnSamples)
 		{
-			TridasSample i2 = (TridasSample) i;
-			ArrayList<TridasRadius> radList = new ArrayList<TridasRadius>();
-			for(TridasRadius r : i2.getRadiuses())
-			{
-				radList.add(r);
-			}
-
-			i2.getRadiuses().clear();
-			i2.getRadiuses().addAll(consolidateRadii(radList));
-			returnSamples2.add(i2);
+			ArrayList<TridasRadius> radList = new ArrayList<TridasRadius>(s.getRadiuses());
+			s.getRadiuses().clear();
+			s.getRadiuses().addAll(consolidateRadii(radList));
 		}
-		return returnSamples2;
+		return returnSamples;
 		
 	}
 	
@@ -608,125 +481,76 @@ public class TridasUtils {
 	 */
 	public static ArrayList<TridasRadius> consolidateRadii(ArrayList<TridasRadius> radii)
 	{
-		ArrayList<ITridas> returnRadii = new ArrayList<ITridas>();
-		
-		// First consolidate Radii
-		for(TridasRadius r1 : radii)
-		{
-			if(getMatchInArrayByTitle(returnRadii, r1)==null)
-			{
-				// Radius not in return list, so add
-				returnRadii.add(r1);
-			}
-			else
-			{
-				// Radius is in return list, so grab 
-				TridasRadius r2 = (TridasRadius) getMatchInArrayByTitle(returnRadii, r1);
-				
-				// Remove existing from list
-				returnRadii = removeEntriesThatMatchTitle(returnRadii, r1);
-				
+		return mergeByTitle(radii, I18n.getText("unnamed.radius"), new TitleMerger<TridasRadius>() {
+			@Override
+			public boolean merge(TridasRadius argInto, TridasRadius argFrom) {
 				// Append extra series
-				r2.getMeasurementSeries().addAll(r1.getMeasurementSeries());
-				
-				// Add back to list
-				returnRadii.add(r2);
+				argInto.getMeasurementSeries().addAll(argFrom.getMeasurementSeries());
+				return true;
 			}
-		}
-				
-		
-		// Recurse to merge child entries
-		ArrayList<TridasRadius> returnRadii2 = new ArrayList<TridasRadius>();
-		for(ITridas i : returnRadii)
-		{
-			returnRadii2.add((TridasRadius) i);
-		}
-		return returnRadii2;
-		
+		});
 	}
 	
-	
-	
 	/**
-	 * Search through the provided list looking for a match based on title.  If the 
-	 * provided item has the default 'Unknown' title, then it is treated as unique.
-	 * 
-	 * If match is found, this entity is returned.  If not match is found then null 
-	 * is returned
-	 * 
-	 * @param list
-	 * @param checkitem
-	 * @return
+	 * Merges the children of one entity into another with the same title
 	 */
-	private static ITridas getMatchInArrayByTitle(ArrayList<ITridas> list, ITridas checkitem)
-	{
-		return getMatchInArrayByTitle(list, checkitem, true);
+	private interface TitleMerger<T extends ITridas> {
+		/**
+		 * @return false if the entities can't be merged, which abandons the
+		 *         whole consolidation
+		 */
+		public boolean merge(T argInto, T argFrom);
 	}
 	
 	/**
-	 * Search through the provided list looking for a match based on title.  The
-	 * treatUnknownsAsDifferent param determines whether matching is ignored for
-	 * entities with 'Unknown' titles.
+	 * Merge entities with the same title, using an index of the entities so far by
+	 * title. When an unknown title is given, entities with that title or with no
+	 * title are never merged. Otherwise entities with no title are merged with
+	 * each other like any other title.
 	 * 
-	 * If match is found, this entity is returned.  If not match is found then null 
-	 * is returned
+	 * When an entity is merged into an earlier one, that earlier entity moves to
+	 * the end of the list, which is the order the consolidate methods have always
+	 * returned.
 	 * 
-	 * @param list
-	 * @param checkitem
-	 * @param treatUnknownsAsDifferent
-	 * @return
+	 * @param argEntities
+	 * @param argUnknownTitle
+	 *            title of entities that should be treated as different, or null
+	 * @param argMerger
+	 * @return the merged list, or null if the merger gave up
 	 */
-	private static ITridas getMatchInArrayByTitle(ArrayList<ITridas> list, ITridas checkitem, Boolean treatUnknownsAsDifferent)
+	private static <T extends ITridas> ArrayList<T> mergeByTitle(List<T> argEntities, String argUnknownTitle,
+			TitleMerger<T> argMerger)
 	{
-		// Intercept 'Unknown' entities and force treatment as different entities 
-		if(treatUnknownsAsDifferent)
+		LinkedHashMap<Object, T> index = new LinkedHashMap<Object, T>();
+		
+		for(T entity : argEntities)
 		{
-			if(checkitem instanceof TridasProject)
+			String title = entity.getTitle();
+			if(argUnknownTitle != null && (title == null || title.equals(argUnknownTitle)))
 			{
-				if(checkitem.getTitle().equals(I18n.getText("unnamed.project"))) return null;
-			}
-			else if(checkitem instanceof TridasObject)
-			{
-				if(checkitem.getTitle().equals(I18n.getText("unnamed.object"))) return null;
+				// Intercept 'Unknown' entities and give them a key of their own
+				index.put(new Object(), entity);
+				continue;
 			}
-			else if(checkitem instanceof TridasElement)
+			
+			T existing = index.remove(title);
+			if(existing == null)
 			{
-				if(checkitem.getTitle().equals(I18n.getText("unnamed.element"))) return null;
+				// Not seen yet, so add
+				index.put(title, entity);
 			}
-			else if(checkitem instanceof TridasSample)
-			{
-				if(checkitem.getTitle().equals(I18n.getText("unnamed.sample"))) return null;
-			}			
-			else if(checkitem instanceof TridasRadius)
-			{
-				if(checkitem.getTitle().equals(I18n.getText("unnamed.radius"))) return null;
-			}	
-		}
-		
-		// Search through list checking against titles
-		for(ITridas thisitem : list)
-		{
-			if(thisitem.getTitle().equals(checkitem.getTitle())) return thisitem;
-		}
-		
-		// No match
-		return null;
-		
-	}
-	
-	private static ArrayList<ITridas> removeEntriesThatMatchTitle(ArrayList<ITridas> list, ITridas checkitem)
-	{
-		ArrayList<ITridas> returnList = new ArrayList<ITridas>();
-		
-		for(ITridas thisitem : list)
-		{
-			if(!thisitem.getTitle().equals(checkitem.getTitle())) 
+			else
 			{
-				returnList.add(thisitem);
+				if(!argMerger.merge(existing, entity))
+				{
+					return null;
+				}
+				// Add back to the end of the list
+				index.put(title, existing);
 			}
 		}
 		
-		return returnList;
+		return new ArrayList<T>(index.values());
 	}
 
 	
@@ -838,6 +662,9 @@ public class TridasUtils {
 	 * identifier matches a derivedSeries, then this function is called recursively to try and locate the correct
 	 * entity.  If no match is found, then null is returned.
 	 * 
+	 * This walks the whole project for every call, so when looking up many entities 
+	 * build an {@link EntityIndex} of the project once instead.
+	 * 
 	 * @param p
 	 * @param id
 	 * @param parentEntityClass
@@ -921,7 +748,8 @@ public class TridasUtils {
 	}
 		
 	/**
-	 * Search a Tridas container for a entity with the specified identifier
+	 * Search a Tridas container for a entity with the specified identifier.  For 
+	 * many lookups in the same container use an {@link EntityIndex} instead.
 	 * 
 	 * @param container
 	 * @param id
@@ -1455,6 +1283,8 @@ public class TridasUtils {
 	
 	public static Integer getRingCount(TridasValues values)
 	{
+		if(values instanceof ColumnarTridasValues) return ((ColumnarTridasValues) values).size();
+		
 		if(values==null || values.getValues()==null) return null;
 		
 		return values.getValues().size();
@@ -1462,6 +1292,20 @@ public class TridasUtils {
 	
 	public static Double getAverageRingCount(TridasValues values) throws NumberFormatException
 	{
+		if(values instanceof ColumnarTridasValues && ((ColumnarTridasValues) values).isColumnar())
+		{
+			// Average the columns rather than building and parsing the Strings
+			double[] widths = ColumnarTridasValues.getDoubleValues(values);
+			if(widths.length==0) return null;
+			
+			Double totalLength = 0.0;
+			for(double width : widths)
+			{
+				totalLength = totalLength+width;
+			}
+			return totalLength / widths.length;
+		}
+		
 		if(values==null || values.getValues()==null || values.getValues().size()==0) return null;
 			
 		TridasUnit units = null;
@@ -228,7 +228,6 @@ public class UnitUtils {
 	public static TridasValues convertTridasValues(NormalTridasUnit outputunits, TridasValues tv, Integer maxIntChars) 
 	throws NumberFormatException, ConversionWarningException
 	{
-		ArrayList<TridasValue> values = (ArrayList<TridasValue>) tv.getValues();
 		NormalTridasUnit inputunits = null;
 		
 		try{
@@ -239,8 +238,12 @@ public class UnitUtils {
 			throw new ConversionWarningException(new ConversionWarning(WarningType.AMBIGUOUS, I18n.getText("fileio.convertsOnlyTridasUnits")));
 		}
 		
+		if(convertColumnsToIntegers(inputunits, outputunits, tv, maxIntChars))
+		{
+			return tv;
+		}
 		
-		
+		ArrayList<TridasValue> values = (ArrayList<TridasValue>) tv.getValues();
 		for (TridasValue value : values)
 		{
 			Double dblvalue = Double.parseDouble(value.getValue());
@@ -355,7 +358,6 @@ public class UnitUtils {
 	public static TridasValues convertTridasValues(NormalTridasUnit outputunits, TridasValues tv, Boolean outputAsIntegers) 
 	throws NumberFormatException, ConversionWarningException
 	{
-		ArrayList<TridasValue> values = (ArrayList<TridasValue>) tv.getValues();
 		NormalTridasUnit inputunits = null;
 		
 		try{
@@ -371,20 +373,24 @@ public class UnitUtils {
 			throw new ConversionWarningException(new ConversionWarning(WarningType.AMBIGUOUS, I18n.getText("fileio.convertsOnlyTridasUnits")));
 		}
 		
-		for (TridasValue value : values)
+		if(!outputAsIntegers || !convertColumnsToIntegers(inputunits, outputunits, tv, null))
 		{
-			Double dblvalue = Double.parseDouble(value.getValue());
-			dblvalue = UnitUtils.convertDouble(inputunits, outputunits, dblvalue);
-			
-			if(outputAsIntegers)
-			{
-				value.setValue(String.valueOf(Math.round(dblvalue)));
-			}
-			else
+			ArrayList<TridasValue> values = (ArrayList<TridasValue>) tv.getValues();
+			for (TridasValue value : values)
 			{
-				// Make sure only the correct number of significant decimals are shown
-				DecimalFormat dformat = getDecimalFormatForSigFigs(inputunits, outputunits);
-				value.setValue(String.valueOf(dformat.format(dblvalue)));
+				Double dblvalue = Double.parseDouble(value.getValue());
+				dblvalue = UnitUtils.convertDouble(inputunits, outputunits, dblvalue);
+			
+				if(outputAsIntegers)
+				{
+					value.setValue(String.valueOf(Math.round(dblvalue)));
+				}
+				else
+				{
+					// Make sure only the correct number of significant decimals are shown
+					DecimalFormat dformat = getDecimalFormatForSigFigs(inputunits, outputunits);
+					value.setValue(String.valueOf(dformat.format(dblvalue)));
+				}
 			}
 		}
 		
@@ -396,6 +402,58 @@ public class UnitUtils {
 		return tv;
 	}
 	
+	/**
+	 * Convert {@link ColumnarTridasValues} that haven't been materialised
+	 * straight to rounded whole numbers, without going through Strings.
+	 * 
+	 * @param inputunits
+	 * @param outputunits
+	 * @param tv
+	 * @param maxIntChars maximum characters for each value, or null for no limit
+	 * @return false if the values aren't columnar or the results won't fit in an 
+	 * int, in which case nothing has been changed
+	 * @throws NumberFormatException if a value is longer than maxIntChars
+	 */
+	private static boolean convertColumnsToIntegers(NormalTridasUnit inputunits, NormalTridasUnit outputunits, 
+			TridasValues tv, Integer maxIntChars) throws NumberFormatException
+	{
+		if(!(tv instanceof ColumnarTridasValues) || !((ColumnarTridasValues) tv).isColumnar())
+		{
+			return false;
+		}
+		
+		ColumnarTridasValues columns = (ColumnarTridasValues) tv;
+		int[] converted = new int[columns.size()];
+		for (int i = 0; i < converted.length; i++)
+		{
+			long rounded = Math.round(UnitUtils.convertDouble(inputunits, outputunits, columns.getDouble(i)));
+			if(rounded < Integer.MIN_VALUE || rounded > Integer.MAX_VALUE)
+			{
+				return false;
+			}
+			if(maxIntChars!=null && getCharCount(rounded)>maxIntChars)
+			{
+				throw new NumberFormatException(I18n.getText("fileio.integerTooLong", maxIntChars.toString()));
+			}
+			converted[i] = (int) rounded;
+		}
+		columns.setIntColumn(converted);
+		return true;
+	}
+	
+	/**
+	 * Number of characters in the String form of a whole number
+	 */
+	private static int getCharCount(long value)
+	{
+		int chars = (value < 0) ? 2 : 1;
+		for (long v = Math.abs(value) / 10; v > 0; v = v / 10)
+		{
+			chars++;
+		}
+		return chars;
+	}
+	
 	public static TridasValues convertTridasValuesWithMaxDigits(NormalTridasUnit outputunits, TridasValues tv, 
 			Boolean outputAsIntegers, Integer maxDigits) 
 	throws NumberFormatException, ConversionWarningException
@@ -0,0 +1,323 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.spatial;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tridas.spatial.GMLPointSRSHandler.AxisOrder;
+
+/**
+ * Compact table of coordinate reference systems, generated from
+ * coordsys/srsinfo.txt when the library is built. Only the entries that are
+ * looked up are turned into {@link CoordinateReferenceSystem} objects, found by
+ * a binary search of the sorted EPSG codes.
+ * <p>
+ * The table is a big endian file made up of:
+ * <ul>
+ * <li>the int {@link #MAGIC} and the number of entries</li>
+ * <li>the EPSG codes of the entries in ascending order</li>
+ * <li>the offset of each entry from the start of the entries</li>
+ * <li>the entries, each an axis order byte (1 for longitude first, 2 for
+ * latitude first) followed by the name and PROJ4 string written with
+ * {@link DataOutputStream#writeUTF(String)}</li>
+ * </ul>
+ * Run {@link #main(String[])} to generate it, which the build does in the
+ * process-classes phase.
+ * 
+ * @author agent
+ */
+public final class CRSTable {
+
+	private static final Logger log = LoggerFactory.getLogger(CRSTable.class);
+
+	/**
+	 * Classpath location of the table
+	 */
+	public static final String RESOURCE = "/coordsys/srsinfo.bin";
+
+	/**
+	 * "CRS1"
+	 */
+	public static final int MAGIC = 0x43525331;
+
+	private static final byte LONG_LAT = 1;
+	private static final byte LAT_LONG = 2;
+
+	private static final Object defaultLock = new Object();
+	private static volatile boolean defaultLoaded = false;
+	private static CRSTable defaultTable = null;
+
+	private final byte[] data;
+	private final int count;
+	private final int codesStart;
+	private final int offsetsStart;
+	private final int entriesStart;
+	private final ConcurrentHashMap<Integer, CoordinateReferenceSystem> resolved = new ConcurrentHashMap<Integer, CoordinateReferenceSystem>();
+
+	/**
+	 * @param argData
+	 *            contents of a table written by
+	 *            {@link #write(Reader, OutputStream)}
+	 * @throws IOException
+	 *             if it isn't a table
+	 */
+	public CRSTable(byte[] argData) throws IOException {
+		data = argData;
+		if (data.length < 8 || readInt(0) != MAGIC) {
+			throw new IOException("Not a coordinate reference system table");
+		}
+		count = readInt(4);
+		codesStart = 8;
+		offsetsStart = codesStart + 4 * count;
+		entriesStart = offsetsStart + 4 * count;
+		if (count < 0 || entriesStart > data.length) {
+			throw new IOException("Coordinate reference system table is truncated");
+		}
+	}
+
+	/**
+	 * The table built with the library, loaded the first time it is asked for
+	 * 
+	 * @return the table, or null if it isn't on the classpath, e.g. when
+	 *         running from an IDE that hasn't run the build
+	 */
+	public static CRSTable getDefault() {
+		if (defaultLoaded) {
+			return defaultTable;
+		}
+		synchronized (defaultLock) {
+			if (!defaultLoaded) {
+				defaultTable = loadDefault();
+				defaultLoaded = true;
+			}
+		}
+		return defaultTable;
+	}
+
+	private static CRSTable loadDefault() {
+		InputStream in = CRSTable.class.getResourceAsStream(RESOURCE);
+		if (in == null) {
+			log.debug("No compiled coordinate reference system table, " + RESOURCE + " not found");
+			return null;
+		}
+		try {
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					bytes.write(buffer, 0, read);
+				}
+				return new CRSTable(bytes.toByteArray());
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			log.error("Error reading coordinate reference system table", e);
+			return null;
+		}
+	}
+
+	/**
+	 * @return number of coordinate reference systems in the table
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @return EPSG codes of all the coordinate reference systems, in ascending
+	 *         order
+	 */
+	public int[] getCodes() {
+		int[] codes = new int[count];
+		for (int i = 0; i < count; i++) {
+			codes[i] = readInt(codesStart + 4 * i);
+		}
+		return codes;
+	}
+
+	/**
+	 * Get a coordinate reference system. The same object is returned each time
+	 * the same code is asked for.
+	 * 
+	 * @param argCode
+	 *            EPSG code
+	 * @return the system, or null if it isn't in the table
+	 */
+	public CoordinateReferenceSystem get(int argCode) {
+		CoordinateReferenceSystem crs = resolved.get(argCode);
+		if (crs != null) {
+			return crs;
+		}
+
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int code = readInt(codesStart + 4 * mid);
+			if (code < argCode) {
+				low = mid + 1;
+			}
+			else if (code > argCode) {
+				high = mid - 1;
+			}
+			else {
+				crs = readEntry(argCode, entriesStart + readInt(offsetsStart + 4 * mid));
+				CoordinateReferenceSystem existing = resolved.putIfAbsent(argCode, crs);
+				return existing != null ? existing : crs;
+			}
+		}
+		return null;
+	}
+
+	private CoordinateReferenceSystem readEntry(int argCode, int argOffset) {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, argOffset, data.length - argOffset));
+		try {
+			AxisOrder order = in.readByte() == LAT_LONG ? AxisOrder.LAT_LONG : AxisOrder.LONG_LAT;
+			String name = in.readUTF();
+			String projstr = in.readUTF();
+			return new CoordinateReferenceSystem(argCode, name, order, projstr);
+		} catch (IOException e) {
+			// the table is in memory, so this only happens if it is corrupt
+			throw new IllegalStateException("Coordinate reference system table is corrupt at EPSG:" + argCode, e);
+		}
+	}
+
+	private int readInt(int argPos) {
+		return ((data[argPos] & 0xff) << 24) | ((data[argPos + 1] & 0xff) << 16) | ((data[argPos + 2] & 0xff) << 8)
+				| (data[argPos + 3] & 0xff);
+	}
+
+	/**
+	 * Write a table from the text format of coordsys/srsinfo.txt, where each
+	 * line is the EPSG code, name, axis order and PROJ4 string separated by
+	 * semicolons and lines starting with # are comments. Lines that can't be
+	 * read are skipped, and if a code appears more than once the last line is
+	 * used.
+	 * 
+	 * @param argText
+	 * @param argOut
+	 * @return number of entries written
+	 * @throws IOException
+	 */
+	public static int write(Reader argText, OutputStream argOut) throws IOException {
+		TreeMap<Integer, String[]> entries = new TreeMap<Integer, String[]>();
+		BufferedReader br = new BufferedReader(argText);
+		String line;
+		int linenum = 0;
+		while ((line = br.readLine()) != null) {
+			linenum++;
+			if (line.startsWith("#")) {
+				continue;
+			}
+			String[] parts = line.split(";");
+			if (parts.length < 4) {
+				log.error("Line " + linenum + " doesn't have four fields. Skipping.");
+				continue;
+			}
+			Integer code;
+			try {
+				code = Integer.parseInt(parts[0]);
+			} catch (NumberFormatException e) {
+				log.error("Line " + linenum + " contains invalid EPSG code (" + parts[0] + "). Skipping.");
+				continue;
+			}
+			if (!parts[2].equals("1") && !parts[2].equals("2")) {
+				log.error("Line " + linenum + " contains invalid axis order code. Skipping.");
+				continue;
+			}
+			entries.put(code, parts);
+		}
+
+		ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+		DataOutputStream entryOut = new DataOutputStream(entryBytes);
+		int[] codes = new int[entries.size()];
+		int[] offsets = new int[entries.size()];
+		int i = 0;
+		for (Map.Entry<Integer, String[]> entry : entries.entrySet()) {
+			String[] parts = entry.getValue();
+			codes[i] = entry.getKey();
+			offsets[i] = entryOut.size();
+			entryOut.writeByte(parts[2].equals("2") ? LAT_LONG : LONG_LAT);
+			entryOut.writeUTF(parts[1]);
+			entryOut.writeUTF(parts[3]);
+			i++;
+		}
+		entryOut.flush();
+
+		DataOutputStream out = new DataOutputStream(argOut);
+		out.writeInt(MAGIC);
+		out.writeInt(codes.length);
+		for (int code : codes) {
+			out.writeInt(code);
+		}
+		for (int offset : offsets) {
+			out.writeInt(offset);
+		}
+		entryBytes.writeTo(out);
+		out.flush();
+		return codes.length;
+	}
+
+	/**
+	 * Generate the table. Used by the build.
+	 * 
+	 * @param args
+	 *            the srsinfo.txt file to read and the table file to write
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: CRSTable srsinfo.txt srsinfo.bin");
+			System.exit(1);
+		}
+		File outFile = new File(args[1]);
+		if (outFile.getParentFile() != null) {
+			outFile.getParentFile().mkdirs();
+		}
+		Reader in = new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8);
+		try {
+			OutputStream out = new FileOutputStream(outFile);
+			try {
+				int count = write(in, out);
+				System.out.println("Wrote " + count + " coordinate reference systems to " + outFile);
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+}
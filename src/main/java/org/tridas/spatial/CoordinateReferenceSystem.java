@@ -3,7 +3,6 @@ package org.tridas.spatial;
 import org.tridas.spatial.GMLPointSRSHandler.AxisOrder;
 
 import com.jhlabs.map.proj.Projection;
-import com.jhlabs.map.proj.ProjectionFactory;
 
 /**
  * Details of a Coordinate Reference System.  Provides methods for 
@@ -86,14 +85,15 @@ public class CoordinateReferenceSystem {
 	}
 	
 	/**
-	 * Get this CRS as a JMapProjLib Projection
+	 * Get this CRS as a JMapProjLib Projection.  The projection comes from
+	 * this thread's {@link ProjectionCache}, so it must not be changed or used
+	 * by other threads.
 	 * 
 	 * @return
 	 */
 	public Projection getAsProjection()
 	{
-		String[] projparams = projstr.split(" ");
-		return ProjectionFactory.fromPROJ4Specification(projparams);
+		return ProjectionCache.getProjection(this);
 	}
 	
 	
@@ -2,6 +2,11 @@ package org.tridas.spatial;
 
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import net.opengis.gml.schema.PointType;
 import net.opengis.gml.schema.Pos;
@@ -74,12 +79,129 @@ public class GMLPointSRSHandler  {
 		this.point = point;
 		
 		// Parse the srsName for the point at set projection info if possible
-		parseSRSName();
+		if(point.isSetSrsName())
+		{
+			SRS srs = parseSRSName(point.getSrsName());
+			proj = srs.proj;
+			axisOrder = srs.axisOrder;
+		}
+		// else no srsName so presume WGS84
 			
 		// Actually project the point
 		doProjection();
 	}
 	
+	/**
+	 * Constructor for points projected by {@link #projectToWGS84(List)}
+	 */
+	private GMLPointSRSHandler(PointType point, SRS srs)
+	{
+		this.point = point;
+		this.proj = srs.proj;
+		this.axisOrder = srs.axisOrder;
+	}
+	
+	/**
+	 * Project a list of points to WGS84.  Each distinct srsName is only parsed 
+	 * once, and the points that share a projection are transformed together
+	 * in a single call, so this is much quicker than creating a handler for 
+	 * each point when there are many of them.
+	 * 
+	 * @param points
+	 * @return handlers in the same order as the points, with null for any point
+	 * whose srsName isn't supported or that couldn't be projected
+	 */
+	public static List<GMLPointSRSHandler> projectToWGS84(List<PointType> points)
+	{
+		GMLPointSRSHandler[] handlers = new GMLPointSRSHandler[points.size()];
+		HashMap<String, SRS> srsByName = new HashMap<String, SRS>();
+		LinkedHashMap<SRS, ArrayList<Integer>> toProject = new LinkedHashMap<SRS, ArrayList<Integer>>();
+		
+		for(int i=0; i<handlers.length; i++)
+		{
+			PointType point = points.get(i);
+			SRS srs = WGS84_SRS;
+			if(point.isSetSrsName())
+			{
+				String srsName = point.getSrsName();
+				srs = srsByName.get(srsName);
+				if(srs==null)
+				{
+					try{
+						srs = parseSRSName(srsName);
+					} catch (ProjectionException e)
+					{
+						srs = UNSUPPORTED_SRS;
+					}
+					srsByName.put(srsName, srs);
+				}
+			}
+			if(srs==UNSUPPORTED_SRS) continue;
+			
+			GMLPointSRSHandler handler = new GMLPointSRSHandler(point, srs);
+			handlers[i] = handler;
+			
+			Point2D.Double pnt = handler.getCoordinates();
+			if(pnt==null) continue;
+			if(srs.proj==null)
+			{
+				// No need to project just grab coordinates
+				handler.projectedpoint = pnt;
+			}
+			else
+			{
+				ArrayList<Integer> indexes = toProject.get(srs);
+				if(indexes==null)
+				{
+					indexes = new ArrayList<Integer>();
+					toProject.put(srs, indexes);
+				}
+				indexes.add(i);
+			}
+		}
+		
+		// Transform the points for each projection in one go
+		for(Map.Entry<SRS, ArrayList<Integer>> entry : toProject.entrySet())
+		{
+			Projection proj = entry.getKey().proj;
+			ArrayList<Integer> indexes = entry.getValue();
+			double[] src = new double[indexes.size()*2];
+			for(int j=0; j<indexes.size(); j++)
+			{
+				Point2D.Double pnt = handlers[indexes.get(j)].getCoordinates();
+				src[j*2] = pnt.x;
+				src[j*2+1] = pnt.y;
+			}
+			
+			double[] dst = new double[src.length];
+			try{
+				proj.inverseTransform(src, 0, dst, 0, indexes.size());
+			} catch (ProjectionException e)
+			{
+				// Some point is out of range, so do them one by one to find out which
+				dst = null;
+			}
+			
+			for(int j=0; j<indexes.size(); j++)
+			{
+				GMLPointSRSHandler handler = handlers[indexes.get(j)];
+				if(dst!=null)
+				{
+					handler.projectedpoint = new Point2D.Double(dst[j*2], dst[j*2+1]);
+					continue;
+				}
+				try{
+					proj.inverseTransform(new Point2D.Double(src[j*2], src[j*2+1]), handler.projectedpoint);
+				} catch (ProjectionException e)
+				{
+					handlers[indexes.get(j)] = null;
+				}
+			}
+		}
+		
+		return Arrays.asList(handlers);
+	}
+	
 	public String getProjectionName()
 	{
 		if(proj==null) return null;
@@ -164,28 +286,19 @@ public class GMLPointSRSHandler  {
 	}
 		
 	/**
-	 * Try to extract projection information from this location
+	 * Try to extract projection information from an srsName
+	 * 
+	 * @param rawSrsName
+	 * @return
 	 * @throws ProjectionException 
 	 */
-	private void parseSRSName() throws ProjectionException
+	private static SRS parseSRSName(String rawSrsName) throws ProjectionException
 	{
 				
-		// Grab the srsName from the geometry if it exists.  Trim and removed spaces.
-		
-		
-		
-		String srsName = null;
-		if(point.isSetSrsName())
-		{
-			srsName = point.getSrsName().trim().replace(" ", "");
-			//log.debug("Raw SRSName string in GML is "+srsName);
-		}
-		else
-		{
-			// no srsName so presume WGS84
-			//log.debug("no SRSName in GML so assuming WGS84");
-			return;
-		}
+		// Trim and removed spaces from the srsName.
+		SRS srs = new SRS();
+		String srsName = rawSrsName.trim().replace(" ", "");
+		//log.debug("Raw SRSName string in GML is "+srsName);
 			
 		
 		if(srsName.startsWith("urn:"))
@@ -228,26 +341,26 @@ public class GMLPointSRSHandler  {
 				Integer code = Integer.parseInt(urnparts[6]);
 				//log.debug("Looking up srsname = "+code);
 				
-				CoordinateReferenceSystem crs = (CoordinateReferenceSystem) TridasIO.crsMap.get(code);
+				CoordinateReferenceSystem crs = TridasIO.getCoordinateReferenceSystem(code);
 				
 				if(crs==null){
 					log.warn("CRS code not found");
-					return;
+					return srs;
 				}
 
-				axisOrder = crs.getAxisOrder();
+				srs.axisOrder = crs.getAxisOrder();
 				
 				if(urnparts[6].equalsIgnoreCase("4326"))
 				{
 					// This is the standard coordinate references system so no need to look it up
-					return;
+					return srs;
 				}
 				else
 				{
 					// This means we're looking at another EPSG crs so try looking it up
 					try{
-						proj = crs.getAsProjection();
-						if(proj==null)
+						srs.proj = crs.getAsProjection();
+						if(srs.proj==null)
 						{
 							throw new ProjectionException(I18n.getText("srsname.notsupported"));
 						}
@@ -265,7 +378,7 @@ public class GMLPointSRSHandler  {
 		{
 			// Default WGS84 srsname so no need to do anything
 			//log.info("Standard SRSName so no need to do anything about projecting or axis order");
-			return;
+			return srs;
 		}
 		
 		else if (srsName.toUpperCase().startsWith("EPSG:")) 
@@ -274,16 +387,16 @@ public class GMLPointSRSHandler  {
 			try{
 				String strcode = srsName.substring(srsName.indexOf(":")+1);
 				Integer code = Integer.parseInt(strcode);
-				CoordinateReferenceSystem crs = TridasIO.crsMap.get(code);
+				CoordinateReferenceSystem crs = TridasIO.getCoordinateReferenceSystem(code);
 								
-				proj = crs.getAsProjection();
+				srs.proj = crs.getAsProjection();
 				
-				if(proj==null)
+				if(srs.proj==null)
 				{
 					throw new ProjectionException(I18n.getText("srsname.notsupported"));
 				}
 				
-				return;
+				return srs;
 			}catch (NumberFormatException e2)
 			{
 				throw new ProjectionException(I18n.getText("srsname.notsupported"));
@@ -294,6 +407,7 @@ public class GMLPointSRSHandler  {
 			}
 		}
 
+		return srs;
 	}
 	
 	/**
@@ -303,14 +417,37 @@ public class GMLPointSRSHandler  {
 	private void doProjection()
 	{
 		
+		Point2D.Double pnt = getCoordinates();
+		if(pnt==null) return;
+		
+		if(proj==null)
+		{
+			// No need to project just grab coordinates
+			projectedpoint = pnt;
+		}
+		else
+		{
+			// Need to actually project coordinates
+			proj.inverseTransform(pnt, projectedpoint);
+		}
+		
+		
+	}
+	
+	/**
+	 * Grab the coordinates from the GML in X,Y order based upon axis order
+	 * 
+	 * @return the coordinates, or null if the point doesn't have two 
+	 */
+	private Point2D.Double getCoordinates()
+	{
 		Point2D.Double pnt = new Point2D.Double();
 		
 		// Basic error checking
-		if(!point.isSetPos()) return;
-		if(!point.getPos().isSetValues()) return;
-		if(point.getPos().getValues().size()!=2) return;
+		if(!point.isSetPos()) return null;
+		if(!point.getPos().isSetValues()) return null;
+		if(point.getPos().getValues().size()!=2) return null;
 		
-		// Grab the coordinates from the GML based upon axis order
 		switch (axisOrder){
 		case LAT_LONG:
 			pnt.setLocation(
@@ -323,19 +460,7 @@ public class GMLPointSRSHandler  {
 					point.getPos().getValues().get(1));
 			break;
 		}
-		
-		if(proj==null)
-		{
-			// No need to project just grab coordinates
-			projectedpoint = pnt;
-		}
-		else
-		{
-			// Need to actually project coordinates
-			proj.inverseTransform(pnt, projectedpoint);
-		}
-		
-		
+		return pnt;
 	}
 	
 	/**
@@ -366,4 +491,16 @@ public class GMLPointSRSHandler  {
 	}
 
 
+	/**
+	 * Projection and axis order given by an srsName
+	 */
+	private static class SRS
+	{
+		private Projection proj = null;
+		private AxisOrder axisOrder = AxisOrder.LONG_LAT;
+	}
+	
+	private static final SRS WGS84_SRS = new SRS();
+	private static final SRS UNSUPPORTED_SRS = new SRS();
+
 }
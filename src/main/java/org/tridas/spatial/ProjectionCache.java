@@ -0,0 +1,100 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.spatial;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.jhlabs.map.proj.Projection;
+import com.jhlabs.map.proj.ProjectionFactory;
+
+/**
+ * Cache of initialised JMapProjLib Projections keyed by EPSG code, so the
+ * PROJ4 string of a coordinate reference system is only parsed once per
+ * thread however many points use it. The least recently used projections are
+ * dropped once a thread's cache is full.
+ * <p>
+ * JMapProjLib projections keep intermediate results in their fields while
+ * transforming, so one instance can't be used by two threads at once. Each
+ * thread therefore has its own cache, and a projection from it must not be
+ * handed to another thread or have its parameters changed.
+ * 
+ * @author agent
+ */
+public final class ProjectionCache {
+
+	/**
+	 * Number of projections kept for each thread
+	 */
+	public static final int MAX_SIZE = 64;
+
+	private static final ThreadLocal<Map<Integer, Projection>> caches = new ThreadLocal<Map<Integer, Projection>>() {
+		@Override
+		protected Map<Integer, Projection> initialValue() {
+			return new LinkedHashMap<Integer, Projection>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Integer, Projection> argEldest) {
+					return size() > MAX_SIZE;
+				}
+			};
+		}
+	};
+
+	private ProjectionCache() {}
+
+	/**
+	 * Get this thread's projection for a coordinate reference system, creating
+	 * it if it isn't in the cache
+	 * 
+	 * @param argCRS
+	 * @return
+	 */
+	public static Projection getProjection(CoordinateReferenceSystem argCRS) {
+		Integer code = argCRS.getCode();
+		if (code == null) {
+			return createProjection(argCRS);
+		}
+
+		Map<Integer, Projection> cache = caches.get();
+		Projection proj = cache.get(code);
+		if (proj == null) {
+			proj = createProjection(argCRS);
+			cache.put(code, proj);
+		}
+		return proj;
+	}
+
+	/**
+	 * Remove all projections from this thread's cache
+	 */
+	public static void clear() {
+		caches.get().clear();
+	}
+
+	/**
+	 * @return number of projections in this thread's cache
+	 */
+	public static int size() {
+		return caches.get().size();
+	}
+
+	private static Projection createProjection(CoordinateReferenceSystem argCRS) {
+		String[] projparams = argCRS.getProjStr().split(" ");
+		return ProjectionFactory.fromPROJ4Specification(projparams);
+	}
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.maventests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.tridas.interfaces.ITridasSeries;
+import org.tridas.io.exceptions.InvalidDendroFileException;
+import org.tridas.io.formats.heidelberg.HeidelbergReader;
+import org.tridas.io.util.DoubleArrayBuffer;
+import org.tridas.io.util.IntArrayBuffer;
+import org.tridas.io.util.TridasUtils;
+import org.tridas.schema.TridasValue;
+
+public class ArrayBufferTest extends TestCase {
+
+	public void testIntBufferGrows() {
+		IntArrayBuffer buffer = new IntArrayBuffer(1);
+		for (int i = 0; i < 1000; i++) {
+			buffer.add(i);
+		}
+		assertEquals(1000, buffer.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, buffer.get(i));
+		}
+		assertEquals(499500, buffer.sum());
+		assertEquals(499.5, buffer.average(), 0);
+
+		IntArrayBuffer other = new IntArrayBuffer(1);
+		other.add(7);
+		other.addAll(buffer);
+		assertEquals(1001, other.size());
+		assertEquals(7, other.get(0));
+		assertEquals(999, other.get(1000));
+		assertEquals(1001, other.toArray().length);
+	}
+
+	public void testIntBufferRemoveLast() {
+		IntArrayBuffer buffer = new IntArrayBuffer();
+		buffer.add(3);
+		buffer.add(5);
+		assertEquals(5, buffer.removeLast());
+		assertEquals(1, buffer.size());
+
+		buffer.add(9);
+		assertEquals(9, buffer.get(1));
+		assertEquals(9, buffer.removeLast());
+		assertEquals(3, buffer.removeLast());
+		assertTrue(buffer.isEmpty());
+		assertNull(buffer.average());
+
+		try {
+			buffer.removeLast();
+			fail();
+		} catch (IndexOutOfBoundsException e) {}
+		try {
+			buffer.get(0);
+			fail();
+		} catch (IndexOutOfBoundsException e) {}
+	}
+
+	public void testDoubleBufferGrows() {
+		DoubleArrayBuffer buffer = new DoubleArrayBuffer(1);
+		for (int i = 0; i < 1000; i++) {
+			buffer.add(i / 2.0);
+		}
+		assertEquals(1000, buffer.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i / 2.0, buffer.get(i), 0);
+		}
+		assertEquals(249750.0, buffer.sum(), 0);
+
+		DoubleArrayBuffer other = new DoubleArrayBuffer(1);
+		other.addAll(buffer);
+		other.addAll(buffer);
+		assertEquals(2000, other.size());
+		assertEquals(499.5, other.get(1999), 0);
+
+		buffer.set(0, 1.25);
+		assertEquals(1.25, buffer.toArray()[0], 0);
+		assertEquals(0.0, other.get(0), 0);
+	}
+
+	public void testDoubleBufferRemoveLast() {
+		DoubleArrayBuffer buffer = new DoubleArrayBuffer();
+		buffer.add(1.5);
+		buffer.add(2.5);
+		assertEquals(2.5, buffer.removeLast(), 0);
+		assertEquals(1.5, buffer.average(), 0);
+		assertEquals(1.5, buffer.removeLast(), 0);
+		assertTrue(buffer.isEmpty());
+
+		try {
+			buffer.removeLast();
+			fail();
+		} catch (IndexOutOfBoundsException e) {}
+	}
+
+	/**
+	 * Trailing zeros are trimmed from Heidelberg series along with their
+	 * remarks, while zeros inside the series are kept.
+	 */
+	public void testHeidelbergTrailingZerosTrimmed() throws InvalidDendroFileException {
+		HeidelbergReader reader = new HeidelbergReader();
+		reader.loadFile(heidelbergFile("8", "452", "326", "0", "334", "200", "278", "259", "233;;last kept",
+				"0", "0;;cracked"), "trim.fh");
+
+		List<TridasValue> values = getValues(reader);
+		assertEquals(8, values.size());
+		assertEquals("0", values.get(2).getValue());
+		assertEquals("233", values.get(7).getValue());
+		assertEquals(1, values.get(7).getRemarks().size());
+		assertEquals("last kept", values.get(7).getRemarks().get(0).getValue());
+	}
+
+	/**
+	 * The ring count in the header is checked against the trimmed values
+	 */
+	public void testHeidelbergTrimmedCountChecked() {
+		HeidelbergReader reader = new HeidelbergReader();
+		try {
+			reader.loadFile(heidelbergFile("4", "452", "326", "200", "278", "0", "0"), "trim.fh");
+		} catch (InvalidDendroFileException e) {
+			fail();
+		}
+		assertEquals(4, getValues(reader).size());
+
+		reader = new HeidelbergReader();
+		try {
+			reader.loadFile(heidelbergFile("6", "452", "326", "200", "278", "0", "0"), "trim.fh");
+			fail();
+		} catch (InvalidDendroFileException e) {}
+	}
+
+	private static String[] heidelbergFile(String argLength, String... argValues) {
+		ArrayList<String> lines = new ArrayList<String>();
+		lines.add("HEADER:");
+		lines.add("KeyCode=TRIM01");
+		lines.add("Length=" + argLength);
+		lines.add("DATA:Single");
+		for (String value : argValues) {
+			lines.add(value);
+		}
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	private static List<TridasValue> getValues(HeidelbergReader argReader) {
+		ArrayList<ITridasSeries> series = TridasUtils.getAllSeriesFromTridasContainer(argReader.getTridasContainer());
+		assertEquals(1, series.size());
+		return series.get(0).getValues().get(0).getValues();
+	}
+}
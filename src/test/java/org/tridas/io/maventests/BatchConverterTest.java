@@ -0,0 +1,162 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.maventests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.tridas.io.BatchConverter;
+import org.tridas.io.BatchConverter.Conversion;
+import org.tridas.io.IDendroFile;
+import org.tridas.io.exceptions.InvalidDendroFileException;
+
+public class BatchConverterTest extends TestCase {
+
+	/**
+	 * Inputs, in order. x.rwl and x.crn share a stem and bad.rwl can't be read.
+	 */
+	private static final String[] INPUTS = { "x.rwl", "a.rwl", "x.crn", "bad.rwl", "b.rwl", "c.rwl" };
+
+	private File inputFolder;
+
+	@Override
+	protected void setUp() throws Exception {
+		inputFolder = createFolder("batchin");
+		copy("Tucson/Tucson7.rwl", "x.rwl");
+		copy("Tucson/OneSeries.rwl", "a.rwl");
+		copy("Tucson/Tucson1.crn", "x.crn");
+		copy("Tucson/ThreeSeries.rwl", "b.rwl");
+		copy("Tucson/Maris.rwl", "c.rwl");
+		FileOutputStream out = new FileOutputStream(new File(inputFolder, "bad.rwl"));
+		try {
+			out.write("This is not a dendro file\n".getBytes(StandardCharsets.UTF_8));
+		} finally {
+			out.close();
+		}
+	}
+
+	private static File createFolder(String argPrefix) throws IOException {
+		File folder = Files.createTempDirectory(argPrefix).toFile();
+		folder.deleteOnExit();
+		return folder;
+	}
+
+	private void copy(String argTestFile, String argName) throws IOException {
+		Files.copy(new File("TestData", argTestFile).toPath(), new File(inputFolder, argName).toPath());
+	}
+
+	private List<Conversion> convert(String argNaming, File argOutputFolder) {
+		BatchConverter converter = new BatchConverter(4);
+		converter.setInputFormat("Tucson");
+		converter.setNamingConvention(argNaming);
+		return converter.convert(inputFolder.getAbsolutePath(), INPUTS, argOutputFolder.getAbsolutePath());
+	}
+
+	/**
+	 * The names every converted file was saved under, in input order
+	 */
+	private static List<String> getOutputNames(List<Conversion> argConversions) {
+		ArrayList<String> names = new ArrayList<String>();
+		for (Conversion conversion : argConversions) {
+			if (conversion.getWriter() == null) {
+				continue;
+			}
+			for (IDendroFile file : conversion.getWriter().getFiles()) {
+				names.add(conversion.getWriter().getNamingConvention().getFilename(file));
+			}
+		}
+		return names;
+	}
+
+	private static void assertResults(List<Conversion> argConversions) {
+		assertEquals(INPUTS.length, argConversions.size());
+		for (int i = 0; i < INPUTS.length; i++) {
+			Conversion conversion = argConversions.get(i);
+			assertEquals(INPUTS[i], conversion.getOrigFilename());
+			if (INPUTS[i].equals("bad.rwl")) {
+				assertEquals(1, conversion.getErrors().size());
+				assertTrue(conversion.getErrors().get(0) instanceof InvalidDendroFileException);
+				assertNull(conversion.getContainer());
+				assertNull(conversion.getWriter());
+			}
+			else {
+				assertEquals(INPUTS[i], 0, conversion.getErrors().size());
+				assertNotNull(INPUTS[i], conversion.getContainer());
+			}
+		}
+	}
+
+	private static void assertUniqueOnDisk(List<String> argNames, File argOutputFolder) {
+		assertEquals(argNames.toString(), argNames.size(), new HashSet<String>(argNames).size());
+		assertEquals(argNames.size(), argOutputFolder.list().length);
+	}
+
+	public void testNumericalNames() throws Exception {
+		File output = createFolder("batchout");
+		List<Conversion> conversions = convert("", output);
+		assertResults(conversions);
+
+		List<String> names = getOutputNames(conversions);
+		ArrayList<String> expected = new ArrayList<String>();
+		expected.add("x");
+		expected.add("a");
+		expected.add("x_crn");
+		expected.add("b");
+		expected.add("c");
+		assertEquals(expected, names);
+		assertUniqueOnDisk(names, output);
+	}
+
+	/**
+	 * Hierarchical names come from titles, which repeat across inputs, so each
+	 * is prefixed with the input's base filename
+	 */
+	public void testHierarchicalNames() throws Exception {
+		File output = createFolder("batchout");
+		List<Conversion> conversions = convert("hierarchy", output);
+		assertResults(conversions);
+
+		List<String> names = getOutputNames(conversions);
+		assertUniqueOnDisk(names, output);
+		for (int i = 0, n = 0; i < conversions.size(); i++) {
+			Conversion conversion = conversions.get(i);
+			if (conversion.getWriter() == null) {
+				continue;
+			}
+			String baseName = INPUTS[i].equals("x.crn") ? "x_crn" : INPUTS[i].substring(0, INPUTS[i].indexOf('.'));
+			for (int j = 0; j < conversion.getWriter().getFiles().length; j++) {
+				assertTrue(names.get(n), names.get(n++).startsWith(baseName + "-"));
+			}
+		}
+
+		assertEquals(names, getOutputNames(convert("hierarchy", createFolder("batchout"))));
+	}
+
+	public void testUUIDNames() throws Exception {
+		File output = createFolder("batchout");
+		List<Conversion> conversions = convert("uuid", output);
+		assertResults(conversions);
+		assertUniqueOnDisk(getOutputNames(conversions), output);
+	}
+}
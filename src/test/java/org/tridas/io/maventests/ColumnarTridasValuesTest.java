@@ -0,0 +1,136 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.maventests;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.JAXBException;
+
+import junit.framework.TestCase;
+
+import org.tridas.io.exceptions.ConversionWarningException;
+import org.tridas.io.util.ColumnarTridasValues;
+import org.tridas.io.util.TridasJAXBCache;
+import org.tridas.io.util.UnitUtils;
+import org.tridas.schema.NormalTridasUnit;
+import org.tridas.schema.TridasDerivedSeries;
+import org.tridas.schema.TridasProject;
+import org.tridas.schema.TridasRemark;
+import org.tridas.schema.TridasTridas;
+import org.tridas.schema.TridasUnit;
+import org.tridas.schema.TridasValue;
+import org.tridas.schema.TridasValues;
+
+public class ColumnarTridasValuesTest extends TestCase {
+
+	private static ColumnarTridasValues createColumns(NormalTridasUnit argUnit, int... argValues) {
+		TridasValues template = new TridasValues();
+		TridasUnit unit = new TridasUnit();
+		unit.setNormalTridas(argUnit);
+		template.setUnit(unit);
+
+		ColumnarTridasValues columns = new ColumnarTridasValues(template);
+		columns.setIntColumn(argValues);
+		return columns;
+	}
+
+	/**
+	 * Values still held as columns must be written out in full by the cached
+	 * marshaller, which builds the TridasValue list as it reaches them
+	 */
+	public void testMarshalMaterialisesColumns() throws JAXBException {
+		ColumnarTridasValues columns = createColumns(NormalTridasUnit.MICROMETRES, 452, 326, 428);
+		columns.setCountColumn(new int[]{3, ColumnarTridasValues.NO_COUNT, 5});
+		TridasRemark remark = new TridasRemark();
+		remark.setValue("cracked");
+		ArrayList<TridasRemark> remarks = new ArrayList<TridasRemark>();
+		remarks.add(remark);
+		columns.setRemarks(1, remarks);
+
+		TridasDerivedSeries series = new TridasDerivedSeries();
+		series.setTitle("columns");
+		series.getValues().add(columns);
+		TridasProject project = new TridasProject();
+		project.setTitle("project");
+		project.getDerivedSeries().add(series);
+		TridasTridas container = new TridasTridas();
+		container.getProjects().add(project);
+
+		assertTrue(columns.isColumnar());
+		StringWriter writer = new StringWriter();
+		TridasJAXBCache.getMarshaller(null).marshal(container, writer);
+		String xml = writer.toString();
+
+		assertFalse(columns.isColumnar());
+		int first = xml.indexOf("value=\"452\"");
+		int second = xml.indexOf("value=\"326\"");
+		int third = xml.indexOf("value=\"428\"");
+		assertTrue(xml, first > 0 && first < second && second < third);
+		assertTrue(xml, xml.indexOf("count=\"3\"") > 0);
+		assertTrue(xml, xml.indexOf("count=\"5\"") > 0);
+		assertTrue(xml, xml.indexOf("cracked") > second && xml.indexOf("cracked") < third);
+		assertTrue(xml, xml.indexOf("values>") > 0);
+	}
+
+	public void testViewMatchesMaterialisedValues() {
+		ColumnarTridasValues columns = createColumns(NormalTridasUnit.MICROMETRES, 10, 20);
+		columns.setCountColumn(new int[]{ColumnarTridasValues.NO_COUNT, 4});
+		assertFalse(columns.hasCount(0));
+		assertEquals(Integer.valueOf(4), columns.getCount(1));
+		assertEquals(20.0, columns.getDouble(1), 0);
+
+		List<TridasValue> values = columns.getValues();
+		assertFalse(columns.isColumnar());
+		assertEquals("10", values.get(0).getValue());
+		assertNull(values.get(0).getCount());
+		assertEquals(Integer.valueOf(4), values.get(1).getCount());
+		assertEquals(20.0, columns.getDouble(1), 0);
+	}
+
+	public void testConvertColumnsToIntegers() throws ConversionWarningException {
+		ColumnarTridasValues columns = createColumns(NormalTridasUnit.MILLIMETRES, 1, 25);
+		UnitUtils.convertTridasValues(NormalTridasUnit.MICROMETRES, columns, Boolean.TRUE);
+
+		assertTrue(columns.isColumnar());
+		assertTrue(columns.isIntegral());
+		assertEquals(NormalTridasUnit.MICROMETRES, columns.getUnit().getNormalTridas());
+		assertEquals("1000", columns.getValues().get(0).getValue());
+		assertEquals("25000", columns.getValues().get(1).getValue());
+	}
+
+	/**
+	 * Results too large for an int fall back to converting the materialised
+	 * Strings, rather than overflowing
+	 */
+	public void testConvertColumnsOverflowFallsBack() throws ConversionWarningException {
+		ColumnarTridasValues columns = createColumns(NormalTridasUnit.METRES, 1, 5000);
+		UnitUtils.convertTridasValues(NormalTridasUnit.MICROMETRES, columns, Boolean.TRUE);
+
+		assertFalse(columns.isColumnar());
+		assertEquals("1000000", columns.getValues().get(0).getValue());
+		assertEquals("5000000000", columns.getValues().get(1).getValue());
+	}
+
+	public void testConvertColumnsTooLong() throws ConversionWarningException {
+		ColumnarTridasValues columns = createColumns(NormalTridasUnit.MILLIMETRES, 1, 25);
+		try {
+			UnitUtils.convertTridasValues(NormalTridasUnit.MICROMETRES, columns, Integer.valueOf(4));
+			fail();
+		} catch (NumberFormatException e) {}
+	}
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.maventests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.tridas.io.I18n;
+import org.tridas.io.util.TridasUtils;
+import org.tridas.schema.TridasDerivedSeries;
+import org.tridas.schema.TridasElement;
+import org.tridas.schema.TridasObject;
+import org.tridas.schema.TridasValue;
+import org.tridas.schema.TridasValues;
+
+public class ConsolidateTest extends TestCase {
+
+	private static TridasObject createObject(String argTitle, String... argElementTitles) {
+		TridasObject object = new TridasObject();
+		object.setTitle(argTitle);
+		for (String title : argElementTitles) {
+			TridasElement element = new TridasElement();
+			element.setTitle(title);
+			object.getElements().add(element);
+		}
+		return object;
+	}
+
+	private static List<String> getElementTitles(TridasObject argObject) {
+		ArrayList<String> titles = new ArrayList<String>();
+		for (TridasElement e : argObject.getElements()) {
+			titles.add(e.getTitle());
+		}
+		return titles;
+	}
+
+	private static TridasDerivedSeries createDerivedSeries(String argTitle, int argValueCount) {
+		TridasValues values = new TridasValues();
+		for (int i = 0; i < argValueCount; i++) {
+			TridasValue value = new TridasValue();
+			value.setValue(String.valueOf(i));
+			values.getValues().add(value);
+		}
+		TridasDerivedSeries series = new TridasDerivedSeries();
+		series.setTitle(argTitle);
+		series.getValues().add(values);
+		return series;
+	}
+
+	/**
+	 * An entity that another is merged into moves to the end of the list
+	 */
+	public void testMergedEntityMovesToEnd() {
+		ArrayList<TridasObject> objects = new ArrayList<TridasObject>();
+		TridasObject first = createObject("A", "a1");
+		objects.add(first);
+		objects.add(createObject("B", "b1"));
+		objects.add(createObject("A", "a2"));
+		objects.add(createObject("C", "c1"));
+
+		ArrayList<TridasObject> merged = TridasUtils.consolidateObjects(objects, true);
+		assertEquals(3, merged.size());
+		assertEquals("B", merged.get(0).getTitle());
+		assertSame(first, merged.get(1));
+		assertEquals("C", merged.get(2).getTitle());
+
+		List<String> elements = getElementTitles(first);
+		assertEquals(2, elements.size());
+		assertEquals("a1", elements.get(0));
+		assertEquals("a2", elements.get(1));
+	}
+
+	/**
+	 * Entities with the unknown title or no title are kept apart only when
+	 * unknowns are treated as different
+	 */
+	public void testUnknownAndNullTitles() {
+		String unknown = I18n.getText("unnamed.object");
+
+		ArrayList<TridasObject> objects = new ArrayList<TridasObject>();
+		objects.add(createObject(unknown, "u1"));
+		objects.add(createObject(null, "n1"));
+		objects.add(createObject(unknown, "u2"));
+		objects.add(createObject(null, "n2"));
+		assertEquals(4, TridasUtils.consolidateObjects(objects, true).size());
+
+		objects = new ArrayList<TridasObject>();
+		objects.add(createObject(unknown, "u1"));
+		objects.add(createObject(null, "n1"));
+		objects.add(createObject(unknown, "u2"));
+		objects.add(createObject(null, "n2"));
+		ArrayList<TridasObject> merged = TridasUtils.consolidateObjects(objects, false);
+		assertEquals(2, merged.size());
+		assertEquals(unknown, merged.get(0).getTitle());
+		assertEquals(2, getElementTitles(merged.get(0)).size());
+		assertNull(merged.get(1).getTitle());
+		assertEquals(2, getElementTitles(merged.get(1)).size());
+	}
+
+	public void testDerivedSeriesMerged() {
+		ArrayList<TridasDerivedSeries> series = new ArrayList<TridasDerivedSeries>();
+		series.add(createDerivedSeries("chronology", 3));
+		series.add(createDerivedSeries("other", 2));
+		series.add(createDerivedSeries("chronology", 3));
+
+		ArrayList<TridasDerivedSeries> merged = TridasUtils.consolidateDerivedSeries(series);
+		assertEquals(2, merged.size());
+		assertEquals("other", merged.get(0).getTitle());
+		assertEquals("chronology", merged.get(1).getTitle());
+		assertEquals(2, merged.get(1).getValues().size());
+	}
+
+	/**
+	 * Series with the same title but a different number of values can't be
+	 * merged, so the original list comes back
+	 */
+	public void testDerivedSeriesWithDifferentCountsLeftAlone() {
+		ArrayList<TridasDerivedSeries> series = new ArrayList<TridasDerivedSeries>();
+		series.add(createDerivedSeries("chronology", 3));
+		series.add(createDerivedSeries("chronology", 2));
+
+		assertSame(series, TridasUtils.consolidateDerivedSeries(series));
+		assertEquals(2, series.size());
+		assertEquals(1, series.get(0).getValues().size());
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.maventests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.tridas.io.AbstractDendroFileReader;
+import org.tridas.io.ConversionContext;
+import org.tridas.io.TridasIO;
+import org.tridas.io.exceptions.ConversionWarning;
+
+import junit.framework.TestCase;
+
+public class ConversionContextTest extends TestCase {
+
+	public void testWithMakesCopies() {
+		ConversionContext base = new ConversionContext();
+		ConversionContext latin = base.withReadingCharset("ISO-8859-1");
+		assertNotSame(base, latin);
+		assertEquals("ISO-8859-1", latin.getReadingCharset());
+
+		ConversionContext detecting = latin.withCharsetDetection(true);
+		assertTrue(detecting.isCharsetDetection());
+		assertNull(detecting.getReadingCharset());
+		assertEquals("ISO-8859-1", latin.getReadingCharset());
+		assertFalse(latin.isCharsetDetection());
+	}
+
+	public void testDefaultContextMatchesSettings() {
+		ConversionContext ctx = TridasIO.getDefaultContext();
+		assertEquals(TridasIO.getReadingCharset(), ctx.getReadingCharset());
+		assertEquals(TridasIO.getWritingCharset(), ctx.getWritingCharset());
+		assertEquals(TridasIO.isCharsetDetection(), ctx.isCharsetDetection());
+		assertEquals(TridasIO.tridasVersionUsedInternally, ctx.getTridasVersion());
+	}
+
+	public void testWarningSink() throws Exception {
+		final ArrayList<ConversionWarning> sunk = new ArrayList<ConversionWarning>();
+		ConversionContext ctx = new ConversionContext().withWarningSink(new ConversionContext.WarningSink() {
+			@Override
+			public void addWarning(ConversionWarning argWarning) {
+				sunk.add(argWarning);
+			}
+		});
+
+		AbstractDendroFileReader reader = TridasIO.getFileReader("Tucson", ctx);
+		assertSame(ctx, reader.getContext());
+		reader.loadFile("TestData/Tucson/Tucson7.rwl");
+		assertEquals(Arrays.asList(reader.getWarnings()), sunk);
+	}
+}
@@ -15,13 +15,52 @@
  */
 package org.tridas.io.maventests;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import junit.framework.TestCase;
 
+import org.tridas.io.defaults.AbstractMetadataFieldSet;
+import org.tridas.io.defaults.TridasMetadataFieldSet;
+import org.tridas.io.defaults.TridasMetadataFieldSet.TridasMandatoryField;
 import org.tridas.io.defaults.values.IntegerDefaultValue;
 import org.tridas.io.defaults.values.StringDefaultValue;
 
 public class DefaultValuesTest extends TestCase {
 	
+	private static enum Field {
+		A, B, C
+	}
+	
+	private static enum OtherField {
+		X, Y
+	}
+	
+	/**
+	 * C is set before A, and both before X
+	 */
+	private static class FieldSet extends AbstractMetadataFieldSet {
+		
+		@Override
+		protected void initDefaultValues() {
+			put(Field.C, "c");
+			put(Field.A, "a");
+			put(OtherField.X, "x");
+		}
+		
+		public void put(Enum<?> argKey, String argValue) {
+			setDefaultValue(argKey, new StringDefaultValue(argValue));
+		}
+		
+		public FieldSet copy() {
+			return (FieldSet) clone();
+		}
+	}
+	
+	private static void assertValue(String argExpected, FieldSet argSet, Enum<?> argKey) {
+		assertEquals(argExpected, argSet.getStringDefaultValue(argKey).getValue());
+	}
+	
 	public void testStringResizing() {
 		StringDefaultValue defString = new StringDefaultValue("Hello", -1, -1);
 		assertEquals("Hello", defString.getValue());
@@ -71,4 +110,90 @@ public class DefaultValuesTest extends TestCase {
 		defInt.setValue(0);
 		assertEquals(Integer.valueOf(10), defInt.getValue());
 	}
+	
+	public void testCloneIsolation() {
+		TridasMetadataFieldSet original = new TridasMetadataFieldSet();
+		original.getStringDefaultValue(TridasMandatoryField.PROJECT_TITLE).setValue("Original");
+		
+		TridasMetadataFieldSet clone = (TridasMetadataFieldSet) original.clone();
+		assertEquals("Original", clone.getStringDefaultValue(TridasMandatoryField.PROJECT_TITLE).getValue());
+		
+		clone.getStringDefaultValue(TridasMandatoryField.PROJECT_TITLE).setValue("Clone");
+		original.getStringDefaultValue(TridasMandatoryField.OBJECT_TITLE).setValue("Original object");
+		assertEquals("Original", original.getStringDefaultValue(TridasMandatoryField.PROJECT_TITLE).getValue());
+		assertFalse("Original object".equals(clone.getStringDefaultValue(TridasMandatoryField.OBJECT_TITLE)
+				.getValue()));
+		assertEquals(original.keySet(), clone.keySet());
+	}
+	
+	public void testSeveralClonesOfOneParent() {
+		FieldSet parent = new FieldSet();
+		FieldSet[] clones = new FieldSet[]{parent.copy(), parent.copy(), parent.copy()};
+		for (int i = 0; i < clones.length; i++) {
+			clones[i].getStringDefaultValue(Field.A).setValue("clone " + i);
+		}
+		assertValue("a", parent, Field.A);
+		for (int i = 0; i < clones.length; i++) {
+			assertValue("clone " + i, clones[i], Field.A);
+			assertValue("c", clones[i], Field.C);
+		}
+		
+		parent.getStringDefaultValue(Field.C).setValue("parent");
+		for (FieldSet clone : clones) {
+			assertValue("c", clone, Field.C);
+		}
+	}
+	
+	public void testPutAfterShare() {
+		FieldSet parent = new FieldSet();
+		FieldSet clone = parent.copy();
+		
+		parent.put(Field.B, "parent b");
+		parent.put(Field.A, "parent a");
+		assertNull(clone.getDefaultValue(Field.B));
+		assertValue("a", clone, Field.A);
+		
+		clone.put(Field.C, "clone c");
+		clone.put(OtherField.Y, "clone y");
+		assertValue("c", parent, Field.C);
+		assertNull(parent.getDefaultValue(OtherField.Y));
+		assertValue("parent b", parent, Field.B);
+		assertValue("clone y", clone, OtherField.Y);
+	}
+	
+	public void testCloneOfClone() {
+		FieldSet parent = new FieldSet();
+		FieldSet child = parent.copy();
+		FieldSet grandchild = child.copy();
+		
+		grandchild.getStringDefaultValue(Field.A).setValue("grandchild");
+		child.getStringDefaultValue(Field.C).setValue("child");
+		parent.getStringDefaultValue(OtherField.X).setValue("parent");
+		
+		assertValue("a", parent, Field.A);
+		assertValue("a", child, Field.A);
+		assertValue("grandchild", grandchild, Field.A);
+		assertValue("c", parent, Field.C);
+		assertValue("child", child, Field.C);
+		assertValue("c", grandchild, Field.C);
+		assertValue("parent", parent, OtherField.X);
+		assertValue("x", child, OtherField.X);
+		assertValue("x", grandchild, OtherField.X);
+	}
+	
+	/**
+	 * Keys are grouped by enum, in the order each enum was first used, and are
+	 * in ordinal order within it
+	 */
+	public void testKeySetOrder() {
+		FieldSet set = new FieldSet();
+		assertEquals(Arrays.asList(Field.A, Field.C, OtherField.X), new ArrayList<Enum<?>>(set.keySet()));
+		
+		FieldSet clone = set.copy();
+		clone.put(OtherField.Y, "y");
+		clone.put(Field.B, "b");
+		assertEquals(Arrays.asList(Field.A, Field.B, Field.C, OtherField.X, OtherField.Y),
+				new ArrayList<Enum<?>>(clone.keySet()));
+		assertEquals(Arrays.asList(Field.A, Field.C, OtherField.X), new ArrayList<Enum<?>>(set.keySet()));
+	}
 }
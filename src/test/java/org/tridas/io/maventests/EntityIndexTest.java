@@ -0,0 +1,110 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.maventests;
+
+import org.tridas.interfaces.ITridas;
+import org.tridas.io.util.EntityIndex;
+import org.tridas.schema.SeriesLink;
+import org.tridas.schema.SeriesLinks;
+import org.tridas.schema.TridasDerivedSeries;
+import org.tridas.schema.TridasElement;
+import org.tridas.schema.TridasIdentifier;
+import org.tridas.schema.TridasMeasurementSeries;
+import org.tridas.schema.TridasObject;
+import org.tridas.schema.TridasProject;
+import org.tridas.schema.TridasRadius;
+import org.tridas.schema.TridasSample;
+
+import junit.framework.TestCase;
+
+public class EntityIndexTest extends TestCase {
+
+	private TridasProject project;
+	private TridasObject object;
+	private TridasElement element;
+	private TridasSample sample;
+	private TridasRadius radius;
+	private TridasMeasurementSeries series;
+
+	@Override
+	protected void setUp() throws Exception {
+		project = new TridasProject();
+		object = new TridasObject();
+		object.setIdentifier(createIdentifier("object"));
+		element = new TridasElement();
+		sample = new TridasSample();
+		sample.setIdentifier(createIdentifier("sample"));
+		radius = new TridasRadius();
+		series = new TridasMeasurementSeries();
+		series.setIdentifier(createIdentifier("series"));
+
+		radius.getMeasurementSeries().add(series);
+		sample.getRadiuses().add(radius);
+		element.getSamples().add(sample);
+		object.getElements().add(element);
+		project.getObjects().add(object);
+	}
+
+	public void testParents() {
+		EntityIndex index = new EntityIndex(project);
+		TridasIdentifier id = createIdentifier("series");
+
+		assertSame(series, index.getEntity(id));
+		assertSame(radius, index.getEntity(id, TridasRadius.class));
+		assertSame(element, index.getEntity(id, TridasElement.class));
+		assertSame(object, index.getEntity(id, TridasObject.class));
+		assertSame(project, index.getEntity(id, TridasProject.class));
+		assertEquals(5, index.getParents(id).size());
+
+		// A sample has no radius above it
+		assertNull(index.getEntity(createIdentifier("sample"), TridasRadius.class));
+		assertNull(index.getEntity(createIdentifier("missing")));
+	}
+
+	public void testDerivedSeriesLink() {
+		TridasDerivedSeries ds = new TridasDerivedSeries();
+		ds.setIdentifier(createIdentifier("chronology"));
+		SeriesLink link = new SeriesLink();
+		link.setIdentifier(createIdentifier("series"));
+		ds.setLinkSeries(new SeriesLinks());
+		ds.getLinkSeries().getSeries().add(link);
+		project.getDerivedSeries().add(ds);
+
+		EntityIndex index = new EntityIndex(project);
+		TridasIdentifier id = createIdentifier("chronology");
+		assertSame(ds, index.getEntity(id, ITridas.class));
+		assertSame(sample, index.getEntity(id, TridasSample.class));
+	}
+
+	public void testIncrementalAdd() {
+		EntityIndex index = new EntityIndex(project);
+
+		TridasSample added = new TridasSample();
+		added.setIdentifier(createIdentifier("added"));
+		element.getSamples().add(added);
+		index.addSample(added, element);
+
+		assertSame(added, index.getEntity(createIdentifier("added")));
+		assertSame(object, index.getEntity(createIdentifier("added"), TridasObject.class));
+	}
+
+	private static TridasIdentifier createIdentifier(String argValue) {
+		TridasIdentifier id = new TridasIdentifier();
+		id.setDomain("test");
+		id.setValue(argValue);
+		return id;
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.maventests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.tridas.io.AbstractDendroCollectionWriter;
+import org.tridas.io.AbstractDendroFileReader;
+import org.tridas.io.TridasIO;
+import org.tridas.io.detection.FileSample;
+import org.tridas.io.detection.FormatDetection;
+
+import junit.framework.TestCase;
+
+public class FormatProviderTest extends TestCase {
+
+	/**
+	 * The built in formats only name their classes, so make sure every name
+	 * still creates a reader or writer for the format it is listed under
+	 */
+	public void testAllFormatsCreate() {
+		for (String format : TridasIO.getSupportedReadingFormats()) {
+			AbstractDendroFileReader reader = TridasIO.getFileReader(format);
+			assertNotNull("No reader for " + format, reader);
+			assertEquals(format, reader.getShortName());
+		}
+		for (String format : TridasIO.getSupportedWritingFormats()) {
+			AbstractDendroCollectionWriter writer = TridasIO.getFileWriter(format);
+			assertNotNull("No writer for " + format, writer);
+			assertEquals(format, writer.getShortName());
+		}
+	}
+
+	public void testExtension() {
+		assertEquals("Tucson", TridasIO.getFileReaderFromExtension("rwl").getShortName());
+		assertNull(TridasIO.getFileReaderFromExtension("notaformat"));
+	}
+
+	public void testDetection() throws IOException {
+		assertDetected("Tucson", "TestData/Tucson/Tucson7.rwl");
+		assertDetected("CATRAS", "TestData/CATRAS/AKK00010.CAT");
+		assertDetected("Heidelberg", "TestData/Heidelberg/SET01.FH");
+		assertDetected("TRiDaS", "TestData/TRiDaS/1.2.3.xml");
+	}
+
+	private void assertDetected(String argFormat, String argFile) throws IOException {
+		List<FormatDetection> detections = TridasIO.detectFormats(FileSample.read(new File(argFile)));
+		assertFalse("Nothing detected for " + argFile, detections.isEmpty());
+		assertEquals(argFormat, detections.get(0).getFormatName());
+		assertTrue(detections.get(0).getConfidence() >= TridasIO.MIN_DETECTION_CONFIDENCE);
+	}
+
+	private static File createTempFile(String argExtension) throws IOException {
+		File file = File.createTempFile("formatprovidertest", "." + argExtension);
+		file.deleteOnExit();
+		return file;
+	}
+
+	/**
+	 * A Tucson file saved with the Heidelberg extension is still read as Tucson
+	 */
+	public void testMisleadingExtension() throws IOException {
+		File file = createTempFile("fh");
+		Files.copy(new File("TestData/Tucson/Tucson7.rwl").toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+
+		assertEquals("Heidelberg", TridasIO.getFileReaderFromExtension("fh").getShortName());
+		assertEquals("Tucson", TridasIO.getFileReaderFromContent(file).getShortName());
+	}
+
+	/**
+	 * One Tucson data line in a page of notes is detected, but not with enough
+	 * confidence to outweigh the extension
+	 */
+	public void testLowConfidenceFallsBackToExtension() throws IOException {
+		File file = createTempFile("fh");
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write("538132  1754   394   370   351   330   264   254\n".getBytes(StandardCharsets.US_ASCII));
+			for (int i = 0; i < 9; i++) {
+				out.write(("Field notes, line " + i + "\n").getBytes(StandardCharsets.US_ASCII));
+			}
+		} finally {
+			out.close();
+		}
+
+		List<FormatDetection> detections = TridasIO.detectFormats(FileSample.read(file));
+		assertFalse(detections.isEmpty());
+		assertEquals("Tucson", detections.get(0).getFormatName());
+		assertTrue(detections.get(0).getConfidence() < TridasIO.MIN_DETECTION_CONFIDENCE);
+		assertEquals("Heidelberg", TridasIO.getFileReaderFromContent(file).getShortName());
+
+		File unknown = createTempFile("notaformat");
+		Files.copy(file.toPath(), unknown.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		assertNull(TridasIO.getFileReaderFromContent(unknown));
+	}
+
+	public void testCRSLookup() {
+		assertNotNull(TridasIO.getCoordinateReferenceSystem(4326));
+		assertNull(TridasIO.getCoordinateReferenceSystem(-1));
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.maventests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import junit.framework.TestCase;
+
+import org.tridas.io.AbstractDendroCollectionWriter;
+import org.tridas.io.formats.csvmatrix.CSVMatrixWriter;
+import org.tridas.io.formats.csvmatrix.TridasToMatrixDefaults;
+import org.tridas.io.formats.csvmatrixremarks.CSVMatrixRemarksWriter;
+import org.tridas.io.formats.lipd.LiPDFile;
+import org.tridas.io.formats.lipd.TridasToLiPDDefaults;
+import org.tridas.io.util.SafeIntYear;
+import org.tridas.schema.DatingSuffix;
+import org.tridas.schema.NormalTridasUnit;
+import org.tridas.schema.NormalTridasVariable;
+import org.tridas.schema.TridasElement;
+import org.tridas.schema.TridasInterpretation;
+import org.tridas.schema.TridasMeasurementSeries;
+import org.tridas.schema.TridasObject;
+import org.tridas.schema.TridasProject;
+import org.tridas.schema.TridasRadius;
+import org.tridas.schema.TridasRemark;
+import org.tridas.schema.TridasSample;
+import org.tridas.schema.TridasTridas;
+import org.tridas.schema.TridasUnit;
+import org.tridas.schema.TridasValue;
+import org.tridas.schema.TridasValues;
+import org.tridas.schema.TridasVariable;
+
+/**
+ * A series starting one year after the file used to be written over the header
+ * row, with its values shifted up a row
+ */
+public class MatrixWriterTest extends TestCase {
+
+	private static TridasMeasurementSeries createSeries(String argTitle, int argFirstYear, String... argValues) {
+		TridasValues values = new TridasValues();
+		TridasVariable variable = new TridasVariable();
+		variable.setNormalTridas(NormalTridasVariable.RING_WIDTH);
+		values.setVariable(variable);
+		TridasUnit unit = new TridasUnit();
+		unit.setNormalTridas(NormalTridasUnit.HUNDREDTH_MM);
+		values.setUnit(unit);
+		for (String v : argValues) {
+			TridasValue value = new TridasValue();
+			value.setValue(v);
+			values.getValues().add(value);
+		}
+
+		TridasInterpretation interpretation = new TridasInterpretation();
+		interpretation.setFirstYear(new SafeIntYear(argFirstYear).toTridasYear(DatingSuffix.AD));
+		TridasMeasurementSeries series = new TridasMeasurementSeries();
+		series.setTitle(argTitle);
+		series.setInterpretation(interpretation);
+		series.getValues().add(values);
+		return series;
+	}
+
+	/**
+	 * "early" starts in 1800, the first year of the file, and "late" in 1801.
+	 * The first value of "late" is remarked on.
+	 */
+	private static TridasMeasurementSeries[] createSeries() {
+		TridasMeasurementSeries late = createSeries("late", 1801, "200", "210");
+		TridasRemark remark = new TridasRemark();
+		remark.setValue("cracked");
+		late.getValues().get(0).getValues().get(0).getRemarks().add(remark);
+		return new TridasMeasurementSeries[]{createSeries("early", 1800, "100", "110", "120"), late};
+	}
+
+	private static TridasTridas createContainer() {
+		TridasRadius radius = new TridasRadius();
+		radius.setTitle("radius");
+		for (TridasMeasurementSeries series : createSeries()) {
+			radius.getMeasurementSeries().add(series);
+		}
+		TridasSample sample = new TridasSample();
+		sample.setTitle("sample");
+		sample.getRadiuses().add(radius);
+		TridasElement element = new TridasElement();
+		element.setTitle("element");
+		element.getSamples().add(sample);
+		TridasObject object = new TridasObject();
+		object.setTitle("object");
+		object.getElements().add(element);
+		TridasProject project = new TridasProject();
+		project.setTitle("project");
+		project.getObjects().add(object);
+
+		TridasTridas container = new TridasTridas();
+		container.getProjects().add(project);
+		return container;
+	}
+
+	private static String[] write(AbstractDendroCollectionWriter argWriter) throws Exception {
+		argWriter.load(createContainer());
+		assertEquals(1, argWriter.getFiles().length);
+		return argWriter.getFiles()[0].saveToString();
+	}
+
+	public void testCSVMatrixHeaderKept() throws Exception {
+		String[] lines = write(new CSVMatrixWriter());
+		assertEquals(4, lines.length);
+		assertTrue(lines[0], lines[0].startsWith("Years "));
+		assertTrue(lines[0], lines[0].endsWith(",early,late"));
+		assertEquals("1800,100,", lines[1]);
+		assertEquals("1801,110,200", lines[2]);
+		assertEquals("1802,120,210", lines[3]);
+	}
+
+	public void testCSVMatrixRemarksHeaderKept() throws Exception {
+		String[] lines = write(new CSVMatrixRemarksWriter());
+		assertEquals(4, lines.length);
+		assertTrue(lines[0], lines[0].startsWith("Years "));
+		assertTrue(lines[0], lines[0].endsWith(",early,early remarks,late,late remarks"));
+		assertEquals("1800,100,\"\",,", lines[1]);
+		assertEquals("1801,110,\"\",200,\"cracked\"", lines[2]);
+		assertEquals("1802,120,\"\",210,\"\"", lines[3]);
+	}
+
+	/**
+	 * The LiPD writer makes a file for each series, so both are added to one
+	 * file here. lipd-data.csv has no header row, so its first line must be
+	 * the first year.
+	 */
+	public void testLiPDDataStartsAtFirstYear() throws Exception {
+		ArrayList<TridasValues> values = new ArrayList<TridasValues>();
+		TridasMeasurementSeries[] series = createSeries();
+		for (TridasMeasurementSeries s : series) {
+			values.add(s.getValues().get(0));
+		}
+		LiPDFile file = new LiPDFile(new TridasToLiPDDefaults(), values);
+		for (TridasMeasurementSeries s : series) {
+			file.addSeries(new TridasToMatrixDefaults(), s, s.getValues().get(0));
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		file.writeTo(out);
+
+		String csv = null;
+		ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()));
+		try {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				if (entry.getName().equals("lipd-data.csv")) {
+					csv = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+				}
+			}
+		} finally {
+			zip.close();
+		}
+		assertNotNull(csv);
+
+		String[] lines = csv.split("\n");
+		assertEquals(3, lines.length);
+		assertEquals("1800,100,", lines[0]);
+		assertEquals("1801,110,200", lines[1]);
+		assertEquals("1802,120,210", lines[2]);
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.maventests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.tridas.io.util.IOUtils;
+import org.tridas.schema.TridasDerivedSeries;
+import org.tridas.schema.TridasObject;
+import org.tridas.schema.TridasProject;
+import org.tridas.schema.TridasTridas;
+
+public class MergeProjectsTest extends TestCase {
+
+	private static TridasTridas createContainer(String argProjectTitle, String argSeriesTitle, String... argObjectTitles) {
+		TridasProject project = new TridasProject();
+		project.setTitle(argProjectTitle);
+		for (String title : argObjectTitles) {
+			TridasObject object = new TridasObject();
+			object.setTitle(title);
+			project.getObjects().add(object);
+		}
+		TridasDerivedSeries series = new TridasDerivedSeries();
+		series.setTitle(argSeriesTitle);
+		project.getDerivedSeries().add(series);
+
+		TridasTridas container = new TridasTridas();
+		container.getProjects().add(project);
+		return container;
+	}
+
+	private static ArrayList<TridasTridas> createContainers() {
+		ArrayList<TridasTridas> containers = new ArrayList<TridasTridas>();
+		containers.add(createContainer("first", "chronology 1", "object A", "object B"));
+		containers.add(createContainer("second", "chronology 2", "object C"));
+		return containers;
+	}
+
+	private static List<String> getObjectTitles(TridasProject argProject) {
+		ArrayList<String> titles = new ArrayList<String>();
+		for (TridasObject o : argProject.getObjects()) {
+			titles.add(o.getTitle());
+		}
+		return titles;
+	}
+
+	/**
+	 * The merged project is the first project, so its own objects and derived
+	 * series must be collected before it is refilled
+	 */
+	public void testFirstProjectKeepsItsEntities() {
+		TridasTridas merged = IOUtils.mergeToSingleProject(createContainers());
+
+		assertEquals(1, merged.getProjects().size());
+		TridasProject project = merged.getProjects().get(0);
+		assertEquals("first", project.getTitle());
+
+		List<String> titles = getObjectTitles(project);
+		assertEquals(3, titles.size());
+		assertEquals("object A", titles.get(0));
+		assertEquals("object B", titles.get(1));
+		assertEquals("object C", titles.get(2));
+
+		assertEquals(2, project.getDerivedSeries().size());
+		assertEquals("chronology 1", project.getDerivedSeries().get(0).getTitle());
+		assertEquals("chronology 2", project.getDerivedSeries().get(1).getTitle());
+	}
+
+	public void testFirstProjectKeepsItsEntitiesWhenConsolidating() {
+		TridasTridas merged = IOUtils.mergeToSingleProject(createContainers(), true);
+
+		TridasProject project = merged.getProjects().get(0);
+		List<String> titles = getObjectTitles(project);
+		assertEquals(3, titles.size());
+		assertTrue(titles.contains("object A"));
+		assertTrue(titles.contains("object B"));
+		assertTrue(titles.contains("object C"));
+		assertEquals(2, project.getDerivedSeries().size());
+	}
+
+	public void testNothingToMerge() {
+		assertNull(IOUtils.mergeToSingleProject(null));
+		assertNull(IOUtils.mergeToSingleProject(new ArrayList<TridasTridas>()));
+	}
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.maventests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+import org.tridas.interfaces.ITridasSeries;
+import org.tridas.io.I18n;
+import org.tridas.io.exceptions.ConversionWarning;
+import org.tridas.io.exceptions.InvalidDendroFileException;
+import org.tridas.io.formats.odfmatrix.ODFMatrixFile;
+import org.tridas.io.formats.odfmatrix.ODFMatrixReader;
+import org.tridas.io.formats.odfmatrix.ODFMatrixWriter;
+import org.tridas.io.util.TridasUtils;
+import org.tridas.schema.TridasValue;
+
+public class ODFMatrixTest extends TestCase {
+
+	private static ODFMatrixReader read(File argFile) throws Exception {
+		ODFMatrixReader reader = new ODFMatrixReader();
+		reader.loadFile(argFile.getAbsolutePath());
+		return reader;
+	}
+
+	private static List<String> getWarningMessages(ODFMatrixReader argReader) {
+		ArrayList<String> messages = new ArrayList<String>();
+		for (ConversionWarning warning : argReader.getWarnings()) {
+			messages.add(warning.getMessage());
+		}
+		return messages;
+	}
+
+	/**
+	 * Save a spreadsheet holding a single table
+	 *
+	 * @param argTable
+	 *            the columns and rows of the table, as content.xml elements
+	 * @return
+	 * @throws Exception
+	 */
+	private static File createSpreadsheet(String argTable) throws Exception {
+		String content = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+				+ "<office:document-content"
+				+ " xmlns:office=\"urn:oasis:names:tc:opendocument:xmlns:office:1.0\""
+				+ " xmlns:table=\"urn:oasis:names:tc:opendocument:xmlns:table:1.0\""
+				+ " xmlns:text=\"urn:oasis:names:tc:opendocument:xmlns:text:1.0\">"
+				+ "<office:body><office:spreadsheet><table:table table:name=\"Data\">" + argTable
+				+ "</table:table></office:spreadsheet></office:body></office:document-content>";
+
+		File file = File.createTempFile("odfmatrixtest", ".ods");
+		file.deleteOnExit();
+		ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file));
+		try {
+			zip.putNextEntry(new ZipEntry("content.xml"));
+			zip.write(content.getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+		} finally {
+			zip.close();
+		}
+		return file;
+	}
+
+	private static String row(int argRepeat, String... argCells) {
+		StringBuilder sb = new StringBuilder("<table:table-row");
+		if (argRepeat > 1) {
+			sb.append(" table:number-rows-repeated=\"").append(argRepeat).append('"');
+		}
+		sb.append('>');
+		for (String cell : argCells) {
+			sb.append(cell);
+		}
+		return sb.append("</table:table-row>").toString();
+	}
+
+	private static String textCell(String argText) {
+		return "<table:table-cell office:value-type=\"string\"><text:p>" + argText + "</text:p></table:table-cell>";
+	}
+
+	private static String floatCell(String argValue, int argRepeat) {
+		String repeat = argRepeat > 1 ? " table:number-columns-repeated=\"" + argRepeat + "\"" : "";
+		return "<table:table-cell" + repeat + " office:value-type=\"float\" office:value=\"" + argValue + "\"><text:p>"
+				+ argValue + "</text:p></table:table-cell>";
+	}
+
+	private static String blankCells(int argRepeat) {
+		return "<table:table-cell table:number-columns-repeated=\"" + argRepeat + "\"/>";
+	}
+
+	/**
+	 * test.ods has repeated cells in its data, is padded with a million
+	 * repeated empty rows and has a second sheet
+	 */
+	public void testReadSpreadsheet() throws Exception {
+		ODFMatrixReader reader = read(new File("TestData/ODFMatrix/test.ods"));
+
+		List<String> series = TestToTridas.describeSeries(reader);
+		assertEquals(2, series.size());
+		assertEquals("MySample1|500 AD|0.33 0.26 0.2 0.14 0.08 0.02 0.2 0.14 0.08 0.2 0.33 0.08 0.33 0.22 ",
+				series.get(0));
+		assertEquals("MySample2|501 AD|0.26 0.2 0.14 0.08 0.02 0.2 0.14 0.08 ", series.get(1));
+
+		List<String> warnings = getWarningMessages(reader);
+		assertEquals(1, warnings.size());
+		assertEquals(I18n.getText("excelmatrix.ignoringWorksheetsExcept", "Sheet1"), warnings.get(0));
+	}
+
+	/**
+	 * The writer converts the values to hundredths of a millimetre, while the
+	 * reader takes them to be millimetres
+	 */
+	public void testWriteAndReadBack() throws Exception {
+		File source = new File("TestData/ODFMatrix/test.ods");
+		ODFMatrixWriter writer = new ODFMatrixWriter();
+		writer.load(read(source).getTridasContainer());
+		assertEquals(1, writer.getFiles().length);
+
+		File file = File.createTempFile("odfmatrixtest", ".ods");
+		file.deleteOnExit();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			((ODFMatrixFile) writer.getFiles()[0]).saveToDisk(out);
+		} finally {
+			out.close();
+		}
+
+		ArrayList<ITridasSeries> expected = TridasUtils.getAllSeriesFromTridasContainer(read(source)
+				.getTridasContainer());
+		ArrayList<ITridasSeries> actual = TridasUtils.getAllSeriesFromTridasContainer(read(file).getTridasContainer());
+		assertEquals(2, actual.size());
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			String title = expected.get(i).getTitle();
+			assertEquals(title, actual.get(i).getTitle());
+			assertEquals(title, TestToTridas.describeFirstYear(expected.get(i)),
+					TestToTridas.describeFirstYear(actual.get(i)));
+
+			List<TridasValue> expectedValues = expected.get(i).getValues().get(0).getValues();
+			List<TridasValue> actualValues = actual.get(i).getValues().get(0).getValues();
+			assertEquals(title, expectedValues.size(), actualValues.size());
+			for (int j = 0; j < expectedValues.size(); j++) {
+				assertEquals(title + " value " + j, Double.parseDouble(expectedValues.get(j).getValue()) * 100,
+						Double.parseDouble(actualValues.get(j).getValue()), 1e-9);
+			}
+		}
+	}
+
+	/**
+	 * Repeated cells fill the columns they cover and repeated empty rows pad
+	 * the table. Data below the end of the years is left out with a warning.
+	 */
+	public void testRepeatedCellsAndRows() throws Exception {
+		ODFMatrixReader reader = read(createSpreadsheet(
+				"<table:table-column table:number-columns-repeated=\"3\"/>"
+				+ row(1, textCell("Years"), textCell("first"), textCell("second"))
+				+ row(1, floatCell("1800", 1), floatCell("1.5", 2))
+				+ row(1, floatCell("1801", 1), floatCell("2.5", 1))
+				+ row(1048570, blankCells(3))
+				+ row(2, blankCells(1), floatCell("9", 1))));
+
+		List<String> series = TestToTridas.describeSeries(reader);
+		assertEquals(2, series.size());
+		assertEquals("first|1800 AD|1.5 2.5 ", series.get(0));
+		assertEquals("second|1800 AD|1.5 ", series.get(1));
+
+		List<String> warnings = getWarningMessages(reader);
+		assertEquals(1, warnings.size());
+		assertEquals(I18n.getText("excelmatrix.moreDataThanYears", "B"), warnings.get(0));
+	}
+
+	/**
+	 * Each repeat of a row is a row of its own, so a repeated year is out of
+	 * sequence
+	 */
+	public void testRepeatedYearRow() throws Exception {
+		File file = createSpreadsheet("<table:table-column table:number-columns-repeated=\"2\"/>"
+				+ row(1, textCell("Years"), textCell("first"))
+				+ row(1, floatCell("1800", 1), floatCell("1.5", 1))
+				+ row(2, floatCell("1801", 1), floatCell("2.5", 1)));
+		try {
+			read(file);
+			fail();
+		} catch (InvalidDendroFileException e) {
+			assertEquals(I18n.getText("excelmatrix.invalidYearSequence"), e.getReason());
+			assertEquals("A4", e.getPointerNumber());
+		}
+	}
+}
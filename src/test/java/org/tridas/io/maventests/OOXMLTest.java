@@ -0,0 +1,290 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.maventests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.tridas.io.I18n;
+import org.tridas.io.exceptions.InvalidDendroFileException;
+import org.tridas.io.formats.ooxml.OOXMLFile;
+import org.tridas.io.formats.ooxml.OOXMLReader;
+import org.tridas.io.formats.ooxml.OOXMLWriter;
+import org.tridas.io.formats.tucson.TucsonReader;
+
+public class OOXMLTest extends TestCase {
+
+	/**
+	 * Save a Tucson file as an Excel 2007 workbook and open the result
+	 *
+	 * @param argThreshold
+	 *            streaming threshold for the writer
+	 * @return
+	 * @throws Exception
+	 */
+	private static Workbook saveAndReopen(String argSource, int argThreshold) throws Exception {
+		// writers change the container they are given, so read it each time
+		TucsonReader reader = new TucsonReader();
+		reader.loadFile(argSource);
+		OOXMLWriter writer = new OOXMLWriter();
+		writer.setStreamingThreshold(argThreshold);
+		writer.load(reader.getTridasContainer());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		((OOXMLFile) writer.getFiles()[0]).saveToDisk(out);
+		return WorkbookFactory.create(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	/**
+	 * The streaming and in-memory workbooks must hold the same sheets, cell
+	 * types and values
+	 */
+	public void testStreamingMatchesInMemory() throws Exception {
+		for (String source : new String[]{"TestData/Tucson/Maris.rwl", "TestData/Tucson/Tucson7.rwl"}) {
+			Workbook inMemory = saveAndReopen(source, Integer.MAX_VALUE);
+			Workbook streamed = saveAndReopen(source, 0);
+			try {
+				assertEquals(2, inMemory.getNumberOfSheets());
+				assertEquals(inMemory.getNumberOfSheets(), streamed.getNumberOfSheets());
+				for (int s = 0; s < inMemory.getNumberOfSheets(); s++) {
+					assertSheetsEqual(inMemory.getSheetAt(s), streamed.getSheetAt(s));
+				}
+				assertTrue(inMemory.getSheetAt(0).getLastRowNum() > 1);
+			} finally {
+				inMemory.close();
+				streamed.close();
+			}
+		}
+	}
+
+	private static void assertSheetsEqual(Sheet argExpected, Sheet argActual) {
+		String name = argExpected.getSheetName();
+		assertEquals(name, argActual.getSheetName());
+		assertEquals(name, argExpected.getLastRowNum(), argActual.getLastRowNum());
+
+		for (int r = 0; r <= argExpected.getLastRowNum(); r++) {
+			Row expected = argExpected.getRow(r);
+			Row actual = argActual.getRow(r);
+			if (expected == null) {
+				assertNull(name + " row " + r, actual);
+				continue;
+			}
+			assertNotNull(name + " row " + r, actual);
+			assertEquals(name + " row " + r, expected.getLastCellNum(), actual.getLastCellNum());
+
+			for (int c = 0; c < expected.getLastCellNum(); c++) {
+				String where = name + " row " + r + " column " + c;
+				Cell expectedCell = expected.getCell(c);
+				Cell actualCell = actual.getCell(c);
+				if (expectedCell == null) {
+					assertNull(where, actualCell);
+					continue;
+				}
+				assertNotNull(where, actualCell);
+				assertEquals(where, expectedCell.getCellType(), actualCell.getCellType());
+				if (expectedCell.getCellType() == CellType.NUMERIC) {
+					assertEquals(where, expectedCell.getNumericCellValue(), actualCell.getNumericCellValue(), 0);
+				}
+				else {
+					assertEquals(where, expectedCell.getStringCellValue(), actualCell.getStringCellValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write rows to a new workbook and save it to a temporary file. Strings
+	 * starting with '=' are formulas, whose results are cached in the file.
+	 * 
+	 * @param argWorkbook
+	 *            empty workbook of the type to save
+	 * @param argSuffix
+	 * @param argRows
+	 *            Double or String contents of each cell, or null for none
+	 * @return
+	 * @throws Exception
+	 */
+	private static File createWorkbook(Workbook argWorkbook, String argSuffix, Object[][] argRows) throws Exception {
+		try {
+			Sheet sheet = argWorkbook.createSheet("Data");
+			for (int r = 0; r < argRows.length; r++) {
+				Row row = sheet.createRow(r);
+				for (int c = 0; c < argRows[r].length; c++) {
+					Object value = argRows[r][c];
+					if (value == null) {
+						continue;
+					}
+					Cell cell = row.createCell(c);
+					if (value instanceof Double) {
+						cell.setCellValue((Double) value);
+					}
+					else if (((String) value).startsWith("=")) {
+						cell.setCellFormula(((String) value).substring(1));
+					}
+					else {
+						cell.setCellValue((String) value);
+					}
+				}
+			}
+			argWorkbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+			
+			File file = File.createTempFile("ooxmltest", argSuffix);
+			file.deleteOnExit();
+			OutputStream out = new FileOutputStream(file);
+			try {
+				argWorkbook.write(out);
+			} finally {
+				out.close();
+			}
+			return file;
+		} finally {
+			argWorkbook.close();
+		}
+	}
+	
+	/**
+	 * @param argFile
+	 * @return numbers and strings of the first worksheet, as
+	 *         {@link #createWorkbook(Workbook, String, Object[][])} takes them
+	 * @throws Exception
+	 */
+	private static Object[][] copyRows(File argFile) throws Exception {
+		Workbook wb = WorkbookFactory.create(argFile, null, true);
+		try {
+			Sheet sheet = wb.getSheetAt(0);
+			Object[][] rows = new Object[sheet.getLastRowNum() + 1][];
+			for (int r = 0; r < rows.length; r++) {
+				Row row = sheet.getRow(r);
+				rows[r] = new Object[row == null ? 0 : row.getLastCellNum()];
+				for (int c = 0; c < rows[r].length; c++) {
+					Cell cell = row.getCell(c);
+					if (cell == null) {
+						continue;
+					}
+					if (cell.getCellType() == CellType.NUMERIC) {
+						rows[r][c] = cell.getNumericCellValue();
+					}
+					else if (cell.getCellType() == CellType.STRING) {
+						rows[r][c] = cell.getStringCellValue();
+					}
+				}
+			}
+			return rows;
+		} finally {
+			wb.close();
+		}
+	}
+	
+	private static List<String> read(File argFile) throws Exception {
+		OOXMLReader reader = new OOXMLReader();
+		reader.loadFile(argFile.getAbsolutePath());
+		return TestToTridas.describeSeries(reader);
+	}
+	
+	/**
+	 * Read the rows through the event model, from an Excel 2007 file, and
+	 * through WorkbookFactory, from an Excel 97 one. Both must give the same
+	 * labels, start years and values.
+	 */
+	private static List<String> readBothWays(Object[][] argRows) throws Exception {
+		List<String> streamed = read(createWorkbook(new XSSFWorkbook(), ".xlsx", argRows));
+		List<String> inMemory = read(createWorkbook(new HSSFWorkbook(), ".xls", argRows));
+		assertEquals(streamed, inMemory);
+		return streamed;
+	}
+	
+	private static void assertRejected(File argFile, String argReason, String argCell) throws Exception {
+		try {
+			read(argFile);
+			fail(argFile.getName());
+		} catch (InvalidDendroFileException e) {
+			assertEquals(argReason, e.getReason());
+			assertEquals(argCell, e.getPointerNumber());
+		}
+	}
+	
+	private static void assertBothRejected(Object[][] argRows, String argReason, String argCell) throws Exception {
+		assertRejected(createWorkbook(new XSSFWorkbook(), ".xlsx", argRows), argReason, argCell);
+		assertRejected(createWorkbook(new HSSFWorkbook(), ".xls", argRows), argReason, argCell);
+	}
+	
+	public void testEventModelMatchesWorkbookFactory() throws Exception {
+		File source = new File("TestData/OOXML/test.xlsx");
+		Object[][] rows = copyRows(source);
+		
+		// the years in the file jump from -1 to 1602
+		assertRejected(source, I18n.getText("excelmatrix.invalidYearSequence"), "A3");
+		assertBothRejected(rows, I18n.getText("excelmatrix.invalidYearSequence"), "A3");
+		
+		rows[1][0] = 1601.0;
+		List<String> series = readBothWays(rows);
+		assertEquals(2, series.size());
+		assertEquals("Series1|1601 AD|0.42 0.52 0.23 0.46 0.66 0.21 0.43 0.61 0.666 ", series.get(0));
+		assertEquals("Series2|1601 AD|0 0.52 0.23 0.46 0.66 0.21 0.43 0.61 0.666 ", series.get(1));
+	}
+	
+	public void testInvalidYearSequence() throws Exception {
+		assertBothRejected(new Object[][]{
+				{"Years", "A"},
+				{1800.0, 10.0},
+				{1801.0, 11.0},
+				{1803.0, 12.0}}, I18n.getText("excelmatrix.invalidYearSequence"), "A4");
+	}
+	
+	/**
+	 * A series ends at its first gap, so later values are not run on from the
+	 * earlier ones
+	 */
+	public void testGapEndsSeries() throws Exception {
+		List<String> series = readBothWays(new Object[][]{
+				{"Years", "A", "B"},
+				{1800.0, 10.0, null},
+				{1801.0, 20.0, 5.0},
+				{1802.0, null, 6.0},
+				{1803.0, 40.0, 7.0}});
+		assertEquals(2, series.size());
+		assertEquals("A|1800 AD|10 20 ", series.get(0));
+		assertEquals("B|1801 AD|5 6 7 ", series.get(1));
+	}
+	
+	/**
+	 * Formulas are read from the result cached in the file, for years as well
+	 * as values
+	 */
+	public void testFormulaCachedValue() throws Exception {
+		List<String> series = readBothWays(new Object[][]{
+				{"Years", "A"},
+				{1800.0, 10.0},
+				{"=A2+1", "=B2*2"},
+				{1802.0, 30.0}});
+		assertEquals(1, series.size());
+		assertEquals("A|1800 AD|10 20 30 ", series.get(0));
+	}
+}
@@ -1,11 +1,30 @@
 package org.tridas.io.maventests;
 
+import java.awt.geom.Point2D;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.opengis.gml.schema.PointType;
+import net.opengis.gml.schema.Pos;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tridas.io.TridasIO;
+import org.tridas.spatial.CRSTable;
+import org.tridas.spatial.CoordinateReferenceSystem;
+import org.tridas.spatial.GMLPointSRSHandler;
 import org.tridas.spatial.SpatialUtils;
 
 import junit.framework.TestCase;
 
+import com.jhlabs.map.proj.Projection;
+import com.jhlabs.map.proj.ProjectionFactory;
+
 public class SpatialTest extends TestCase {
 	private static final Logger log = LoggerFactory.getLogger(SpatialTest.class);
 
@@ -32,4 +51,131 @@ public class SpatialTest extends TestCase {
 		
 	}
 	
+	public void testProjectionCache() throws InterruptedException {
+		final CoordinateReferenceSystem crs = TridasIO.getCoordinateReferenceSystem(27700);
+		assertSame(crs.getAsProjection(), crs.getAsProjection());
+		
+		// Other threads get their own projection
+		final Projection[] other = new Projection[1];
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				other[0] = crs.getAsProjection();
+			}
+		};
+		thread.start();
+		thread.join();
+		assertNotNull(other[0]);
+		assertNotSame(crs.getAsProjection(), other[0]);
+	}
+	
+	/**
+	 * Projections keep intermediate results in their fields, so transforming
+	 * from several threads at once must still give the same answers as one
+	 * thread on its own
+	 */
+	public void testConcurrentProjection() throws InterruptedException {
+		// Cassini and transverse mercator, with longitude and latitude points
+		// around the origin of each
+		final int[] codes = new int[]{2099, 27700};
+		final double[][] origins = new double[][]{{50.5, 25.0}, {-2.0, 51.0}};
+		final double[][] points = new double[codes.length][];
+		final double[][] expected = new double[codes.length][];
+		for (int c = 0; c < codes.length; c++) {
+			points[c] = new double[200];
+			for (int i = 0; i < points[c].length; i += 2) {
+				points[c][i] = origins[c][0] + i * 0.005;
+				points[c][i + 1] = origins[c][1] + i * 0.01;
+			}
+			expected[c] = new double[points[c].length];
+			Projection proj = ProjectionFactory.fromPROJ4Specification(
+					TridasIO.getCoordinateReferenceSystem(codes[c]).getProjStr().split(" "));
+			for (int i = 0; i < points[c].length; i += 2) {
+				Point2D.Double dst = proj.transform(new Point2D.Double(points[c][i], points[c][i + 1]),
+						new Point2D.Double());
+				expected[c][i] = dst.x;
+				expected[c][i + 1] = dst.y;
+			}
+		}
+		
+		final AtomicInteger mismatches = new AtomicInteger();
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					Point2D.Double dst = new Point2D.Double();
+					for (int round = 0; round < 2000; round++) {
+						for (int c = 0; c < codes.length; c++) {
+							Projection proj = TridasIO.getCoordinateReferenceSystem(codes[c]).getAsProjection();
+							for (int i = 0; i < points[c].length; i += 2) {
+								proj.transform(new Point2D.Double(points[c][i], points[c][i + 1]), dst);
+								if (dst.x != expected[c][i] || dst.y != expected[c][i + 1]) {
+									mismatches.incrementAndGet();
+								}
+							}
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, mismatches.get());
+	}
+	
+	public void testCRSTable() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CRSTable.write(new InputStreamReader(getClass().getResourceAsStream("/coordsys/srsinfo.txt"),
+				StandardCharsets.UTF_8), out);
+		CRSTable table = new CRSTable(out.toByteArray());
+		
+		CoordinateReferenceSystem crs = table.get(27700);
+		assertEquals("OSGB 1936 / British National Grid", crs.getName());
+		assertEquals(GMLPointSRSHandler.AxisOrder.LONG_LAT, crs.getAxisOrder());
+		assertTrue(crs.getProjStr().startsWith("+proj=tmerc"));
+		assertSame(crs, table.get(27700));
+		assertNull(table.get(-1));
+		
+		// Every code should be found, whether or not the build made the table
+		for (int code : table.getCodes()) {
+			assertEquals(table.get(code).getProjStr(), TridasIO.getCoordinateReferenceSystem(code).getProjStr());
+		}
+	}
+	
+	public void testBulkProjection() {
+		ArrayList<PointType> points = new ArrayList<PointType>();
+		points.add(createPoint("EPSG:27700", 530000.0, 180000.0));
+		points.add(createPoint("EPSG:4326", -0.1, 51.5));
+		points.add(createPoint("urn:ogc:def:crs:NOTEPSG:6.6:1234", 1.0, 2.0));
+		points.add(createPoint("EPSG:27700", 400000.0, 300000.0));
+		
+		List<GMLPointSRSHandler> handlers = GMLPointSRSHandler.projectToWGS84(points);
+		assertEquals(points.size(), handlers.size());
+		assertNull(handlers.get(2));
+		
+		// Each point should match projecting it on its own
+		for (int i : new int[]{0, 1, 3}) {
+			GMLPointSRSHandler single = new GMLPointSRSHandler(points.get(i));
+			assertEquals(single.getWGS84LongCoord(), handlers.get(i).getWGS84LongCoord(), 1e-9);
+			assertEquals(single.getWGS84LatCoord(), handlers.get(i).getWGS84LatCoord(), 1e-9);
+			assertEquals(single.hasSpecificProjection(), handlers.get(i).hasSpecificProjection());
+		}
+		assertEquals(-0.1, handlers.get(1).getWGS84LongCoord(), 1e-9);
+	}
+	
+	private static PointType createPoint(String srsName, double x, double y) {
+		PointType point = new PointType();
+		point.setSrsName(srsName);
+		Pos pos = new Pos();
+		ArrayList<Double> values = new ArrayList<Double>();
+		values.add(x);
+		values.add(y);
+		pos.setValues(values);
+		point.setPos(pos);
+		return point;
+	}
+	
 }
@@ -18,11 +18,19 @@ package org.tridas.io.maventests;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 
 import junit.framework.TestCase;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tridas.interfaces.ITridasSeries;
+import org.tridas.io.AbstractDendroFileReader;
 import org.tridas.io.defaults.TridasMetadataFieldSet;
 import org.tridas.io.exceptions.ConversionWarningException;
 import org.tridas.io.exceptions.ImpossibleConversionException;
@@ -32,6 +40,7 @@ import org.tridas.io.exceptions.NothingToWriteException;
 import org.tridas.io.formats.belfastapple.BelfastAppleReader;
 import org.tridas.io.formats.belfastarchive.BelfastArchiveReader;
 import org.tridas.io.formats.besancon.BesanconReader;
+import org.tridas.io.formats.catras.CatrasDirectoryLoader;
 import org.tridas.io.formats.catras.CatrasReader;
 import org.tridas.io.formats.corina.CorinaReader;
 import org.tridas.io.formats.cracow.CracowReader;
@@ -48,6 +57,7 @@ import org.tridas.io.formats.past4.Past4Reader;
 import org.tridas.io.formats.past4.Past4ToTridasDefaults;
 import org.tridas.io.formats.sheffield.SheffieldReader;
 import org.tridas.io.formats.topham.TophamReader;
+import org.tridas.io.formats.tridas.TridasReader;
 import org.tridas.io.formats.tridas.TridasWriter;
 import org.tridas.io.formats.trims.TrimsReader;
 import org.tridas.io.formats.tucson.TucsonReader;
@@ -56,8 +66,14 @@ import org.tridas.io.formats.tucsoncompact.TucsonCompactReader;
 import org.tridas.io.formats.vformat.VFormatReader;
 import org.tridas.io.formats.windendro.WinDendroReader;
 import org.tridas.io.naming.NumericalNamingConvention;
+import org.tridas.io.util.FileHelper;
 import org.tridas.io.util.FilePermissionException;
+import org.tridas.io.util.TridasUtils;
+import org.tridas.schema.TridasProject;
 import org.tridas.schema.TridasTridas;
+import org.tridas.schema.TridasValue;
+import org.tridas.schema.TridasValues;
+import org.tridas.schema.Year;
 
 public class TestToTridas extends TestCase {
 	
@@ -1427,4 +1443,142 @@ public class TestToTridas extends TestCase {
 		}
 	}
 	
+	/**
+	 * Check that the streaming readers produce the same result whether they are
+	 * given a path or the lines of the file in memory.
+	 */
+	public void testStreamingMatchesInMemory() {
+		AbstractDendroFileReader[][] readers = new AbstractDendroFileReader[][]{
+				{new TucsonReader(), new TucsonReader()},
+				{new HeidelbergReader(), new HeidelbergReader()},
+				{new SheffieldReader(), new SheffieldReader()},
+				{new TridasReader(), new TridasReader()},
+				{new TridasReader(), new TridasReader()}};
+		String[] files = new String[]{"TestData/Tucson/Maris.rwl", "TestData/Heidelberg/SET01.FH",
+				"TestData/Sheffield/HunBoat.d", "TestData/TRiDaS/Utrecht.xml", "TestData/TRiDaS/1.2.3.xml"};
+		
+		for (int i = 0; i < files.length; i++) {
+			try {
+				readers[i][0].loadFile(Paths.get(files[i]));
+				readers[i][1].loadFile(new FileHelper().loadStrings(files[i]), files[i]);
+			} catch (IOException e) {
+				log.info(e.getLocalizedMessage());
+				fail();
+			} catch (InvalidDendroFileException e) {
+				log.info(e.getLocalizedMessage());
+				fail();
+			}
+			
+			TridasProject streamed = readers[i][0].getProjects()[0];
+			TridasProject inMemory = readers[i][1].getProjects()[0];
+			assertEquals(inMemory.getObjects().size(), streamed.getObjects().size());
+			assertEquals(inMemory.getDerivedSeries().size(), streamed.getDerivedSeries().size());
+			
+			List<String> expected = describeSeries(readers[i][1]);
+			assertFalse("No series read from " + files[i], expected.isEmpty());
+			assertEquals(files[i], expected, describeSeries(readers[i][0]));
+		}
+	}
+	
+	/**
+	 * CATRAS files loaded from a path, through the directory loader's shared
+	 * buffer and from a byte array must all give the values that are actually in
+	 * the files.
+	 */
+	public void testCatrasBufferedMatchesInMemory() {
+		CatrasDirectoryLoader loader = new CatrasDirectoryLoader();
+		LinkedHashMap<Path, CatrasReader> buffered = null;
+		try {
+			buffered = loader.readDirectory(Paths.get("TestData/CATRAS"));
+		} catch (IOException e) {
+			log.info(e.getLocalizedMessage());
+			fail();
+		}
+		assertFalse(buffered.isEmpty());
+		
+		for (Path file : buffered.keySet()) {
+			CatrasReader fromPath = new CatrasReader();
+			CatrasReader fromBytes = new CatrasReader();
+			try {
+				fromPath.loadFile(file);
+				fromBytes.loadFile(file.toString());
+			} catch (IOException e) {
+				log.info(e.getLocalizedMessage());
+				fail();
+			} catch (InvalidDendroFileException e) {
+				log.info(e.getLocalizedMessage());
+				fail();
+			}
+			
+			List<String> expected = describeSeries(fromBytes);
+			assertEquals(file.toString(), expected, describeSeries(fromPath));
+			assertEquals(file.toString(), expected, describeSeries(buffered.get(file)));
+			assertEquals(fromBytes.getWarnings().length, fromPath.getWarnings().length);
+			assertEquals(fromBytes.getWarnings().length, buffered.get(file).getWarnings().length);
+		}
+		
+		// Values decoded by hand from the files
+		assertCatrasSeries(buffered.get(Paths.get("TestData/CATRAS/UAKK0530.CAT")), "AKKERMAN2  053 0", "987 AD",
+				105, new String[]{"125", "125", "264"}, "46");
+		assertCatrasSeries(buffered.get(Paths.get("TestData/CATRAS/bcdated.CAT")), "test 5bc", "5 BC",
+				79, new String[]{"373", "374", "368"}, "90");
+		assertCatrasSeries(buffered.get(Paths.get("TestData/CATRAS/undated.CAT")), "test undated", "",
+				79, new String[]{"373", "374", "368"}, "90");
+	}
+	
+	private static void assertCatrasSeries(CatrasReader argReader, String argTitle, String argFirstYear,
+			int argCount, String[] argFirstValues, String argLastValue) {
+		assertNotNull(argReader);
+		ArrayList<ITridasSeries> series = TridasUtils.getAllSeriesFromTridasContainer(argReader.getTridasContainer());
+		assertEquals(1, series.size());
+		assertEquals(argTitle, series.get(0).getTitle());
+		assertEquals(argFirstYear, describeFirstYear(series.get(0)));
+		
+		List<TridasValue> values = series.get(0).getValues().get(0).getValues();
+		assertEquals(argCount, values.size());
+		for (int i = 0; i < argFirstValues.length; i++) {
+			assertEquals(argFirstValues[i], values.get(i).getValue());
+		}
+		if (argLastValue != null) {
+			assertEquals(argLastValue, values.get(values.size() - 1).getValue());
+		}
+	}
+	
+	/**
+	 * Title, first year and values of every series a reader produced, sorted so
+	 * that readers can be compared whatever order they build their series in.
+	 * 
+	 * @param argReader
+	 *            reader that has loaded a file
+	 * @return
+	 */
+	static List<String> describeSeries(AbstractDendroFileReader argReader) {
+		ArrayList<String> descriptions = new ArrayList<String>();
+		for (ITridasSeries series : TridasUtils.getAllSeriesFromTridasContainer(argReader.getTridasContainer())) {
+			StringBuilder sb = new StringBuilder();
+			sb.append(series.getTitle()).append('|').append(describeFirstYear(series));
+			for (TridasValues group : series.getValues()) {
+				sb.append('|');
+				for (TridasValue value : group.getValues()) {
+					sb.append(value.getValue()).append(' ');
+				}
+			}
+			descriptions.add(sb.toString());
+		}
+		Collections.sort(descriptions);
+		return descriptions;
+	}
+	
+	/**
+	 * @param argSeries
+	 * @return first year and suffix of the series, or an empty string if it
+	 *         has none
+	 */
+	static String describeFirstYear(ITridasSeries argSeries) {
+		if (argSeries.getInterpretation() == null || argSeries.getInterpretation().getFirstYear() == null) {
+			return "";
+		}
+		Year year = argSeries.getInterpretation().getFirstYear();
+		return year.getValue() + " " + year.getSuffix();
+	}
 }
@@ -15,59 +15,113 @@
  */
 package org.tridas.io.maventests;
 
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.transform.stream.StreamSource;
 
 import junit.framework.TestCase;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.tridas.io.I18n;
-import org.tridas.io.TridasIO;
+import org.tridas.io.IDendroFile;
+import org.tridas.io.formats.tridas.TridasReader;
+import org.tridas.io.formats.tridas.TridasWriter;
 import org.tridas.io.transform.TridasVersionTransformer;
 import org.tridas.io.transform.TridasVersionTransformer.TridasVersion;
 import org.tridas.io.util.FileHelper;
+import org.tridas.io.util.TridasJAXBCache;
 
 public class TridasTransformTests extends TestCase {
-	private static final Logger log = LoggerFactory.getLogger(TridasTransformTests.class);
-
-	public void testStringResizing() {
-		String inputFile = "/home/pwb48/dev/java8/DendroFileIO/TestData/TRiDaS/1.2.3.xml";
-		TridasVersion outputVersion = TridasVersion.V_1_2_2;
-		
-		
-		FileHelper fileHelper = new FileHelper(inputFile);
-		log.debug("loading file: " + inputFile);
-		String[] strings = null;
-		try{
-			if (TridasIO.getReadingCharset() != null) {
-				strings = fileHelper.loadStrings(inputFile, TridasIO.getReadingCharset());
-			}
-			else {
-				if (TridasIO.isCharsetDetection()) {
-					strings = fileHelper.loadStringsFromDetectedCharset(inputFile);
-				}
-				else {
-					strings = fileHelper.loadStrings(inputFile);
-				}
-			}
-			if (strings == null) {
-				throw new IOException(I18n.getText("fileio.loadfailed"));
-			}
-			
-			TridasVersionTransformer.transformTridas(strings, outputVersion);
-
-			
-		} catch (UnsupportedEncodingException e){
-			
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+
+	private static String join(String[] argLines) {
+		StringBuilder sb = new StringBuilder();
+		for (String line : argLines) {
+			sb.append(line).append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static TridasReader read(String[] argLines, String argFilename) throws Exception {
+		TridasReader reader = new TridasReader();
+		reader.loadFile(argLines, argFilename);
+		return reader;
+	}
+
+	/**
+	 * Only the schema for the version used internally is shipped, so the file
+	 * must already be in that version
+	 */
+	private static void assertValid(String[] argLines) throws Exception {
+		assertEquals(TridasVersion.V_1_2_2, TridasVersionTransformer.getTridasVersionFromXMLStrings(argLines));
+		TridasJAXBCache.getValidator(TridasJAXBCache.TRIDAS_SCHEMA).validate(
+				new StreamSource(new StringReader(join(argLines))));
+	}
+
+	/**
+	 * The marshaller writes straight into the version transform, both when the
+	 * file is saved to strings and when it is streamed
+	 */
+	public void testWriteVersion123() throws Exception {
+		String filename = "TestData/TRiDaS/Utrecht.xml";
+		String[] original = new FileHelper().loadStrings(filename);
+		List<String> expected = TestToTridas.describeSeries(read(original, filename));
+		assertFalse(expected.isEmpty());
+
+		TridasWriter writer = new TridasWriter();
+		writer.setOutputVersion(TridasVersion.V_1_2_3);
+		writer.load(read(original, filename).getTridasContainer());
+		assertEquals(1, writer.getFiles().length);
+		IDendroFile file = writer.getFiles()[0];
+
+		String[] lines = file.saveToString();
+		assertEquals(TridasVersion.V_1_2_3, TridasVersionTransformer.getTridasVersionFromXMLStrings(lines));
+		String xml = join(lines);
+		assertTrue(xml.contains("\"http://www.tridas.org/1.2.3\""));
+		assertFalse(xml.contains("http://www.tridas.org/1.2.2"));
+
+		StringWriter streamed = new StringWriter();
+		file.writeTo(streamed);
+		assertEquals(Arrays.asList(lines), Arrays.asList(streamed.toString().split("\\n")));
+
+		String[] downgraded = TridasVersionTransformer.transformTridas(lines, TridasVersion.V_1_2_2);
+		assertValid(downgraded);
+		assertEquals(expected, TestToTridas.describeSeries(read(downgraded, filename)));
+		assertEquals(expected, TestToTridas.describeSeries(read(lines, filename)));
+	}
+
+	/**
+	 * elevation in 1.2.3 is altitude in 1.2.2
+	 */
+	public void testTransformBothWays() throws Exception {
+		String[] lines = new FileHelper().loadStrings("TestData/TRiDaS/1.2.3.xml");
+
+		String[] downgraded = TridasVersionTransformer.transformTridas(lines, TridasVersion.V_1_2_2);
+		assertEquals(TridasVersion.V_1_2_2, TridasVersionTransformer.getTridasVersionFromXMLStrings(downgraded));
+		assertTrue(join(downgraded).contains("altitude>"));
+		assertFalse(join(downgraded).contains("elevation>"));
+
+		String[] upgraded = TridasVersionTransformer.transformTridas(downgraded, TridasVersion.V_1_2_3);
+		assertEquals(TridasVersion.V_1_2_3, TridasVersionTransformer.getTridasVersionFromXMLStrings(upgraded));
+		assertTrue(join(upgraded).contains("elevation>"));
+		assertFalse(join(upgraded).contains("altitude>"));
+
+		assertEquals(Arrays.asList(downgraded),
+				Arrays.asList(TridasVersionTransformer.transformTridas(upgraded, TridasVersion.V_1_2_2)));
+	}
+
+	public void testSameVersionUntouched() throws Exception {
+		String[] lines = new FileHelper().loadStrings("TestData/TRiDaS/1.2.3.xml");
+		assertSame(lines, TridasVersionTransformer.transformTridas(lines, TridasVersion.V_1_2_3));
+	}
+
+	public void testUnsupportedVersion() throws Exception {
+		String[] lines = new FileHelper().loadStrings("TestData/TRiDaS/1.2.3.xml");
+		try {
+			TridasVersionTransformer.transformTridas(lines, TridasVersion.V_1_0);
+			fail();
 		} catch (Exception e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			// development versions aren't supported
 		}
-				
-		
 	}
 }
@@ -0,0 +1,226 @@
+/**
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tridas.io.maventests;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+import org.tridas.io.formats.tucson.TucsonLineScanner;
+
+/**
+ * {@link TucsonLineScanner} replaced the regular expressions TucsonReader used
+ * to classify lines, so every check must accept exactly the lines its
+ * expression did.
+ */
+public class TucsonLineScannerTest extends TestCase {
+
+	private static final String KEYCODE6 = "[\\w\\t -.]{6}";
+	private static final String KEYCODE8 = "[\\w\\t -.]{8}";
+	private static final String YEAR = "[\\t\\d -]{3}[\\d]{1}";
+	private static final String RWL_VAL = "[ -]{1}[\\t\\d -]{4}[\\d]{1}";
+	private static final String CRN_VAL = "[\\d ]{4}((\\d\\d\\d)|( \\d\\d)|(  \\d))";
+
+	// The expressions TucsonReader used, in the same order as scannerMatches()
+	private static final String[] REGEXES = new String[]{
+		"^" + KEYCODE6 + YEAR + "(" + RWL_VAL + "){10}",
+		"^" + KEYCODE6 + YEAR + RWL_VAL,
+		"^" + KEYCODE8 + YEAR + "(" + RWL_VAL + "){10}",
+		"^" + KEYCODE8 + YEAR + RWL_VAL,
+		"^" + KEYCODE6 + YEAR + "(" + CRN_VAL + "){10}",
+		"^" + KEYCODE8 + YEAR + "(" + CRN_VAL + "){10}",
+		"^[\\d\\w ]{7}[1 ][ ][^\\n]{52}[A-Z]{4}",
+		"^[\\d\\w ]{7}[2 ][ ][^\\n]{31}[ 0-9mMft.]{5}[ ]{2}[0-9\\t+\\- NWnw]{11}[ _]{9}[0-9 -]{4}[ ][0-9 -]{4}",
+		"^[\\d\\w ]{7}[3 ][ ][^\\n]{63}[\\d\\w /-]{8}"
+	};
+
+	private static final Pattern[] PATTERNS = new Pattern[REGEXES.length];
+	static {
+		for (int i = 0; i < REGEXES.length; i++) {
+			PATTERNS[i] = Pattern.compile(REGEXES[i], Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+		}
+	}
+
+	/**
+	 * Characters swapped into each column of the sample lines: the edges of
+	 * every character class the expressions use
+	 */
+	private static final char[] SUBSTITUTES = " \t\n-._/+!,0159aAzZmMfFtTnNwW\u00e9\u00a0".toCharArray();
+
+	private static boolean scannerMatches(int argType, String argLine) {
+		switch (argType) {
+			case 0 :
+				return TucsonLineScanner.isRWLData(argLine, 6, true);
+			case 1 :
+				return TucsonLineScanner.isRWLData(argLine, 6, false);
+			case 2 :
+				return TucsonLineScanner.isRWLData(argLine, 8, true);
+			case 3 :
+				return TucsonLineScanner.isRWLData(argLine, 8, false);
+			case 4 :
+				return TucsonLineScanner.isCRNData(argLine, 6);
+			case 5 :
+				return TucsonLineScanner.isCRNData(argLine, 8);
+			case 6 :
+				return TucsonLineScanner.isHeaderLine1(argLine);
+			case 7 :
+				return TucsonLineScanner.isHeaderLine2(argLine);
+			default :
+				return TucsonLineScanner.isHeaderLine3(argLine);
+		}
+	}
+
+	/**
+	 * @return the checks the line passes, as a string of 0s and 1s
+	 */
+	private static String classify(String argLine, boolean argScanner) {
+		StringBuilder sb = new StringBuilder();
+		for (int type = 0; type < REGEXES.length; type++) {
+			boolean match = argScanner ? scannerMatches(type, argLine) : PATTERNS[type].matcher(argLine).find();
+			sb.append(match ? '1' : '0');
+		}
+		return sb.toString();
+	}
+
+	private static void assertAgree(String argLine) {
+		assertEquals("'" + argLine + "'", classify(argLine, false), classify(argLine, true));
+	}
+
+	private static void assertMatches(String argExpected, String argLine) {
+		assertAgree(argLine);
+		assertEquals("'" + argLine + "'", argExpected, classify(argLine, true));
+	}
+
+	private static List<String> readTestData() throws Exception {
+		File[] files = new File("TestData/Tucson").listFiles();
+		assertNotNull(files);
+		Arrays.sort(files);
+		ArrayList<String> lines = new ArrayList<String>();
+		for (File file : files) {
+			if (file.isFile() && !file.getName().startsWith(".")) {
+				lines.addAll(Files.readAllLines(file.toPath(), StandardCharsets.ISO_8859_1));
+			}
+		}
+		assertFalse(lines.isEmpty());
+		return lines;
+	}
+
+	public void testTestData() throws Exception {
+		for (String line : readTestData()) {
+			assertAgree(line);
+		}
+	}
+
+	/**
+	 * Every prefix of every line, so each length check is hit
+	 */
+	public void testShortLines() throws Exception {
+		for (String line : readTestData()) {
+			for (int i = 0; i < line.length(); i++) {
+				assertAgree(line.substring(0, i));
+			}
+		}
+	}
+
+	/**
+	 * The first line of each kind in the test data, with every column swapped
+	 * in turn for each of the substitute characters
+	 */
+	public void testSubstitutedColumns() throws Exception {
+		ArrayList<String> samples = new ArrayList<String>();
+		String seen = "";
+		for (String line : readTestData()) {
+			String kind = classify(line, false);
+			if (kind.indexOf('1') != -1 && seen.indexOf(kind + ";") == -1) {
+				seen += kind + ";";
+				samples.add(line);
+			}
+		}
+		assertTrue(seen, samples.size() >= 4);
+
+		for (String line : samples) {
+			char[] chars = line.toCharArray();
+			for (int i = 0; i < chars.length; i++) {
+				char original = chars[i];
+				for (char c : SUBSTITUTES) {
+					chars[i] = c;
+					assertAgree(new String(chars));
+				}
+				chars[i] = original;
+			}
+		}
+	}
+
+	public void testKeycodeLengths() {
+		String values = "   394   370   351   330   264   254   259   196   185   152";
+		assertMatches("110000000", "ABC1231754" + values);
+		assertMatches("001100000", "ABC123  1754" + values);
+		assertMatches("001100000", "ABC12301" + "1754" + values);
+		// one value is enough for a partial line
+		assertMatches("010000000", "ABC1231754   394");
+		assertMatches("000100000", "ABC123  1754   394");
+	}
+
+	public void testNegativeYear() {
+		String values = "   394   370   351   330   264   254   259   196   185   152";
+		assertMatches("110000000", "ABC123-754" + values);
+		assertMatches("001100000", "ABC123  -754" + values);
+		assertMatches("001100000", "ABC123 -1754" + values);
+		assertAgree("ABC123-1754" + values);
+		assertAgree("ABC123 -1754" + values.substring(1));
+		// the last year character must be a digit
+		assertMatches("000000000", "ABC123  175-" + values);
+		assertMatches("000000000", "ABC123175-" + values);
+	}
+
+	public void testKeycodeCharacters() {
+		String values = "   394   370   351   330   264   254   259   196   185   152";
+		for (char c = 0; c < 128; c++) {
+			assertAgree(c + "BC1231754" + values);
+			assertAgree("ABC" + c + "23  1754" + values);
+		}
+		assertMatches("110000000", "!#$%&.1754" + values);
+		assertMatches("001100000", "!#$%&.,.1754" + values);
+		assertMatches("000000000", "/BC1231754" + values);
+		assertMatches("000000000", "ABC123 /1754" + values);
+	}
+
+	public void testTabs() {
+		assertAgree("538132\t1754\t394\t370\t351\t330\t264\t254\t259\t196\t185\t152");
+		assertAgree("538\t32  1754   394   370   351   330   264   254   259   196   185   152");
+		assertAgree("538132  1754 \t 394   370   351   330   264   254   259   196   185   152");
+		assertAgree("538132 \t1754   394");
+	}
+
+	public void testCRNCounts() {
+		String[] counts = {"  1", " 12", "123", "1 2", " 1 ", "12 ", "  a"};
+		for (String count : counts) {
+			StringBuilder line = new StringBuilder("107000  1370");
+			for (int i = 0; i < 10; i++) {
+				line.append(" 567").append(count);
+			}
+			assertAgree(line.toString());
+		}
+		assertMatches("000010000",
+				"1070001370 567  11115  1 798  11105  11407  1 398  1 436  1 543  1 490  1 225  1");
+	}
+}
@@ -46,6 +46,7 @@ import org.tridas.io.formats.tucson.TucsonWriter;
 import org.tridas.io.util.AstronomicalYear;
 import org.tridas.io.util.FilePermissionException;
 import org.tridas.io.util.SafeIntYear;
+import org.tridas.io.util.TridasJAXBCache;
 import org.tridas.schema.TridasObject;
 import org.tridas.schema.TridasTridas;
 import org.tridas.spatial.GMLPointSRSHandler;
@@ -175,6 +176,32 @@ public class UnitTest extends TestCase {
 	}
 
 	
+	public void testJAXBCacheIsShared() throws Exception
+	{
+		assertSame(TridasJAXBCache.getContext(), TridasJAXBCache.getContext());
+		assertSame(TridasJAXBCache.getSchema(TridasJAXBCache.TRIDAS_SCHEMA), 
+				TridasJAXBCache.getSchema(TridasJAXBCache.TRIDAS_SCHEMA));
+		
+		// Unmarshallers are reused within a thread but never shared between threads
+		final Unmarshaller mine = TridasJAXBCache.getUnmarshaller(null);
+		assertSame(mine, TridasJAXBCache.getUnmarshaller(null));
+		
+		final Unmarshaller[] theirs = new Unmarshaller[1];
+		Thread other = new Thread(new Runnable(){
+			public void run() {
+				try {
+					theirs[0] = TridasJAXBCache.getUnmarshaller(null);
+				} catch (JAXBException e) {
+					log.error(e.getLocalizedMessage());
+				}
+			}
+		});
+		other.start();
+		other.join();
+		assertNotNull(theirs[0]);
+		assertNotSame(mine, theirs[0]);
+	}
+	
 	public void testFileSizeCalc()
 	{
 